@@ -0,0 +1,123 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.io.anvil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading chunks from a {@link RegionFile} that is filled with
+ * compressible chunk data. The region file is shared between the benchmark
+ * threads, to measure the concurrent positional reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegionFileBenchmark {
+
+    // The amount of chunks in a region file
+    private static final int CHUNKS = 32 * 32;
+
+    @Param({ "4096", "65536" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean mapHeader;
+
+    private Path file;
+    private RegionFile regionFile;
+
+    @State(Scope.Thread)
+    public static class ReadBuffer {
+
+        final byte[] bytes = new byte[8192];
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        this.file = Files.createTempFile("region", ".mca");
+        this.regionFile = new RegionFile(this.file, 0, 0, this.mapHeader);
+
+        final Random random = new Random(7734L);
+        final byte[] data = new byte[this.size];
+        for (int i = 0; i < CHUNKS; i++) {
+            for (int j = 0; j < data.length; j++) {
+                data[j] = (byte) (random.nextInt(8) == 0 ? random.nextInt() : j / 128);
+            }
+            try (DataOutputStream dos = this.regionFile.getChunkDataOutputStream(i & 31, i >> 5)) {
+                dos.write(data);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.regionFile.close();
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public int read(ReadBuffer buffer) throws IOException {
+        final int index = ThreadLocalRandom.current().nextInt(CHUNKS);
+        int length = 0;
+        try (DataInputStream dis = this.regionFile.getChunkDataInputStream(index & 31, index >> 5)) {
+            int read;
+            while ((read = dis.read(buffer.bytes)) != -1) {
+                length += read;
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int readConcurrently(ReadBuffer buffer) throws IOException {
+        return read(buffer);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.persistence.nbt;
+
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.COMPOUND;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.END;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LIST;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.DataView;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing nbt data that is structured like a chunk
+ * in the anvil format, both through the data container streams and by
+ * streaming the tags with the {@link NbtStreamReader}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NbtBenchmark {
+
+    private static final DataQuery LEVEL = DataQuery.of("Level");
+
+    private DataContainer dataContainer;
+    private byte[] data;
+
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1 << 17);
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(4401L);
+        final List<DataView> sections = new ArrayList<>();
+        for (int y = 0; y < 16; y++) {
+            final DataContainer section = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
+            section.set(DataQuery.of("Y"), (byte) y);
+            section.set(DataQuery.of("Blocks"), randomBytes(random, 4096));
+            section.set(DataQuery.of("Data"), randomBytes(random, 2048));
+            section.set(DataQuery.of("BlockLight"), randomBytes(random, 2048));
+            section.set(DataQuery.of("SkyLight"), randomBytes(random, 2048));
+            sections.add(section);
+        }
+        final List<DataView> tileEntities = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            final DataContainer tileEntity = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
+            tileEntity.set(DataQuery.of("id"), "minecraft:chest");
+            tileEntity.set(DataQuery.of("x"), random.nextInt(16));
+            tileEntity.set(DataQuery.of("y"), random.nextInt(256));
+            tileEntity.set(DataQuery.of("z"), random.nextInt(16));
+            tileEntity.set(DataQuery.of("CustomName"), "Chest " + i);
+            tileEntities.add(tileEntity);
+        }
+        final int[] heightMap = new int[256];
+        for (int i = 0; i < heightMap.length; i++) {
+            heightMap[i] = random.nextInt(256);
+        }
+        this.dataContainer = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
+        this.dataContainer.createView(LEVEL)
+                .set(DataQuery.of("xPos"), 0)
+                .set(DataQuery.of("zPos"), 0)
+                .set(DataQuery.of("LastUpdate"), 2849L)
+                .set(DataQuery.of("TerrainPopulated"), (byte) 1)
+                .set(DataQuery.of("Biomes"), randomBytes(random, 256))
+                .set(DataQuery.of("HeightMap"), heightMap)
+                .set(DataQuery.of("Sections"), sections)
+                .set(DataQuery.of("TileEntities"), tileEntities);
+        this.data = write();
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private byte[] write() throws IOException {
+        this.outputStream.reset();
+        try (NbtDataContainerOutputStream output = new NbtDataContainerOutputStream(this.outputStream)) {
+            output.write(this.dataContainer);
+        }
+        return this.outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public int writeDataContainer() throws IOException {
+        return write().length;
+    }
+
+    @Benchmark
+    public DataContainer readDataContainer() throws IOException {
+        try (NbtDataContainerInputStream input = new NbtDataContainerInputStream(new ByteArrayInputStream(this.data))) {
+            return input.read();
+        }
+    }
+
+    @Benchmark
+    public int readStream() throws IOException {
+        try (NbtStreamReader reader = new NbtStreamReader(new ByteArrayInputStream(this.data))) {
+            // The root compound
+            reader.nextTag();
+            return readCompound(reader);
+        }
+    }
+
+    /**
+     * Reads all the tags of the current compound, nested compounds
+     * are streamed instead of being read into a {@link DataView}.
+     *
+     * @param reader The reader
+     * @return The amount of tags that were read
+     */
+    private static int readCompound(NbtStreamReader reader) throws IOException {
+        int tags = 0;
+        byte type;
+        while ((type = reader.nextTag()) != END) {
+            tags++;
+            if (type == COMPOUND) {
+                tags += readCompound(reader);
+            } else if (type == LIST) {
+                final int size = reader.readListHeader();
+                final byte listType = reader.getListType();
+                for (int i = 0; i < size; i++) {
+                    if (listType == COMPOUND) {
+                        tags += readCompound(reader);
+                    } else {
+                        reader.readValue(listType);
+                    }
+                }
+            } else {
+                reader.readValue(type);
+            }
+        }
+        return tags;
+    }
+}
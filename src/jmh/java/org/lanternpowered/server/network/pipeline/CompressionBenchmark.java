@@ -0,0 +1,170 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.pipeline;
+
+import static org.lanternpowered.server.network.buffer.LanternByteBuffer.writeVarInt;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compares the {@link MessageCompressionHandler} against the previous implementation
+ * which copied every message into a new byte array. The processed bytes are reported
+ * through the "bytes" counter, the allocation rate through the gc profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    private static final int COMPRESSION_THRESHOLD = 256;
+
+    @Param({ "512", "8192", "65536" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean direct;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+
+    private MessageCompressionHandler handler;
+    private Deflater legacyDeflater;
+
+    private ByteBuf content;
+    private ByteBuf compressedContent;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        this.handler = new MessageCompressionHandler(COMPRESSION_THRESHOLD);
+        this.legacyDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+        // Generate content that is compressible, similar to chunk data
+        final Random random = new Random(8472L);
+        final byte[] data = new byte[this.size];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextInt(16) == 0 ? random.nextInt() : i / 64);
+        }
+        this.content = this.direct ? this.alloc.directBuffer(this.size) : this.alloc.heapBuffer(this.size);
+        this.content.writeBytes(data);
+
+        final ByteBuf compressed = this.handler.compress(this.alloc, this.content);
+        this.compressedContent = this.direct ? this.alloc.directBuffer() : this.alloc.heapBuffer();
+        this.compressedContent.writeBytes(compressed);
+        compressed.release();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.content.release();
+        this.compressedContent.release();
+        this.legacyDeflater.end();
+    }
+
+    @Benchmark
+    public void compress(Counters counters) {
+        this.handler.compress(this.alloc, this.content.duplicate()).release();
+        counters.bytes += this.size;
+    }
+
+    @Benchmark
+    public void compressLegacy(Counters counters) {
+        legacyCompress(this.content.duplicate()).release();
+        counters.bytes += this.size;
+    }
+
+    @Benchmark
+    public void decompress(Counters counters) throws Exception {
+        this.handler.decompress(this.alloc, this.compressedContent.duplicate()).release();
+        counters.bytes += this.size;
+    }
+
+    /**
+     * The compression as it was implemented before the
+     * byte array round trips were removed.
+     */
+    private ByteBuf legacyCompress(ByteBuf msg) {
+        final ByteBuf prefixBuf = this.alloc.buffer(5);
+        final ByteBuf contentsBuf;
+
+        final int index = msg.readerIndex();
+        final int length = msg.readableBytes();
+
+        final byte[] sourceData = new byte[length];
+        msg.readBytes(sourceData);
+        this.legacyDeflater.setInput(sourceData);
+        this.legacyDeflater.finish();
+
+        final byte[] compressedData = new byte[length];
+        final int compressedLength = this.legacyDeflater.deflate(compressedData);
+        this.legacyDeflater.reset();
+
+        if (compressedLength == 0 || compressedLength >= length) {
+            writeVarInt(prefixBuf, 0);
+            msg.readerIndex(index);
+            msg.retain();
+            contentsBuf = msg;
+        } else {
+            writeVarInt(prefixBuf, length);
+            contentsBuf = Unpooled.wrappedBuffer(compressedData, 0, compressedLength);
+        }
+        return Unpooled.wrappedBuffer(prefixBuf, contentsBuf);
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.pipeline;
+
+import static org.lanternpowered.server.network.buffer.LanternByteBuffer.writeVarInt;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link MessageFramingHandler} through an {@link EmbeddedChannel}. The
+ * decode benchmark splits a buffer that contains multiple frames, like it would be
+ * received from the network.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FramingBenchmark {
+
+    // The amount of frames within the decoded buffer
+    private static final int FRAMES = 16;
+
+    @Param({ "32", "1024", "32768" })
+    public int size;
+
+    private EmbeddedChannel channel;
+
+    private ByteBuf content;
+    private ByteBuf framedContent;
+
+    @Setup
+    public void setup() {
+        this.channel = new EmbeddedChannel(new MessageFramingHandler());
+
+        final byte[] data = new byte[this.size];
+        new Random(1093L).nextBytes(data);
+        this.content = PooledByteBufAllocator.DEFAULT.directBuffer(this.size);
+        this.content.writeBytes(data);
+
+        this.framedContent = PooledByteBufAllocator.DEFAULT.directBuffer();
+        for (int i = 0; i < FRAMES; i++) {
+            writeVarInt(this.framedContent, this.size);
+            this.framedContent.writeBytes(data);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.channel.finishAndReleaseAll();
+        this.content.release();
+        this.framedContent.release();
+    }
+
+    @Benchmark
+    public void encode() {
+        this.channel.writeOutbound(this.content.retainedDuplicate());
+        ((ByteBuf) this.channel.readOutbound()).release();
+    }
+
+    @Benchmark
+    public void decode() {
+        this.channel.writeInbound(this.framedContent.retainedDuplicate());
+        ByteBuf frame;
+        while ((frame = this.channel.readInbound()) != null) {
+            frame.release();
+        }
+    }
+}
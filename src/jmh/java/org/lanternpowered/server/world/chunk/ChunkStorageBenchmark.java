@@ -0,0 +1,136 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_HEIGHT;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTIONS;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
+
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the block storage path of {@link LanternChunk#getType(int, int, int)} and
+ * {@link LanternChunk#setBlock(int, int, int, org.spongepowered.api.block.BlockState)}.
+ * A loaded chunk requires a world and the block registry, so the section lookup and
+ * the paletted type array are benchmarked the same way the chunk accesses them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkStorageBenchmark {
+
+    // The amount of random positions, must be a power of two
+    private static final int POSITIONS = 1 << 16;
+
+    /**
+     * The amount of different block types within the chunk,
+     * this determines the size of the section palettes.
+     */
+    @Param({ "4", "64", "1024" })
+    public int blockTypes;
+
+    private ConcurrentObjectArray<ChunkSection> sections;
+
+    private int[] positions;
+    private short[] types;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(2395L);
+        final ChunkSection[] sections = new ChunkSection[CHUNK_SECTIONS];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = new ChunkSection();
+        }
+        this.sections = new ConcurrentObjectArray<>(sections);
+
+        this.types = new short[this.blockTypes];
+        for (int i = 0; i < this.types.length; i++) {
+            this.types[i] = (short) ((i + 1) << 4);
+        }
+        this.positions = new int[POSITIONS];
+        for (int i = 0; i < this.positions.length; i++) {
+            this.positions[i] = random.nextInt(CHUNK_HEIGHT) << 8 | random.nextInt(16) << 4 | random.nextInt(16);
+        }
+        // Fill the chunk, so that the palettes are fully grown
+        for (ChunkSection section : sections) {
+            for (int i = 0; i < CHUNK_SECTION_VOLUME; i++) {
+                section.types.set(i, this.types[random.nextInt(this.types.length)] & 0xffff);
+            }
+        }
+    }
+
+    private int nextPosition() {
+        return this.positions[this.cursor++ & (POSITIONS - 1)];
+    }
+
+    @Benchmark
+    public short getType() {
+        final int position = nextPosition();
+        final int x = position & 0xf;
+        final int y = position >> 8;
+        final int z = (position >> 4) & 0xf;
+        return this.sections.work(y >> 4, section -> {
+            if (section != null) {
+                return (short) section.types.get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf));
+            }
+            return (short) 0;
+        }, false);
+    }
+
+    @Benchmark
+    public void setType() {
+        final int position = nextPosition();
+        final int x = position & 0xf;
+        final int y = position >> 8;
+        final int z = (position >> 4) & 0xf;
+        final short type = this.types[this.cursor % this.types.length];
+        this.sections.work(y >> 4, section -> {
+            final int index = ChunkSection.index(x, y & 0xf, z);
+            if ((short) section.types.get(index) != type) {
+                section.types.set(index, type & 0xffff);
+            }
+            return section;
+        });
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.loadtest;
+
+/**
+ * The behaviors that can be combined in the phases of a {@link BotScript}.
+ * Every behavior is applied once per client tick, which is 50 milliseconds.
+ */
+enum BotBehavior {
+    /**
+     * Walks in a direction at walking speed, the
+     * direction changes every few seconds.
+     */
+    WALK {
+        @Override
+        void tick(BotClient bot, int tick) {
+            if (tick % 100 == 0) {
+                bot.yaw = bot.random.nextFloat() * 360f;
+            }
+            bot.move(0.2, 0);
+        }
+    },
+    /**
+     * Flies in a direction at sprint flying speed while going up
+     * and down, this forces the server to stream a lot of chunks.
+     */
+    FLY {
+        @Override
+        void start(BotClient bot) {
+            bot.sendFlying(true);
+        }
+
+        @Override
+        void tick(BotClient bot, int tick) {
+            if (tick % 200 == 0) {
+                bot.yaw = bot.random.nextFloat() * 360f;
+            }
+            bot.move(1.0, Math.sin(tick / 40.0) * 0.5);
+        }
+
+        @Override
+        void stop(BotClient bot) {
+            bot.sendFlying(false);
+        }
+    },
+    /**
+     * Places a block next to the client and breaks
+     * it again, once every second.
+     */
+    BUILD {
+        @Override
+        void tick(BotClient bot, int tick) {
+            if (tick % 20 == 0) {
+                bot.placeBlock();
+            } else if (tick % 20 == 10) {
+                bot.breakBlock();
+            }
+        }
+    },
+    /**
+     * Sends a chat message every ten seconds.
+     */
+    CHAT {
+        @Override
+        void tick(BotClient bot, int tick) {
+            if (tick % 200 == 0) {
+                bot.sendChat("Load test message " + (tick / 200) + " from " + bot.getName());
+            }
+        }
+    };
+
+    /**
+     * Is called when a phase with this behavior starts.
+     *
+     * @param bot The bot client
+     */
+    void start(BotClient bot) {
+    }
+
+    /**
+     * Is called every client tick while a phase with this behavior is active.
+     *
+     * @param bot The bot client
+     * @param tick The tick within the phase
+     */
+    abstract void tick(BotClient bot, int tick);
+
+    /**
+     * Is called when a phase with this behavior ends.
+     *
+     * @param bot The bot client
+     */
+    void stop(BotClient bot) {
+    }
+}
@@ -0,0 +1,472 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.loadtest;
+
+import static org.lanternpowered.server.network.buffer.LanternByteBuffer.readVarInt;
+import static org.lanternpowered.server.network.buffer.LanternByteBuffer.writeVarInt;
+
+import com.google.gson.JsonObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.lanternpowered.server.network.message.CodecRegistration;
+import org.lanternpowered.server.network.message.MessageRegistry;
+import org.lanternpowered.server.network.pipeline.MessageCompressionHandler;
+import org.lanternpowered.server.network.pipeline.MessageFramingHandler;
+import org.lanternpowered.server.network.pipeline.NoopHandler;
+import org.lanternpowered.server.network.protocol.Protocol;
+import org.lanternpowered.server.network.protocol.ProtocolState;
+import org.lanternpowered.server.network.vanilla.message.codec.connection.CodecInOutKeepAlive;
+import org.lanternpowered.server.network.vanilla.message.codec.connection.CodecOutDisconnect;
+import org.lanternpowered.server.network.vanilla.message.codec.handshake.CodecHandshakeIn;
+import org.lanternpowered.server.network.vanilla.message.codec.login.CodecLoginInStart;
+import org.lanternpowered.server.network.vanilla.message.codec.login.CodecLoginOutEncryptionRequest;
+import org.lanternpowered.server.network.vanilla.message.codec.login.CodecLoginOutSetCompression;
+import org.lanternpowered.server.network.vanilla.message.codec.login.CodecLoginOutSuccess;
+import org.lanternpowered.server.network.vanilla.message.codec.play.CodecPlayInChatMessage;
+import org.lanternpowered.server.network.vanilla.message.codec.play.CodecPlayInClientSettings;
+import org.lanternpowered.server.network.vanilla.message.codec.play.CodecPlayInPlayerAbilities;
+import org.lanternpowered.server.network.vanilla.message.codec.play.CodecPlayInPlayerBlockPlacement;
+import org.lanternpowered.server.network.vanilla.message.codec.play.CodecPlayInPlayerDigging;
+import org.lanternpowered.server.network.vanilla.message.codec.play.CodecPlayInPlayerMovementAndLook;
+import org.lanternpowered.server.network.vanilla.message.codec.play.CodecPlayInTeleportConfirm;
+import org.lanternpowered.server.network.vanilla.message.codec.play.CodecPlayOutPlayerPositionAndLook;
+import org.lanternpowered.server.network.vanilla.message.codec.play.CodecPlayOutWorldTime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+/**
+ * A headless client that logs into the server and executes a {@link BotScript}.
+ * <p>
+ * The server codecs only decode serverbound messages, so the bot writes and reads
+ * the raw packets itself. The packet ids are resolved through the protocol registries,
+ * so they stay in sync with the server. The server must run in offline mode.
+ */
+final class BotClient extends SimpleChannelInboundHandler<ByteBuf> {
+
+    private static final int LOGIN_STATE = 2;
+
+    // Serverbound packets
+    private static final int HANDSHAKE = serverbound(ProtocolState.HANDSHAKE, CodecHandshakeIn.class);
+    private static final int LOGIN_START = serverbound(ProtocolState.LOGIN, CodecLoginInStart.class);
+    private static final int TELEPORT_CONFIRM = serverbound(ProtocolState.PLAY, CodecPlayInTeleportConfirm.class);
+    private static final int CHAT_MESSAGE = serverbound(ProtocolState.PLAY, CodecPlayInChatMessage.class);
+    private static final int CLIENT_SETTINGS = serverbound(ProtocolState.PLAY, CodecPlayInClientSettings.class);
+    private static final int KEEP_ALIVE_IN = serverbound(ProtocolState.PLAY, CodecInOutKeepAlive.class);
+    private static final int MOVEMENT_AND_LOOK = serverbound(ProtocolState.PLAY, CodecPlayInPlayerMovementAndLook.class);
+    private static final int ABILITIES = serverbound(ProtocolState.PLAY, CodecPlayInPlayerAbilities.class);
+    private static final int DIGGING = serverbound(ProtocolState.PLAY, CodecPlayInPlayerDigging.class);
+    private static final int BLOCK_PLACEMENT = serverbound(ProtocolState.PLAY, CodecPlayInPlayerBlockPlacement.class);
+
+    // Clientbound packets
+    private static final int LOGIN_DISCONNECT = clientbound(ProtocolState.LOGIN, CodecOutDisconnect.class);
+    private static final int ENCRYPTION_REQUEST = clientbound(ProtocolState.LOGIN, CodecLoginOutEncryptionRequest.class);
+    private static final int LOGIN_SUCCESS = clientbound(ProtocolState.LOGIN, CodecLoginOutSuccess.class);
+    private static final int SET_COMPRESSION = clientbound(ProtocolState.LOGIN, CodecLoginOutSetCompression.class);
+    private static final int PLAY_DISCONNECT = clientbound(ProtocolState.PLAY, CodecOutDisconnect.class);
+    private static final int KEEP_ALIVE_OUT = clientbound(ProtocolState.PLAY, CodecInOutKeepAlive.class);
+    private static final int POSITION_AND_LOOK = clientbound(ProtocolState.PLAY, CodecPlayOutPlayerPositionAndLook.class);
+    private static final int WORLD_TIME = clientbound(ProtocolState.PLAY, CodecPlayOutWorldTime.class);
+
+    private static final String[] LOGIN_PACKET_NAMES = clientboundNames(ProtocolState.LOGIN);
+    private static final String[] PLAY_PACKET_NAMES = clientboundNames(ProtocolState.PLAY);
+
+    private static int serverbound(ProtocolState state, Class<?> codecType) {
+        return find(state.getProtocol().inbound(), codecType);
+    }
+
+    private static int clientbound(ProtocolState state, Class<?> codecType) {
+        return find(state.getProtocol().outbound(), codecType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int find(MessageRegistry registry, Class<?> codecType) {
+        final Optional<CodecRegistration> registration = registry.find((Class) codecType);
+        return registration.orElseThrow(() -> new IllegalStateException(
+                "The codec " + codecType.getName() + " isn't registered.")).getOpcode();
+    }
+
+    private static String[] clientboundNames(ProtocolState state) {
+        final String[] names = new String[256];
+        for (int opcode = 0; opcode < names.length; opcode++) {
+            names[opcode] = state.getProtocol().outbound().find(opcode)
+                    .map(registration -> registration.getCodec().getClass().getSimpleName())
+                    .orElse("Unknown" + opcode);
+        }
+        return names;
+    }
+
+    private final String name;
+    private final String host;
+    private final int port;
+    private final int viewDistance;
+    private final BotScript script;
+    private final LoadTestStatistics statistics;
+    final Random random;
+
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder packetsIn = new LongAdder();
+    private final LongAdder packetsOut = new LongAdder();
+
+    private volatile long connectTime;
+    private volatile long disconnectTime;
+    @Nullable private volatile String disconnectReason;
+
+    @Nullable private ChannelHandlerContext context;
+    @Nullable private ScheduledFuture<?> tickTask;
+    private boolean play;
+
+    // The position of the player, only available after the first teleport
+    private boolean positioned;
+    private double x;
+    private double y;
+    private double z;
+    float yaw;
+    private float pitch;
+
+    private int phaseIndex;
+    private int phaseTick;
+
+    // The last received world age, used to observe the tick rate
+    private long lastWorldAge = -1;
+    private long lastWorldAgeTime;
+
+    BotClient(String name, String host, int port, int viewDistance, BotScript script,
+            LoadTestStatistics statistics, long seed) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.viewDistance = viewDistance;
+        this.script = script;
+        this.statistics = statistics;
+        this.random = new Random(seed);
+    }
+
+    String getName() {
+        return this.name;
+    }
+
+    /**
+     * Creates the {@link ChannelInitializer} that sets
+     * up the pipeline of this bot client.
+     *
+     * @return The channel initializer
+     */
+    ChannelInitializer<SocketChannel> createInitializer() {
+        return new ChannelInitializer<SocketChannel>() {
+            @Override
+            protected void initChannel(SocketChannel ch) throws Exception {
+                ch.pipeline()
+                        .addLast("traffic", new TrafficHandler())
+                        .addLast("framing", new MessageFramingHandler())
+                        .addLast("compression", NoopHandler.INSTANCE)
+                        .addLast("bot", BotClient.this);
+            }
+        };
+    }
+
+    /**
+     * Counts the bytes that are actually send over the wire.
+     */
+    private final class TrafficHandler extends ChannelDuplexHandler {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof ByteBuf) {
+                final int bytes = ((ByteBuf) msg).readableBytes();
+                bytesIn.add(bytes);
+                statistics.bytesIn.add(bytes);
+            }
+            super.channelRead(ctx, msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof ByteBuf) {
+                final int bytes = ((ByteBuf) msg).readableBytes();
+                bytesOut.add(bytes);
+                statistics.bytesOut.add(bytes);
+            }
+            super.write(ctx, msg, promise);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        this.context = ctx;
+        this.connectTime = System.currentTimeMillis();
+        this.statistics.onConnect();
+
+        ByteBuf buf = newPacket(HANDSHAKE);
+        writeVarInt(buf, Protocol.CURRENT_VERSION);
+        writeString(buf, this.host);
+        buf.writeShort(this.port);
+        writeVarInt(buf, LOGIN_STATE);
+        send(buf, "CodecHandshakeIn");
+
+        buf = newPacket(LOGIN_START);
+        writeString(buf, this.name);
+        send(buf, "CodecLoginInStart");
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (this.tickTask != null) {
+            this.tickTask.cancel(false);
+        }
+        this.disconnectTime = System.currentTimeMillis();
+        this.statistics.onDisconnect();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        disconnect("Exception: " + cause);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
+        final int bytes = msg.readableBytes();
+        final int opcode = readVarInt(msg);
+        this.packetsIn.increment();
+        if (this.play) {
+            this.statistics.recordInbound(PLAY_PACKET_NAMES[opcode & 0xff], bytes);
+            handlePlay(ctx, opcode, msg);
+        } else {
+            this.statistics.recordInbound(LOGIN_PACKET_NAMES[opcode & 0xff], bytes);
+            handleLogin(ctx, opcode, msg);
+        }
+    }
+
+    private void handleLogin(ChannelHandlerContext ctx, int opcode, ByteBuf buf) {
+        if (opcode == SET_COMPRESSION) {
+            final int threshold = readVarInt(buf);
+            ctx.pipeline().replace("compression", "compression", threshold >= 0 ?
+                    new MessageCompressionHandler(threshold) : NoopHandler.INSTANCE);
+        } else if (opcode == LOGIN_SUCCESS) {
+            this.play = true;
+            final ByteBuf settings = newPacket(CLIENT_SETTINGS);
+            writeString(settings, "en_us");
+            settings.writeByte(this.viewDistance);
+            settings.writeByte(0); // Chat visibility: full
+            settings.writeBoolean(true); // Chat colors
+            settings.writeByte(0x7f); // All the skin parts
+            writeVarInt(settings, 1); // Main hand: right
+            send(settings, "CodecPlayInClientSettings");
+            this.tickTask = ctx.executor().scheduleAtFixedRate(this::tick, 50, 50, TimeUnit.MILLISECONDS);
+        } else if (opcode == LOGIN_DISCONNECT) {
+            disconnect(readString(buf));
+        } else if (opcode == ENCRYPTION_REQUEST) {
+            disconnect("The server must run in offline mode.");
+        }
+    }
+
+    private void handlePlay(ChannelHandlerContext ctx, int opcode, ByteBuf buf) {
+        if (opcode == KEEP_ALIVE_OUT) {
+            final ByteBuf keepAlive = newPacket(KEEP_ALIVE_IN);
+            keepAlive.writeLong(buf.readLong());
+            send(keepAlive, "CodecInOutKeepAlive");
+        } else if (opcode == POSITION_AND_LOOK) {
+            final double x = buf.readDouble();
+            final double y = buf.readDouble();
+            final double z = buf.readDouble();
+            final float yaw = buf.readFloat();
+            final float pitch = buf.readFloat();
+            final int flags = buf.readByte();
+            final int teleportId = readVarInt(buf);
+            this.x = (flags & 0x01) != 0 ? this.x + x : x;
+            this.y = (flags & 0x02) != 0 ? this.y + y : y;
+            this.z = (flags & 0x04) != 0 ? this.z + z : z;
+            this.pitch = (flags & 0x08) != 0 ? this.pitch + pitch : pitch;
+            this.yaw = (flags & 0x10) != 0 ? this.yaw + yaw : yaw;
+            this.positioned = true;
+            final ByteBuf confirm = newPacket(TELEPORT_CONFIRM);
+            writeVarInt(confirm, teleportId);
+            send(confirm, "CodecPlayInTeleportConfirm");
+            sendPosition();
+        } else if (opcode == WORLD_TIME) {
+            final long age = buf.readLong();
+            final long now = System.nanoTime();
+            if (this.lastWorldAge != -1) {
+                this.statistics.recordTicks(age - this.lastWorldAge, now - this.lastWorldAgeTime);
+            }
+            this.lastWorldAge = age;
+            this.lastWorldAgeTime = now;
+        } else if (opcode == PLAY_DISCONNECT) {
+            disconnect(readString(buf));
+        }
+    }
+
+    private void tick() {
+        final BotScript.Phase phase = this.script.getPhases().get(this.phaseIndex);
+        if (this.phaseTick == 0) {
+            phase.behaviors.forEach(behavior -> behavior.start(this));
+        }
+        if (this.positioned) {
+            for (BotBehavior behavior : phase.behaviors) {
+                behavior.tick(this, this.phaseTick);
+            }
+            sendPosition();
+        }
+        if (++this.phaseTick >= phase.duration) {
+            phase.behaviors.forEach(behavior -> behavior.stop(this));
+            this.phaseIndex = (this.phaseIndex + 1) % this.script.getPhases().size();
+            this.phaseTick = 0;
+        }
+    }
+
+    /**
+     * Moves the bot in the direction it's facing.
+     *
+     * @param distance The horizontal distance
+     * @param dy The vertical distance
+     */
+    void move(double distance, double dy) {
+        final double angle = Math.toRadians(this.yaw);
+        this.x -= Math.sin(angle) * distance;
+        this.z += Math.cos(angle) * distance;
+        this.y = Math.max(0, this.y + dy);
+    }
+
+    private void sendPosition() {
+        final ByteBuf buf = newPacket(MOVEMENT_AND_LOOK);
+        buf.writeDouble(this.x);
+        buf.writeDouble(this.y);
+        buf.writeDouble(this.z);
+        buf.writeFloat(this.yaw);
+        buf.writeFloat(this.pitch);
+        buf.writeBoolean(true);
+        send(buf, "CodecPlayInPlayerMovementAndLook");
+    }
+
+    void sendFlying(boolean flying) {
+        final ByteBuf buf = newPacket(ABILITIES);
+        buf.writeByte(flying ? 0x02 : 0);
+        buf.writeFloat(0.05f);
+        buf.writeFloat(0.1f);
+        send(buf, "CodecPlayInPlayerAbilities");
+    }
+
+    void sendChat(String message) {
+        final ByteBuf buf = newPacket(CHAT_MESSAGE);
+        writeString(buf, message);
+        send(buf, "CodecPlayInChatMessage");
+    }
+
+    void placeBlock() {
+        final ByteBuf buf = newPacket(BLOCK_PLACEMENT);
+        buf.writeLong(targetBlock(-1));
+        writeVarInt(buf, 1); // Face: up
+        writeVarInt(buf, 0); // Hand: main hand
+        buf.writeFloat(0.5f);
+        buf.writeFloat(1.0f);
+        buf.writeFloat(0.5f);
+        send(buf, "CodecPlayInPlayerBlockPlacement");
+    }
+
+    void breakBlock() {
+        for (int action : new int[] { 0, 2 }) { // Start and finish digging
+            final ByteBuf buf = newPacket(DIGGING);
+            buf.writeByte(action);
+            buf.writeLong(targetBlock(0));
+            buf.writeByte(1); // Face: up
+            send(buf, "CodecPlayInPlayerDigging");
+        }
+    }
+
+    /**
+     * Gets the encoded position of the block next to the bot.
+     *
+     * @param dy The vertical offset
+     * @return The encoded block position
+     */
+    private long targetBlock(int dy) {
+        final long x = (long) Math.floor(this.x) + 1;
+        final long y = (long) Math.floor(this.y) + dy;
+        final long z = (long) Math.floor(this.z);
+        return ((x & 0x3ffffff) << 38) | ((y & 0xfff) << 26) | (z & 0x3ffffff);
+    }
+
+    void disconnect(String reason) {
+        this.disconnectReason = reason;
+        if (this.context != null) {
+            this.context.close();
+        }
+    }
+
+    private ByteBuf newPacket(int opcode) {
+        final ByteBuf buf = this.context.alloc().buffer();
+        writeVarInt(buf, opcode);
+        return buf;
+    }
+
+    private void send(ByteBuf buf, String type) {
+        this.packetsOut.increment();
+        this.statistics.recordOutbound(type, buf.readableBytes());
+        this.context.writeAndFlush(buf, this.context.voidPromise());
+    }
+
+    private static void writeString(ByteBuf buf, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(buf, bytes.length);
+        buf.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuf buf) {
+        final int length = readVarInt(buf);
+        final String value = buf.toString(buf.readerIndex(), length, StandardCharsets.UTF_8);
+        buf.skipBytes(length);
+        return value;
+    }
+
+    JsonObject toJson() {
+        final JsonObject json = new JsonObject();
+        json.addProperty("name", this.name);
+        json.addProperty("connectTime", this.connectTime);
+        if (this.disconnectTime != 0) {
+            json.addProperty("disconnectTime", this.disconnectTime);
+        }
+        if (this.disconnectReason != null) {
+            json.addProperty("disconnectReason", this.disconnectReason);
+        }
+        json.addProperty("bytesIn", this.bytesIn.sum());
+        json.addProperty("bytesOut", this.bytesOut.sum());
+        json.addProperty("packetsIn", this.packetsIn.sum());
+        json.addProperty("packetsOut", this.packetsOut.sum());
+        return json;
+    }
+}
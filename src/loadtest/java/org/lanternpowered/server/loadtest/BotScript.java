@@ -0,0 +1,109 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.loadtest;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A script of phases that every bot client cycles through. A script is
+ * formatted as comma separated phases, every phase is a set of behaviors
+ * joined by a plus sign optionally followed by the duration in ticks, for
+ * example {@code walk+chat:600,fly:300}.
+ */
+final class BotScript {
+
+    private static final int DEFAULT_PHASE_DURATION = 600;
+
+    static BotScript parse(String value) {
+        final ImmutableList.Builder<Phase> phases = ImmutableList.builder();
+        for (String phase : value.split(",")) {
+            phase = phase.trim();
+            if (phase.isEmpty()) {
+                continue;
+            }
+            int duration = DEFAULT_PHASE_DURATION;
+            final int index = phase.indexOf(':');
+            if (index != -1) {
+                duration = Integer.parseInt(phase.substring(index + 1).trim());
+                checkArgument(duration > 0, "The phase duration must be greater than 0: %s", phase);
+                phase = phase.substring(0, index);
+            }
+            final Set<BotBehavior> behaviors = EnumSet.noneOf(BotBehavior.class);
+            for (String behavior : phase.split("\\+")) {
+                behavior = behavior.trim();
+                if (!behavior.isEmpty() && !behavior.equalsIgnoreCase("idle")) {
+                    behaviors.add(BotBehavior.valueOf(behavior.toUpperCase(Locale.ENGLISH)));
+                }
+            }
+            phases.add(new Phase(Sets.immutableEnumSet(behaviors), duration));
+        }
+        final List<Phase> list = phases.build();
+        checkArgument(!list.isEmpty(), "The script must contain at least one phase: %s", value);
+        return new BotScript(value, list);
+    }
+
+    private final String value;
+    private final List<Phase> phases;
+
+    private BotScript(String value, List<Phase> phases) {
+        this.value = value;
+        this.phases = phases;
+    }
+
+    /**
+     * Gets the {@link Phase}s of this script, in order.
+     *
+     * @return The phases
+     */
+    List<Phase> getPhases() {
+        return this.phases;
+    }
+
+    @Override
+    public String toString() {
+        return this.value;
+    }
+
+    static final class Phase {
+
+        final Set<BotBehavior> behaviors;
+        final int duration;
+
+        Phase(Set<BotBehavior> behaviors, int duration) {
+            this.behaviors = Collections.unmodifiableSet(behaviors);
+            this.duration = duration;
+        }
+    }
+}
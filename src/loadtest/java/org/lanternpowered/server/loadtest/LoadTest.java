@@ -0,0 +1,198 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.loadtest;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import joptsimple.OptionSpec;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connects a configurable amount of {@link BotClient}s to a running server and lets them
+ * execute a {@link BotScript} for a fixed duration. The bot names, the ramp-up and the
+ * movement are all derived from the seed, which makes the runs reproducible.
+ * <p>
+ * A summary is printed to the console every few seconds, a full report is written
+ * to a json file at the end of the run.
+ */
+public final class LoadTest {
+
+    private static final long REPORT_INTERVAL = TimeUnit.SECONDS.toMillis(5);
+
+    public static void main(String[] args) throws Exception {
+        final OptionParser parser = new OptionParser();
+        final OptionSpec<String> host = parser.accepts("host", "The host of the server")
+                .withRequiredArg().defaultsTo("localhost");
+        final OptionSpec<Integer> port = parser.accepts("port", "The port of the server")
+                .withRequiredArg().ofType(Integer.class).defaultsTo(25565);
+        final OptionSpec<Integer> clients = parser.accepts("clients", "The amount of clients")
+                .withRequiredArg().ofType(Integer.class).defaultsTo(50);
+        final OptionSpec<Integer> duration = parser.accepts("duration", "The duration of the test in seconds")
+                .withRequiredArg().ofType(Integer.class).defaultsTo(120);
+        final OptionSpec<Integer> rampUp = parser.accepts("ramp-up", "The delay between two connects in milliseconds")
+                .withRequiredArg().ofType(Integer.class).defaultsTo(100);
+        final OptionSpec<String> script = parser.accepts("script", "The script that every client executes")
+                .withRequiredArg().defaultsTo("walk+chat:600,fly:300,build:300");
+        final OptionSpec<Long> seed = parser.accepts("seed", "The seed of the random behavior")
+                .withRequiredArg().ofType(Long.class).defaultsTo(0L);
+        final OptionSpec<Integer> viewDistance = parser.accepts("view-distance", "The view distance of the clients")
+                .withRequiredArg().ofType(Integer.class).defaultsTo(10);
+        final OptionSpec<String> report = parser.accepts("report", "The file the json report is written to")
+                .withRequiredArg();
+        final OptionSpec<Void> help = parser.acceptsAll(Arrays.asList("help", "h", "?"),
+                "Show this help text").forHelp();
+
+        final OptionSet options = parser.parse(args);
+        if (options.has(help)) {
+            parser.printHelpOn(System.err);
+            return;
+        }
+
+        final BotScript botScript = BotScript.parse(options.valueOf(script));
+        final LoadTestStatistics statistics = new LoadTestStatistics();
+        final List<BotClient> botClients = new ArrayList<>();
+        final EventLoopGroup eventLoopGroup = new NioEventLoopGroup();
+        final Bootstrap bootstrap = new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true);
+
+        System.out.printf("Starting the load test against %s:%s with %s clients for %s seconds, script: %s%n",
+                options.valueOf(host), options.valueOf(port), options.valueOf(clients), options.valueOf(duration), botScript);
+
+        final long start = System.currentTimeMillis();
+        final long end = start + TimeUnit.SECONDS.toMillis(options.valueOf(duration));
+        final Reporter reporter = new Reporter(statistics);
+        try {
+            for (int i = 0; i < options.valueOf(clients) && System.currentTimeMillis() < end; i++) {
+                final BotClient client = new BotClient("Bot" + i, options.valueOf(host), options.valueOf(port),
+                        options.valueOf(viewDistance), botScript, statistics, options.valueOf(seed) * 31 + i);
+                botClients.add(client);
+                bootstrap.clone()
+                        .handler(client.createInitializer())
+                        .connect(options.valueOf(host), options.valueOf(port))
+                        .addListener(future -> {
+                            if (!future.isSuccess()) {
+                                statistics.onFailure();
+                                client.disconnect("Failed to connect: " + future.cause());
+                            }
+                        });
+                reporter.poll();
+                Thread.sleep(options.valueOf(rampUp));
+            }
+            long now;
+            while ((now = System.currentTimeMillis()) < end) {
+                reporter.poll();
+                Thread.sleep(Math.min(1000, end - now));
+            }
+            botClients.forEach(client -> client.disconnect("The load test ended."));
+        } finally {
+            eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+        }
+
+        final long elapsed = System.currentTimeMillis() - start;
+        reporter.print();
+        System.out.printf("Finished the load test in %s seconds.%n", elapsed / 1000);
+        if (options.has(report)) {
+            writeReport(Paths.get(options.valueOf(report)), statistics.toJson(botClients, elapsed));
+        }
+    }
+
+    private static void writeReport(Path path, JsonObject json) throws IOException {
+        final Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(json, writer);
+        }
+        System.out.printf("Written the report to %s%n", path);
+    }
+
+    /**
+     * Prints the throughput since the last report to the console.
+     */
+    private static final class Reporter {
+
+        private final LoadTestStatistics statistics;
+
+        private long lastTime = System.currentTimeMillis();
+        private long lastBytesIn;
+        private long lastBytesOut;
+        private long lastPacketsIn;
+        private long lastPacketsOut;
+
+        private Reporter(LoadTestStatistics statistics) {
+            this.statistics = statistics;
+        }
+
+        void poll() {
+            if (System.currentTimeMillis() - this.lastTime >= REPORT_INTERVAL) {
+                print();
+            }
+        }
+
+        void print() {
+            final long now = System.currentTimeMillis();
+            final double seconds = Math.max(1, now - this.lastTime) / 1000.0;
+            final long bytesIn = this.statistics.bytesIn.sum();
+            final long bytesOut = this.statistics.bytesOut.sum();
+            final long packetsIn = this.statistics.packetsIn.sum();
+            final long packetsOut = this.statistics.packetsOut.sum();
+            System.out.println(String.format(Locale.ENGLISH,
+                    "Clients: %d, In: %.1f KB/s (%.0f packets/s), Out: %.1f KB/s (%.0f packets/s), " +
+                            "Tick: %.2f ms (max %.2f ms), TPS: %.2f",
+                    this.statistics.getConnected(),
+                    (bytesIn - this.lastBytesIn) / 1024.0 / seconds, (packetsIn - this.lastPacketsIn) / seconds,
+                    (bytesOut - this.lastBytesOut) / 1024.0 / seconds, (packetsOut - this.lastPacketsOut) / seconds,
+                    this.statistics.getMeanTickTime(), this.statistics.getMaxTickTime(), this.statistics.getTicksPerSecond()));
+            this.lastTime = now;
+            this.lastBytesIn = bytesIn;
+            this.lastBytesOut = bytesOut;
+            this.lastPacketsIn = packetsIn;
+            this.lastPacketsOut = packetsOut;
+        }
+    }
+}
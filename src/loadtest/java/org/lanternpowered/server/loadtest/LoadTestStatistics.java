@@ -0,0 +1,197 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics that are collected by all the {@link BotClient}s of a load test.
+ * <p>
+ * The server tick time can't be measured directly by a client, instead it is derived
+ * from the world age that is send by the server in the time update messages.
+ */
+final class LoadTestStatistics {
+
+    static final class PacketStatistics {
+
+        final LongAdder count = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+
+        void record(int bytes) {
+            this.count.increment();
+            this.bytes.add(bytes);
+        }
+
+        JsonObject toJson() {
+            final JsonObject json = new JsonObject();
+            json.addProperty("count", this.count.sum());
+            json.addProperty("bytes", this.bytes.sum());
+            return json;
+        }
+    }
+
+    private final AtomicInteger connected = new AtomicInteger();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();
+    final LongAdder packetsIn = new LongAdder();
+    final LongAdder packetsOut = new LongAdder();
+
+    private final Map<String, PacketStatistics> inboundPackets = new ConcurrentHashMap<>();
+    private final Map<String, PacketStatistics> outboundPackets = new ConcurrentHashMap<>();
+
+    // The observed ticks and the wall time they took, in nanoseconds
+    private final LongAdder observedTicks = new LongAdder();
+    private final LongAdder observedTickTime = new LongAdder();
+    private final LongAccumulator maxTickTime = new LongAccumulator(Math::max, 0);
+
+    void onConnect() {
+        this.connected.incrementAndGet();
+        this.connects.increment();
+    }
+
+    void onDisconnect() {
+        this.connected.decrementAndGet();
+        this.disconnects.increment();
+    }
+
+    void onFailure() {
+        this.failures.increment();
+    }
+
+    int getConnected() {
+        return this.connected.get();
+    }
+
+    void recordInbound(String type, int bytes) {
+        this.packetsIn.increment();
+        this.inboundPackets.computeIfAbsent(type, key -> new PacketStatistics()).record(bytes);
+    }
+
+    void recordOutbound(String type, int bytes) {
+        this.packetsOut.increment();
+        this.outboundPackets.computeIfAbsent(type, key -> new PacketStatistics()).record(bytes);
+    }
+
+    /**
+     * Records that the world age advanced the given
+     * amount of ticks within the given time.
+     *
+     * @param ticks The amount of ticks
+     * @param nanos The elapsed time in nanoseconds
+     */
+    void recordTicks(long ticks, long nanos) {
+        if (ticks <= 0) {
+            return;
+        }
+        this.observedTicks.add(ticks);
+        this.observedTickTime.add(nanos);
+        this.maxTickTime.accumulate(nanos / ticks);
+    }
+
+    /**
+     * Gets the average observed time of a server tick, in milliseconds.
+     *
+     * @return The average tick time
+     */
+    double getMeanTickTime() {
+        final long ticks = this.observedTicks.sum();
+        return ticks == 0 ? 0 : this.observedTickTime.sum() / (double) ticks / 1000000.0;
+    }
+
+    /**
+     * Gets the worst observed average tick time between two time updates, in milliseconds.
+     *
+     * @return The maximum tick time
+     */
+    double getMaxTickTime() {
+        return this.maxTickTime.get() / 1000000.0;
+    }
+
+    /**
+     * Gets the observed ticks per second.
+     *
+     * @return The ticks per second
+     */
+    double getTicksPerSecond() {
+        final double tickTime = getMeanTickTime();
+        return tickTime == 0 ? 0 : Math.min(20.0, 1000.0 / tickTime);
+    }
+
+    JsonObject toJson(Collection<BotClient> clients, long durationMillis) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("durationMillis", durationMillis);
+
+        final JsonObject connections = new JsonObject();
+        connections.addProperty("connects", this.connects.sum());
+        connections.addProperty("disconnects", this.disconnects.sum());
+        connections.addProperty("failures", this.failures.sum());
+        json.add("connections", connections);
+
+        final JsonObject ticks = new JsonObject();
+        ticks.addProperty("meanTickTimeMillis", getMeanTickTime());
+        ticks.addProperty("maxTickTimeMillis", getMaxTickTime());
+        ticks.addProperty("ticksPerSecond", getTicksPerSecond());
+        json.add("ticks", ticks);
+
+        final JsonObject traffic = new JsonObject();
+        traffic.addProperty("bytesIn", this.bytesIn.sum());
+        traffic.addProperty("bytesOut", this.bytesOut.sum());
+        traffic.addProperty("packetsIn", this.packetsIn.sum());
+        traffic.addProperty("packetsOut", this.packetsOut.sum());
+        traffic.add("inbound", toJson(this.inboundPackets));
+        traffic.add("outbound", toJson(this.outboundPackets));
+        json.add("traffic", traffic);
+
+        final JsonArray clientsArray = new JsonArray();
+        for (BotClient client : clients) {
+            clientsArray.add(client.toJson());
+        }
+        json.add("clients", clientsArray);
+        return json;
+    }
+
+    private static JsonObject toJson(Map<String, PacketStatistics> packets) {
+        final JsonObject json = new JsonObject();
+        // Sort the packet types to keep the reports comparable
+        for (Map.Entry<String, PacketStatistics> entry : new TreeMap<>(packets).entrySet()) {
+            json.add(entry.getKey(), entry.getValue().toJson());
+        }
+        return json;
+    }
+}
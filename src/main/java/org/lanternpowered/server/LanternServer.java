@@ -55,6 +55,8 @@
 import org.lanternpowered.server.service.CloseableService;
 import org.lanternpowered.server.service.LanternServiceManager;
 import org.lanternpowered.server.text.LanternTexts;
+import org.lanternpowered.server.timings.LanternTimings;
+import org.lanternpowered.server.timings.LanternTimingsFactory;
 import org.lanternpowered.server.util.SecurityHelper;
 import org.lanternpowered.server.util.ShutdownMonitorThread;
 import org.lanternpowered.server.world.LanternWorldManager;
@@ -273,6 +275,9 @@ void start() throws IOException {
             }
         }
 
+        // Apply the timings settings
+        LanternTimingsFactory.INSTANCE.init(config);
+
         final String resourcePackPath = config.getDefaultResourcePack();
         if (!resourcePackPath.isEmpty()) {
             try {
@@ -365,14 +370,31 @@ private void bindRcon() {
      * Pulses (ticks) the game.
      */
     private void pulse() {
+        LanternTimings.SERVER_TICK.startTiming();
         this.runningTimeTicks.incrementAndGet();
         // Pulse the network sessions
+        LanternTimings.NETWORK_SESSIONS.startTiming();
         this.networkManager.pulseSessions();
+        LanternTimings.NETWORK_SESSIONS.stopTiming();
         // Pulse the sync scheduler tasks
+        LanternTimings.SCHEDULER.startTiming();
         this.game.getScheduler().pulseSyncScheduler();
+        LanternTimings.SCHEDULER.stopTiming();
         // Pulse the world threads
+        LanternTimings.WORLDS.startTiming();
         this.worldManager.pulse();
+        LanternTimings.WORLDS.stopTiming();
+        LanternTimings.ADVANCEMENTS.startTiming();
         AdvancementTrees.INSTANCE.pulse();
+        LanternTimings.ADVANCEMENTS.stopTiming();
+        // Flush all the messages that were batched by the main thread, the worlds
+        // are ticked asynchronously and flush their players at the end of their tick
+        LanternTimings.NETWORK_FLUSH.startTiming();
+        this.networkManager.flushSessions();
+        LanternTimings.NETWORK_FLUSH.stopTiming();
+        LanternTimings.SERVER_TICK.stopTiming();
+        // Move the timings of this tick into the history
+        LanternTimingsFactory.INSTANCE.tick();
     }
 
     /**
@@ -26,24 +26,41 @@
 package org.lanternpowered.server.block;
 
 import com.google.common.base.MoreObjects;
-import org.lanternpowered.server.game.LanternGame;
+import org.lanternpowered.server.util.collect.TimingWheel;
 import org.spongepowered.api.block.ScheduledBlockUpdate;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
+import javax.annotation.Nullable;
+
 public class LanternScheduledBlockUpdate implements ScheduledBlockUpdate, Comparable<LanternScheduledBlockUpdate> {
 
+    // The states of a scheduled block update, updates without
+    // a state are suspended and not present in the wheel
+    static final int STATE_NONE = 0;
+    static final int STATE_SCHEDULED = 1;
+    static final int STATE_DUE = 2;
+    static final int STATE_DONE = 3;
+
+    private final ScheduledBlockUpdateWheel wheel;
     private final Location<World> location;
+    private final long entryId;
 
-    private long endTicks;
-    private int priority;
-    private int entryId;
+    private volatile int priority;
 
-    public LanternScheduledBlockUpdate(int entryId, Location<World> location, int ticks, int priority) {
-        this.setTicks(ticks);
-        this.priority = priority;
+    // The following fields are guarded by the wheel
+
+    long dueTick;
+    int state = STATE_NONE;
+
+    // The entry of this update within the timing wheel, reused when rescheduled
+    @Nullable TimingWheel.Entry<LanternScheduledBlockUpdate> entry;
+
+    LanternScheduledBlockUpdate(ScheduledBlockUpdateWheel wheel, long entryId, Location<World> location, int priority) {
         this.location = location;
+        this.priority = priority;
         this.entryId = entryId;
+        this.wheel = wheel;
     }
 
     @Override
@@ -53,12 +70,12 @@ public Location<World> getLocation() {
 
     @Override
     public int getTicks() {
-        return (int) (this.endTicks - LanternGame.currentTimeTicks());
+        return this.wheel.getRemainingTicks(this);
     }
 
     @Override
     public void setTicks(int ticks) {
-        this.endTicks = LanternGame.currentTimeTicks() + ticks;
+        this.wheel.reschedule(this, ticks);
     }
 
     @Override
@@ -73,22 +90,10 @@ public void setPriority(int priority) {
 
     @Override
     public int compareTo(LanternScheduledBlockUpdate o) {
-        if (this.endTicks < o.endTicks) {
-            return -1;
-        }
-        if (this.endTicks > o.endTicks) {
-            return 1;
-        }
         if (this.priority != o.priority) {
-            return this.priority - o.priority;
-        }
-        if (this.entryId < o.entryId) {
-            return -1;
-        }
-        if (this.entryId > o.entryId) {
-            return 1;
+            return Integer.compare(this.priority, o.priority);
         }
-        return 0;
+        return Long.compare(this.entryId, o.entryId);
     }
 
     @Override
@@ -0,0 +1,288 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.block;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.lanternpowered.server.behavior.Behavior;
+import org.lanternpowered.server.behavior.BehaviorContextImpl;
+import org.lanternpowered.server.behavior.ContextKeys;
+import org.lanternpowered.server.behavior.pipeline.BehaviorPipeline;
+import org.lanternpowered.server.behavior.pipeline.SubBehaviorPipeline;
+import org.lanternpowered.server.block.behavior.types.ScheduledUpdateBehavior;
+import org.lanternpowered.server.event.CauseStack;
+import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.util.collect.TimingWheel;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds all the {@link LanternScheduledBlockUpdate}s of a {@link LanternWorld}
+ * within a {@link TimingWheel} that advances one unit every tick. Inserting and
+ * cancelling updates are constant time operations, and only the slots that
+ * are due are processed every tick.
+ */
+public final class ScheduledBlockUpdateWheel {
+
+    private final LanternWorld world;
+    private final int maxUpdatesPerTick;
+    private final TimingWheel<LanternScheduledBlockUpdate> wheel = new TimingWheel<>(0L);
+
+    // The updates that are due, but couldn't be processed yet because
+    // the limit of updates per tick was reached
+    private final ArrayDeque<LanternScheduledBlockUpdate> dueUpdates = new ArrayDeque<>();
+
+    private long entryCounter;
+    private int size;
+
+    public ScheduledBlockUpdateWheel(LanternWorld world, int maxUpdatesPerTick) {
+        this.maxUpdatesPerTick = maxUpdatesPerTick;
+        this.world = world;
+    }
+
+    /**
+     * Gets the amount of updates that are pending.
+     *
+     * @return The amount of updates
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Schedules a new update at the given location.
+     *
+     * @param location The location
+     * @param priority The priority, lower values are processed first
+     * @param ticks The amount of ticks before the update is processed
+     * @return The scheduled update
+     */
+    public synchronized LanternScheduledBlockUpdate schedule(Location<World> location, int priority, int ticks) {
+        final LanternScheduledBlockUpdate update = new LanternScheduledBlockUpdate(this, this.entryCounter++, location, priority);
+        update.dueTick = this.wheel.getTime() + Math.max(1, ticks);
+        insert(update);
+        this.size++;
+        return update;
+    }
+
+    /**
+     * Creates a new suspended update at the given location, the
+     * update will be scheduled when it's resumed.
+     *
+     * @param location The location
+     * @param priority The priority, lower values are processed first
+     * @param ticks The amount of ticks before the update is processed once resumed
+     * @return The suspended update
+     */
+    public synchronized LanternScheduledBlockUpdate createSuspended(Location<World> location, int priority, int ticks) {
+        final LanternScheduledBlockUpdate update = new LanternScheduledBlockUpdate(this, this.entryCounter++, location, priority);
+        update.dueTick = Math.max(1, ticks);
+        return update;
+    }
+
+    /**
+     * Suspends the given update, removing it from the wheel but keeping
+     * track of the remaining ticks. This is used when a chunk is unloaded.
+     *
+     * @param update The update
+     */
+    public synchronized void suspend(LanternScheduledBlockUpdate update) {
+        if (update.state == LanternScheduledBlockUpdate.STATE_SCHEDULED) {
+            unlink(update);
+        } else if (update.state == LanternScheduledBlockUpdate.STATE_DUE) {
+            this.dueUpdates.remove(update);
+        } else {
+            return;
+        }
+        update.dueTick = Math.max(1L, update.dueTick - this.wheel.getTime());
+        update.state = LanternScheduledBlockUpdate.STATE_NONE;
+        this.size--;
+    }
+
+    /**
+     * Resumes the given suspended update.
+     *
+     * @param update The update
+     */
+    public synchronized void resume(LanternScheduledBlockUpdate update) {
+        if (update.state != LanternScheduledBlockUpdate.STATE_NONE) {
+            return;
+        }
+        update.dueTick += this.wheel.getTime();
+        insert(update);
+        this.size++;
+    }
+
+    /**
+     * Cancels the given update, nothing will happen if
+     * the update was already processed or cancelled.
+     *
+     * @param update The update
+     * @return Whether the update was cancelled
+     */
+    public synchronized boolean cancel(LanternScheduledBlockUpdate update) {
+        if (update.state == LanternScheduledBlockUpdate.STATE_SCHEDULED) {
+            unlink(update);
+        } else if (update.state == LanternScheduledBlockUpdate.STATE_NONE) {
+            // Suspended updates aren't counted
+            update.state = LanternScheduledBlockUpdate.STATE_DONE;
+            return true;
+        } else if (update.state != LanternScheduledBlockUpdate.STATE_DUE) {
+            return false;
+        }
+        // Due updates are skipped when they are polled
+        update.state = LanternScheduledBlockUpdate.STATE_DONE;
+        this.size--;
+        return true;
+    }
+
+    synchronized void reschedule(LanternScheduledBlockUpdate update, int ticks) {
+        if (update.state == LanternScheduledBlockUpdate.STATE_SCHEDULED) {
+            unlink(update);
+        } else if (update.state == LanternScheduledBlockUpdate.STATE_DUE) {
+            // Remove the update from the due queue, this is a rare case
+            this.dueUpdates.remove(update);
+        } else {
+            if (update.state == LanternScheduledBlockUpdate.STATE_NONE) {
+                update.dueTick = Math.max(1, ticks);
+            }
+            return;
+        }
+        update.dueTick = this.wheel.getTime() + Math.max(1, ticks);
+        insert(update);
+    }
+
+    synchronized int getRemainingTicks(LanternScheduledBlockUpdate update) {
+        if (update.state == LanternScheduledBlockUpdate.STATE_NONE) {
+            // Suspended updates store the remaining ticks
+            return (int) update.dueTick;
+        } else if (update.state == LanternScheduledBlockUpdate.STATE_DONE) {
+            return 0;
+        }
+        return (int) Math.max(0L, update.dueTick - this.wheel.getTime());
+    }
+
+    private void insert(LanternScheduledBlockUpdate update) {
+        if (update.entry == null) {
+            update.entry = this.wheel.add(update, update.dueTick);
+        } else {
+            this.wheel.reschedule(update.entry, update.dueTick);
+        }
+        update.state = LanternScheduledBlockUpdate.STATE_SCHEDULED;
+    }
+
+    private void unlink(LanternScheduledBlockUpdate update) {
+        if (update.entry != null) {
+            this.wheel.remove(update.entry);
+        }
+    }
+
+    /**
+     * Advances the wheel by one tick and polls all the due updates
+     * until the limit of updates per tick is reached. Updates that are
+     * due within the same tick are ordered by their priority.
+     *
+     * @return The updates that should be processed
+     */
+    synchronized List<LanternScheduledBlockUpdate> poll() {
+        final List<LanternScheduledBlockUpdate> expired = new ArrayList<>();
+        this.wheel.advance(this.wheel.getTime() + 1, update -> {
+            update.state = LanternScheduledBlockUpdate.STATE_DUE;
+            expired.add(update);
+        });
+        if (!expired.isEmpty()) {
+            // Process the updates of the same tick in order of their priority
+            Collections.sort(expired);
+            this.dueUpdates.addAll(expired);
+        }
+        final List<LanternScheduledBlockUpdate> updates = new ArrayList<>();
+        LanternScheduledBlockUpdate update;
+        while (updates.size() < this.maxUpdatesPerTick && (update = this.dueUpdates.poll()) != null) {
+            // The update was cancelled
+            if (update.state != LanternScheduledBlockUpdate.STATE_DUE) {
+                continue;
+            }
+            update.state = LanternScheduledBlockUpdate.STATE_DONE;
+            this.size--;
+            updates.add(update);
+        }
+        return updates;
+    }
+
+    /**
+     * Pulses the wheel, all the due updates will be processed
+     * until the limit of updates per tick is reached.
+     */
+    public void pulse() {
+        final List<LanternScheduledBlockUpdate> updates = poll();
+        if (updates.isEmpty()) {
+            return;
+        }
+        final CauseStack causeStack = CauseStack.current();
+        for (LanternScheduledBlockUpdate update : updates) {
+            try {
+                process(causeStack, update);
+            } catch (Throwable t) {
+                final Vector3i pos = update.getLocation().getBlockPosition();
+                Lantern.getLogger().error("Failed to process the scheduled block update at ({};{};{}) in the world {}",
+                        pos.getX(), pos.getY(), pos.getZ(), this.world.getName(), t);
+            }
+        }
+    }
+
+    private void process(CauseStack causeStack, LanternScheduledBlockUpdate update) {
+        final Location<World> location = update.getLocation();
+        final Vector3i pos = location.getBlockPosition();
+        final LanternChunk chunk = this.world.getChunkManager().getChunkIfLoaded(pos.getX() >> 4, pos.getZ() >> 4);
+        if (chunk == null) {
+            return;
+        }
+        chunk.getScheduledBlockUpdates().remove(update);
+        final LanternBlockType blockType = (LanternBlockType) chunk.getBlockType(pos.getX(), pos.getY(), pos.getZ());
+        final BehaviorPipeline<Behavior> pipeline = blockType.getPipeline();
+        final SubBehaviorPipeline<ScheduledUpdateBehavior> subPipeline = pipeline.pipeline(ScheduledUpdateBehavior.class);
+        if (subPipeline.getBehaviors().isEmpty()) {
+            return;
+        }
+        try (CauseStack.Frame frame = causeStack.pushCauseFrame()) {
+            frame.pushCause(update);
+            frame.addContext(ContextKeys.BLOCK_LOCATION, location);
+            frame.addContext(ContextKeys.BLOCK_TYPE, blockType);
+            final BehaviorContextImpl context = new BehaviorContextImpl(causeStack);
+            if (context.process(subPipeline, (ctx, behavior) -> behavior.tryScheduledUpdate(pipeline, ctx)).isSuccess()) {
+                context.accept();
+            } else {
+                context.revert();
+            }
+        }
+    }
+}
@@ -29,12 +29,16 @@
 
 import com.google.common.base.MoreObjects;
 import org.lanternpowered.server.catalog.PluginCatalogType;
+import org.lanternpowered.server.timings.LanternTiming;
+import org.lanternpowered.server.timings.LanternTimings;
 import org.spongepowered.api.block.tileentity.TileEntity;
 import org.spongepowered.api.block.tileentity.TileEntityType;
 
 import java.lang.reflect.Field;
 import java.util.function.Supplier;
 
+import javax.annotation.Nullable;
+
 public final class LanternTileEntityType extends PluginCatalogType.Base implements TileEntityType {
 
     private static final Field BYPASS_FIELD;
@@ -86,6 +90,8 @@ private static Class<? extends TileEntity> getClass(Supplier<? extends TileEntit
 
     private final Class<? extends TileEntity> tileEntityClass;
     private final Supplier<TileEntity> tileEntityConstructor;
+    // The timing of the tile entity pulses, lazily initialized
+    @Nullable private LanternTiming pulseTiming;
 
     private LanternTileEntityType(String pluginId, String name, Class<? extends TileEntity> tileEntityClass,
             Supplier<TileEntity> tileEntityConstructor) {
@@ -106,6 +112,19 @@ public Class<? extends TileEntity> getTileEntityType() {
         return this.tileEntityClass;
     }
 
+    /**
+     * Gets the {@link LanternTiming} that is used to
+     * time the pulses of this tile entity type.
+     *
+     * @return The timing
+     */
+    public LanternTiming getPulseTiming() {
+        if (this.pulseTiming == null) {
+            this.pulseTiming = LanternTimings.ofTileEntity(this);
+        }
+        return this.pulseTiming;
+    }
+
     @Override
     protected MoreObjects.ToStringHelper toStringHelper() {
         return super.toStringHelper().add("tileEntityClass", this.tileEntityClass);
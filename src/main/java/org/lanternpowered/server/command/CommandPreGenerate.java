@@ -0,0 +1,109 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.command;
+
+import static org.lanternpowered.server.text.translation.TranslationHelper.t;
+
+import com.flowpowered.math.vector.Vector2i;
+import com.flowpowered.math.vector.Vector3i;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.pregen.LanternWorldPreGenerator;
+import org.spongepowered.api.command.CommandException;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.args.GenericArguments;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.api.text.Text;
+
+public final class CommandPreGenerate extends CommandProvider {
+
+    public CommandPreGenerate() {
+        super(4, "pregenerate");
+    }
+
+    @Override
+    public void completeSpec(PluginContainer pluginContainer, CommandSpec.Builder specBuilder) {
+        specBuilder
+                .description(t("commands.pregenerate.description"))
+                .child(CommandSpec.builder()
+                        .arguments(
+                                GenericArguments.flags()
+                                        .valueFlag(GenericArguments.world(CommandHelper.WORLD_KEY), "-world", "w")
+                                        .buildWith(GenericArguments.none()),
+                                GenericArguments.integer(Text.of("radius")),
+                                GenericArguments.optional(GenericArguments.integer(Text.of("threads")))
+                        )
+                        .executor((src, args) -> {
+                            final LanternWorld world = CommandHelper.getWorld(src, args);
+                            final int radius = args.<Integer>getOne("radius").get();
+                            final int threads = args.<Integer>getOne("threads").orElseGet(
+                                    () -> Runtime.getRuntime().availableProcessors());
+                            if (radius < 0 || threads <= 0) {
+                                throw new CommandException(t("commands.pregenerate.invalid"));
+                            }
+                            if (world.getPreGenerator().isPresent()) {
+                                throw new CommandException(t("commands.pregenerate.running", world.getName()));
+                            }
+                            final Vector3i spawn = world.getProperties().getSpawnPosition();
+                            final LanternWorldPreGenerator preGenerator = world.startPreGenerator(
+                                    new Vector2i(spawn.getX() >> 4, spawn.getZ() >> 4), radius, threads);
+                            src.sendMessage(t("commands.pregenerate.started", preGenerator.getChunkCount(), world.getName()));
+                            return CommandResult.success();
+                        })
+                        .build(), "start")
+                .child(CommandSpec.builder()
+                        .arguments(
+                                GenericArguments.flags()
+                                        .valueFlag(GenericArguments.world(CommandHelper.WORLD_KEY), "-world", "w")
+                                        .buildWith(GenericArguments.none())
+                        )
+                        .executor((src, args) -> {
+                            final LanternWorld world = CommandHelper.getWorld(src, args);
+                            final LanternWorldPreGenerator preGenerator = world.getPreGenerator().orElseThrow(
+                                    () -> new CommandException(t("commands.pregenerate.not_running", world.getName())));
+                            preGenerator.cancel();
+                            src.sendMessage(t("commands.pregenerate.cancelled", world.getName()));
+                            return CommandResult.success();
+                        })
+                        .build(), "cancel")
+                .child(CommandSpec.builder()
+                        .arguments(
+                                GenericArguments.flags()
+                                        .valueFlag(GenericArguments.world(CommandHelper.WORLD_KEY), "-world", "w")
+                                        .buildWith(GenericArguments.none())
+                        )
+                        .executor((src, args) -> {
+                            final LanternWorld world = CommandHelper.getWorld(src, args);
+                            final LanternWorldPreGenerator preGenerator = world.getPreGenerator().orElseThrow(
+                                    () -> new CommandException(t("commands.pregenerate.not_running", world.getName())));
+                            src.sendMessage(t("commands.pregenerate.status", world.getName(),
+                                    preGenerator.getProcessedChunks(), preGenerator.getChunkCount(),
+                                    String.format("%.1f", preGenerator.getChunksPerSecond())));
+                            return CommandResult.success();
+                        })
+                        .build(), "status");
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.command;
+
+import static org.lanternpowered.server.text.translation.TranslationHelper.t;
+
+import org.lanternpowered.server.timings.LanternTimingsFactory;
+import org.spongepowered.api.command.CommandResult;
+import org.spongepowered.api.command.spec.CommandSpec;
+import org.spongepowered.api.plugin.PluginContainer;
+
+public final class CommandTimings extends CommandProvider {
+
+    public CommandTimings() {
+        super(4, "timings");
+    }
+
+    @Override
+    public void completeSpec(PluginContainer pluginContainer, CommandSpec.Builder specBuilder) {
+        final LanternTimingsFactory factory = LanternTimingsFactory.INSTANCE;
+        specBuilder
+                .description(t("commands.timings.description"))
+                .child(CommandSpec.builder()
+                        .executor((src, args) -> {
+                            factory.setTimingsEnabled(true);
+                            src.sendMessage(t("commands.timings.enabled"));
+                            return CommandResult.success();
+                        })
+                        .build(), "on")
+                .child(CommandSpec.builder()
+                        .executor((src, args) -> {
+                            factory.setTimingsEnabled(false);
+                            src.sendMessage(t("commands.timings.disabled"));
+                            return CommandResult.success();
+                        })
+                        .build(), "off")
+                .child(CommandSpec.builder()
+                        .executor((src, args) -> {
+                            final boolean verbose = !factory.isVerboseTimingsEnabled();
+                            factory.setVerboseTimingsEnabled(verbose);
+                            src.sendMessage(t(verbose ? "commands.timings.verbose.enabled" : "commands.timings.verbose.disabled"));
+                            return CommandResult.success();
+                        })
+                        .build(), "verbose")
+                .child(CommandSpec.builder()
+                        .executor((src, args) -> {
+                            factory.reset();
+                            src.sendMessage(t("commands.timings.reset"));
+                            return CommandResult.success();
+                        })
+                        .build(), "reset")
+                .child(CommandSpec.builder()
+                        .executor((src, args) -> {
+                            factory.generateReport(src);
+                            return CommandResult.success();
+                        })
+                        .build(), "report");
+    }
+}
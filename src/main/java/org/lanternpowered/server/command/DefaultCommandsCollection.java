@@ -76,6 +76,7 @@ public void load() {
         commandProviders.put(this.minecraft, new CommandParticle());
         commandProviders.put(this.implementation, new CommandParticleEffect());
         commandProviders.put(this.minecraft, new CommandPlaySound());
+        commandProviders.put(this.implementation, new CommandPreGenerate());
         commandProviders.put(this.minecraft, new CommandSay());
         commandProviders.put(this.minecraft, new CommandScoreboard());
         commandProviders.put(this.implementation, new CommandSetData());
@@ -86,6 +87,7 @@ public void load() {
         commandProviders.put(this.minecraft, new CommandTeleport());
         commandProviders.put(this.minecraft, new CommandTell());
         commandProviders.put(this.minecraft, new CommandTime());
+        commandProviders.put(this.implementation, new CommandTimings());
         commandProviders.put(this.minecraft, new CommandTitle());
         commandProviders.put(this.minecraft, new CommandToggleDownfall());
         commandProviders.put(this.minecraft, new CommandTp());
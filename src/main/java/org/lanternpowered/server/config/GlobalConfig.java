@@ -86,6 +86,26 @@ private GlobalConfig(@Named(DirectoryKeys.CONFIG) Path configFolder) throws IOEx
     @Setting(value = "chat", comment = "Configuration for the chat.")
     private Chat chat = new Chat();
 
+    @Setting(value = "timings", comment = "Configuration for the timings (tick profiler).")
+    private Timings timings = new Timings();
+
+    @ConfigSerializable
+    private static final class Timings {
+
+        @Setting(value = ENABLED, comment = "Whether the timings should be enabled on startup.")
+        private boolean enabled = false;
+
+        @Setting(value = "verbose", comment = "Whether the verbose timings should be enabled, these\n" +
+                "include the timings of individual tile entity types.")
+        private boolean verbose = false;
+
+        @Setting(value = "history-interval", comment = "The amount of ticks that will be merged into one history entry.")
+        private int historyInterval = 1;
+
+        @Setting(value = "history-length", comment = "The amount of ticks that will be kept in the history.")
+        private int historyLength = 1200;
+    }
+
     @ConfigSerializable
     private static class Commands {
 
@@ -169,6 +189,21 @@ private static final class Server {
         @Setting(value = "network-compression-threshold")
         private int networkCompressionThreshold = 256;
 
+        @Setting(value = "network-compression-level", comment =
+                "The level of the network compression, ranging from 0 (no compression)\n " +
+                "to 9 (best compression). -1 uses the default compression level.")
+        private int networkCompressionLevel = -1;
+
+        @Setting(value = "network-batched-writes", comment =
+                "Whether the outbound messages should be batched and flushed\n " +
+                "once at the end of every tick, instead of one by one.")
+        private boolean networkBatchedWrites = true;
+
+        @Setting(value = "network-auto-flush-threshold", comment =
+                "The amount of bytes after which the batched messages will be flushed\n " +
+                "before the end of the tick, a value smaller or equal to 0 disables the check.")
+        private int networkAutoFlushThreshold = 65536;
+
         @Setting(value = "chat-spam-threshold", comment =
                 "The minimum time between messages (in milliseconds) when they will be considered spam.")
         private int chatSpamThreshold = 200;
@@ -341,6 +376,18 @@ public int getNetworkCompressionThreshold() {
         return this.server.networkCompressionThreshold;
     }
 
+    public int getNetworkCompressionLevel() {
+        return this.server.networkCompressionLevel;
+    }
+
+    public boolean isNetworkBatchedWrites() {
+        return this.server.networkBatchedWrites;
+    }
+
+    public int getNetworkAutoFlushThreshold() {
+        return this.server.networkAutoFlushThreshold;
+    }
+
     public int getRconPort() {
         return this.rcon.port;
     }
@@ -421,4 +468,20 @@ public boolean useQueryEpollWhenAvailable() {
     public String getDefaultResourcePack() {
         return this.server.defaultResourcePack;
     }
+
+    public boolean isTimingsEnabled() {
+        return this.timings.enabled;
+    }
+
+    public boolean isVerboseTimingsEnabled() {
+        return this.timings.verbose;
+    }
+
+    public int getTimingsHistoryInterval() {
+        return this.timings.historyInterval;
+    }
+
+    public int getTimingsHistoryLength() {
+        return this.timings.historyLength;
+    }
 }
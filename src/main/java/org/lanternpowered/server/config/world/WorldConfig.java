@@ -58,8 +58,40 @@ private static class Chunks {
                 "Controls the number threshold at which the chunk data message\n " +
                 "is preferred over the multi block change message.")
         private int clumpingThreshold = 64;
+
+        @Setting(value = "loading-workers", comment =
+                "The amount of threads that load and generate chunks. Queued chunks\n " +
+                "are processed in order of the distance to the closest player.")
+        private int loadingWorkers = 4;
+    }
+
+    @Setting(value = "region-ticking", comment = "The settings for ticking regions of this world in parallel.")
+    private RegionTicking regionTicking = new RegionTicking();
+
+    @ConfigSerializable
+    private static class RegionTicking {
+
+        @Setting(value = "enabled", comment =
+                "Enable to tick the entities and tile entities of this world per region,\n " +
+                "regions that aren't adjacent to each other will be ticked in parallel.")
+        private boolean enabled = false;
+
+        @Setting(value = "region-size", comment =
+                "The size of a region in chunks. Interactions between entities\n " +
+                "shouldn't exceed the size of a region.")
+        private int regionSize = 8;
+
+        @Setting(value = "parallelism", comment =
+                "The amount of threads that tick the regions, use 0 to\n " +
+                "use the amount of available processors.")
+        private int parallelism = 0;
     }
 
+    @Setting(value = "max-scheduled-block-updates", comment =
+            "The maximum amount of scheduled block updates that will be processed\n " +
+            "per tick, the remaining updates will be delayed to the next tick.")
+    private int maxScheduledBlockUpdates = 65536;
+
     @Setting(value = "pvp-enabled", comment = "Enable if this world allows PVP combat.")
     private boolean pvpEnabled = true;
 
@@ -125,6 +157,26 @@ public int getChunkClumpingThreshold() {
         return this.chunks.clumpingThreshold;
     }
 
+    public boolean isRegionTickingEnabled() {
+        return this.regionTicking.enabled;
+    }
+
+    public int getRegionTickingSize() {
+        return this.regionTicking.regionSize;
+    }
+
+    public int getRegionTickingParallelism() {
+        return this.regionTicking.parallelism;
+    }
+
+    public int getChunkLoadingWorkers() {
+        return this.chunks.loadingWorkers;
+    }
+
+    public int getMaxScheduledBlockUpdates() {
+        return this.maxScheduledBlockUpdates;
+    }
+
     public GameMode getGameMode() {
         return this.gameMode.mode;
     }
@@ -142,7 +142,7 @@ default boolean supports(Key<?> key) {
         checkNotNull(key, "key");
 
         // Check the local key registration
-        final KeyRegistration<?, ?> localKeyRegistration = (KeyRegistration<?, ?>) getValueCollection().get((Key) key).orElse(null);
+        final KeyRegistration<?, ?> localKeyRegistration = (KeyRegistration<?, ?>) getValueCollection().getOrNull((Key) key);
         if (localKeyRegistration != null) {
             return ((Processor<BaseValue<?>, ?>) localKeyRegistration).isApplicableTo(this);
         }
@@ -173,7 +173,7 @@ default <E> Optional<E> get(Key<? extends BaseValue<E>> key) {
         checkNotNull(key, "key");
 
         // Check the local key registration
-        final KeyRegistration<BaseValue<E>, E> localKeyRegistration = getValueCollection().get(key).orElse(null);
+        final KeyRegistration<BaseValue<E>, E> localKeyRegistration = getValueCollection().getOrNull(key);
         if (localKeyRegistration != null) {
             return ((Processor<BaseValue<E>, E>) localKeyRegistration).getFrom(this);
         }
@@ -202,7 +202,7 @@ default <E> Optional<E> get(Key<? extends BaseValue<E>> key) {
     @Override
     default <E, V extends BaseValue<E>> Optional<V> getRawValueFor(Key<V> key) {
         // Check the local key registration
-        final KeyRegistration<BaseValue<E>, E> localKeyRegistration = getValueCollection().get(key).orElse(null);
+        final KeyRegistration<BaseValue<E>, E> localKeyRegistration = getValueCollection().getOrNull(key);
         if (localKeyRegistration != null) {
             return ((Processor<V, E>) localKeyRegistration).getValueFrom(this);
         }
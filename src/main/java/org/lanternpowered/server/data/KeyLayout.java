@@ -0,0 +1,134 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data;
+
+import org.spongepowered.api.data.key.Key;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the slot layout of the {@link Key}s within a {@link ValueCollection}. Every
+ * key is assigned a dense index within the layout, so the registrations can be stored
+ * in an array. Value collections that register the same keys in the same order, like
+ * all the entities of the same type, share the same layout instance.
+ * <p>
+ * Keys are matched by identity, they are singletons once registered.
+ */
+final class KeyLayout {
+
+    /**
+     * The layout without any keys.
+     */
+    static final KeyLayout EMPTY = new KeyLayout(new Key<?>[0]);
+
+    // All the keys of this layout, in order of their index
+    private final Key<?>[] keys;
+
+    // An identity hash table which maps the keys to their index
+    private final Key<?>[] tableKeys;
+    private final int[] tableIndices;
+    private final int mask;
+
+    // The layouts that are derived by adding a key to this layout
+    private final Map<Key<?>, KeyLayout> transitions = new ConcurrentHashMap<>();
+
+    private KeyLayout(Key<?>[] keys) {
+        this.keys = keys;
+        // Keep the load factor below 0.5
+        final int capacity = Integer.highestOneBit(Math.max(1, keys.length) * 2) << 1;
+        this.tableKeys = new Key<?>[capacity];
+        this.tableIndices = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            int slot = hash(keys[i]) & this.mask;
+            while (this.tableKeys[slot] != null) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.tableKeys[slot] = keys[i];
+            this.tableIndices[slot] = i;
+        }
+    }
+
+    private static int hash(Key<?> key) {
+        final int hash = System.identityHashCode(key);
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Gets the amount of keys in this layout.
+     *
+     * @return The size
+     */
+    int size() {
+        return this.keys.length;
+    }
+
+    /**
+     * Gets the {@link Key} at the given index.
+     *
+     * @param index The index
+     * @return The key
+     */
+    Key<?> getKey(int index) {
+        return this.keys[index];
+    }
+
+    /**
+     * Gets the index of the given {@link Key}, or {@code -1}
+     * if the key isn't part of this layout.
+     *
+     * @param key The key
+     * @return The index
+     */
+    int indexOf(Key<?> key) {
+        int slot = hash(key) & this.mask;
+        Key<?> other;
+        while ((other = this.tableKeys[slot]) != null) {
+            if (other == key) {
+                return this.tableIndices[slot];
+            }
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the layout which is this layout with the given
+     * {@link Key} appended, the key will be at index {@link #size()}.
+     *
+     * @param key The key
+     * @return The layout
+     */
+    KeyLayout with(Key<?> key) {
+        return this.transitions.computeIfAbsent(key, key1 -> {
+            final Key<?>[] keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+            keys[this.keys.length] = key1;
+            return new KeyLayout(keys);
+        });
+    }
+}
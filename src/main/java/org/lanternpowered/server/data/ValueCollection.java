@@ -45,12 +45,12 @@
 import org.spongepowered.api.data.value.mutable.MutableBoundedValue;
 import org.spongepowered.api.data.value.mutable.Value;
 
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -83,34 +83,45 @@ public static ValueCollection create() {
      */
     public static ValueCollection create(Mode mode) {
         checkNotNull(mode, "mode");
-        return new ValueCollection(new HashMap<>(), mode);
+        return new ValueCollection(KeyLayout.EMPTY, new KeyRegistration[4], mode);
     }
 
-    private final Map<Key<?>, KeyRegistration> values;
-    private final Set<Key<?>> unmodifiableKeys;
-    private final Collection<KeyRegistration<?,?>> unmodifiableRegistrations;
+    // The layout of the keys, determines the index of every registration
+    private KeyLayout layout;
+    private KeyRegistration[] registrations;
+    private final Collection<Key<?>> unmodifiableKeys = new KeysView();
+    private final Collection<KeyRegistration<?,?>> unmodifiableRegistrations = new RegistrationsView();
     private final Mode mode;
 
-    private ValueCollection(Map<Key<?>, KeyRegistration> values, Mode mode) {
-        this.unmodifiableKeys = Collections.unmodifiableSet(values.keySet());
-        this.unmodifiableRegistrations = (Collection) Collections.unmodifiableCollection(values.values());
-        this.values = values;
+    private ValueCollection(KeyLayout layout, KeyRegistration[] registrations, Mode mode) {
+        this.registrations = registrations;
+        this.layout = layout;
         this.mode = mode;
     }
 
     private void checkKey(Key<?> key) {
         checkNotNull(key, "key");
-        checkArgument(!this.values.containsKey(key), "The specified key (%s) is already registered.", key);
+        checkArgument(this.layout.indexOf(key) == -1, "The specified key (%s) is already registered.", key);
+    }
+
+    private void put(Key<?> key, KeyRegistration registration) {
+        final int index = this.layout.size();
+        if (index == this.registrations.length) {
+            this.registrations = Arrays.copyOf(this.registrations, index * 2);
+        }
+        this.registrations[index] = registration;
+        this.layout = this.layout.with(key);
     }
 
     @Override
     public ValueCollection copy() {
-        final Map<Key<?>, KeyRegistration> values = new HashMap<>();
-        for (Map.Entry<Key<?>, KeyRegistration> entry : this.values.entrySet()) {
-            final KeyRegistration registration = entry.getValue();
-            values.put(entry.getKey(), Copyable.copy(registration).orElse(registration));
+        final int size = this.layout.size();
+        final KeyRegistration[] registrations = Arrays.copyOf(this.registrations, Math.max(4, size));
+        for (int i = 0; i < size; i++) {
+            final KeyRegistration registration = registrations[i];
+            registrations[i] = Copyable.copy(registration).orElse(registration);
         }
-        return new ValueCollection(values, this.mode);
+        return new ValueCollection(this.layout, registrations, this.mode);
     }
 
     /**
@@ -141,7 +152,7 @@ public Collection<KeyRegistration<?,?>> getAll() {
      * @return Is registered
      */
     public boolean has(Key<?> key) {
-        return this.values.containsKey(key);
+        return this.layout.indexOf(key) != -1;
     }
 
     /**
@@ -153,7 +164,22 @@ public boolean has(Key<?> key) {
      * @return The key registration, if present
      */
     public <V extends BaseValue<E>, E> Optional<KeyRegistration<V, E>> get(Key<? extends BaseValue<E>> key) {
-        return Optional.ofNullable(this.values.get(key));
+        return Optional.ofNullable(getOrNull(key));
+    }
+
+    /**
+     * Gets the {@link KeyRegistration} for the given {@link Key}, or {@code null}
+     * if not present. Avoids the allocation of a {@link Optional} in hot paths.
+     *
+     * @param key The key
+     * @param <V> The value type
+     * @param <E> The element type
+     * @return The key registration, or null if not present
+     */
+    @Nullable
+    public <V extends BaseValue<E>, E> KeyRegistration<V, E> getOrNull(Key<? extends BaseValue<E>> key) {
+        final int index = this.layout.indexOf(key);
+        return index == -1 ? null : this.registrations[index];
     }
 
     /**
@@ -165,7 +191,7 @@ public <V extends BaseValue<E>, E> Optional<KeyRegistration<V, E>> get(Key<? ext
      */
     public <E> Optional<Element<E>> getElement(Key<? extends BaseValue<E>> key) {
         checkNotNull(key, "key");
-        final Object object = this.values.get(key);
+        final Object object = getOrNull(key);
         return object instanceof Element ? Optional.of((Element<E>) object) : Optional.empty();
     }
 
@@ -184,7 +210,7 @@ public <V extends BaseValue<E>, E> ElementKeyRegistration<V, E> registerNonRemov
         checkKey(key);
         final ElementKeyRegistration<V, E> processor = (ElementKeyRegistration<V, E>) ElementProcessorBuilder.createNonRemovable(key);
         processor.set(defaultValue);
-        this.values.put(key, processor);
+        put(key, processor);
         return processor;
     }
 
@@ -205,7 +231,7 @@ public <V extends BaseValue<E>, E> ElementKeyRegistration<V, E> register(
         checkKey(key);
         final ElementKeyRegistration<V, E> processor = (ElementKeyRegistration<V, E>) ElementProcessorBuilder.createDefault(key);
         processor.set(defaultValue);
-        this.values.put(key, processor);
+        put(key, processor);
         return processor;
     }
 
@@ -232,7 +258,7 @@ public <V extends BaseValue<E>, E> ElementKeyRegistration<V, E> register(
         builderConsumer.accept(builder);
         final ElementKeyRegistration<V, E> element = (ElementKeyRegistration<V, E>) builder.build();
         element.set(defaultValue);
-        this.values.put(key, element);
+        put(key, element);
         return element;
     }
 
@@ -247,7 +273,7 @@ public <V extends BaseValue<E>, E> ElementKeyRegistration<V, E> register(
     public <V extends BaseValue<E>, E> ValueProcessorKeyRegistration<V, E> registerProcessor(Key<? extends V> key) {
         checkKey(key);
         final ValueProcessorKeyRegistration<V, E> processor = ValueProcessorKeyRegistration.create(key);
-        this.values.put(key, processor);
+        put(key, processor);
         return processor;
     }
 
@@ -350,7 +376,7 @@ private <V extends BoundedValue<E>, E extends Comparable<E>> ElementKeyRegistrat
         });
         final ElementKeyRegistration<V, E> element = (ElementKeyRegistration<V, E>) builder.build();
         element.set(defaultValue);
-        this.values.put(key, element);
+        put(key, element);
         return element;
     }
 
@@ -396,4 +422,72 @@ public <V extends BoundedValue<E>, E extends Comparable<E>> ElementKeyRegistrati
                 container -> container.get(minimum).get(),
                 container -> maximum);
     }
+
+    private final class KeysView extends AbstractCollection<Key<?>> {
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Key && has((Key<?>) o);
+        }
+
+        @Override
+        public Iterator<Key<?>> iterator() {
+            final KeyLayout layout = ValueCollection.this.layout;
+            return new LayoutIterator<Key<?>>(layout) {
+                @Override
+                Key<?> get(int index) {
+                    return layout.getKey(index);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ValueCollection.this.layout.size();
+        }
+    }
+
+    private final class RegistrationsView extends AbstractCollection<KeyRegistration<?,?>> {
+
+        @Override
+        public Iterator<KeyRegistration<?,?>> iterator() {
+            final KeyRegistration[] registrations = ValueCollection.this.registrations;
+            return new LayoutIterator<KeyRegistration<?,?>>(ValueCollection.this.layout) {
+                @Override
+                KeyRegistration<?,?> get(int index) {
+                    return registrations[index];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ValueCollection.this.layout.size();
+        }
+    }
+
+    private static abstract class LayoutIterator<T> implements Iterator<T> {
+
+        private final int size;
+        private int index;
+
+        LayoutIterator(KeyLayout layout) {
+            this.size = layout.size();
+        }
+
+        abstract T get(int index);
+
+        @Override
+        public boolean hasNext() {
+            return this.index < this.size;
+        }
+
+        @Override
+        public T next() {
+            if (this.index >= this.size) {
+                throw new NoSuchElementException();
+            }
+            return get(this.index++);
+        }
+    }
 }
@@ -52,6 +52,7 @@
 import org.spongepowered.api.world.storage.WorldStorage;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface ChunkIOService extends WorldStorage {
 
@@ -72,6 +73,16 @@ public interface ChunkIOService extends WorldStorage {
      */
     void write(LanternChunk chunk) throws IOException;
 
+    /**
+     * Writes a single chunk asynchronously. A snapshot of the chunk
+     * is created on the calling thread, encoding and writing the
+     * snapshot happens on a separate thread.
+     *
+     * @param chunk The chunk to write from
+     * @return The future that completes once the chunk is written
+     */
+    CompletableFuture<Void> writeAsync(LanternChunk chunk);
+
     /**
      * Unload the service, performing any cleanup necessary.
      * 
@@ -48,6 +48,7 @@
 package org.lanternpowered.server.data.io.anvil;
 
 import static org.lanternpowered.server.data.io.anvil.RegionFileCache.REGION_AREA;
+import static org.lanternpowered.server.data.io.anvil.RegionFileCache.REGION_COORDINATE_BITS;
 import static org.lanternpowered.server.data.io.anvil.RegionFileCache.REGION_MASK;
 import static org.lanternpowered.server.data.io.anvil.RegionFileCache.REGION_SIZE;
 import static org.lanternpowered.server.world.chunk.LanternChunk.fixEntityYSection;
@@ -56,19 +57,26 @@
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
+import org.lanternpowered.server.block.LanternScheduledBlockUpdate;
 import org.lanternpowered.server.block.tile.LanternTileEntity;
 import org.lanternpowered.server.data.io.ChunkIOService;
 import org.lanternpowered.server.data.io.store.ObjectSerializer;
 import org.lanternpowered.server.data.io.store.ObjectSerializerRegistry;
+import org.lanternpowered.server.data.persistence.nbt.NbtConstants;
 import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerInputStream;
-import org.lanternpowered.server.data.persistence.nbt.NbtDataContainerOutputStream;
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamReader;
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamWriter;
 import org.lanternpowered.server.data.DataQueries;
 import org.lanternpowered.server.entity.LanternEntity;
 import org.lanternpowered.server.game.DirectoryKeys;
 import org.lanternpowered.server.scheduler.LanternScheduler;
+import org.lanternpowered.server.util.ThreadHelper;
 import org.lanternpowered.server.util.collect.array.NibbleArray;
+import org.lanternpowered.server.util.collect.array.PalettedValueArray;
 import org.lanternpowered.server.world.chunk.LanternChunk;
 import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
 import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSectionSnapshot;
@@ -91,7 +99,10 @@
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 
 import javax.annotation.Nullable;
@@ -99,24 +110,24 @@
 @Singleton
 public class AnvilChunkIOService implements ChunkIOService {
 
-    private static final DataQuery VERSION = DataQuery.of("V"); // byte
-    private static final DataQuery LEVEL = DataQuery.of("Level"); // compound
-    private static final DataQuery SECTIONS = DataQuery.of("Sections"); // array
-    private static final DataQuery X = DataQuery.of("xPos"); // int
-    private static final DataQuery Z = DataQuery.of("zPos"); // int
-    private static final DataQuery Y = DataQuery.of("Y"); // byte
-    private static final DataQuery BLOCKS = DataQuery.of("Blocks"); // byte array
-    private static final DataQuery BLOCKS_EXTRA = DataQuery.of("Add"); // (nibble) byte array
-    private static final DataQuery DATA = DataQuery.of("Data"); // (nibble) byte array
-    private static final DataQuery BLOCK_LIGHT = DataQuery.of("BlockLight"); // (nibble) byte array
-    private static final DataQuery SKY_LIGHT = DataQuery.of("SkyLight"); // (nibble) byte array
-    private static final DataQuery TERRAIN_POPULATED = DataQuery.of("TerrainPopulated"); // (boolean) byte
-    private static final DataQuery LIGHT_POPULATED = DataQuery.of("LightPopulated"); // (boolean) byte
-    private static final DataQuery BIOMES = DataQuery.of("Biomes"); // byte array
+    private static final String VERSION = "V"; // byte
+    private static final String LEVEL = "Level"; // compound
+    private static final String SECTIONS = "Sections"; // array
+    private static final String X = "xPos"; // int
+    private static final String Z = "zPos"; // int
+    private static final String Y = "Y"; // byte
+    private static final String BLOCKS = "Blocks"; // byte array
+    private static final String BLOCKS_EXTRA = "Add"; // (nibble) byte array
+    private static final String DATA = "Data"; // (nibble) byte array
+    private static final String BLOCK_LIGHT = "BlockLight"; // (nibble) byte array
+    private static final String SKY_LIGHT = "SkyLight"; // (nibble) byte array
+    private static final String TERRAIN_POPULATED = "TerrainPopulated"; // (boolean) byte
+    private static final String LIGHT_POPULATED = "LightPopulated"; // (boolean) byte
+    private static final String BIOMES = "Biomes"; // byte array
     // A extra tag for the biomes to support the custom biomes
-    private static final DataQuery BIOMES_EXTRA = DataQuery.of("BiomesE"); // byte array
-    private static final DataQuery HEIGHT_MAP = DataQuery.of("HeightMap");  // int array
-    private static final DataQuery LAST_UPDATE = DataQuery.of("LastUpdate"); // long
+    private static final String BIOMES_EXTRA = "BiomesE"; // byte array
+    private static final String HEIGHT_MAP = "HeightMap";  // int array
+    private static final String LAST_UPDATE = "LastUpdate"; // long
     private static final DataQuery TRACKER_DATA_TABLE = DataQuery.of("BlockPosTable");
     private static final DataQuery TRACKER_BLOCK_POS = DataQuery.of("pos");
     private static final DataQuery TRACKER_ENTRY_CREATOR = DataQuery.of("owner");
@@ -124,9 +135,20 @@ public class AnvilChunkIOService implements ChunkIOService {
     private static final DataQuery TILE_ENTITY_X = DataQuery.of("x");
     private static final DataQuery TILE_ENTITY_Y = DataQuery.of("y");
     private static final DataQuery TILE_ENTITY_Z = DataQuery.of("z");
-    private static final DataQuery TILE_ENTITIES = DataQuery.of("TileEntities");
-    private static final DataQuery INHABITED_TIME = DataQuery.of("InhabitedTime");
-    private static final DataQuery ENTITIES = DataQuery.of("Entities");
+    private static final String TILE_ENTITIES = "TileEntities";
+    private static final String TILE_TICKS = "TileTicks";
+    private static final DataQuery TILE_TICK_BLOCK = DataQuery.of("i");
+    private static final DataQuery TILE_TICK_X = DataQuery.of("x");
+    private static final DataQuery TILE_TICK_Y = DataQuery.of("y");
+    private static final DataQuery TILE_TICK_Z = DataQuery.of("z");
+    private static final DataQuery TILE_TICK_DELAY = DataQuery.of("t");
+    private static final DataQuery TILE_TICK_PRIORITY = DataQuery.of("p");
+    private static final String INHABITED_TIME = "InhabitedTime";
+    private static final String ENTITIES = "Entities";
+    private static final String SPONGE_DATA = DataQueries.SPONGE_DATA.asString('.');
+
+    private static final int WRITE_THREADS = 2;
+    private static final int MAX_QUEUED_REGION_WRITES = 64;
 
     private final World world;
     private final Logger logger;
@@ -134,6 +156,15 @@ public class AnvilChunkIOService implements ChunkIOService {
     private final RegionFileCache cache;
     private final Path baseDir;
 
+    // The chunk snapshots that are waiting to be written, grouped by region file
+    private final Long2ObjectMap<RegionWriteQueue> pendingWrites = new Long2ObjectOpenHashMap<>();
+
+    // The executor that encodes and writes the chunk snapshots, the caller will
+    // write the region itself if too many regions are waiting to be written
+    private final ThreadPoolExecutor writeExecutor = new ThreadPoolExecutor(WRITE_THREADS, WRITE_THREADS,
+            60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_REGION_WRITES),
+            ThreadHelper.newFastThreadLocalThreadFactory(() -> "chunk-io"), new ThreadPoolExecutor.CallerRunsPolicy());
+
     // TODO: Consider the session.lock file
 
     @Inject
@@ -147,6 +178,7 @@ public AnvilChunkIOService(@Named(DirectoryKeys.WORLD) Path baseDir, World world
 
     @Override
     public boolean exists(int x, int z) throws IOException {
+        flushPendingWrite(x, z);
         final RegionFile region = this.cache.getRegionFileByChunk(x, z);
 
         final int regionX = x & REGION_MASK;
@@ -160,6 +192,9 @@ public boolean read(LanternChunk chunk) throws IOException {
         final int x = chunk.getX();
         final int z = chunk.getZ();
 
+        // Make sure that the latest data of the chunk is written
+        flushPendingWrite(x, z);
+
         final RegionFile region = this.cache.getRegionFileByChunk(x, z);
         final int regionX = x & REGION_MASK;
         final int regionZ = z & REGION_MASK;
@@ -169,40 +204,78 @@ public boolean read(LanternChunk chunk) throws IOException {
             return false;
         }
 
-        final DataView levelDataView;
-        try (NbtDataContainerInputStream nbt = new NbtDataContainerInputStream(is)) {
-            levelDataView = nbt.read().getView(LEVEL).get();
-        }
-
-        // read the vertical sections
-        final List<DataView> sectionList = levelDataView.getViewList(SECTIONS).get();
         final ChunkSection[] sections = new ChunkSection[16];
         //noinspection unchecked
         final Short2ObjectOpenHashMap<LanternTileEntity>[] tileEntitySections = new Short2ObjectOpenHashMap[sections.length];
 
-        for (DataView sectionTag : sectionList) {
-            final int y = sectionTag.getInt(Y).get();
-            final byte[] rawTypes = (byte[]) sectionTag.get(BLOCKS).get();
-
-            final byte[] extTypes = sectionTag.contains(BLOCKS_EXTRA) ? (byte[]) sectionTag.get(BLOCKS_EXTRA).get() : null;
-            final byte[] data = (byte[]) sectionTag.get(DATA).get();
-            final byte[] blockLight = (byte[]) sectionTag.get(BLOCK_LIGHT).get();
-            final byte[] skyLight = (byte[]) sectionTag.get(SKY_LIGHT).get();
-
-            final NibbleArray dataArray = new NibbleArray(rawTypes.length, data, true);
-            final NibbleArray extTypesArray = extTypes == null ? null : new NibbleArray(rawTypes.length, extTypes, true);
-
-            final short[] types = new short[rawTypes.length];
-            for (int i = 0; i < rawTypes.length; i++) {
-                types[i] = (short) ((extTypesArray == null ? 0 : extTypesArray.get(i)) << 12 | ((rawTypes[i] & 0xff) << 4) | dataArray.get(i));
+        List<DataView> tileEntityViews = null;
+        List<DataView> tileTickViews = null;
+        List<DataView> entityViews = null;
+        DataView spongeDataView = null;
+        byte[] biomes = null;
+        byte[] biomesExtra = null;
+        int[] heightMap = null;
+        boolean populated = false;
+        boolean lightPopulated = false;
+        long inhabitedTime = 0L;
+
+        // Decode the chunk data directly from the stream, only the
+        // entities and tile entities are read into data views
+        try (NbtStreamReader nbt = new NbtStreamReader(is)) {
+            if (nbt.nextTag() != NbtConstants.COMPOUND) {
+                throw new IOException("The root tag of the chunk (" + x + ";" + z + ") isn't a compound.");
+            }
+            boolean level = false;
+            byte type;
+            while ((type = nbt.nextTag()) != NbtConstants.END) {
+                if (type != NbtConstants.COMPOUND || !nbt.getName().equals(LEVEL)) {
+                    nbt.skip(type);
+                    continue;
+                }
+                level = true;
+                while ((type = nbt.nextTag()) != NbtConstants.END) {
+                    final String name = nbt.getName();
+                    if (type == NbtConstants.LIST && name.equals(SECTIONS)) {
+                        final int size = nbt.readListHeader();
+                        final byte listType = nbt.getListType();
+                        for (int i = 0; i < size; i++) {
+                            if (listType == NbtConstants.COMPOUND) {
+                                readSection(nbt, sections, tileEntitySections);
+                            } else {
+                                nbt.skip(listType);
+                            }
+                        }
+                    } else if (type == NbtConstants.LIST && name.equals(TILE_ENTITIES)) {
+                        tileEntityViews = readViewList(nbt);
+                    } else if (type == NbtConstants.LIST && name.equals(TILE_TICKS)) {
+                        tileTickViews = readViewList(nbt);
+                    } else if (type == NbtConstants.LIST && name.equals(ENTITIES)) {
+                        entityViews = readViewList(nbt);
+                    } else if (type == NbtConstants.COMPOUND && name.equals(SPONGE_DATA)) {
+                        spongeDataView = nbt.readView();
+                    } else if (type == NbtConstants.BYTE_ARRAY && name.equals(BIOMES)) {
+                        biomes = nbt.readByteArray();
+                    } else if (type == NbtConstants.BYTE_ARRAY && name.equals(BIOMES_EXTRA)) {
+                        biomesExtra = nbt.readByteArray();
+                    } else if (type == NbtConstants.INT_ARRAY && name.equals(HEIGHT_MAP)) {
+                        heightMap = nbt.readIntArray();
+                    } else if (type == NbtConstants.BYTE && name.equals(TERRAIN_POPULATED)) {
+                        populated = nbt.readByte() > 0;
+                    } else if (type == NbtConstants.BYTE && name.equals(LIGHT_POPULATED)) {
+                        lightPopulated = nbt.readByte() > 0;
+                    } else if (type == NbtConstants.LONG && name.equals(INHABITED_TIME)) {
+                        inhabitedTime = nbt.readLong();
+                    } else {
+                        nbt.skip(type);
+                    }
+                }
+            }
+            if (!level) {
+                throw new IOException("The chunk (" + x + ";" + z + ") doesn't contain level data.");
             }
-
-            tileEntitySections[y] = new Short2ObjectOpenHashMap<>();
-            sections[y] = new ChunkSection(types, new NibbleArray(rawTypes.length, skyLight, true),
-                    new NibbleArray(rawTypes.length, blockLight, true), tileEntitySections[y]);
         }
 
-        levelDataView.getViewList(TILE_ENTITIES).ifPresent(tileEntityViews -> {
+        if (tileEntityViews != null) {
             final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
             for (DataView tileEntityView : tileEntityViews) {
                 final int tileY = tileEntityView.getInt(TILE_ENTITY_Y).get();
@@ -222,10 +295,9 @@ public boolean read(LanternChunk chunk) throws IOException {
                             tileX & 0xf, tileY & 0xf, tileZ & 0xf, x, z, getWorldProperties().getWorldName(), e);
                 }
             }
-        });
+        }
 
-        final DataView spongeDataView = levelDataView.getView(DataQueries.SPONGE_DATA).orElse(null);
-        final List<DataView> trackerDataViews = spongeDataView == null ? null : levelDataView.getViewList(TRACKER_DATA_TABLE).orElse(null);
+        final List<DataView> trackerDataViews = spongeDataView == null ? null : spongeDataView.getViewList(TRACKER_DATA_TABLE).orElse(null);
 
         //noinspection unchecked
         final Short2ObjectMap<LanternChunk.TrackerData>[] trackerData = chunk.getTrackerData().getRawObjects();
@@ -250,11 +322,9 @@ public boolean read(LanternChunk chunk) throws IOException {
 
         // initialize the chunk
         chunk.initializeSections(sections);
-        chunk.setPopulated(levelDataView.getInt(TERRAIN_POPULATED).orElse(0) > 0);
+        chunk.setPopulated(populated);
 
-        if (levelDataView.contains(BIOMES)) {
-            final byte[] biomes = (byte[]) levelDataView.get(BIOMES).get();
-            final byte[] biomesExtra = (byte[]) (levelDataView.contains(BIOMES_EXTRA) ? levelDataView.get(BIOMES_EXTRA).get() : null);
+        if (biomes != null) {
             final short[] newBiomes = new short[biomes.length];
             for (int i = 0; i < biomes.length; i++) {
                 newBiomes[i] = (short) ((biomesExtra == null ? 0 : biomesExtra[i]) << 8 | biomes[i]);
@@ -262,18 +332,26 @@ public boolean read(LanternChunk chunk) throws IOException {
             chunk.initializeBiomes(newBiomes);
         }
 
-        final Object heightMap;
-        if (levelDataView.contains(HEIGHT_MAP) && (heightMap = levelDataView.get(HEIGHT_MAP).get()) instanceof int[]) {
-            chunk.initializeHeightMap((int[]) heightMap);
-        } else {
-            chunk.initializeHeightMap(null);
-        }
-
-        levelDataView.getLong(INHABITED_TIME).ifPresent(time -> chunk.setInhabitedTime(time.intValue()));
-        chunk.setLightPopulated(levelDataView.getInt(LIGHT_POPULATED).orElse(0) > 0);
+        chunk.initializeHeightMap(heightMap);
+        chunk.setInhabitedTime(inhabitedTime);
+        chunk.setLightPopulated(lightPopulated);
         chunk.initializeLight();
 
-        levelDataView.getViewList(ENTITIES).ifPresent(entityViews -> {
+        if (tileTickViews != null) {
+            // The updates will be resumed once the chunk is loaded
+            for (DataView tileTickView : tileTickViews) {
+                final int tickX = tileTickView.getInt(TILE_TICK_X).orElse(Integer.MIN_VALUE);
+                final int tickY = tileTickView.getInt(TILE_TICK_Y).orElse(-1);
+                final int tickZ = tileTickView.getInt(TILE_TICK_Z).orElse(Integer.MIN_VALUE);
+                if (tickX >> 4 != x || tickZ >> 4 != z || tickY < 0 || tickY >= LanternChunk.CHUNK_HEIGHT) {
+                    continue;
+                }
+                chunk.addScheduledUpdate(tickX, tickY, tickZ, tileTickView.getInt(TILE_TICK_PRIORITY).orElse(0),
+                        tileTickView.getInt(TILE_TICK_DELAY).orElse(0));
+            }
+        }
+
+        if (entityViews != null) {
             final ObjectSerializer<LanternEntity> entitySerializer = ObjectSerializerRegistry.get().get(LanternEntity.class).get();
             for (DataView entityView : entityViews) {
                 try {
@@ -285,80 +363,311 @@ public boolean read(LanternChunk chunk) throws IOException {
                             x, z, getWorldProperties().getWorldName(), e);
                 }
             }
-        });
+        }
 
         return true;
     }
 
-    @Override
-    public void write(LanternChunk chunk) throws IOException {
-        final int x = chunk.getX();
-        final int z = chunk.getZ();
+    private static List<DataView> readViewList(NbtStreamReader nbt) throws IOException {
+        final int size = nbt.readListHeader();
+        final byte listType = nbt.getListType();
+        final List<DataView> views = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (listType == NbtConstants.COMPOUND) {
+                views.add(nbt.readView());
+            } else {
+                nbt.skip(listType);
+            }
+        }
+        return views;
+    }
 
-        final RegionFile region = this.cache.getRegionFileByChunk(x, z);
+    /**
+     * Reads a chunk section directly from the {@link NbtStreamReader}.
+     *
+     * @param nbt The nbt stream reader
+     * @param sections The chunk sections
+     * @param tileEntitySections The tile entity maps of the chunk sections
+     * @throws IOException If the section is corrupt
+     */
+    private static void readSection(NbtStreamReader nbt, ChunkSection[] sections,
+            Short2ObjectOpenHashMap<LanternTileEntity>[] tileEntitySections) throws IOException {
+        int y = -1;
+        byte[] rawTypes = null;
+        byte[] extTypes = null;
+        byte[] data = null;
+        byte[] blockLight = null;
+        byte[] skyLight = null;
+
+        byte type;
+        while ((type = nbt.nextTag()) != NbtConstants.END) {
+            final String name = nbt.getName();
+            if (type == NbtConstants.BYTE && name.equals(Y)) {
+                y = nbt.readByte();
+            } else if (type == NbtConstants.BYTE_ARRAY && name.equals(BLOCKS)) {
+                rawTypes = nbt.readByteArray();
+            } else if (type == NbtConstants.BYTE_ARRAY && name.equals(BLOCKS_EXTRA)) {
+                extTypes = nbt.readByteArray();
+            } else if (type == NbtConstants.BYTE_ARRAY && name.equals(DATA)) {
+                data = nbt.readByteArray();
+            } else if (type == NbtConstants.BYTE_ARRAY && name.equals(BLOCK_LIGHT)) {
+                blockLight = nbt.readByteArray();
+            } else if (type == NbtConstants.BYTE_ARRAY && name.equals(SKY_LIGHT)) {
+                skyLight = nbt.readByteArray();
+            } else {
+                nbt.skip(type);
+            }
+        }
+        if (y < 0 || y >= sections.length || rawTypes == null || data == null || blockLight == null) {
+            throw new IOException("Found a corrupt chunk section at y " + y);
+        }
 
-        final int regionX = x & REGION_MASK;
-        final int regionZ = z & REGION_MASK;
+        final NibbleArray dataArray = new NibbleArray(rawTypes.length, data, true);
+        final NibbleArray extTypesArray = extTypes == null ? null : new NibbleArray(rawTypes.length, extTypes, true);
 
-        final DataContainer rootView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
-        final DataView levelDataView = rootView.createView(LEVEL);
+        final short[] types = new short[rawTypes.length];
+        for (int i = 0; i < rawTypes.length; i++) {
+            types[i] = (short) ((extTypesArray == null ? 0 : extTypesArray.get(i)) << 12 | ((rawTypes[i] & 0xff) << 4) | dataArray.get(i));
+        }
 
-        // Core properties
-        levelDataView.set(VERSION, (byte) 1);
-        levelDataView.set(X, chunk.getX());
-        levelDataView.set(Z, chunk.getZ());
-        levelDataView.set(TERRAIN_POPULATED, (byte) (chunk.isPopulated() ? 1 : 0));
-        levelDataView.set(LIGHT_POPULATED, (byte) (chunk.isLightPopulated() ? 1 : 0));
-        levelDataView.set(LAST_UPDATE, 0L);
-        levelDataView.set(INHABITED_TIME, chunk.getInhabitedTime());
+        tileEntitySections[y] = new Short2ObjectOpenHashMap<>();
+        // The sky light isn't present in dimensions without a sky
+        final NibbleArray skyLightArray = skyLight == null ? new NibbleArray(rawTypes.length) : new NibbleArray(rawTypes.length, skyLight, true);
+        sections[y] = new ChunkSection(types, skyLightArray,
+                new NibbleArray(rawTypes.length, blockLight, true), tileEntitySections[y]);
+    }
 
-        // Chunk sections
-        final ChunkSectionSnapshot[] sections = chunk.getSectionSnapshots(true);
-        final List<DataView> sectionDataViews = new ArrayList<>();
-        final List<DataView> tileEntityDataViews = new ArrayList<>();
+    /**
+     * A snapshot of all the data of a {@link LanternChunk} that needs to be written. The
+     * entities and tile entities are serialized when the snapshot is created, the rest
+     * of the data is encoded when the snapshot is written.
+     */
+    private static final class ChunkSnapshot {
+
+        private final long key;
+
+        private final int x;
+        private final int z;
+        private final boolean populated;
+        private final boolean lightPopulated;
+        private final long inhabitedTime;
+        private final ChunkSectionSnapshot[] sections;
+        private final int[] heightMap;
+        private final short[] biomes;
+        private final List<DataView> tileEntityViews;
+        private final List<DataView> tileTickViews;
+        private final List<DataView> trackerDataViews;
+        private final List<DataView> entityViews;
+
+        // Completes once the snapshot, or a snapshot that replaced it, is written
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private ChunkSnapshot(int x, int z, boolean populated, boolean lightPopulated, long inhabitedTime,
+                ChunkSectionSnapshot[] sections, int[] heightMap, short[] biomes, List<DataView> tileEntityViews,
+                List<DataView> tileTickViews, List<DataView> trackerDataViews, List<DataView> entityViews) {
+            this.key = chunkKey(x, z);
+            this.x = x;
+            this.z = z;
+            this.populated = populated;
+            this.lightPopulated = lightPopulated;
+            this.inhabitedTime = inhabitedTime;
+            this.sections = sections;
+            this.heightMap = heightMap;
+            this.biomes = biomes;
+            this.tileEntityViews = tileEntityViews;
+            this.tileTickViews = tileTickViews;
+            this.trackerDataViews = trackerDataViews;
+            this.entityViews = entityViews;
+        }
+    }
 
-        for (byte i = 0; i < sections.length; ++i) {
-            final ChunkSectionSnapshot section = sections[i];
-            if (section == null) {
-                continue;
-            }
+    /**
+     * All the {@link ChunkSnapshot}s that are waiting to be written within a specific region file.
+     */
+    private final class RegionWriteQueue implements Runnable {
+
+        private final long key;
 
-            final DataContainer sectionDataView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
-            sectionDataView.set(Y, i);
+        // Guarded by the pending writes map
+        private final Long2ObjectMap<ChunkSnapshot> snapshots = new Long2ObjectOpenHashMap<>();
 
-            final byte[] rawTypes = new byte[section.types.length];
-            final short[] types = section.types;
+        // Whether this queue is submitted to the executor, guarded by the pending writes map
+        private boolean scheduled;
 
-            NibbleArray extTypes = null;
-            final NibbleArray data = new NibbleArray(rawTypes.length);
+        private RegionWriteQueue(long key) {
+            this.key = key;
+        }
 
-            for (int j = 0; j < rawTypes.length; j++) {
-                rawTypes[j] = (byte) ((types[j] >> 4) & 0xff);
-                byte extType = (byte) (types[j] >> 12);
-                if (extType != 0) {
-                    if (extTypes == null) {
-                        extTypes = new NibbleArray(rawTypes.length);
+        @Override
+        public void run() {
+            while (true) {
+                final List<ChunkSnapshot> snapshots;
+                synchronized (pendingWrites) {
+                    if (this.snapshots.isEmpty()) {
+                        pendingWrites.remove(this.key, this);
+                        return;
                     }
-                    extTypes.set(j, extType);
+                    snapshots = new ArrayList<>(this.snapshots.values());
+                }
+                // Write all the chunks of the region at once
+                for (ChunkSnapshot snapshot : snapshots) {
+                    write(snapshot);
+                }
+            }
+        }
+
+        /**
+         * Writes the {@link ChunkSnapshot} if it's still
+         * the latest snapshot of its chunk.
+         *
+         * @param snapshot The snapshot
+         */
+        private synchronized void write(ChunkSnapshot snapshot) {
+            synchronized (pendingWrites) {
+                if (this.snapshots.get(snapshot.key) != snapshot) {
+                    return;
                 }
-                data.set(j, (byte) (types[j] & 0xf));
             }
-            sectionDataView.set(BLOCKS, rawTypes);
-            if (extTypes != null) {
-                sectionDataView.set(BLOCKS_EXTRA, extTypes.getPackedArray());
+            try {
+                writeSnapshot(snapshot);
+                snapshot.future.complete(null);
+            } catch (Exception e) {
+                logger.error("Error while saving the chunk ({};{}) in the world {}",
+                        snapshot.x, snapshot.z, getWorldProperties().getWorldName(), e);
+                snapshot.future.completeExceptionally(e);
+            } finally {
+                synchronized (pendingWrites) {
+                    this.snapshots.remove(snapshot.key, snapshot);
+                }
             }
-            sectionDataView.set(DATA, data.getPackedArray());
-            sectionDataView.set(BLOCK_LIGHT, section.lightFromBlock);
+        }
 
-            final byte[] lightFromSky = section.lightFromSky;
-            if (lightFromSky != null) {
-                sectionDataView.set(SKY_LIGHT, lightFromSky);
+        /**
+         * Writes the pending {@link ChunkSnapshot} of the chunk, if present.
+         *
+         * @param chunkKey The chunk key
+         */
+        private synchronized void flush(long chunkKey) {
+            final ChunkSnapshot snapshot;
+            synchronized (pendingWrites) {
+                snapshot = this.snapshots.get(chunkKey);
             }
+            if (snapshot != null) {
+                write(snapshot);
+            }
+        }
+    }
 
-            sectionDataViews.add(sectionDataView);
+    private static long chunkKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xffffffffL);
+    }
 
-            //noinspection unchecked
-            final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
+    private static long regionKey(int x, int z) {
+        return chunkKey(x >> REGION_COORDINATE_BITS, z >> REGION_COORDINATE_BITS);
+    }
+
+    @Override
+    public void write(LanternChunk chunk) throws IOException {
+        final ChunkSnapshot snapshot = createSnapshot(chunk);
+        // Replace the pending snapshot, if present, and write it directly
+        final RegionWriteQueue queue = queueWrite(snapshot, false);
+        queue.flush(snapshot.key);
+        synchronized (this.pendingWrites) {
+            if (!queue.scheduled && queue.snapshots.isEmpty()) {
+                this.pendingWrites.remove(queue.key, queue);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(LanternChunk chunk) {
+        final ChunkSnapshot snapshot = createSnapshot(chunk);
+        queueWrite(snapshot, true);
+        return snapshot.future;
+    }
+
+    private RegionWriteQueue queueWrite(ChunkSnapshot snapshot, boolean schedule) {
+        final long key = regionKey(snapshot.x, snapshot.z);
+        RegionWriteQueue queue;
+        synchronized (this.pendingWrites) {
+            queue = this.pendingWrites.get(key);
+            if (queue == null) {
+                queue = new RegionWriteQueue(key);
+                this.pendingWrites.put(key, queue);
+            }
+            final ChunkSnapshot oldSnapshot = queue.snapshots.put(snapshot.key, snapshot);
+            if (oldSnapshot != null) {
+                // The old snapshot will never be written, complete it with the new one
+                snapshot.future.whenComplete((result, t) -> {
+                    if (t != null) {
+                        oldSnapshot.future.completeExceptionally(t);
+                    } else {
+                        oldSnapshot.future.complete(null);
+                    }
+                });
+            }
+            // Don't schedule the region multiple times
+            schedule = schedule && !queue.scheduled;
+            if (schedule) {
+                queue.scheduled = true;
+            }
+        }
+        if (schedule) {
+            this.writeExecutor.execute(queue);
+        }
+        return queue;
+    }
+
+    /**
+     * Writes the pending snapshot of the chunk at the given
+     * coordinates, this must be done before the chunk can be read.
+     *
+     * @param x The x coordinate of the chunk
+     * @param z The z coordinate of the chunk
+     */
+    private void flushPendingWrite(int x, int z) {
+        final RegionWriteQueue queue;
+        synchronized (this.pendingWrites) {
+            queue = this.pendingWrites.get(regionKey(x, z));
+        }
+        if (queue != null) {
+            queue.flush(chunkKey(x, z));
+        }
+    }
+
+    /**
+     * Writes all the pending snapshots.
+     */
+    private void flushPendingWrites() {
+        final List<RegionWriteQueue> queues;
+        synchronized (this.pendingWrites) {
+            queues = new ArrayList<>(this.pendingWrites.values());
+        }
+        queues.forEach(RegionWriteQueue::run);
+    }
+
+    /**
+     * Creates a {@link ChunkSnapshot} for the given {@link LanternChunk}, this
+     * should be called on the thread that is modifying the chunk.
+     *
+     * @param chunk The chunk
+     * @return The chunk snapshot
+     */
+    private ChunkSnapshot createSnapshot(LanternChunk chunk) {
+        final int x = chunk.getX();
+        final int z = chunk.getZ();
+
+        // Chunk sections
+        final ChunkSectionSnapshot[] sections = chunk.getSectionSnapshots(true);
+        final List<DataView> tileEntityDataViews = new ArrayList<>();
+
+        //noinspection unchecked
+        final ObjectSerializer<LanternTileEntity> tileEntitySerializer = ObjectSerializerRegistry.get().get(LanternTileEntity.class).get();
+        for (byte i = 0; i < sections.length; ++i) {
+            final ChunkSectionSnapshot section = sections[i];
+            if (section == null) {
+                continue;
+            }
             // Serialize the tile entities
             for (Short2ObjectMap.Entry<LanternTileEntity> tileEntityEntry : section.tileEntities.short2ObjectEntrySet()) {
                 if (!tileEntityEntry.getValue().isValid()) {
@@ -373,9 +682,18 @@ public void write(LanternChunk chunk) throws IOException {
             }
         }
 
-        levelDataView.set(TILE_ENTITIES, tileEntityDataViews);
-        levelDataView.set(SECTIONS, sectionDataViews);
-        levelDataView.set(HEIGHT_MAP, chunk.getHeightMap());
+        final List<DataView> tileTickViews = new ArrayList<>();
+        for (LanternScheduledBlockUpdate update : chunk.getScheduledBlockUpdates()) {
+            final Vector3i pos = update.getLocation().getBlockPosition();
+            final DataView tileTickView = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED);
+            tileTickView.set(TILE_TICK_BLOCK, chunk.getBlockType(pos.getX(), pos.getY(), pos.getZ()).getId());
+            tileTickView.set(TILE_TICK_X, pos.getX());
+            tileTickView.set(TILE_TICK_Y, pos.getY());
+            tileTickView.set(TILE_TICK_Z, pos.getZ());
+            tileTickView.set(TILE_TICK_DELAY, update.getTicks());
+            tileTickView.set(TILE_TICK_PRIORITY, update.getPriority());
+            tileTickViews.add(tileTickView);
+        }
 
         //noinspection unchecked
         final Short2ObjectMap<LanternChunk.TrackerData>[] trackerData = chunk.getTrackerData().getRawObjects();
@@ -397,30 +715,6 @@ public void write(LanternChunk chunk) throws IOException {
             }
         }
 
-        if (!trackerDataViews.isEmpty()) {
-            levelDataView.createView(DataQueries.SPONGE_DATA).set(TRACKER_DATA_TABLE, trackerDataViews);
-        }
-
-        final short[] biomes = chunk.getBiomes();
-        final byte[] biomes0 = new byte[biomes.length];
-        byte[] biomes1 = null;
-
-        for (int i = 0; i < biomes.length; i++) {
-            biomes0[i] = (byte) (biomes[i] & 0xff);
-            byte value = (byte) ((biomes[i] >> 4) & 0xff);
-            if (value != 0) {
-                if (biomes1 == null) {
-                    biomes1 = new byte[biomes0.length];
-                }
-                biomes1[i] = value;
-            }
-        }
-
-        levelDataView.set(BIOMES, biomes0);
-        if (biomes1 != null) {
-            levelDataView.set(BIOMES_EXTRA, biomes1);
-        }
-
         //noinspection unchecked
         final List<LanternEntity> entities = new ArrayList(chunk.getEntities(entity -> !(entity instanceof Player)));
         final ObjectSerializer<LanternEntity> entitySerializer = ObjectSerializerRegistry.get().get(LanternEntity.class).get();
@@ -434,16 +728,142 @@ public void write(LanternChunk chunk) throws IOException {
             entityViews.add(entityView);
         }
 
-        levelDataView.set(ENTITIES, entityViews);
+        return new ChunkSnapshot(x, z, chunk.isPopulated(), chunk.isLightPopulated(), chunk.getInhabitedTime(), sections,
+                chunk.getHeightMap(), chunk.getBiomes(), tileEntityDataViews, tileTickViews, trackerDataViews, entityViews);
+    }
+
+    private void writeSnapshot(ChunkSnapshot snapshot) throws IOException {
+        final int x = snapshot.x;
+        final int z = snapshot.z;
 
-        try (NbtDataContainerOutputStream nbt = new NbtDataContainerOutputStream(region.getChunkDataOutputStream(regionX, regionZ))) {
-            nbt.write(rootView);
+        final RegionFile region = this.cache.getRegionFileByChunk(x, z);
+
+        final int regionX = x & REGION_MASK;
+        final int regionZ = z & REGION_MASK;
+
+        // Encode the chunk data directly into the stream, only the
+        // entities and tile entities are written from data views
+        try (NbtStreamWriter nbt = new NbtStreamWriter(region.getChunkDataOutputStream(regionX, regionZ))) {
+            nbt.beginCompound("");
+            nbt.beginCompound(LEVEL);
+
+            // Core properties
+            nbt.writeByte(VERSION, (byte) 1);
+            nbt.writeInt(X, x);
+            nbt.writeInt(Z, z);
+            nbt.writeByte(TERRAIN_POPULATED, (byte) (snapshot.populated ? 1 : 0));
+            nbt.writeByte(LIGHT_POPULATED, (byte) (snapshot.lightPopulated ? 1 : 0));
+            nbt.writeLong(LAST_UPDATE, 0L);
+            nbt.writeLong(INHABITED_TIME, snapshot.inhabitedTime);
+
+            // Chunk sections
+            final ChunkSectionSnapshot[] sections = snapshot.sections;
+            int sectionCount = 0;
+            for (ChunkSectionSnapshot section : sections) {
+                if (section != null) {
+                    sectionCount++;
+                }
+            }
+
+            nbt.beginList(SECTIONS, NbtConstants.COMPOUND, sectionCount);
+            for (byte i = 0; i < sections.length; ++i) {
+                final ChunkSectionSnapshot section = sections[i];
+                if (section == null) {
+                    continue;
+                }
+
+                nbt.writeByte(Y, i);
+
+                final PalettedValueArray types = section.types;
+                final byte[] rawTypes = new byte[types.getCapacity()];
+
+                NibbleArray extTypes = null;
+                final NibbleArray data = new NibbleArray(rawTypes.length);
+
+                for (int j = 0; j < rawTypes.length; j++) {
+                    final int type = types.get(j);
+                    rawTypes[j] = (byte) ((type >> 4) & 0xff);
+                    byte extType = (byte) (type >> 12);
+                    if (extType != 0) {
+                        if (extTypes == null) {
+                            extTypes = new NibbleArray(rawTypes.length);
+                        }
+                        extTypes.set(j, extType);
+                    }
+                    data.set(j, (byte) (type & 0xf));
+                }
+                nbt.writeByteArray(BLOCKS, rawTypes);
+                if (extTypes != null) {
+                    nbt.writeByteArray(BLOCKS_EXTRA, extTypes.getPackedArray());
+                }
+                nbt.writeByteArray(DATA, data.getPackedArray());
+                nbt.writeByteArray(BLOCK_LIGHT, section.lightFromBlock);
+
+                final byte[] lightFromSky = section.lightFromSky;
+                if (lightFromSky != null) {
+                    nbt.writeByteArray(SKY_LIGHT, lightFromSky);
+                }
+                nbt.endCompound();
+            }
+
+            nbt.writeValue(TILE_ENTITIES, snapshot.tileEntityViews);
+            if (!snapshot.tileTickViews.isEmpty()) {
+                nbt.writeValue(TILE_TICKS, snapshot.tileTickViews);
+            }
+            nbt.writeIntArray(HEIGHT_MAP, snapshot.heightMap);
+
+            if (!snapshot.trackerDataViews.isEmpty()) {
+                nbt.beginCompound(SPONGE_DATA);
+                nbt.writeValue(TRACKER_DATA_TABLE.asString('.'), snapshot.trackerDataViews);
+                nbt.endCompound();
+            }
+
+            final short[] biomes = snapshot.biomes;
+            final byte[] biomes0 = new byte[biomes.length];
+            byte[] biomes1 = null;
+
+            for (int i = 0; i < biomes.length; i++) {
+                biomes0[i] = (byte) (biomes[i] & 0xff);
+                byte value = (byte) ((biomes[i] >> 4) & 0xff);
+                if (value != 0) {
+                    if (biomes1 == null) {
+                        biomes1 = new byte[biomes0.length];
+                    }
+                    biomes1[i] = value;
+                }
+            }
+
+            nbt.writeByteArray(BIOMES, biomes0);
+            if (biomes1 != null) {
+                nbt.writeByteArray(BIOMES_EXTRA, biomes1);
+            }
+
+            nbt.writeValue(ENTITIES, snapshot.entityViews);
+
+            nbt.endCompound(); // Level
+            nbt.endCompound(); // Root
             nbt.flush();
         }
     }
 
     @Override
     public void unload() throws IOException {
+        // Write all the remaining chunks before the region files are closed
+        flushPendingWrites();
+        this.writeExecutor.shutdown();
+        try {
+            // Wait for the writes that were still running on the executor
+            if (!this.writeExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                final int pending;
+                synchronized (this.pendingWrites) {
+                    pending = this.pendingWrites.values().stream().mapToInt(queue -> queue.snapshots.size()).sum();
+                }
+                this.logger.warn("Timed out while waiting for the chunk writes of the world {}, {} chunks are still pending",
+                        getWorldProperties().getWorldName(), pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         this.cache.clear();
     }
 
@@ -558,6 +978,7 @@ public int available() {
 
             @Override
             public void reset() {
+                flushPendingWrites();
                 this.paths = cache.getRegionFiles();
                 this.regionFileIndex = -1;
                 this.regionChunkIndex = -1;
@@ -579,6 +1000,8 @@ public CompletableFuture<Optional<DataContainer>> getChunkData(Vector3i chunkCoo
             final int x = chunkCoords.getX();
             final int z = chunkCoords.getZ();
 
+            flushPendingWrite(x, z);
+
             final RegionFile region = cache.getRegionFileByChunk(x, z);
             final int regionX = x & REGION_MASK;
             final int regionZ = z & REGION_MASK;
@@ -67,21 +67,32 @@
  */
 package org.lanternpowered.server.data.io.anvil;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.lanternpowered.server.game.Lantern;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.BitSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
@@ -89,6 +100,11 @@
 
 import javax.annotation.Nullable;
 
+/**
+ * A region file that is backed by a {@link FileChannel}. Chunks are read with
+ * positional reads, which allows multiple chunks within the same region to be
+ * read concurrently, only writes require exclusive access to the file.
+ */
 public final class RegionFile {
 
     private static final Marker REGION_FILE_MARKER = MarkerFactory.getMarker("REGION_FILE");
@@ -99,65 +115,74 @@ public final class RegionFile {
     private static final int SECTOR_BYTES = 4096;
     private static final int SECTOR_INTS = SECTOR_BYTES / 4;
 
+    // 4K chunk offset table, 4K timestamp table
+    private static final int HEADER_BYTES = 2 * SECTOR_BYTES;
+
     private static final int CHUNK_HEADER_SIZE = 5;
-    private static final byte[] EMPTY_SECTOR = new byte[SECTOR_BYTES];
 
-    private final RandomAccessFile file;
-    private final int[] offsets;
+    private final FileChannel channel;
+    private final IntBuffer offsets;
+    private final IntBuffer timestamps;
+    @Nullable private final MappedByteBuffer mappedHeader;
     private final BitSet usedSectors;
     private final int regionX;
     private final int regionZ;
 
+    // Reads can happen concurrently, writes require exclusive access
+    private final Lock readLock;
+    private final Lock writeLock;
+
     private int sectorCount;
 
     RegionFile(Path path, int regionX, int regionZ) throws IOException {
+        this(path, regionX, regionZ, false);
+    }
+
+    /**
+     * Constructs a new {@link RegionFile}.
+     *
+     * @param path The path of the region file
+     * @param regionX The x coordinate of the region
+     * @param regionZ The z coordinate of the region
+     * @param mapHeader Whether the offset and timestamp tables should be memory mapped
+     * @throws IOException If the file couldn't be opened
+     */
+    RegionFile(Path path, int regionX, int regionZ, boolean mapHeader) throws IOException {
         this.regionX = regionX;
         this.regionZ = regionZ;
-        this.offsets = new int[SECTOR_INTS];
+
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
 
         long lastModified = 0;
         if (Files.isRegularFile(path)) {
             lastModified = Files.getLastModifiedTime(path).toMillis();
         }
 
-        this.file = new RandomAccessFile(path.toFile(), "rw");
-
-        long length = this.file.length();
-        // seek to the end to prepare size checking
-        this.file.seek(length);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
 
+        long length = this.channel.size();
         // if the file size is under 8KB, grow it (4K chunk offset table, 4K timestamp table)
-        if (length < 2 * SECTOR_BYTES) {
+        if (length < HEADER_BYTES) {
             if (lastModified != 0) {
                 // Only give a warning if the region file existed beforehand
                 Lantern.getLogger().warn(REGION_FILE_MARKER, "Region \"{}\" under 8K: {} increasing by {}",
-                        path, length, 2 * SECTOR_BYTES - length);
-            }
-
-            if (length == 0) {
-                this.file.write(EMPTY_SECTOR);
-                this.file.write(EMPTY_SECTOR);
-            } else {
-                for (; length < 2 * SECTOR_BYTES; length++) {
-                    this.file.write(0);
-                }
+                        path, length, HEADER_BYTES - length);
             }
+            writeFully(ByteBuffer.allocate((int) (HEADER_BYTES - length)), length);
         }
 
-        length = this.file.length();
+        length = this.channel.size();
         // if the file size is not a multiple of 4KB, grow it
         if ((length & 0xfff) != 0) {
             Lantern.getLogger().warn(REGION_FILE_MARKER, "Region \"{}\" not aligned: {} increasing by {}",
                     path, length, SECTOR_BYTES - (length & 0xfff));
-
-            length = length & 0xfff;
-            for (; length < SECTOR_BYTES; length++) {
-                this.file.write(0);
-            }
+            writeFully(ByteBuffer.allocate((int) (SECTOR_BYTES - (length & 0xfff))), length);
         }
 
         // set up the available sector map
-        final int nSectors = (int) (this.file.length() / SECTOR_BYTES);
+        final int nSectors = (int) (this.channel.size() / SECTOR_BYTES);
         this.sectorCount = nSectors;
         this.usedSectors = new BitSet(nSectors);
         this.usedSectors.set(0, 2);
@@ -166,11 +191,21 @@ public final class RegionFile {
         // 0 - chunk offset table
         // 1 - for the last modified
 
+        final ByteBuffer header;
+        if (mapHeader) {
+            header = this.mappedHeader = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        } else {
+            this.mappedHeader = null;
+            header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(header, 0);
+            header.clear();
+        }
+        this.offsets = slice(header, 0).asIntBuffer();
+        this.timestamps = slice(header, SECTOR_BYTES).asIntBuffer();
+
         // read offsets from offset table
-        this.file.seek(0);
         for (int i = 0; i < SECTOR_INTS; ++i) {
-            final int offset = this.file.readInt();
-            this.offsets[i] = offset;
+            final int offset = this.offsets.get(i);
 
             final int startSector = (offset >> 8);
             final int numSectors = (offset & 0xff);
@@ -182,10 +217,51 @@ public final class RegionFile {
                         path, i, offset, startSector, numSectors);
             }
         }
-        // read timestamps from timestamp table -- the timestamps aren't used, so there is no need to read them
-        // for (int i = 0; i < SECTOR_INTS; ++i) {
-        //     this.file.readInt();
-        // }
+    }
+
+    private static ByteBuffer slice(ByteBuffer header, int position) {
+        final ByteBuffer duplicate = header.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + SECTOR_BYTES);
+        return duplicate.slice();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = this.channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            position += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += this.channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Reads the header of the chunk at the given sector and
+     * returns the length of the chunk data. Returns {@code -1}
+     * if the chunk data is corrupt.
+     *
+     * @param sectorNumber The sector number
+     * @param numSectors The amount of sectors allocated for the chunk
+     * @param header The header buffer to read into
+     * @return The length of the chunk data
+     */
+    private int readChunkHeader(int sectorNumber, int numSectors, ByteBuffer header) throws IOException {
+        if (sectorNumber + numSectors > this.sectorCount) {
+            return -1;
+        }
+        readFully(header, (long) sectorNumber * SECTOR_BYTES);
+        final int length = header.getInt(0);
+        if (length <= 0 || length > SECTOR_BYTES * numSectors) {
+            return -1;
+        }
+        return length;
     }
 
     /**
@@ -196,9 +272,10 @@ public final class RegionFile {
      * @param z the z coordinate
      * @return whether the chunk data exists
      */
-    public synchronized boolean hasChunk(int x, int z) {
+    public boolean hasChunk(int x, int z) {
         checkBounds(x, z);
 
+        this.readLock.lock();
         try {
             final int offset = getOffset(x, z);
             if (offset == 0) {
@@ -206,25 +283,16 @@ public synchronized boolean hasChunk(int x, int z) {
                 return false;
             }
 
-            final int sectorNumber = offset >> 8;
-            final int numSectors = offset & 0xff;
-            if (sectorNumber + numSectors > this.sectorCount) {
-                logWarning();
-                return false;
-            }
-
-            this.file.seek(sectorNumber * SECTOR_BYTES);
-            final int length = this.file.readInt();
-            if (length > SECTOR_BYTES * numSectors) {
-                logWarning();
-                return false;
-            }
-
-            final byte version = this.file.readByte();
-            if (version == VERSION_GZIP || version == VERSION_DEFLATE) {
-                return true;
+            final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+            if (readChunkHeader(offset >> 8, offset & 0xff, header) != -1) {
+                final byte version = header.get(4);
+                if (version == VERSION_GZIP || version == VERSION_DEFLATE) {
+                    return true;
+                }
             }
         } catch (IOException ignored) {
+        } finally {
+            this.readLock.unlock();
         }
 
         logWarning();
@@ -236,9 +304,11 @@ public synchronized boolean hasChunk(int x, int z) {
      * the chunk is not found or an error occurs
      */
     @Nullable
-    public synchronized DataInputStream getChunkDataInputStream(int x, int z) {
+    public DataInputStream getChunkDataInputStream(int x, int z) {
         checkBounds(x, z);
 
+        ByteBuf data = null;
+        this.readLock.lock();
         try {
             final int offset = getOffset(x, z);
             if (offset == 0) {
@@ -247,30 +317,28 @@ public synchronized DataInputStream getChunkDataInputStream(int x, int z) {
             }
 
             final int sectorNumber = offset >> 8;
-            final int numSectors = offset & 0xff;
-            if (sectorNumber + numSectors > this.sectorCount) {
-                logWarning();
-                return null;
-            }
-
-            this.file.seek(sectorNumber * SECTOR_BYTES);
-            final int length = this.file.readInt();
-            if (length > SECTOR_BYTES * numSectors) {
-                logWarning();
-                return null;
-            }
-
-            final byte version = this.file.readByte();
-            if (version == VERSION_GZIP) {
-                final byte[] data = new byte[length - 1];
-                this.file.read(data);
-                return new DataInputStream(new BufferedInputStream(new GZIPInputStream(new ByteArrayInputStream(data))));
-            } else if (version == VERSION_DEFLATE) {
-                final byte[] data = new byte[length - 1];
-                this.file.read(data);
-                return new DataInputStream(new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(data))));
+            final ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+            final int length = readChunkHeader(sectorNumber, offset & 0xff, header);
+            if (length != -1) {
+                final byte version = header.get(4);
+                if (version == VERSION_GZIP || version == VERSION_DEFLATE) {
+                    // Read the compressed data into a pooled buffer, the
+                    // buffer will be released once the stream is closed
+                    data = PooledByteBufAllocator.DEFAULT.directBuffer(length - 1);
+                    readFully(data.nioBuffer(0, length - 1), (long) sectorNumber * SECTOR_BYTES + CHUNK_HEADER_SIZE);
+                    data.writerIndex(length - 1);
+                    final InputStream is = new ByteBufInputStream(data, true);
+                    final InputStream decompressed = version == VERSION_GZIP ? new GZIPInputStream(is) : new InflaterInputStream(is);
+                    data = null;
+                    return new DataInputStream(new BufferedInputStream(decompressed));
+                }
             }
         } catch (IOException ignored) {
+        } finally {
+            this.readLock.unlock();
+            if (data != null) {
+                data.release();
+            }
         }
         logWarning();
         return null;
@@ -286,105 +354,131 @@ private void logWarning() {
 
     public DataOutputStream getChunkDataOutputStream(int x, int z) {
         checkBounds(x, z);
-        return new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(
-                new ChunkBuffer(x, z), new Deflater(Deflater.BEST_SPEED))));
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        return new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(new ChunkBuffer(x, z), deflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    // A custom deflater isn't ended by the stream
+                    deflater.end();
+                }
+            }
+        }));
     }
 
     /*
      * lets chunk writing be multithreaded by not locking the whole file as a
      * chunk is serializing -- only writes when serialization is over
      */
-    private class ChunkBuffer extends ByteArrayOutputStream {
+    private class ChunkBuffer extends ByteBufOutputStream {
 
         private final int x;
         private final int z;
 
+        private boolean closed;
+
         ChunkBuffer(int x, int z) {
-            super(8096); // initialize to 8KB
+            super(PooledByteBufAllocator.DEFAULT.directBuffer(8192)); // initialize to 8KB
+            // Reserve space for the chunk header
+            buffer().writerIndex(CHUNK_HEADER_SIZE);
             this.x = x;
             this.z = z;
         }
 
         @Override
         public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
             try {
-                RegionFile.this.write(this.x, this.z, this.buf, this.count);
+                RegionFile.this.write(this.x, this.z, buffer());
             } finally {
-                super.close();
+                buffer().release();
             }
         }
     }
 
-    // write a chunk at (x,z) with length bytes of data to disk
-    protected synchronized void write(int x, int z, byte[] data, int length) throws IOException {
-        final int offset = getOffset(x, z);
-        int sectorNumber = offset >> 8;
-        final int sectorsAllocated = offset & 0xff;
-        final int sectorsNeeded = (length + CHUNK_HEADER_SIZE) / SECTOR_BYTES + 1;
+    // write a chunk at (x,z) to disk, the buffer starts with space reserved for the chunk header
+    private void write(int x, int z, ByteBuf buffer) throws IOException {
+        final int length = buffer.readableBytes() - CHUNK_HEADER_SIZE;
+        buffer.setInt(0, length + 1); // chunk length
+        buffer.setByte(4, VERSION_DEFLATE); // chunk version number
 
+        final int sectorsNeeded = (length + CHUNK_HEADER_SIZE) / SECTOR_BYTES + 1;
         // maximum chunk size is 1MB
         if (sectorsNeeded >= 256) {
             return;
         }
 
-        if (sectorNumber != 0 && sectorsAllocated == sectorsNeeded) {
-            // we can simply overwrite the old sectors
-            write(sectorNumber, data, length);
-        } else {
-            // we need to allocate new sectors
-
-            // mark the sectors previously used for this chunk as free
-            this.usedSectors.clear(sectorNumber, sectorNumber + sectorsAllocated);
-
-            // scan for a free space large enough to store this chunk
-            int runStart = this.usedSectors.nextClearBit(2);
-            int runLength = 0;
-            if (runStart != -1 && runStart < this.sectorCount) {
-                for (int i = runStart; i < this.sectorCount; ++i) {
-                    if (runLength != 0) {
-                        if (!this.usedSectors.get(i)) {
-                            runLength++;
-                        } else {
-                            runLength = 0;
+        this.writeLock.lock();
+        try {
+            final int offset = getOffset(x, z);
+            int sectorNumber = offset >> 8;
+            final int sectorsAllocated = offset & 0xff;
+
+            if (sectorNumber != 0 && sectorsAllocated == sectorsNeeded) {
+                // we can simply overwrite the old sectors
+                write(sectorNumber, buffer);
+            } else {
+                // we need to allocate new sectors
+
+                // mark the sectors previously used for this chunk as free
+                this.usedSectors.clear(sectorNumber, sectorNumber + sectorsAllocated);
+
+                // scan for a free space large enough to store this chunk
+                int runStart = this.usedSectors.nextClearBit(2);
+                int runLength = 0;
+                if (runStart != -1 && runStart < this.sectorCount) {
+                    for (int i = runStart; i < this.sectorCount; ++i) {
+                        if (runLength != 0) {
+                            if (!this.usedSectors.get(i)) {
+                                runLength++;
+                            } else {
+                                runLength = 0;
+                            }
+                        } else if (!this.usedSectors.get(i)) {
+                            runStart = i;
+                            runLength = 1;
+                        }
+                        if (runLength >= sectorsNeeded) {
+                            break;
                         }
-                    } else if (!this.usedSectors.get(i)) {
-                        runStart = i;
-                        runLength = 1;
-                    }
-                    if (runLength >= sectorsNeeded) {
-                        break;
                     }
+                } else {
+                    runStart = this.sectorCount;
                 }
-            } else {
-                runStart = this.sectorCount;
-            }
 
-            sectorNumber = runStart;
-            if (runLength < sectorsNeeded) {
-                final int added = sectorsNeeded - runLength;
-                this.sectorCount += added;
-                this.file.seek(this.file.length());
-                for (int i = 0; i < added; i++) {
-                    this.file.write(EMPTY_SECTOR);
+                if (runLength == 0) {
+                    // the last sector is in use, append after it
+                    runStart = this.sectorCount;
+                }
+                sectorNumber = runStart;
+                if (runLength < sectorsNeeded) {
+                    // the free run at the end of the file isn't large enough, grow it
+                    this.sectorCount += sectorsNeeded - runLength;
+                    // Grow the file, keeping it aligned to whole sectors
+                    writeFully(ByteBuffer.allocate(1), (long) this.sectorCount * SECTOR_BYTES - 1);
                 }
-            }
 
-            // Clear the sectors to set them in use
-            this.usedSectors.set(sectorNumber, sectorNumber + sectorsNeeded);
+                // Clear the sectors to set them in use
+                this.usedSectors.set(sectorNumber, sectorNumber + sectorsNeeded);
 
-            // Write chunk data and offset
-            write(sectorNumber, data, length);
-            setOffset(x, z, (sectorNumber << 8) | sectorsNeeded);
+                // Write chunk data and offset
+                write(sectorNumber, buffer);
+                setOffset(x, z, (sectorNumber << 8) | sectorsNeeded);
+            }
+            setTimestamp(x, z, (int) (System.currentTimeMillis() / 1000L));
+        } finally {
+            this.writeLock.unlock();
         }
-        setTimestamp(x, z, (int) (System.currentTimeMillis() / 1000L));
     }
 
     // write a chunk data to the region file at specified sector number
-    private void write(int sectorNumber, byte[] data, int length) throws IOException {
-        this.file.seek(sectorNumber * SECTOR_BYTES);
-        this.file.writeInt(length + 1); // chunk length
-        this.file.writeByte(VERSION_DEFLATE); // chunk version number
-        this.file.write(data, 0, length); // chunk data
+    private void write(int sectorNumber, ByteBuf buffer) throws IOException {
+        writeFully(buffer.nioBuffer(), (long) sectorNumber * SECTOR_BYTES);
     }
 
     // is this an invalid chunk coordinate?
@@ -395,22 +489,41 @@ private void checkBounds(int x, int z) {
     }
 
     private int getOffset(int x, int z) {
-        return this.offsets[x + z * 32];
+        return this.offsets.get(x + z * 32);
     }
 
     private void setOffset(int x, int z, int offset) throws IOException {
-        this.offsets[x + z * 32] = offset;
-        this.file.seek((x + z * 32) * 4);
-        this.file.writeInt(offset);
+        final int index = x + z * 32;
+        this.offsets.put(index, offset);
+        if (this.mappedHeader == null) {
+            writeInt(index * 4, offset);
+        }
     }
 
     private void setTimestamp(int x, int z, int value) throws IOException {
-        this.file.seek(SECTOR_BYTES + (x + z * 32) * 4);
-        this.file.writeInt(value);
+        final int index = x + z * 32;
+        this.timestamps.put(index, value);
+        if (this.mappedHeader == null) {
+            writeInt(SECTOR_BYTES + index * 4, value);
+        }
+    }
+
+    private void writeInt(long position, int value) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(4);
+        buffer.putInt(0, value);
+        writeFully(buffer, position);
     }
 
     public void close() throws IOException {
-        this.file.getChannel().force(true);
-        this.file.close();
+        this.writeLock.lock();
+        try {
+            if (this.mappedHeader != null) {
+                this.mappedHeader.force();
+            }
+            this.channel.force(true);
+            this.channel.close();
+        } finally {
+            this.writeLock.unlock();
+        }
     }
 }
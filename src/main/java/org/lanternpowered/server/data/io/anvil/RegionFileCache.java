@@ -65,13 +65,18 @@ final class RegionFileCache {
 
     private static final String DEFAULT_REGION_FILE_EXTENSION = "mca";
 
-    private static final int REGION_COORDINATE_BITS = 5;
+    static final int REGION_COORDINATE_BITS = 5;
     static final int REGION_SIZE = 1 << REGION_COORDINATE_BITS;
     static final int REGION_AREA = REGION_SIZE * REGION_SIZE;
     static final int REGION_MASK = REGION_SIZE - 1;
 
     private static final int MAX_CACHE_SIZE = 256;
 
+    /**
+     * Whether the headers of the region files should be memory mapped.
+     */
+    private static final boolean MAP_HEADERS = Boolean.parseBoolean(System.getProperty("lantern.region.map-headers", "false"));
+
     private final Cache<Long, RegionFile> cache;
     private final String extension;
     private final Pattern filePattern;
@@ -125,7 +130,7 @@ public RegionFile getRegionFile(int regionX, int regionZ) throws IOException {
         final long coords = (regionZ & 0xffffffffL) << 32 | regionX & 0xffffffffL;
         return this.cache.get(coords, coords0 -> {
             try {
-                return new RegionFile(this.regionDir.resolve("r." + regionX + "." + regionZ + "." + this.extension), regionX, regionZ);
+                return new RegionFile(this.regionDir.resolve("r." + regionX + "." + regionZ + "." + this.extension), regionX, regionZ, MAP_HEADERS);
             } catch (IOException e) {
                 Lantern.getLogger().error("Failed to load the region file (%s;%s)", regionX, regionZ);
                 throw new RuntimeException(e);
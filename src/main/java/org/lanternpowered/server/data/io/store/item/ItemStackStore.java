@@ -267,6 +267,8 @@ public DataView serialize(LanternItemStack object) {
 
     @Override
     public void deserialize(LanternItemStack object, DataView dataView) {
+        // The elements are modified directly by the store
+        object.ensureUnshared();
         object.setQuantity(dataView.getInt(QUANTITY).get());
         // All the extra data we will handle will be stored in the tag
         final DataView tag = dataView.getView(TAG).orElseGet(() -> DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED));
@@ -29,7 +29,7 @@
  * The nbt constants. These are the ids of all the types that can be used in a
  * nbt tag.
  */
-class NbtConstants {
+public final class NbtConstants {
 
     public static final byte END = 0;
     public static final byte BYTE = 1;
@@ -50,4 +50,7 @@ class NbtConstants {
     public static final String BOOLEAN_IDENTIFER = "$Boolean";
 
     public static final byte UNKNOWN = 97;
+
+    private NbtConstants() {
+    }
 }
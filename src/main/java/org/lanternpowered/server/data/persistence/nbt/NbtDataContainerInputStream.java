@@ -162,7 +162,7 @@ private Entry readEntry() throws IOException {
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
-    private Object readPayload(@Nullable DataView container, byte type, int depth) throws IOException, InvalidDataFormatException {
+    Object readPayload(@Nullable DataView container, byte type, int depth) throws IOException, InvalidDataFormatException {
         if (depth > this.maximumDepth) {
             throw new IOException("Attempted to read a data container with too high complexity,"
                     + " exceeded the maximum depth of " + this.maximumDepth);
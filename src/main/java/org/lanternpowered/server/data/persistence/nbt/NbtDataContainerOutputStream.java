@@ -109,7 +109,7 @@ public void write(DataView dataView) throws IOException {
     }
 
     @SuppressWarnings("unchecked")
-    private void writePayload(byte type, Object object) throws IOException {
+    void writePayload(byte type, Object object) throws IOException {
         if (type == UNKNOWN) {
             throw new IOException("Attempted to serialize a unsupported object type: " + object.getClass().getName());
         } else if (type == BYTE) {
@@ -181,7 +181,7 @@ private void writePayload(byte type, Object object) throws IOException {
         }
     }
 
-    private void writeEntry(String key, Object object) throws IOException {
+    void writeEntry(String key, Object object) throws IOException {
         final byte type = typeFor(object);
         this.dos.writeByte(type);
         if (object instanceof Boolean || (object instanceof List && !((List<?>) object).isEmpty()
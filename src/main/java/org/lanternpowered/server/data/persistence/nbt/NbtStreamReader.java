@@ -0,0 +1,248 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.persistence.nbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.BYTE;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.BYTE_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.COMPOUND;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.DOUBLE;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.END;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.FLOAT;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.INT;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.INT_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LIST;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LONG;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.SHORT;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.STRING;
+
+import org.spongepowered.api.data.DataView;
+import org.spongepowered.api.data.persistence.InvalidDataFormatException;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A streaming reader for data in the nbt format. Unlike the {@link NbtDataContainerInputStream},
+ * tags are read one by one, this allows primitive values and arrays to be read directly without
+ * building a {@link DataView} for the whole structure. Only the parts that are requested through
+ * {@link #readView()} or {@link #readValue(byte)} will be materialized.
+ *
+ * <p>The payload of every tag that is returned by {@link #nextTag()} must be either read or
+ * skipped before the next tag can be read. The tags of a compound are read until
+ * {@link NbtConstants#END} is returned.</p>
+ */
+public class NbtStreamReader implements Closeable {
+
+    private final DataInputStream dis;
+    private final NbtDataContainerInputStream containerInput;
+
+    private String name = "";
+    private byte listType = END;
+
+    /**
+     * Creates a new nbt stream reader.
+     *
+     * @param inputStream the input stream
+     */
+    public NbtStreamReader(InputStream inputStream) {
+        this.dis = checkNotNull(inputStream, "inputStream") instanceof DataInputStream ?
+                (DataInputStream) inputStream : new DataInputStream(inputStream);
+        this.containerInput = new NbtDataContainerInputStream(this.dis);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.dis.close();
+    }
+
+    /**
+     * Reads the header of the next tag and returns its type. {@link NbtConstants#END}
+     * will be returned if the end of the current compound is reached.
+     *
+     * @return the type of the tag
+     * @throws IOException
+     */
+    public byte nextTag() throws IOException {
+        final byte type = this.dis.readByte();
+        this.name = type == END ? "" : this.dis.readUTF();
+        return type;
+    }
+
+    /**
+     * Gets the name of the last tag that was read by {@link #nextTag()}.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    public byte readByte() throws IOException {
+        return this.dis.readByte();
+    }
+
+    public short readShort() throws IOException {
+        return this.dis.readShort();
+    }
+
+    public int readInt() throws IOException {
+        return this.dis.readInt();
+    }
+
+    public long readLong() throws IOException {
+        return this.dis.readLong();
+    }
+
+    public float readFloat() throws IOException {
+        return this.dis.readFloat();
+    }
+
+    public double readDouble() throws IOException {
+        return this.dis.readDouble();
+    }
+
+    public String readString() throws IOException {
+        return this.dis.readUTF();
+    }
+
+    public byte[] readByteArray() throws IOException {
+        final byte[] array = new byte[this.dis.readInt()];
+        this.dis.readFully(array);
+        return array;
+    }
+
+    public int[] readIntArray() throws IOException {
+        final int[] array = new int[this.dis.readInt()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = this.dis.readInt();
+        }
+        return array;
+    }
+
+    /**
+     * Reads the header of a list payload and returns the amount of
+     * elements in the list. The type of the elements can be retrieved
+     * through {@link #getListType()}.
+     *
+     * @return the size of the list
+     * @throws IOException
+     */
+    public int readListHeader() throws IOException {
+        this.listType = this.dis.readByte();
+        return this.dis.readInt();
+    }
+
+    /**
+     * Gets the element type of the last list header that
+     * was read by {@link #readListHeader()}.
+     *
+     * @return the element type
+     */
+    public byte getListType() {
+        return this.listType;
+    }
+
+    /**
+     * Reads the payload of a compound tag into a new {@link DataView}.
+     *
+     * @return the data view
+     * @throws IOException
+     */
+    public DataView readView() throws IOException, InvalidDataFormatException {
+        return (DataView) this.containerInput.readPayload(null, COMPOUND, 0);
+    }
+
+    /**
+     * Reads the payload of a tag with the given type, the object will
+     * be represented in the same way as in a {@link DataView}.
+     *
+     * @param type the type of the tag
+     * @return the object
+     * @throws IOException
+     */
+    public Object readValue(byte type) throws IOException, InvalidDataFormatException {
+        return this.containerInput.readPayload(null, type, 0);
+    }
+
+    /**
+     * Skips the payload of a tag with the given type.
+     *
+     * @param type the type of the tag
+     * @throws IOException
+     */
+    public void skip(byte type) throws IOException, InvalidDataFormatException {
+        if (type == END) {
+            // There is no payload
+            return;
+        } else if (type == BYTE) {
+            skipBytes(1);
+        } else if (type == SHORT) {
+            skipBytes(2);
+        } else if (type == INT || type == FLOAT) {
+            skipBytes(4);
+        } else if (type == LONG || type == DOUBLE) {
+            skipBytes(8);
+        } else if (type == BYTE_ARRAY) {
+            skipBytes(this.dis.readInt());
+        } else if (type == INT_ARRAY) {
+            skipBytes(this.dis.readInt() * 4);
+        } else if (type == STRING) {
+            skipBytes(this.dis.readUnsignedShort());
+        } else if (type == LIST) {
+            final byte type0 = this.dis.readByte();
+            final int size = this.dis.readInt();
+            for (int i = 0; i < size; i++) {
+                skip(type0);
+            }
+        } else if (type == COMPOUND) {
+            byte type0;
+            while ((type0 = nextTag()) != END) {
+                skip(type0);
+            }
+        } else {
+            throw new InvalidDataFormatException("Attempt to skip a unknown nbt tag type: " + type);
+        }
+    }
+
+    private void skipBytes(int count) throws IOException {
+        while (count > 0) {
+            final int skipped = this.dis.skipBytes(count);
+            if (skipped <= 0) {
+                // Check whether the end of the stream is reached
+                if (this.dis.read() == -1) {
+                    throw new EOFException();
+                }
+                count--;
+            } else {
+                count -= skipped;
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.data.persistence.nbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.BYTE;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.BYTE_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.COMPOUND;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.END;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.INT;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.INT_ARRAY;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LIST;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.LONG;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.SHORT;
+import static org.lanternpowered.server.data.persistence.nbt.NbtConstants.STRING;
+
+import org.spongepowered.api.data.DataView;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A streaming writer for data in the nbt format. Unlike the {@link NbtDataContainerOutputStream},
+ * tags are written one by one, this allows primitive values and arrays to be written directly
+ * without building a {@link DataView} for the whole structure first.
+ *
+ * <p>Every compound that is started with {@link #beginCompound(String)}, or that is a element
+ * of a list of compounds, must be completed with {@link #endCompound()}.</p>
+ */
+public class NbtStreamWriter implements Closeable, Flushable {
+
+    private final DataOutputStream dos;
+    private final NbtDataContainerOutputStream containerOutput;
+
+    /**
+     * Creates a new nbt stream writer.
+     *
+     * @param outputStream the output stream
+     */
+    public NbtStreamWriter(OutputStream outputStream) {
+        this.dos = checkNotNull(outputStream, "outputStream") instanceof DataOutputStream ?
+                (DataOutputStream) outputStream : new DataOutputStream(outputStream);
+        this.containerOutput = new NbtDataContainerOutputStream(this.dos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.dos.close();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.dos.flush();
+    }
+
+    private void writeHeader(byte type, String name) throws IOException {
+        this.dos.writeByte(type);
+        this.dos.writeUTF(name);
+    }
+
+    public void beginCompound(String name) throws IOException {
+        writeHeader(COMPOUND, name);
+    }
+
+    public void endCompound() throws IOException {
+        this.dos.writeByte(END);
+    }
+
+    /**
+     * Starts a list tag, the payloads of all the elements
+     * must be written directly after this call.
+     *
+     * @param name the name of the list
+     * @param elementType the type of the elements
+     * @param size the amount of elements
+     * @throws IOException
+     */
+    public void beginList(String name, byte elementType, int size) throws IOException {
+        writeHeader(LIST, name);
+        this.dos.writeByte(size == 0 ? END : elementType);
+        this.dos.writeInt(size);
+    }
+
+    public void writeByte(String name, byte value) throws IOException {
+        writeHeader(BYTE, name);
+        this.dos.writeByte(value);
+    }
+
+    public void writeShort(String name, short value) throws IOException {
+        writeHeader(SHORT, name);
+        this.dos.writeShort(value);
+    }
+
+    public void writeInt(String name, int value) throws IOException {
+        writeHeader(INT, name);
+        this.dos.writeInt(value);
+    }
+
+    public void writeLong(String name, long value) throws IOException {
+        writeHeader(LONG, name);
+        this.dos.writeLong(value);
+    }
+
+    public void writeString(String name, String value) throws IOException {
+        writeHeader(STRING, name);
+        this.dos.writeUTF(value);
+    }
+
+    public void writeByteArray(String name, byte[] value) throws IOException {
+        writeHeader(BYTE_ARRAY, name);
+        this.dos.writeInt(value.length);
+        this.dos.write(value);
+    }
+
+    public void writeIntArray(String name, int[] value) throws IOException {
+        writeHeader(INT_ARRAY, name);
+        this.dos.writeInt(value.length);
+        for (int v : value) {
+            this.dos.writeInt(v);
+        }
+    }
+
+    /**
+     * Writes a tag for the given object, the object can be any
+     * type that is supported by a {@link DataView}.
+     *
+     * @param name the name of the tag
+     * @param value the value
+     * @throws IOException
+     */
+    public void writeValue(String name, Object value) throws IOException {
+        this.containerOutput.writeEntry(name, checkNotNull(value, "value"));
+    }
+
+    /**
+     * Writes the payload of a compound element within a list of compounds.
+     *
+     * @param dataView the data view
+     * @throws IOException
+     */
+    public void writeViewPayload(DataView dataView) throws IOException {
+        this.containerOutput.writePayload(COMPOUND, checkNotNull(dataView, "dataView"));
+    }
+}
@@ -41,6 +41,7 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -88,7 +89,8 @@ public void completeRegistration() {
         checkState(this.allowRegistrations, "Registrations are no longer allowed!");
         checkNotNull(propertyClass, "propertyClass");
         checkNotNull(propertyStore, "propertyStore");
-        final List<PropertyStore<?>> propertyStores = this.propertyStoreMap.computeIfAbsent(propertyClass, c -> new ArrayList<>());
+        final List<PropertyStore<?>> propertyStores = this.propertyStoreMap.computeIfAbsent(propertyClass,
+                c -> Collections.synchronizedList(new ArrayList<>()));
         propertyStores.add(propertyStore);
     }
 
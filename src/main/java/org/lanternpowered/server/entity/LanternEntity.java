@@ -295,12 +295,23 @@ public void setBoundingBoxBase(@Nullable AABB boundingBox) {
 
     @Override
     public Optional<AABB> getBoundingBox() {
+        return Optional.ofNullable(getBoundingBoxOrNull());
+    }
+
+    /**
+     * Gets the bounding box of this entity, the box is cached
+     * until the position or the base bounding box changes.
+     *
+     * @return The bounding box, or null if this entity doesn't have one
+     */
+    @Nullable
+    public AABB getBoundingBoxOrNull() {
         AABB boundingBox = this.boundingBox;
         if (boundingBox == null && this.boundingBoxBase != null) {
             boundingBox = this.boundingBoxBase.offset(this.position);
             this.boundingBox = boundingBox;
         }
-        return Optional.ofNullable(boundingBox);
+        return boundingBox;
     }
 
     @Override
@@ -55,6 +55,8 @@
 import org.spongepowered.api.util.AABB;
 import org.spongepowered.api.util.Direction;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -163,8 +165,9 @@ private void pulsePhysics() {
     }
 
     private void tryToPickupItems() {
-        final Set<Entity> entities = getWorld().getIntersectingEntities(
-                getBoundingBox().get().expand(2.0, 0.5, 2.0), entity -> entity != this && entity instanceof Carrier);
+        final List<LanternEntity> entities = new ArrayList<>();
+        getWorld().forEachIntersectingEntity(getBoundingBox().get().expand(2.0, 0.5, 2.0),
+                entity -> entity != this && entity instanceof Carrier, entities::add);
         if (entities.isEmpty()) {
             return;
         }
@@ -247,8 +250,9 @@ private CombineData combineItemStacks(int pickupDelay, int despawnDelay) {
             return null;
         }
         checkNotNull(getWorld());
-        Set<Entity> entities = getWorld().getIntersectingEntities(
-                getBoundingBox().get().expand(0.6, 0.0, 0.6), entity -> entity != this && entity instanceof LanternItem);
+        final List<LanternEntity> entities = new ArrayList<>();
+        getWorld().forEachIntersectingEntity(getBoundingBox().get().expand(0.6, 0.0, 0.6),
+                entity -> entity != this && entity instanceof LanternItem, entities::add);
         if (!entities.isEmpty()) {
             ItemStack itemStack = null;
             for (Entity entity : entities) {
@@ -621,6 +621,10 @@ public void pulseChunkChanges() {
 
         this.knownChunks.removeAll(previousChunks);
         this.knownChunks.addAll(newChunks);
+
+        // The player moved, so the chunks that are still queued
+        // for loading have to be reordered
+        world.getChunkManager().reprioritizeQueuedTasks();
     }
 
     @Override
@@ -34,19 +34,21 @@
 import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortOpenHashMap;
 import org.lanternpowered.server.block.action.BlockAction;
 import org.lanternpowered.server.block.tile.LanternTileEntity;
 import org.lanternpowered.server.data.io.store.ObjectSerializer;
 import org.lanternpowered.server.data.io.store.ObjectSerializerRegistry;
 import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.lanternpowered.server.network.NetworkSession;
 import org.lanternpowered.server.network.message.Message;
+import org.lanternpowered.server.network.message.PreEncodedMessage;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutBlockAction;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutBlockChange;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutChunkData;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutMultiBlockChange;
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutUnloadChunk;
+import org.lanternpowered.server.util.collect.ConcurrentLong2ObjectMap;
+import org.lanternpowered.server.util.collect.array.PalettedValueArray;
 import org.lanternpowered.server.util.collect.array.VariableValueArray;
 import org.lanternpowered.server.world.LanternWorld;
 import org.lanternpowered.server.world.WorldEventListener;
@@ -65,6 +67,7 @@
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -78,7 +81,7 @@ public final class ObservedChunkManager implements WorldEventListener {
     /**
      * All the chunks that are being observed.
      */
-    private final Map<Long, ObservedChunk> observedChunks = new ConcurrentHashMap<>();
+    private final ConcurrentLong2ObjectMap<ObservedChunk> observedChunks = new ConcurrentLong2ObjectMap<>();
 
     public ObservedChunkManager(LanternWorld world) {
         this.world = world;
@@ -124,6 +127,14 @@ public void onBlockChange(int x, int y, int z, BlockState oldBlockState, BlockSt
         }
     }
 
+    @Override
+    public void onLightChange(LanternChunk chunk, int sectionBitMask) {
+        final ObservedChunk observedChunk = this.observedChunks.get(chunk.getKey());
+        if (observedChunk != null) {
+            observedChunk.addLightChange(sectionBitMask);
+        }
+    }
+
     @Override
     public void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction blockAction) {
         final long key = LanternChunk.key(x >> 4, z >> 4);
@@ -150,6 +161,12 @@ void removeObserver(Vector2i coords, LanternPlayer observer, boolean updateClien
         }
     }
 
+    /**
+     * The amount of bits per value of the global palette, this
+     * is sadly enough hardcoded in the client.
+     */
+    private static final int GLOBAL_PALETTE_BITS_PER_VALUE = 13;
+
     private static final VariableValueArray EMPTY_SECTION_TYPES = new VariableValueArray(4, CHUNK_SECTION_VOLUME);
     private static final byte[] EMPTY_SECTION_LIGHT = new byte[CHUNK_SECTION_SIZE];
     private static final byte[] EMPTY_SECTION_SKY_LIGHT = new byte[CHUNK_SECTION_SIZE];
@@ -211,6 +228,11 @@ private QueuedBlockAction(BlockAction blockAction, MessagePlayOutBlockAction blo
          */
         private volatile boolean dirtyChunk;
 
+        /**
+         * The bit mask of the sections whose light is modified.
+         */
+        private final AtomicInteger dirtyLightSections = new AtomicInteger();
+
         ObservedChunk(Vector2i coords) {
             this.coords = coords;
         }
@@ -242,6 +264,13 @@ void addBlockChange(Supplier<Vector3i> coords) {
             }
         }
 
+        void addLightChange(int sectionBitMask) {
+            // There is not need to track the changes if no one wants to see them
+            if (!this.dirtyChunk && !this.clientObservers.isEmpty()) {
+                this.dirtyLightSections.getAndAccumulate(sectionBitMask, (a, b) -> a | b);
+            }
+        }
+
         void streamChanges() {
             final LanternChunk chunk = world.getChunkManager().getChunkIfLoaded(this.coords);
             if (chunk == null || this.clientObservers.isEmpty()) {
@@ -249,13 +278,16 @@ void streamChanges() {
             }
 
             if (this.dirtyChunk) {
-                final MessagePlayOutChunkData message = createLoadChunkMessage(chunk, ALL_SECTIONS_BIT_MASK, true);
+                final PreEncodedMessage message = createLoadChunkMessage(chunk, ALL_SECTIONS_BIT_MASK, true);
                 this.clientObservers.forEach(player -> player.getConnection().send(message));
+                message.release();
                 this.dirtyChunk = false;
                 this.dirtyBlocks.clear();
+                this.dirtyLightSections.set(0);
                 return;
             }
 
+            int dirtyLightSections = this.dirtyLightSections.getAndSet(0);
             if (!this.dirtyBlocks.isEmpty()) {
                 // All the changes per coordinate
                 final Set<Vector3i> changes = new HashSet<>();
@@ -272,8 +304,11 @@ void streamChanges() {
 
                 final int clumpingThreshold = world.getProperties().getConfig().getChunkClumpingThreshold();
                 if (changes.size() >= clumpingThreshold) {
-                    final MessagePlayOutChunkData message = createLoadChunkMessage(chunk, dirtySections, false);
+                    // The light of the sections will be send with the block changes
+                    final PreEncodedMessage message = createLoadChunkMessage(chunk, dirtySections | dirtyLightSections, false);
                     this.clientObservers.forEach(player -> player.getConnection().send(message));
+                    message.release();
+                    dirtyLightSections = 0;
                 } else if (changes.size() > 1) {
                     final MessagePlayOutMultiBlockChange message = new MessagePlayOutMultiBlockChange(
                             this.coords.getX(), this.coords.getY(), changes.stream().map(coords -> {
@@ -291,6 +326,12 @@ void streamChanges() {
                 // TODO: Also update tile entities
             }
 
+            if (dirtyLightSections != 0) {
+                final PreEncodedMessage message = createLoadChunkMessage(chunk, dirtyLightSections, false);
+                this.clientObservers.forEach(player -> player.getConnection().send(message));
+                message.release();
+            }
+
             if (!this.addedBlockActions.isEmpty()) {
                 final Set<Message> messages = new HashSet<>();
 
@@ -309,13 +350,21 @@ void streamChanges() {
             }
         }
 
-        private List<Message> createChunkLoadMessages(LanternChunk chunk) {
-            final List<Message> messages = new ArrayList<>();
-            messages.add(createLoadChunkMessage(chunk, ALL_SECTIONS_BIT_MASK, true));
+        /**
+         * Sends the chunk load messages to the observer, the chunk
+         * data message is shared between all the observers.
+         *
+         * @param observer The observer
+         * @param chunkDataMessage The chunk data message
+         */
+        private void sendChunkLoadMessages(LanternPlayer observer, PreEncodedMessage chunkDataMessage) {
+            final NetworkSession connection = observer.getConnection();
+            connection.send(chunkDataMessage);
             if (!this.activeBlockActions.isEmpty()) {
+                final List<Message> messages = new ArrayList<>();
                 this.activeBlockActions.values().forEach(queuedBlockAction -> messages.add(queuedBlockAction.blockActionData));
+                connection.send(messages);
             }
-            return messages;
         }
 
         /**
@@ -325,15 +374,18 @@ private List<Message> createChunkLoadMessages(LanternChunk chunk) {
          * @param chunk The chunk
          */
         void streamChunkLoad(LanternChunk chunk) {
-            List<Message> messages = null;
+            PreEncodedMessage chunkDataMessage = null;
             for (LanternPlayer observer : this.observers) {
                 if (this.clientObservers.add(observer)) {
-                    if (messages == null) {
-                        messages = createChunkLoadMessages(chunk);
+                    if (chunkDataMessage == null) {
+                        chunkDataMessage = createLoadChunkMessage(chunk, ALL_SECTIONS_BIT_MASK, true);
                     }
-                    observer.getConnection().send(messages);
+                    sendChunkLoadMessages(observer, chunkDataMessage);
                 }
             }
+            if (chunkDataMessage != null) {
+                chunkDataMessage.release();
+            }
             // TODO: Also send tile entities
         }
 
@@ -349,7 +401,16 @@ void streamChunkUnload(LanternChunk chunk) {
             }
         }
 
-        private MessagePlayOutChunkData createLoadChunkMessage(LanternChunk chunk, int sectionsBitMask, boolean biomes) {
+        /**
+         * Creates a chunk data message for the given sections, the message will only be encoded
+         * once and shared between all the observers. The message should be released after it's send.
+         *
+         * @param chunk The chunk
+         * @param sectionsBitMask The bit mask of the sections to include
+         * @param biomes Whether the biomes should be included
+         * @return The pre encoded chunk data message
+         */
+        private PreEncodedMessage createLoadChunkMessage(LanternChunk chunk, int sectionsBitMask, boolean biomes) {
             // Whether we should send sky light
             final boolean skyLight = world.getDimension().hasSky();
 
@@ -359,49 +420,18 @@ private MessagePlayOutChunkData createLoadChunkMessage(LanternChunk chunk, int s
             for (int i = 0; i < sections.length; i++) {
                 if (sections[i] != null) {
                     final LanternChunk.ChunkSectionSnapshot section = sections[i];
-                    // The size of the palette
-                    int paletteSize = section.typesCountMap.size();
-                    // The amount of bits for every block state
-                    int bitsPerValue = Integer.highestOneBit(paletteSize);
-                    // The palette that will be send to the client
-                    int[] palette;
-                    // The lookup for global to local palette id
-                    Short2ShortMap globalToLocalPalette;
-                    // There seems to be a weird issue, some blocks are not rendered
-                    // on the client (bedrock with the flat generator) and it cannot
-                    // be placed in creative
-                    if (bitsPerValue <= 8) {
-                        // The vanilla client/server will not go lower then 4 bits
-                        if (bitsPerValue < 4) {
-                            bitsPerValue = 4;
-                        }
-                        globalToLocalPalette = new Short2ShortOpenHashMap(paletteSize);
-                        palette = new int[paletteSize];
-                        short currentId = 0;
-                        for (short type : section.typesCountMap.keySet().toShortArray()) {
-                            globalToLocalPalette.put(type, currentId);
-                            palette[currentId] = type;
-                            currentId++;
-                        }
-                    } else {
-                        // int statesCount = Registries.getBlockRegistry().getBlockStatesCount();
-                        // bitsPerValue = Integer.highestOneBit(statesCount);
-                        // The value should be the amount of bits per value of
-                        // the CLIENT palette, it will otherwise not work.
-                        // This is sadly enough hardcoded in the client
-                        bitsPerValue = 13;
-                        globalToLocalPalette = null;
-                        palette = null;
-                    }
-                    final short[] types = section.types;
-                    final VariableValueArray array = new VariableValueArray(bitsPerValue, types.length);
-                    if (globalToLocalPalette != null) {
-                        for (int j = 0; j < types.length; j++) {
-                            array.set(j, globalToLocalPalette.get(types[j]));
-                        }
+                    final PalettedValueArray types = section.types;
+                    // The section is already stored in the protocol format, only
+                    // if the global palette is used, we need to convert the values
+                    // to the amount of bits per value of the CLIENT palette
+                    final int[] palette = types.getPalette();
+                    final VariableValueArray array;
+                    if (palette != null) {
+                        array = types.getValues();
                     } else {
-                        for (int j = 0; j < types.length; j++) {
-                            array.set(j, types[j]);
+                        array = new VariableValueArray(GLOBAL_PALETTE_BITS_PER_VALUE, types.getCapacity());
+                        for (int j = 0; j < types.getCapacity(); j++) {
+                            array.set(j, types.get(j));
                         }
                     }
                     final Short2ObjectMap<DataView> tileEntityDataViews = new Short2ObjectOpenHashMap<>();
@@ -435,7 +465,8 @@ private MessagePlayOutChunkData createLoadChunkMessage(LanternChunk chunk, int s
                 }
             }
 
-            return new MessagePlayOutChunkData(this.coords.getX(), this.coords.getY(), skyLight, msgSections, biomesArray);
+            return new PreEncodedMessage(new MessagePlayOutChunkData(
+                    this.coords.getX(), this.coords.getY(), skyLight, msgSections, biomesArray));
         }
 
         /**
@@ -455,6 +486,7 @@ public void removeObserver(LanternPlayer observer, boolean updateClient) {
             // Clear the dirty states, since no one will still want to see them
             if (this.clientObservers.isEmpty()) {
                 this.dirtyBlocks.clear();
+                this.dirtyLightSections.set(0);
                 this.dirtyChunk = false;
             }
         }
@@ -472,7 +504,9 @@ public void addObserver(LanternPlayer observer) {
                 // to the player
                 if (chunk != null) {
                     this.clientObservers.add(observer);
-                    observer.getConnection().send(createChunkLoadMessages(chunk));
+                    final PreEncodedMessage chunkDataMessage = createLoadChunkMessage(chunk, ALL_SECTIONS_BIT_MASK, true);
+                    sendChunkLoadMessages(observer, chunkDataMessage);
+                    chunkDataMessage.release();
                 }
                 // Otherwise we will wait for the LoadChunkEvent to be called and
                 // send the messages at that point
@@ -81,6 +81,30 @@ public class LanternEventManager implements EventManager {
     private final LoadingCache<Class<? extends Event>, List<RegisteredListener<?>>> listenersCache =
             Caffeine.newBuilder().initialCapacity(150).build(this::bakeHandlers);
 
+    /**
+     * A table with per event type whether there are any listeners, the
+     * entries are lazily recomputed when the listeners version changes.
+     */
+    private final ClassValue<ListenerCheck> listenerChecks = new ClassValue<ListenerCheck>() {
+        @Override
+        protected ListenerCheck computeValue(Class<?> type) {
+            return new ListenerCheck();
+        }
+    };
+
+    /**
+     * The version of the registered listeners, increased
+     * every time that listeners are (un)registered.
+     */
+    private volatile int listenersVersion;
+
+    private static final class ListenerCheck {
+
+        // The listeners version in the upper 32 bits and whether
+        // there are listeners in the lowest bit, -1 if unknown
+        volatile long state = -1L;
+    }
+
     @Inject
     public LanternEventManager(Logger logger) {
         this.logger = logger;
@@ -151,7 +175,7 @@ private static String getHandlerErrorOrNull(Method method) {
         return String.join(", ", errors);
     }
 
-    private void register(RegisteredListener<?> listener) {
+    void register(RegisteredListener<?> listener) {
         register(Collections.singletonList(listener));
     }
 
@@ -164,6 +188,7 @@ private void register(List<RegisteredListener<?>> listeners) {
                     .forEach(listener -> types.addAll(TypeToken.of(listener.getEventClass()).getTypes().rawTypes()));
         }
         if (!types.isEmpty()) {
+            this.listenersVersion++;
             this.listenersCache.invalidateAll(types);
         }
     }
@@ -283,6 +308,7 @@ private void unregister(Predicate<RegisteredListener<?>> unregister) {
             }
         }
         if (!types.isEmpty()) {
+            this.listenersVersion++;
             this.listenersCache.invalidateAll(types);
         }
     }
@@ -299,14 +325,52 @@ public void unregisterPluginListeners(Object pluginObj) {
         unregister(handler -> plugin.equals(handler.getPlugin()));
     }
 
+    /**
+     * Gets whether there are any listeners registered that could receive events
+     * of the given type. This can be used to avoid constructing events and causes
+     * when nobody is listening.
+     *
+     * @param eventType The event type
+     * @return Whether there are listeners
+     */
+    public boolean hasListeners(Class<? extends Event> eventType) {
+        checkNotNull(eventType, "eventType");
+        final ListenerCheck check = this.listenerChecks.get(eventType);
+        final int version = this.listenersVersion;
+        long state = check.state;
+        if (state == -1L || (int) (state >>> 32) != version) {
+            state = ((long) version << 32) | (computeHasListeners(eventType) ? 1L : 0L);
+            check.state = state;
+        }
+        return (state & 1L) != 0L;
+    }
+
+    private boolean computeHasListeners(Class<?> eventType) {
+        synchronized (this.lock) {
+            for (Class<?> type : this.listenersByEvent.keySet()) {
+                // Listeners of sub types are included, the
+                // implementation class may implement them
+                if (type.isAssignableFrom(eventType) || eventType.isAssignableFrom(type)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     @SuppressWarnings({"unchecked", "ConstantConditions"})
     @Override
     public boolean post(Event event) {
         checkNotNull(event, "event");
+        final List<RegisteredListener<?>> listeners = this.listenersCache.get(event.getClass());
+        if (listeners.isEmpty()) {
+            return event instanceof Cancellable && ((Cancellable) event).isCancelled();
+        }
         final CauseStack causeStack = CauseStack.currentOrEmpty();
-        for (RegisteredListener listener : this.listenersCache.get(event.getClass())) {
+        for (RegisteredListener listener : listeners) {
             // Add the calling plugin to the cause stack
             causeStack.pushCause(listener.getPlugin());
+            listener.getTiming().startTiming();
             try {
                 if (event instanceof AbstractEvent) {
                     ((AbstractEvent) event).currentOrder = listener.getOrder();
@@ -316,6 +380,7 @@ public boolean post(Event event) {
                 this.logger.error("Could not pass {} to {}", event.getClass().getSimpleName(),
                         listener.getPlugin(), e);
             }
+            listener.getTiming().stopTiming();
             causeStack.popCause();
         }
         if (event instanceof AbstractEvent) {
@@ -28,6 +28,8 @@
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.MoreObjects;
+import org.lanternpowered.server.timings.LanternTiming;
+import org.lanternpowered.server.timings.LanternTimings;
 import org.spongepowered.api.event.Event;
 import org.spongepowered.api.event.EventListener;
 import org.spongepowered.api.event.Order;
@@ -41,11 +43,14 @@
     private final Class<T> eventClass;
     private final Order order;
 
+    private final LanternTiming timing;
+
     RegisteredListener(PluginContainer plugin, Class<T> eventClass, Order order, EventListener<? super T> handler) {
         this.plugin = checkNotNull(plugin, "plugin");
         this.eventClass = checkNotNull(eventClass, "eventClass");
         this.order = checkNotNull(order, "order");
         this.handler = checkNotNull(handler, "handler");
+        this.timing = LanternTimings.ofListener(plugin, eventClass, getHandle());
     }
 
     public PluginContainer getPlugin() {
@@ -60,6 +65,10 @@ public Order getOrder() {
         return this.order;
     }
 
+    public LanternTiming getTiming() {
+        return this.timing;
+    }
+
     @Override
     public Object getHandle() {
         if (this.handler instanceof LanternEventListener) {
@@ -417,6 +417,11 @@
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
@@ -439,6 +444,11 @@ public class LanternGameRegistry implements GameRegistry {
     private final Map<Class<? extends RegistryModule>, RegistryModule> classMap = new IdentityHashMap<>();
     private final Map<Class<?>, Supplier<?>> builderSupplierMap = new IdentityHashMap<>();
     private final List<Class<? extends RegistryModule>> orderedModules = new ArrayList<>();
+    // The ordered modules grouped in layers, the modules within a layer only
+    // depend on modules of previous layers and can be registered in parallel
+    private final List<List<Class<? extends RegistryModule>>> moduleLayers = new ArrayList<>();
+    // The time in nanoseconds that it took to register every module, for all the phases combined
+    private final Map<Class<? extends RegistryModule>, Long> moduleLoadTimes = new ConcurrentHashMap<>();
     private final Set<RegistryModule> registryModules = new HashSet<>();
 
     // The phase of the registrations, this starts at null to define the early state.
@@ -803,6 +813,27 @@ public void postInit() {
         this.phase = RegistrationPhase.POST_INIT;
         registerModulePhase();
         this.phase = RegistrationPhase.LOADED;
+        if (this.game.getLogger().isDebugEnabled()) {
+            this.game.getLogger().debug("The slowest registry modules to load:");
+            this.moduleLoadTimes.entrySet().stream()
+                    .sorted(Map.Entry.<Class<? extends RegistryModule>, Long>comparingByValue().reversed())
+                    .limit(10)
+                    .forEach(entry -> this.game.getLogger().debug(" - {}: {} ms",
+                            entry.getKey().getSimpleName(), TimeUnit.NANOSECONDS.toMillis(entry.getValue())));
+        }
+    }
+
+    /**
+     * Gets the time that it took to register every {@link RegistryModule},
+     * for all the registration phases combined.
+     *
+     * @param unit The time unit
+     * @return The load times
+     */
+    public Map<Class<? extends RegistryModule>, Long> getModuleLoadTimes(TimeUnit unit) {
+        final Map<Class<? extends RegistryModule>, Long> loadTimes = new IdentityHashMap<>();
+        this.moduleLoadTimes.forEach((module, time) -> loadTimes.put(module, unit.convert(time, TimeUnit.NANOSECONDS)));
+        return Collections.unmodifiableMap(loadTimes);
     }
 
     private void syncModules() {
@@ -823,8 +854,10 @@ private void syncModules() {
             }
             this.addToGraph(aModule, graph);
         }
+        this.moduleLayers.clear();
+        this.moduleLayers.addAll(TopologicalOrder.createLayeredLoad(graph));
         this.orderedModules.clear();
-        this.orderedModules.addAll(TopologicalOrder.createOrderedLoad(graph));
+        this.moduleLayers.forEach(this.orderedModules::addAll);
         this.modulesSynced = true;
     }
 
@@ -931,11 +964,67 @@ private void registerModulePhase() {
                 throw new IllegalStateException("Something funky happened! The module "
                         + moduleClass + " is required but seems to be missing.");
             }
-            tryModulePhaseRegistration(this.classMap.get(moduleClass));
         }
+        final long start = System.nanoTime();
+        final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool0 -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool0);
+            thread.setName("registry-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        try {
+            for (List<Class<? extends RegistryModule>> layer : this.moduleLayers) {
+                registerModuleLayer(pool, layer);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        this.game.getLogger().debug("Registered the modules for the {} phase in {} ms",
+                this.phase == null ? "EARLY" : this.phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         registerAdditionalPhase();
     }
 
+    /**
+     * Registers all the {@link RegistryModule}s of the layer on the {@link ForkJoinPool}
+     * and waits for all of them to complete, before the modules that depend on
+     * them will be registered.
+     *
+     * @param pool The fork join pool
+     * @param layer The modules of the layer
+     */
+    private void registerModuleLayer(ForkJoinPool pool, List<Class<? extends RegistryModule>> layer) {
+        if (layer.size() == 1) {
+            timedModulePhaseRegistration(this.classMap.get(layer.get(0)));
+            return;
+        }
+        final List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (Class<? extends RegistryModule> moduleClass : layer) {
+            final RegistryModule module = this.classMap.get(moduleClass);
+            tasks.add(pool.submit(() -> timedModulePhaseRegistration(module)));
+        }
+        RuntimeException exception = null;
+        for (ForkJoinTask<?> task : tasks) {
+            try {
+                task.join();
+            } catch (RuntimeException e) {
+                // Wait for the other modules before failing
+                if (exception == null) {
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private void timedModulePhaseRegistration(RegistryModule module) {
+        final long start = System.nanoTime();
+        tryModulePhaseRegistration(module);
+        this.moduleLoadTimes.merge(module.getClass(), System.nanoTime() - start, Long::sum);
+    }
+
     private void registerAdditionalPhase() {
         for (Class<? extends RegistryModule> moduleClass : this.orderedModules) {
             final RegistryModule module = this.classMap.get(moduleClass);
@@ -36,9 +36,9 @@
 import org.spongepowered.api.registry.AlternateCatalogRegistryModule;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
@@ -48,7 +48,9 @@
         implements AlternateCatalogRegistryModule<T>, CatalogMappingDataHolder {
 
     @Nullable private Collection<T> values;
-    Map<String, T> types = new HashMap<>();
+    // Concurrent, modules may be registered in parallel and some of
+    // them register catalog types into other modules
+    Map<String, T> types = new ConcurrentHashMap<>();
     @Nullable Function<T, String> mappingProvider;
     private final Class<?>[] catalogClasses;
     @Nullable private final String patternValue;
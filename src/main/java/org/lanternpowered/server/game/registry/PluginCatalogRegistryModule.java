@@ -37,6 +37,7 @@
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
@@ -48,7 +49,7 @@
     private final static String ID_PATTERN_VALUE = "^[a-z][a-z0-9-_]+:[a-z][a-z0-9-_]+$";
     private final static Pattern ID_PATTERN = Pattern.compile(ID_PATTERN_VALUE);
 
-    @Nullable private Map<String, T> typesByName = null;
+    @Nullable private volatile Map<String, T> typesByName = null;
 
     public PluginCatalogRegistryModule(Class<?>... catalogClasses) {
         super(catalogClasses);
@@ -71,7 +72,7 @@ protected void register(T catalogType) {
         register(catalogType, false);
     }
 
-    protected void register(T catalogType, boolean disallowInbuiltPluginIds) {
+    protected synchronized void register(T catalogType, boolean disallowInbuiltPluginIds) {
         validateCatalogType(catalogType, ID_PATTERN_VALUE, ID_PATTERN);
         final String id = catalogType.getId();
         final int index = id.indexOf(':');
@@ -95,7 +96,7 @@ protected void register(T catalogType, boolean disallowInbuiltPluginIds) {
             }
         }
         if (this.typesByName == null) {
-            this.typesByName = new HashMap<>();
+            this.typesByName = new ConcurrentHashMap<>();
         }
         this.typesByName.put(name, catalogType);
     }
@@ -33,6 +33,7 @@
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
@@ -43,7 +44,7 @@
     private final static String ID_PATTERN_VALUE = "^[a-z][a-z0-9-_]+$";
     private final static Pattern ID_PATTERN = Pattern.compile(ID_PATTERN_VALUE);
 
-    @Nullable private Map<String, T> typesByName = null;
+    @Nullable private volatile Map<String, T> typesByName = null;
 
     public SimpleCatalogRegistryModule(Class<?>... catalogClasses) {
         super(catalogClasses);
@@ -67,14 +68,14 @@ protected void finalizeContent() {
     }
 
     @Override
-    protected void register(T catalogType) {
+    protected synchronized void register(T catalogType) {
         validateCatalogType(catalogType, ID_PATTERN_VALUE, ID_PATTERN);
         final String id = catalogType.getId();
         this.types.put(id, catalogType);
         final String name = catalogType.getName().toLowerCase(Locale.ENGLISH);
         if (!id.equals(name)) {
             if (this.typesByName == null) {
-                this.typesByName = new HashMap<>();
+                this.typesByName = new ConcurrentHashMap<>();
             }
             this.typesByName.putIfAbsent(name, catalogType);
         }
@@ -115,6 +115,7 @@
         KeyRegistryModule.class,
         EquipmentTypeRegistryModule.class,
         InstrumentTypeRegistryModule.class,
+        BlockStateRegistryModule.class,
 })
 public final class BlockRegistryModule extends AdditionalPluginCatalogRegistryModule<BlockType> implements BlockRegistry {
 
@@ -38,10 +38,14 @@
 import org.lanternpowered.server.item.LanternItemType;
 import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataTransactionResult;
 import org.spongepowered.api.data.DataView;
+import org.spongepowered.api.data.key.Key;
 import org.spongepowered.api.data.key.Keys;
 import org.spongepowered.api.data.manipulator.DataManipulator;
+import org.spongepowered.api.data.merge.MergeFunction;
 import org.spongepowered.api.data.persistence.InvalidDataException;
+import org.spongepowered.api.data.value.BaseValue;
 import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.ItemTypes;
 import org.spongepowered.api.item.inventory.ItemStack;
@@ -49,8 +53,9 @@
 import org.spongepowered.api.text.translation.Translation;
 
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nullable;
 
@@ -61,12 +66,20 @@ public static ItemStack orEmpty(@Nullable ItemStack itemStack) {
         return itemStack == null ? ItemStack.empty() : itemStack;
     }
 
-    private final ValueCollection valueCollection;
-    private final AdditionalContainerCollection<DataManipulator<?, ?>> additionalContainers;
+    // The default item stacks per item type, new item
+    // stacks share their data until it's modified
+    private static final Map<ItemType, LanternItemStack> defaultStacks = new ConcurrentHashMap<>();
+
+    private ValueCollection valueCollection;
+    private AdditionalContainerCollection<DataManipulator<?, ?>> additionalContainers;
     private final ItemType itemType;
 
     private int quantity;
 
+    // Whether the data of this item stack is shared with other item stacks or
+    // snapshots, the data will be copied before this item stack is modified
+    private boolean shared;
+
     /**
      * Constructs a new {@link LanternItemStack} for the specified {@link BlockType},
      * a {@link IllegalArgumentException} will be thrown if {@link BlockType#getItem()}
@@ -106,8 +119,12 @@ public LanternItemStack(ItemType itemType) {
      * @param quantity The quantity
      */
     public LanternItemStack(ItemType itemType, int quantity) {
-        this(itemType, quantity, ValueCollection.create(), AdditionalContainerCollection.createConcurrent());
-        registerKeys();
+        this(itemType, quantity, getDefaultStack(itemType));
+    }
+
+    private LanternItemStack(ItemType itemType, int quantity, LanternItemStack data) {
+        this(itemType, quantity, data.valueCollection, data.additionalContainers);
+        this.shared = true;
     }
 
     private LanternItemStack(ItemType itemType, int quantity, ValueCollection valueCollection,
@@ -120,12 +137,40 @@ private LanternItemStack(ItemType itemType, int quantity, ValueCollection valueC
         this.itemType = itemType;
     }
 
+    private static LanternItemStack getDefaultStack(ItemType itemType) {
+        LanternItemStack itemStack = defaultStacks.get(checkNotNull(itemType, "itemType"));
+        if (itemStack != null) {
+            return itemStack;
+        }
+        // Not within computeIfAbsent, the keys provider of
+        // the item type may construct other item stacks
+        itemStack = new LanternItemStack(itemType, 1, ValueCollection.create(), AdditionalContainerCollection.createConcurrent());
+        itemStack.registerKeys();
+        itemStack.shared = true;
+        final LanternItemStack previous = defaultStacks.putIfAbsent(itemType, itemStack);
+        return previous == null ? itemStack : previous;
+    }
+
+    /**
+     * Copies the data of this item stack if it's shared with other item
+     * stacks or snapshots. Should be called before the {@link ValueCollection}
+     * or the additional containers are modified directly, the data holder
+     * methods of this item stack already take care of this.
+     */
+    public void ensureUnshared() {
+        if (this.shared) {
+            this.valueCollection = this.valueCollection.copy();
+            this.additionalContainers = this.additionalContainers.copy();
+            this.shared = false;
+        }
+    }
+
     private void registerKeys() {
         final ValueCollection c = getValueCollection();
         ((LanternItemType) this.itemType).getKeysProvider().accept(c);
         c.register(Keys.DISPLAY_NAME, null);
         c.register(Keys.ITEM_LORE, Collections.emptyList());
-        c.register(Keys.BREAKABLE_BLOCK_TYPES, new HashSet<>());
+        c.register(Keys.BREAKABLE_BLOCK_TYPES, Collections.emptySet());
         c.register(Keys.ITEM_ENCHANTMENTS, Collections.emptyList());
     }
 
@@ -147,11 +192,72 @@ public boolean validateRawData(DataView dataView) {
     @Override
     public void setRawData(DataView dataView) throws InvalidDataException {
         checkNotNull(dataView, "dataView");
+        ensureUnshared();
         dataView.remove(DataQueries.ITEM_TYPE);
         this.quantity = dataView.getInt(DataQueries.QUANTITY).orElse(1);
         IAdditionalDataHolder.super.setRawData(dataView);
     }
 
+    @Override
+    public <E> boolean offerFast(Key<? extends BaseValue<E>> key, E element) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.offerFast(key, element);
+    }
+
+    @Override
+    public <E> DataTransactionResult offer(Key<? extends BaseValue<E>> key, E element) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.offer(key, element);
+    }
+
+    @Override
+    public <E> boolean offerFast(BaseValue<E> value) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.offerFast(value);
+    }
+
+    @Override
+    public <E> DataTransactionResult offer(BaseValue<E> value) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.offer(value);
+    }
+
+    @Override
+    public boolean offerFast(DataManipulator<?, ?> valueContainer, MergeFunction function) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.offerFast(valueContainer, function);
+    }
+
+    @Override
+    public DataTransactionResult offer(DataManipulator<?, ?> valueContainer, MergeFunction function) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.offer(valueContainer, function);
+    }
+
+    @Override
+    public boolean removeFast(Key<?> key) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.removeFast(key);
+    }
+
+    @Override
+    public DataTransactionResult remove(Key<?> key) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.remove(key);
+    }
+
+    @Override
+    public boolean removeFast(Class<? extends DataManipulator<?, ?>> containerClass) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.removeFast(containerClass);
+    }
+
+    @Override
+    public DataTransactionResult remove(Class<? extends DataManipulator<?, ?>> containerClass) {
+        ensureUnshared();
+        return IAdditionalDataHolder.super.remove(containerClass);
+    }
+
     @Override
     public DataContainer toContainer() {
         return IAdditionalDataHolder.super.toContainer()
@@ -213,7 +319,9 @@ public boolean isEmpty() {
 
     @Override
     public LanternItemStack copy() {
-        return new LanternItemStack(this.itemType, this.quantity, getValueCollection().copy(), this.additionalContainers.copy());
+        // The data will be copied once one of the item stacks is modified
+        this.shared = true;
+        return new LanternItemStack(this.itemType, this.quantity, this);
     }
 
     /**
@@ -239,7 +347,13 @@ public boolean similarTo(ItemStackSnapshot that) {
      */
     public boolean similarTo(ItemStack that) {
         checkNotNull(that, "that");
-        return getType() == that.getType() && IValueContainer.matchContents(this, (IValueContainer) that);
+        if (getType() != that.getType()) {
+            return false;
+        }
+        final LanternItemStack other = (LanternItemStack) that;
+        // Item stacks that share their data are always similar
+        return (this.valueCollection == other.valueCollection && this.additionalContainers == other.additionalContainers) ||
+                IValueContainer.matchContents(this, other);
     }
 
     public static boolean areSimilar(@Nullable ItemStack itemStackA, @Nullable ItemStack itemStackB) {
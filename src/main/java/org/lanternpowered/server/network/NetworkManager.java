@@ -38,9 +38,12 @@
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import org.lanternpowered.server.LanternServer;
+import org.lanternpowered.server.config.GlobalConfig;
+import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.network.buffer.LanternByteBufferAllocator;
 import org.lanternpowered.server.network.message.codec.CodecContext;
 import org.lanternpowered.server.network.message.codec.SimpleCodecContext;
+import org.lanternpowered.server.network.pipeline.AutoFlushHandler;
 import org.lanternpowered.server.network.pipeline.LegacyProtocolHandler;
 import org.lanternpowered.server.network.pipeline.MessageCodecHandler;
 import org.lanternpowered.server.network.pipeline.MessageFramingHandler;
@@ -70,6 +73,8 @@ public final class NetworkManager extends ServerBase {
 
     @Nullable private SocketAddress socketAddress;
 
+    private boolean batchWrites;
+
     @Inject
     public NetworkManager(LanternServer server) {
         this.server = server;
@@ -100,6 +105,23 @@ public void pulseSessions() {
         this.sessions.forEach(NetworkSession::pulse);
     }
 
+    /**
+     * Flushes the batched messages of all the sessions.
+     */
+    public void flushSessions() {
+        this.sessions.forEach(NetworkSession::flush);
+    }
+
+    /**
+     * Gets whether the outbound messages of the
+     * sessions are batched until the end of the tick.
+     *
+     * @return Whether the writes are batched
+     */
+    boolean isBatchingWrites() {
+        return this.batchWrites;
+    }
+
     /**
      * Called when the {@link NetworkSession} becomes active.
      *
@@ -127,6 +149,9 @@ protected ChannelFuture init0(SocketAddress address, boolean epoll) {
         this.bossGroup = createEventLoopGroup(epoll, threadFactory);
         this.workerGroup = createEventLoopGroup(epoll, threadFactory);
         this.socketAddress = address;
+        final GlobalConfig config = Lantern.getGame().getGlobalConfig();
+        this.batchWrites = config.isNetworkBatchedWrites();
+        final int autoFlushThreshold = this.batchWrites ? config.getNetworkAutoFlushThreshold() : 0;
         return this.bootstrap
                 .group(this.bossGroup, this.workerGroup)
                 .channel(getServerSocketChannelClass(epoll))
@@ -136,8 +161,11 @@ protected void initChannel(SocketChannel ch) throws Exception {
                         final ChannelPipeline pipeline = ch.pipeline();
                         final NetworkSession networkSession = new NetworkSession(ch, server, NetworkManager.this);
                         final CodecContext codecContext = new SimpleCodecContext(new LanternByteBufferAllocator(ch.alloc()), ch, networkSession);
-                        pipeline.addLast(new ReadTimeoutHandler(NetworkSession.READ_TIMEOUT_SECONDS))
-                                .addLast(NetworkSession.LEGACY_PING, new LegacyProtocolHandler(networkSession))
+                        pipeline.addLast(new ReadTimeoutHandler(NetworkSession.READ_TIMEOUT_SECONDS));
+                        if (autoFlushThreshold > 0) {
+                            pipeline.addLast(NetworkSession.AUTO_FLUSH, new AutoFlushHandler(autoFlushThreshold));
+                        }
+                        pipeline.addLast(NetworkSession.LEGACY_PING, new LegacyProtocolHandler(networkSession))
                                 .addLast(NetworkSession.ENCRYPTION, NoopHandler.INSTANCE)
                                 .addLast(NetworkSession.FRAMING, new MessageFramingHandler())
                                 .addLast(NetworkSession.COMPRESSION, NoopHandler.INSTANCE)
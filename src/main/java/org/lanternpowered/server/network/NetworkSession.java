@@ -58,6 +58,7 @@
 import org.lanternpowered.server.network.entity.EntityProtocolTypes;
 import org.lanternpowered.server.network.message.AsyncHelper;
 import org.lanternpowered.server.network.message.BulkMessage;
+import org.lanternpowered.server.network.message.FlushImmediately;
 import org.lanternpowered.server.network.message.HandlerMessage;
 import org.lanternpowered.server.network.message.Message;
 import org.lanternpowered.server.network.message.MessageRegistration;
@@ -123,6 +124,17 @@ public final class NetworkSession extends SimpleChannelInboundHandler<Message> i
     public static final String CODECS = "codecs";
     public static final String PROCESSOR = "processor";
     public static final String HANDLER = "handler";
+    public static final String AUTO_FLUSH = "auto-flush";
+
+    /**
+     * Whether the {@link Message} types should be flushed immediately.
+     */
+    private static final ClassValue<Boolean> flushImmediately = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return type.getAnnotation(FlushImmediately.class) != null;
+        }
+    };
 
     /**
      * The game profile of the player the last time he joined.
@@ -214,6 +226,11 @@ public Channel getChannel() {
      */
     private int protocolVersion = -1;
 
+    /**
+     * Whether there are messages written since the last flush.
+     */
+    private volatile boolean pendingFlush;
+
     public NetworkSession(Channel channel, LanternServer server, NetworkManager networkManager) {
         this.networkManager = networkManager;
         this.channel = channel;
@@ -462,6 +479,35 @@ public void pulse() {
         }
     }
 
+    /**
+     * Flushes all the messages that were batched since the last flush.
+     */
+    public void flush() {
+        if (this.pendingFlush) {
+            this.pendingFlush = false;
+            this.channel.flush();
+        }
+    }
+
+    /**
+     * Writes the {@link Message} to the channel, the message will only be flushed directly
+     * if the writes aren't batched, the message is latency critical or the session isn't
+     * in the {@link ProtocolState#PLAY} state. Otherwise will the message be flushed
+     * at the end of the tick.
+     *
+     * @param message The message
+     * @param promise The channel promise
+     */
+    private void write(Message message, ChannelPromise promise) {
+        if (!this.networkManager.isBatchingWrites() || this.protocolState != ProtocolState.PLAY ||
+                flushImmediately.get(message.getClass())) {
+            this.channel.writeAndFlush(message, promise);
+        } else {
+            this.channel.write(message, promise);
+            this.pendingFlush = true;
+        }
+    }
+
     /**
      * Gets a list with all the installed client mods.
      *
@@ -665,7 +711,7 @@ public void send(Message message) {
         }
         ReferenceCountUtil.retain(message);
         // Thrown exceptions will be delegated through the exceptionCaught method
-        this.channel.writeAndFlush(message, this.channel.voidPromise());
+        write(message, this.channel.voidPromise());
     }
 
     /**
@@ -681,13 +727,13 @@ public void send(Message... messages) {
         }
         final ChannelPromise voidPromise = this.channel.voidPromise();
         if (messages.length == 1) {
-            this.channel.writeAndFlush(messages[0], voidPromise);
+            write(messages[0], voidPromise);
         } else {
             final EventLoop eventLoop = this.channel.eventLoop();
             if (eventLoop.inEventLoop()) {
                 for (Message message : messages) {
                     ReferenceCountUtil.retain(message);
-                    this.channel.writeAndFlush(message, voidPromise);
+                    write(message, voidPromise);
                 }
             } else {
                 // If there are more then one message, combine them inside the
@@ -698,7 +744,7 @@ public void send(Message... messages) {
                 messages0.forEach(ReferenceCountUtil::retain);
                 eventLoop.submit(() -> {
                     for (Message message0 : messages0) {
-                        this.channel.writeAndFlush(message0, voidPromise);
+                        write(message0, voidPromise);
                     }
                 });
             }
@@ -719,12 +765,12 @@ public void send(Iterable<Message> messages) {
         // there is only one message.
         final ChannelPromise voidPromise = this.channel.voidPromise();
         if (!it.hasNext()) {
-            this.channel.writeAndFlush(message, voidPromise);
+            write(message, voidPromise);
         } else {
             final EventLoop eventLoop = this.channel.eventLoop();
             if (eventLoop.inEventLoop()) {
                 for (Message message0 : messages) {
-                    this.channel.writeAndFlush(message0, voidPromise);
+                    write(message0, voidPromise);
                 }
             } else {
                 // If there are more then one message, combine them inside the
@@ -734,7 +780,7 @@ public void send(Iterable<Message> messages) {
                 final List<Message> messages0 = ImmutableList.copyOf(messages);
                 eventLoop.submit(() -> {
                     for (Message message0 : messages0) {
-                        this.channel.writeAndFlush(message0, voidPromise);
+                        write(message0, voidPromise);
                     }
                 });
             }
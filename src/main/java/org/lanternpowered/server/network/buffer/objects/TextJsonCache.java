@@ -0,0 +1,176 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.buffer.objects;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonObject;
+import org.spongepowered.api.text.ScoreText;
+import org.spongepowered.api.text.Text;
+import org.spongepowered.api.text.TranslatableText;
+import org.spongepowered.api.text.action.HoverAction;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * A cache for the serialized json of {@link Text} objects, per {@link Locale}. A
+ * message that is broadcast to many players uses the same {@link Text} instance
+ * for every recipient, so it only has to be serialized once for every locale.
+ * <p>
+ * The texts are weakly referenced and compared by identity. Texts that contain
+ * {@link ScoreText}s or arguments that may change aren't cached.
+ */
+public final class TextJsonCache {
+
+    // The value that marks texts that cannot be cached
+    private static final Map<Locale, byte[]> UNCACHEABLE = ImmutableMap.of();
+
+    private final Cache<Text, Map<Locale, byte[]>> cache;
+    private final BiFunction<Text, Locale, byte[]> serializer;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder uncacheable = new LongAdder();
+
+    TextJsonCache(long maximumSize, BiFunction<Text, Locale, byte[]> serializer) {
+        this.cache = Caffeine.newBuilder().weakKeys().maximumSize(maximumSize).build();
+        this.serializer = serializer;
+    }
+
+    /**
+     * Gets the UTF-8 encoded json of the {@link Text} for the given {@link Locale}.
+     *
+     * @param text The text
+     * @param locale The locale
+     * @return The encoded json
+     */
+    byte[] get(Text text, Locale locale) {
+        final Map<Locale, byte[]> entries = this.cache.get(text,
+                key -> isCacheable(key) ? new ConcurrentHashMap<>(4) : UNCACHEABLE);
+        //noinspection ConstantConditions
+        if (entries == UNCACHEABLE) {
+            this.uncacheable.increment();
+            return this.serializer.apply(text, locale);
+        }
+        byte[] json = entries.get(locale);
+        if (json != null) {
+            this.hits.increment();
+            return json;
+        }
+        this.misses.increment();
+        json = this.serializer.apply(text, locale);
+        entries.putIfAbsent(locale, json);
+        return json;
+    }
+
+    private static boolean isCacheable(Text text) {
+        if (text instanceof ScoreText) {
+            return false;
+        }
+        if (text instanceof TranslatableText) {
+            for (Object argument : ((TranslatableText) text).getArguments()) {
+                if (argument instanceof Text) {
+                    if (!isCacheable((Text) argument)) {
+                        return false;
+                    }
+                } else if (!(argument instanceof String || argument instanceof Number ||
+                        argument instanceof Boolean || argument instanceof Character)) {
+                    // The string representation of other objects may change
+                    return false;
+                }
+            }
+        }
+        final HoverAction<?> hoverAction = text.getHoverAction().orElse(null);
+        if (hoverAction instanceof HoverAction.ShowText && !isCacheable(((HoverAction.ShowText) hoverAction).getResult())) {
+            return false;
+        }
+        for (Text child : text.getChildren()) {
+            if (!isCacheable(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the amount of lookups that were served from the cache.
+     *
+     * @return The hit count
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Gets the amount of lookups that had to be serialized,
+     * including the ones of texts that cannot be cached.
+     *
+     * @return The miss count
+     */
+    public long getMissCount() {
+        return this.misses.sum() + this.uncacheable.sum();
+    }
+
+    /**
+     * Gets the ratio of lookups that were served from the cache.
+     *
+     * @return The hit rate
+     */
+    public double getHitRate() {
+        final long hits = getHitCount();
+        final long total = hits + getMissCount();
+        return total == 0 ? 1.0 : (double) hits / total;
+    }
+
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetStatistics() {
+        this.hits.reset();
+        this.misses.reset();
+        this.uncacheable.reset();
+    }
+
+    /**
+     * Creates a json object with the statistics of this cache.
+     *
+     * @return The json object
+     */
+    public JsonObject getStatistics() {
+        final JsonObject json = new JsonObject();
+        json.addProperty("size", this.cache.estimatedSize());
+        json.addProperty("hits", getHitCount());
+        json.addProperty("misses", this.misses.sum());
+        json.addProperty("uncacheable", this.uncacheable.sum());
+        json.addProperty("hit-rate", getHitRate());
+        return json;
+    }
+}
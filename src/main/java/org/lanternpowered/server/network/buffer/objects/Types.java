@@ -49,6 +49,9 @@
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.text.Text;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
 import javax.annotation.Nullable;
 
 public final class Types {
@@ -103,6 +106,21 @@ public Vector3f read(ByteBuffer buf) throws CodecException {
     public static final Gson TEXT_GSON = JsonTextSerializer.applyTo(new GsonBuilder(),
             Lantern.getGame().getRegistry().getTranslationManager(), true).create();
 
+    /**
+     * The cache for the serialized json of {@link Text} objects, per locale.
+     */
+    public static final TextJsonCache TEXT_JSON_CACHE = new TextJsonCache(2048, Types::toJsonBytes);
+
+    private static byte[] toJsonBytes(Text text, Locale locale) {
+        final Locale previousLocale = JsonTextTranslatableSerializer.getCurrentLocale();
+        JsonTextTranslatableSerializer.setCurrentLocale(locale);
+        try {
+            return fixJson(TEXT_GSON.toJson(text)).getBytes(StandardCharsets.UTF_8);
+        } finally {
+            JsonTextTranslatableSerializer.setCurrentLocale(previousLocale);
+        }
+    }
+
     /**
      * A serializer for {@link Text} objects,
      * NULL {@code null} values are NOT SUPPORTED.
@@ -112,7 +130,7 @@ public Vector3f read(ByteBuffer buf) throws CodecException {
     public static final Type<Text> TEXT = Type.create(Text.class, new ValueSerializer<Text>() {
         @Override
         public void write(ByteBuffer buf, Text object) throws CodecException {
-            buf.writeString(fixJson(TEXT_GSON.toJson(object)));
+            buf.writeByteArray(TEXT_JSON_CACHE.get(object, JsonTextTranslatableSerializer.getCurrentLocale()));
         }
 
         @Override
@@ -130,9 +148,7 @@ public Text read(ByteBuffer buf) throws CodecException {
     public static final Type<LocalizedText> LOCALIZED_TEXT = Type.create(LocalizedText.class, new ValueSerializer<LocalizedText>() {
         @Override
         public void write(ByteBuffer buf, LocalizedText object) throws CodecException {
-            JsonTextTranslatableSerializer.setCurrentLocale(object.getLocale());
-            buf.writeString(fixJson(TEXT_GSON.toJson(object.getText())));
-            JsonTextTranslatableSerializer.removeCurrentLocale();
+            buf.writeByteArray(TEXT_JSON_CACHE.get(object.getText(), object.getLocale()));
         }
 
         @Override
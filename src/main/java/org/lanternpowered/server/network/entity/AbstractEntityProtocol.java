@@ -268,34 +268,34 @@ final class TrackerUpdateContextData {
     }
 
     @Nullable
-    TrackerUpdateContextData buildUpdateContextData(Set<LanternPlayer> players) {
-        players = new HashSet<>(players);
-
-        final Set<LanternPlayer> removed = new HashSet<>();
-        final Set<LanternPlayer> added = new HashSet<>();
-
+    TrackerUpdateContextData buildUpdateContextData(PlayerGrid playerGrid) {
         final Vector3d pos = this.entity.getPosition();
 
+        Set<LanternPlayer> removed = null;
         final Iterator<LanternPlayer> trackerIt = this.trackers.iterator();
         while (trackerIt.hasNext()) {
             final LanternPlayer tracker = trackerIt.next();
-            final boolean flag = players.remove(tracker);
             if (tracker != this.entity &&
-                    (!flag || !isVisible(pos, tracker))) {
+                    (!playerGrid.contains(tracker) || !isVisible(pos, tracker))) {
                 trackerIt.remove();
+                if (removed == null) {
+                    removed = new HashSet<>();
+                }
                 removed.add(tracker);
             }
         }
 
-        for (LanternPlayer tracker : players) {
-            if (tracker == this.entity || isVisible(pos, tracker)) {
+        // Only the players in the surrounding cells need to be checked
+        final Set<LanternPlayer> added = new HashSet<>();
+        playerGrid.forEachNearby(pos, this.trackingRange, tracker -> {
+            if (!this.trackers.contains(tracker) && (tracker == this.entity || isVisible(pos, tracker))) {
                 added.add(tracker);
             }
-        }
+        });
 
         boolean flag0 = this.tickCounter++ % this.tickRate == 0 && !this.trackers.isEmpty();
         boolean flag1 = !added.isEmpty();
-        boolean flag2 = !removed.isEmpty();
+        boolean flag2 = removed != null;
 
         if (!flag0 && !flag1 && !flag2) {
             return null;
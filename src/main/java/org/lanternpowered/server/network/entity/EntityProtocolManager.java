@@ -39,7 +39,6 @@
 import org.spongepowered.api.entity.Entity;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -224,6 +223,11 @@ public void release(int[] array) {
         }
     }
 
+    /**
+     * The spatial grid of all the players that can track the entities.
+     */
+    private final PlayerGrid playerGrid = new PlayerGrid();
+
     private int pulseCounter;
 
     Optional<AbstractEntityProtocol<?>> getEntityProtocolById(int id) {
@@ -313,11 +317,13 @@ public void updateTrackers(Set<LanternPlayer> players) {
             removed.destroy(new EntityProtocolInitContextImpl(removed));
         }
 
-        final List<AbstractEntityProtocol.TrackerUpdateContextData> updateContextDataList = new ArrayList<>();
+        // Move the players to their new cells, instead of
+        // checking all the players for every entity
+        this.playerGrid.update(players);
 
-        final Set<AbstractEntityProtocol<?>> protocols = new HashSet<>(this.entityProtocols.values());
-        for (AbstractEntityProtocol<?> protocol : protocols) {
-            final AbstractEntityProtocol.TrackerUpdateContextData contextData = protocol.buildUpdateContextData(players);
+        final List<AbstractEntityProtocol.TrackerUpdateContextData> updateContextDataList = new ArrayList<>();
+        for (AbstractEntityProtocol<?> protocol : this.entityProtocols.values()) {
+            final AbstractEntityProtocol.TrackerUpdateContextData contextData = protocol.buildUpdateContextData(this.playerGrid);
             if (contextData != null) {
                 //noinspection unchecked
                 protocol.updateTrackers(contextData);
@@ -0,0 +1,159 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.entity;
+
+import com.flowpowered.math.vector.Vector3d;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import org.lanternpowered.server.entity.living.player.LanternPlayer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A spatial hash of all the {@link LanternPlayer}s within a world, the players
+ * are bucketed by the chunk column they are located in. This allows entity protocols
+ * to only test the players that are within their tracking range, instead of all
+ * the players in the world.
+ */
+final class PlayerGrid {
+
+    /**
+     * The amount of bits to shift a block coordinate to get
+     * the cell coordinate, a cell is the size of a chunk.
+     */
+    private static final int CELL_SHIFT = 4;
+    private static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    /**
+     * All the players mapped by their cell key.
+     */
+    private final Long2ObjectMap<List<LanternPlayer>> cells = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * The cell keys of all the players within this grid.
+     */
+    private final Object2LongMap<LanternPlayer> playerCells = new Object2LongOpenHashMap<>();
+
+    private static long key(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xffffffffL);
+    }
+
+    private static long key(Vector3d position) {
+        return key(position.getFloorX() >> CELL_SHIFT, position.getFloorZ() >> CELL_SHIFT);
+    }
+
+    /**
+     * Updates the cells of all the players. Players that are
+     * no longer present in the set will be removed and new
+     * players will be added.
+     *
+     * @param players The players that are currently in the world
+     */
+    void update(Set<LanternPlayer> players) {
+        // Remove the players that left the world
+        final Iterator<Object2LongMap.Entry<LanternPlayer>> it = this.playerCells.object2LongEntrySet().iterator();
+        while (it.hasNext()) {
+            final Object2LongMap.Entry<LanternPlayer> entry = it.next();
+            if (!players.contains(entry.getKey())) {
+                removeFromCell(entry.getLongValue(), entry.getKey());
+                it.remove();
+            }
+        }
+        // Add the new players and move the ones that switched cells
+        for (LanternPlayer player : players) {
+            final long key = key(player.getPosition());
+            if (!this.playerCells.containsKey(player)) {
+                this.playerCells.put(player, key);
+                this.cells.computeIfAbsent(key, k -> new ArrayList<>()).add(player);
+            } else {
+                final long oldKey = this.playerCells.getLong(player);
+                if (oldKey != key) {
+                    removeFromCell(oldKey, player);
+                    this.playerCells.put(player, key);
+                    this.cells.computeIfAbsent(key, k -> new ArrayList<>()).add(player);
+                }
+            }
+        }
+    }
+
+    private void removeFromCell(long key, LanternPlayer player) {
+        final List<LanternPlayer> cell = this.cells.get(key);
+        if (cell != null) {
+            cell.remove(player);
+            if (cell.isEmpty()) {
+                this.cells.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Gets whether the {@link LanternPlayer} is present in this grid.
+     *
+     * @param player The player
+     * @return Whether the player is present
+     */
+    boolean contains(LanternPlayer player) {
+        return this.playerCells.containsKey(player);
+    }
+
+    /**
+     * Applies the consumer to all the {@link LanternPlayer}s that are located
+     * in the cells that overlap the range around the given position. This
+     * is a superset of the players that are actually within the range.
+     *
+     * @param position The center position
+     * @param range The range
+     * @param consumer The consumer
+     */
+    void forEachNearby(Vector3d position, double range, Consumer<LanternPlayer> consumer) {
+        final int radius = (int) Math.ceil(range / CELL_SIZE);
+        final long area = (2L * radius + 1L) * (2L * radius + 1L);
+        // Scanning all the cells would be more expensive
+        // than just looping through the players
+        if (area >= this.cells.size()) {
+            for (List<LanternPlayer> cell : this.cells.values()) {
+                cell.forEach(consumer);
+            }
+            return;
+        }
+        final int centerX = position.getFloorX() >> CELL_SHIFT;
+        final int centerZ = position.getFloorZ() >> CELL_SHIFT;
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                final List<LanternPlayer> cell = this.cells.get(key(x, z));
+                if (cell != null) {
+                    cell.forEach(consumer);
+                }
+            }
+        }
+    }
+}
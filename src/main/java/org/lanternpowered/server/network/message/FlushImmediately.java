@@ -23,39 +23,21 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-package org.lanternpowered.server.game.registry.factory;
+package org.lanternpowered.server.network.message;
 
-import co.aikar.timings.Timing;
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
-public class DummyLanternTiming implements Timing {
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
 
-    @Override
-    public Timing startTiming() {
-        return this;
-    }
-
-    @Override
-    public void stopTiming() {
-        // Ignore
-    }
-
-    @Override
-    public void startTimingIfSync() {
-        // Ignore
-    }
-
-    @Override
-    public void stopTimingIfSync() {
-        // Ignore
-    }
-
-    @Override
-    public void abort() {
-        // Ignore
-    }
+/**
+ * Marks a {@link Message} type as latency critical, the message will be
+ * flushed directly when it's send instead of being batched until the
+ * end of the tick.
+ */
+@Target(TYPE)
+@Retention(RUNTIME)
+public @interface FlushImmediately {
 
-    @Override
-    public void close() {
-        // Ignore
-    }
 }
@@ -0,0 +1,153 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.network.message;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.MoreObjects;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCountUtil;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Represents a {@link Message} that will only be encoded (and compressed)
+ * once for every distinct compression threshold, the resulting {@link ByteBuf}
+ * will be shared between all the sessions this message is send to.
+ * <p>
+ * The {@link org.lanternpowered.server.network.message.processor.Processor}s
+ * of the wrapped message type will be ignored, so this should only be used
+ * for messages of which the content is independent of the target session.
+ */
+public final class PreEncodedMessage extends AbstractReferenceCounted implements Message {
+
+    /**
+     * The key that is used to cache the uncompressed content.
+     */
+    private static final int UNCOMPRESSED = -1;
+
+    private final Message message;
+    private final Int2ObjectMap<ByteBuf> encodedContents = new Int2ObjectOpenHashMap<>();
+
+    public PreEncodedMessage(Message message) {
+        checkNotNull(message, "message");
+        checkArgument(!(message instanceof PreEncodedMessage), "The message is already pre encoded.");
+        this.message = message;
+    }
+
+    /**
+     * Gets the wrapped {@link Message}.
+     *
+     * @return The message
+     */
+    public Message getMessage() {
+        return this.message;
+    }
+
+    /**
+     * Gets the encoded content of the wrapped {@link Message}, the content will
+     * be encoded and compressed if this didn't happen before for the target
+     * compression threshold. A retained duplicate of the shared content is
+     * returned, so it should be released by the caller.
+     *
+     * @param encoder The encoder that constructs the uncompressed content
+     * @param compressor The compressor, or {@code null} if compression is disabled
+     * @param compressionThreshold The compression threshold
+     * @return The encoded content
+     * @throws Exception If the encoding failed
+     */
+    public synchronized ByteBuf getEncodedContent(Encoder encoder,
+            @Nullable Compressor compressor, int compressionThreshold) throws Exception {
+        checkState(refCnt() > 0, "The pre encoded message is already released.");
+        ByteBuf content = this.encodedContents.get(UNCOMPRESSED);
+        if (content == null) {
+            content = encoder.encode(this.message);
+            this.encodedContents.put(UNCOMPRESSED, content);
+        }
+        if (compressor != null) {
+            ByteBuf compressed = this.encodedContents.get(compressionThreshold);
+            if (compressed == null) {
+                compressed = compressor.compress(content.duplicate());
+                this.encodedContents.put(compressionThreshold, compressed);
+            }
+            content = compressed;
+        }
+        return content.retainedDuplicate();
+    }
+
+    @Override
+    protected synchronized void deallocate() {
+        this.encodedContents.values().forEach(ReferenceCountUtil::release);
+        this.encodedContents.clear();
+        ReferenceCountUtil.release(this.message);
+    }
+
+    @Override
+    public PreEncodedMessage touch(Object hint) {
+        ReferenceCountUtil.touch(this.message, hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("message", this.message)
+                .toString();
+    }
+
+    @FunctionalInterface
+    public interface Encoder {
+
+        /**
+         * Encodes the {@link Message} into a {@link ByteBuf},
+         * including the opcode of the message.
+         *
+         * @param message The message
+         * @return The encoded content
+         * @throws Exception If the encoding failed
+         */
+        ByteBuf encode(Message message) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface Compressor {
+
+        /**
+         * Compresses the encoded content, the returned
+         * buffer may retain the given buffer.
+         *
+         * @param content The encoded content
+         * @return The compressed content
+         * @throws Exception If the compression failed
+         */
+        ByteBuf compress(ByteBuf content) throws Exception;
+    }
+}
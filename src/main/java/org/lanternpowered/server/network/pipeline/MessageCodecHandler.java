@@ -32,11 +32,13 @@
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToMessageCodec;
 import io.netty.util.ReferenceCountUtil;
 import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.network.NetworkSession;
 import org.lanternpowered.server.network.buffer.ByteBuffer;
 import org.lanternpowered.server.network.buffer.LanternByteBuffer;
 import org.lanternpowered.server.network.message.BulkMessage;
@@ -45,6 +47,7 @@
 import org.lanternpowered.server.network.message.Message;
 import org.lanternpowered.server.network.message.MessageRegistration;
 import org.lanternpowered.server.network.message.NullMessage;
+import org.lanternpowered.server.network.message.PreEncodedMessage;
 import org.lanternpowered.server.network.message.codec.Codec;
 import org.lanternpowered.server.network.message.codec.CodecContext;
 import org.lanternpowered.server.network.message.handler.Handler;
@@ -65,8 +68,53 @@ public MessageCodecHandler(CodecContext codecContext) {
         this.codecContext = codecContext;
     }
 
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof PreEncodedMessage) {
+            writePreEncoded(ctx, (PreEncodedMessage) msg, promise);
+        } else {
+            super.write(ctx, msg, promise);
+        }
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, Message message, List<Object> output) throws Exception {
+        try {
+            output.add(encodeMessage(ctx, message));
+        } finally {
+            ReferenceCountUtil.release(message);
+        }
+    }
+
+    /**
+     * Writes the shared content of the {@link PreEncodedMessage}, the message
+     * will only be encoded and compressed if no other session did this before
+     * with the same compression threshold.
+     *
+     * @param ctx The channel handler context
+     * @param message The pre encoded message
+     * @param promise The channel promise
+     */
+    private void writePreEncoded(ChannelHandlerContext ctx, PreEncodedMessage message, ChannelPromise promise) throws Exception {
+        final ChannelHandlerContext compressionCtx = ctx.pipeline().context(NetworkSession.COMPRESSION);
+        final ByteBuf content;
+        try {
+            if (compressionCtx != null && compressionCtx.handler() instanceof MessageCompressionHandler) {
+                final MessageCompressionHandler compressionHandler = (MessageCompressionHandler) compressionCtx.handler();
+                content = message.getEncodedContent(message1 -> encodeMessage(ctx, message1),
+                        content1 -> compressionHandler.compress(ctx.alloc(), content1), compressionHandler.getCompressionThreshold());
+            } else {
+                content = message.getEncodedContent(message1 -> encodeMessage(ctx, message1), null, -1);
+            }
+        } finally {
+            ReferenceCountUtil.release(message);
+        }
+        // The content is already compressed, so write it directly
+        // to the handler that comes after the compression handler
+        (compressionCtx != null ? compressionCtx : ctx).write(content, promise);
+    }
+
+    private ByteBuf encodeMessage(ChannelHandlerContext ctx, Message message) throws Exception {
         final Protocol protocol = this.codecContext.getSession().getProtocol();
         final MessageRegistration<Message> registration = (MessageRegistration<Message>) protocol.outbound()
                 .findByMessageType(message.getClass()).orElse(null);
@@ -96,12 +144,12 @@ protected void encode(ChannelHandlerContext ctx, Message message, List<Object> o
         final ByteBuffer content;
         try {
             content = codec.encode(this.codecContext, message);
-        } finally {
-            ReferenceCountUtil.release(message);
+        } catch (Exception e) {
+            opcode.release();
+            throw e;
         }
 
-        // Add the buffer to the output
-        output.add(Unpooled.wrappedBuffer(opcode, ((LanternByteBuffer) content).getDelegate()));
+        return Unpooled.wrappedBuffer(opcode, ((LanternByteBuffer) content).getDelegate());
     }
 
     private static final Set<Integer> warnedMissingOpcodes = Sets.newConcurrentHashSet();
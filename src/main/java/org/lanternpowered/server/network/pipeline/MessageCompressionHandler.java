@@ -51,6 +51,7 @@
 import static org.lanternpowered.server.network.buffer.LanternByteBuffer.writeVarInt;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.DecoderException;
@@ -58,102 +59,204 @@
 import io.netty.handler.codec.MessageToMessageCodec;
 
 import java.util.List;
+import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
+/**
+ * A handler that compresses and decompresses the messages. The data is deflated
+ * and inflated directly between the backing arrays of pooled heap buffers, direct
+ * buffers are first copied into a pooled heap buffer because the {@link Deflater}
+ * and {@link Inflater} only support byte arrays.
+ */
 public final class MessageCompressionHandler extends MessageToMessageCodec<ByteBuf, ByteBuf> {
 
-    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    /**
+     * The maximum size of a uncompressed message that will be accepted.
+     */
+    private static final int MAX_UNCOMPRESSED_SIZE = 2097152;
+
+    /**
+     * The amount of bytes the output buffer will be expanded with when it's full.
+     */
+    private static final int OUTPUT_EXPANSION_SIZE = 8192;
+
+    private final Deflater deflater;
     private final Inflater inflater = new Inflater();
 
     private final int compressionThreshold;
 
     public MessageCompressionHandler(int compressionThreshold) {
+        this(compressionThreshold, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public MessageCompressionHandler(int compressionThreshold, int compressionLevel) {
+        this.deflater = new Deflater(compressionLevel);
         this.compressionThreshold = compressionThreshold;
     }
 
+    /**
+     * Gets the compression threshold.
+     *
+     * @return The compression threshold
+     */
+    public int getCompressionThreshold() {
+        return this.compressionThreshold;
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-        ByteBuf prefixBuf = ctx.alloc().buffer(5);
-        ByteBuf contentsBuf;
+        out.add(compress(ctx.alloc(), msg));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        out.add(decompress(ctx.alloc(), msg));
+    }
 
-        if (msg.readableBytes() >= this.compressionThreshold) {
-            // Message should be compressed
-            int index = msg.readerIndex();
-            int length = msg.readableBytes();
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        super.handlerRemoved(ctx);
+        // Free the native resources
+        this.deflater.end();
+        this.inflater.end();
+    }
 
-            byte[] sourceData = new byte[length];
-            msg.readBytes(sourceData);
-            this.deflater.setInput(sourceData);
-            this.deflater.finish();
+    /**
+     * Compresses the given {@link ByteBuf} if its size exceeds the compression
+     * threshold and prefixes it with the uncompressed size. This method should
+     * only be called from the event loop of the channel this handler is attached to.
+     *
+     * @param alloc The byte buf allocator
+     * @param msg The content to compress
+     * @return The (compressed) content
+     */
+    public ByteBuf compress(ByteBufAllocator alloc, ByteBuf msg) {
+        final int length = msg.readableBytes();
+        if (length < this.compressionThreshold) {
+            // Message should be sent through
+            return prefixUncompressed(alloc, msg);
+        }
 
-            byte[] compressedData = new byte[length];
-            int compressedLength = this.deflater.deflate(compressedData);
-            this.deflater.reset();
+        // Message should be compressed
+        final ByteBuf source = toHeapBuffer(alloc, msg);
+        // Use the size of the uncompressed content as initial capacity,
+        // it will be expanded if the compression increases the size
+        final ByteBuf output = alloc.heapBuffer(length + 5);
+        try {
+            this.deflater.setInput(source.array(), source.arrayOffset() + source.readerIndex(), length);
+            this.deflater.finish();
 
+            writeVarInt(output, length);
+            final int start = output.writerIndex();
+            while (!this.deflater.finished()) {
+                output.ensureWritable(OUTPUT_EXPANSION_SIZE);
+                final int writerIndex = output.writerIndex();
+                final int compressedLength = this.deflater.deflate(
+                        output.array(), output.arrayOffset() + writerIndex, output.writableBytes());
+                output.writerIndex(writerIndex + compressedLength);
+            }
+            final int compressedLength = output.writerIndex() - start;
             if (compressedLength == 0) {
                 // Compression failed in some weird way
                 throw new EncoderException("Failed to compress message of size " + length);
             } else if (compressedLength >= length) {
                 // Compression increased the size. threshold is probably too low
                 // Send as an uncompressed packet
-                writeVarInt(prefixBuf, 0);
-                msg.readerIndex(index);
-                msg.retain();
-                contentsBuf = msg;
-            } else {
-                // All is well
-                writeVarInt(prefixBuf, length);
-                contentsBuf = Unpooled.wrappedBuffer(compressedData, 0, compressedLength);
+                output.release();
+                return prefixUncompressed(alloc, msg);
+            }
+            // All is well
+            return output;
+        } catch (Throwable t) {
+            output.release();
+            throw t;
+        } finally {
+            this.deflater.reset();
+            if (source != msg) {
+                source.release();
             }
-        } else {
-            // Message should be sent through
-            writeVarInt(prefixBuf, 0);
-            msg.retain();
-            contentsBuf = msg;
         }
-
-        out.add(Unpooled.wrappedBuffer(prefixBuf, contentsBuf));
     }
 
-    @Override
-    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-        int index = msg.readerIndex();
-        int uncompressedSize = readVarInt(msg);
+    /**
+     * Decompresses the given {@link ByteBuf}. This method should only be called from
+     * the event loop of the channel this handler is attached to.
+     *
+     * @param alloc The byte buf allocator
+     * @param msg The content to decompress
+     * @return The decompressed content
+     */
+    public ByteBuf decompress(ByteBufAllocator alloc, ByteBuf msg) throws DataFormatException {
+        final int index = msg.readerIndex();
+        final int uncompressedSize = readVarInt(msg);
         if (uncompressedSize == 0) {
             // Message is uncompressed
-            int length = msg.readableBytes();
+            final int length = msg.readableBytes();
             if (length >= this.compressionThreshold) {
                 // Invalid
                 throw new DecoderException("Received uncompressed message of size " + length + " greater than threshold "
                         + this.compressionThreshold);
             }
+            return msg.retainedSlice();
+        } else if (uncompressedSize > MAX_UNCOMPRESSED_SIZE) {
+            throw new DecoderException("Received compressed message claiming to be of size "
+                    + uncompressedSize + " which exceeds the maximum of " + MAX_UNCOMPRESSED_SIZE);
+        }
 
-            ByteBuf buf = ctx.alloc().buffer(length);
-            msg.readBytes(buf, length);
-            out.add(buf);
-        } else {
-            // Message is compressed
-            byte[] sourceData = new byte[msg.readableBytes()];
-            msg.readBytes(sourceData);
-            this.inflater.setInput(sourceData);
-
-            byte[] destData = new byte[uncompressedSize];
-            int resultLength = this.inflater.inflate(destData);
-            this.inflater.reset();
+        // Message is compressed
+        final ByteBuf source = toHeapBuffer(alloc, msg);
+        final ByteBuf output = alloc.heapBuffer(uncompressedSize, uncompressedSize);
+        try {
+            this.inflater.setInput(source.array(), source.arrayOffset() + source.readerIndex(), source.readableBytes());
+            final int resultLength = this.inflater.inflate(output.array(), output.arrayOffset(), uncompressedSize);
 
             if (resultLength == 0) {
                 // Might be a leftover from before compression was enabled (no compression header)
                 // UncompressedSize is likely to be < threshold
+                output.release();
                 msg.readerIndex(index);
-                msg.retain();
-                out.add(msg);
+                return msg.retain();
             } else if (resultLength != uncompressedSize) {
                 throw new DecoderException("Received compressed message claiming to be of size "
                         + uncompressedSize + " but actually " + resultLength);
-            } else {
-                out.add(Unpooled.wrappedBuffer(destData));
+            }
+            output.writerIndex(resultLength);
+            return output;
+        } catch (Throwable t) {
+            output.release();
+            throw t;
+        } finally {
+            this.inflater.reset();
+            if (source != msg) {
+                source.release();
             }
         }
     }
+
+    /**
+     * Gets a {@link ByteBuf} with a accessible backing array that contains
+     * the readable bytes of the given buffer. A pooled copy will be created
+     * if the buffer doesn't have a backing array.
+     *
+     * @param alloc The byte buf allocator
+     * @param buf The byte buf
+     * @return The heap buffer
+     */
+    private static ByteBuf toHeapBuffer(ByteBufAllocator alloc, ByteBuf buf) {
+        if (buf.hasArray()) {
+            return buf;
+        }
+        final int length = buf.readableBytes();
+        final ByteBuf heapBuf = alloc.heapBuffer(length, length);
+        buf.getBytes(buf.readerIndex(), heapBuf, length);
+        return heapBuf;
+    }
+
+    private static ByteBuf prefixUncompressed(ByteBufAllocator alloc, ByteBuf msg) {
+        final ByteBuf prefixBuf = alloc.buffer(1);
+        writeVarInt(prefixBuf, 0);
+        msg.retain();
+        return Unpooled.wrappedBuffer(prefixBuf, msg);
+    }
 }
@@ -25,6 +25,7 @@
  */
 package org.lanternpowered.server.network.vanilla.message.handler.login;
 
+import org.lanternpowered.server.config.GlobalConfig;
 import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.network.NetworkContext;
 import org.lanternpowered.server.network.NetworkSession;
@@ -46,11 +47,13 @@ public final class HandlerLoginFinish implements Handler<MessageLoginInFinish> {
     public void handle(NetworkContext context, MessageLoginInFinish message) {
         final LanternGameProfile gameProfile = message.getGameProfile();
         final NetworkSession session = context.getSession();
-        int compressionThreshold = Lantern.getGame().getGlobalConfig().getNetworkCompressionThreshold();
+        final GlobalConfig config = Lantern.getGame().getGlobalConfig();
+        final int compressionThreshold = config.getNetworkCompressionThreshold();
         if (compressionThreshold != -1) {
+            final int compressionLevel = config.getNetworkCompressionLevel();
             session.sendWithFuture(new MessageLoginOutSetCompression(compressionThreshold)).addListener(future ->
                     context.getChannel().pipeline().replace(NetworkSession.COMPRESSION, NetworkSession.COMPRESSION,
-                            new MessageCompressionHandler(compressionThreshold)));
+                            new MessageCompressionHandler(compressionThreshold, compressionLevel)));
         } else {
             // Remove the compression handler placeholder
             context.getChannel().pipeline().remove(NetworkSession.COMPRESSION);
@@ -25,8 +25,10 @@
  */
 package org.lanternpowered.server.network.vanilla.message.type.connection;
 
+import org.lanternpowered.server.network.message.FlushImmediately;
 import org.lanternpowered.server.network.message.Message;
 
+@FlushImmediately
 public final class MessageInOutKeepAlive implements Message {
 
     private final long time;
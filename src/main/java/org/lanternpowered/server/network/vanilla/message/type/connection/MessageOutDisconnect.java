@@ -27,9 +27,11 @@
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import org.lanternpowered.server.network.message.FlushImmediately;
 import org.lanternpowered.server.network.message.Message;
 import org.spongepowered.api.text.Text;
 
+@FlushImmediately
 public final class MessageOutDisconnect implements Message {
 
     private final Text reason;
@@ -40,6 +40,7 @@
 import org.spongepowered.api.scheduler.Task;
 import org.spongepowered.api.util.Functional;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -163,6 +164,25 @@ public void pulseSyncScheduler() {
         this.syncScheduler.tick();
     }
 
+    /**
+     * Gets the execution counters of the tasks per plugin, for
+     * either the synchronous or the asynchronous scheduler.
+     *
+     * @param async Whether the asynchronous scheduler should be used
+     * @return The task statistics
+     */
+    public Map<PluginContainer, TaskStatistics> getTaskStatistics(boolean async) {
+        return async ? this.asyncScheduler.getStatistics() : this.syncScheduler.getStatistics();
+    }
+
+    /**
+     * Resets the execution counters of all the tasks.
+     */
+    public void resetTaskStatistics() {
+        this.asyncScheduler.getStatistics().values().forEach(TaskStatistics::reset);
+        this.syncScheduler.getStatistics().values().forEach(TaskStatistics::reset);
+    }
+
     public void shutdownAsyncScheduler(long timeout, TimeUnit unit) {
         this.asyncScheduler.shutdown(timeout, unit);
     }
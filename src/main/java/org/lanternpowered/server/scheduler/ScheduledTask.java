@@ -26,6 +26,9 @@
 package org.lanternpowered.server.scheduler;
 
 import com.google.common.base.MoreObjects;
+import org.lanternpowered.server.timings.LanternTiming;
+import org.lanternpowered.server.timings.LanternTimings;
+import org.lanternpowered.server.util.collect.TimingWheel;
 import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.scheduler.Task;
 
@@ -33,6 +36,8 @@
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import javax.annotation.Nullable;
+
 /**
  * An internal representation of a {@link Task} created by a plugin.
  */
@@ -50,6 +55,14 @@ public class ScheduledTask implements Task {
     private final String name;
     final TaskSynchronicity syncType;
     private final String stringRepresentation;
+    // The timing of this task, lazily initialized
+    @Nullable private LanternTiming timing;
+    // The scheduler this task was submitted to
+    @Nullable private SchedulerBase scheduler;
+    // The entry of this task within the timing wheel of the scheduler
+    @Nullable private TimingWheel.Entry<ScheduledTask> entry;
+    // Whether the task is cancelled, unlike the state this will never be reset
+    private volatile boolean cancelled;
 
     // Internal Task state. Not for user-service use.
     public enum ScheduledTaskState {
@@ -131,6 +144,10 @@ public boolean cancel() {
             success = true;
         }
         this.setState(ScheduledTask.ScheduledTaskState.CANCELED);
+        this.cancelled = true;
+        if (this.scheduler != null) {
+            this.scheduler.cancelTask(this);
+        }
         return success;
     }
 
@@ -139,6 +156,19 @@ public Consumer<Task> getConsumer() {
         return this.executor;
     }
 
+    /**
+     * Gets the {@link LanternTiming} that is used
+     * to time the execution of this task.
+     *
+     * @return The timing
+     */
+    LanternTiming getTiming() {
+        if (this.timing == null) {
+            this.timing = LanternTimings.ofTask(this);
+        }
+        return this.timing;
+    }
+
     @Override
     public UUID getUniqueId() {
         return this.id;
@@ -169,6 +199,23 @@ long nextExecutionTimestamp() {
         }
     }
 
+    boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    void setScheduler(SchedulerBase scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Nullable
+    TimingWheel.Entry<ScheduledTask> getEntry() {
+        return this.entry;
+    }
+
+    void setEntry(TimingWheel.Entry<ScheduledTask> entry) {
+        this.entry = entry;
+    }
+
     long getTimestamp() {
         return this.timestamp;
     }
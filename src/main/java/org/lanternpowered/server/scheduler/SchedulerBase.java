@@ -26,12 +26,15 @@
 package org.lanternpowered.server.scheduler;
 
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.util.collect.TimingWheel;
 import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.scheduler.Task;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -39,11 +42,23 @@
 
 abstract class SchedulerBase {
 
-    // The simple queue of all pending (and running) ScheduledTasks
+    // All the pending (and running) ScheduledTasks, only used for lookups
     private final Map<UUID, ScheduledTask> taskMap = Maps.newConcurrentMap();
     private long sequenceNumber = 0L;
     private final String taskNameFmt;
 
+    // The timing wheels of the tasks which are waiting for their next execution, tasks
+    // that are based on ticks and wall clock time (nanos) are scheduled separately
+    private final TimingWheel<ScheduledTask> tickWheel = new TimingWheel<>(0L);
+    private final TimingWheel<ScheduledTask> timeWheel = new TimingWheel<>(System.nanoTime());
+    // The lock that guards the timing wheels
+    private final Object wheelLock = new Object();
+    // The tasks that expired during the current tick, only accessed while processing
+    private final List<ScheduledTask> expiredTasks = new ArrayList<>();
+
+    // The execution counters of the tasks, per plugin
+    private final Map<PluginContainer, TaskStatistics> statistics = Maps.newConcurrentMap();
+
     protected SchedulerBase(ScheduledTask.TaskSynchronicity type) {
         this.taskNameFmt = "%s-" + (type == ScheduledTask.TaskSynchronicity.SYNCHRONOUS ? "S" : "A") + "-%d";
     }
@@ -64,19 +79,67 @@ protected String nextName(PluginContainer plugin) {
      * @return Timestamp for the task
      */
     protected long getTimestamp(ScheduledTask task) {
+        return isTickBased(task) ? getTicks() : System.nanoTime();
+    }
+
+    /**
+     * Gets whether the current delay or interval of the task
+     * is based on ticks instead of wall clock time.
+     *
+     * @param task The task
+     * @return Is tick based
+     */
+    protected boolean isTickBased(ScheduledTask task) {
         // Supports wall clock time by default
-        return System.nanoTime();
+        return false;
     }
 
     /**
-     * Adds the task to the task map, will attempt to process the task on the
-     * next call to {@link #runTick}.
+     * Gets the amount of ticks that elapsed since this scheduler began.
+     *
+     * @return The ticks
+     */
+    protected long getTicks() {
+        return 0L;
+    }
+
+    /**
+     * Adds the task to the task map and schedules it, will attempt to
+     * process the task on the next call to {@link #runTick} after its
+     * delay has passed.
      *
      * @param task The task to add
      */
     protected void addTask(ScheduledTask task) {
-        task.setTimestamp(this.getTimestamp(task));
+        task.setScheduler(this);
         this.taskMap.put(task.getUniqueId(), task);
+        schedule(task, task.offset);
+    }
+
+    /**
+     * Schedules the next execution of the task after the given delay, based on
+     * the current state of the task. Nothing happens if the task was cancelled.
+     *
+     * @param task The task to schedule
+     * @param delay The delay
+     */
+    private void schedule(ScheduledTask task, long delay) {
+        final long timestamp = getTimestamp(task);
+        task.setTimestamp(timestamp);
+        final TimingWheel<ScheduledTask> wheel = isTickBased(task) ? this.tickWheel : this.timeWheel;
+        synchronized (this.wheelLock) {
+            // Checked while holding the lock, the task cannot be
+            // rescheduled after the cancellation was processed
+            if (task.isCancelled()) {
+                return;
+            }
+            final TimingWheel.Entry<ScheduledTask> entry = task.getEntry();
+            if (entry == null) {
+                task.setEntry(wheel.add(task, timestamp + delay));
+            } else {
+                wheel.reschedule(entry, timestamp + delay);
+            }
+        }
     }
 
     /**
@@ -88,6 +151,22 @@ protected void removeTask(ScheduledTask task) {
         this.taskMap.remove(task.getUniqueId());
     }
 
+    /**
+     * Removes the task from the task map and the timing wheel,
+     * should be called after the task was marked as cancelled.
+     *
+     * @param task The task that was cancelled
+     */
+    void cancelTask(ScheduledTask task) {
+        synchronized (this.wheelLock) {
+            final TimingWheel.Entry<ScheduledTask> entry = task.getEntry();
+            if (entry != null && !this.tickWheel.remove(entry)) {
+                this.timeWheel.remove(entry);
+            }
+        }
+        removeTask(task);
+    }
+
     protected Optional<Task> getTask(UUID id) {
         return Optional.ofNullable(this.taskMap.get(id));
     }
@@ -99,12 +178,46 @@ protected Set<Task> getScheduledTasks() {
     }
 
     /**
-     * Process all tasks in the map.
+     * Gets the execution counters of the tasks, per plugin.
+     *
+     * @return The task statistics
+     */
+    Map<PluginContainer, TaskStatistics> getStatistics() {
+        return Collections.unmodifiableMap(this.statistics);
+    }
+
+    /**
+     * Gets the amount of nanoseconds until the next task that
+     * is based on wall clock time may have to be processed.
+     *
+     * @return The time until the next task, in nanoseconds
+     */
+    protected long getTimeUntilNextTask() {
+        final long nextTime;
+        synchronized (this.wheelLock) {
+            nextTime = this.timeWheel.getNextTime();
+        }
+        return nextTime == Long.MAX_VALUE ? Long.MAX_VALUE : nextTime - System.nanoTime();
+    }
+
+    /**
+     * Process all the tasks whose delay or interval has passed.
      */
     protected final void runTick() {
         preTick();
         try {
-            this.taskMap.values().forEach(this::processTask);
+            final List<ScheduledTask> expiredTasks = this.expiredTasks;
+            synchronized (this.wheelLock) {
+                this.tickWheel.advance(Math.max(this.tickWheel.getTime(), getTicks()), expiredTasks::add);
+                this.timeWheel.advance(Math.max(this.timeWheel.getTime(), System.nanoTime()), expiredTasks::add);
+            }
+            try {
+                for (ScheduledTask task : expiredTasks) {
+                    processTask(task);
+                }
+            } finally {
+                expiredTasks.clear();
+            }
             postTick();
         } finally {
             finallyPostTick();
@@ -131,41 +244,27 @@ protected void finallyPostTick() {
     }
 
     /**
-     * Processes the task.
+     * Processes the task, its delay or interval has passed.
      *
      * @param task The task to process
      */
     protected void processTask(ScheduledTask task) {
         // If the task is now slated to be cancelled, we just remove it as if it
         // no longer exists.
-        if (task.getState() == ScheduledTask.ScheduledTaskState.CANCELED) {
+        if (task.isCancelled()) {
             removeTask(task);
             return;
         }
-        long threshold = Long.MAX_VALUE;
-        // Figure out if we start a delayed Task after threshold ticks or, start
-        // it after the interval (period) of the repeating task parameter.
-        if (task.getState() == ScheduledTask.ScheduledTaskState.WAITING) {
-            threshold = task.offset;
-        } else if (task.getState() == ScheduledTask.ScheduledTaskState.RUNNING) {
-            threshold = task.period;
-        }
-        // This moment is 'now'
-        long now = getTimestamp(task);
-        // So, if the current time minus the timestamp of the task is greater
-        // than the delay to wait before starting the task, then start the task.
-        // Repeating tasks get a reset-timestamp each time they are set RUNNING
-        // If the task has a period of 0 (zero) this task will not repeat, and
-        // is removed after we start it.
-        if (threshold <= (now - task.getTimestamp())) {
-            task.setState(ScheduledTask.ScheduledTaskState.SWITCHING);
-            task.setTimestamp(getTimestamp(task));
-            startTask(task);
-            // If task is one time shot, remove it from the map.
-            if (task.period == 0L) {
-                removeTask(task);
-            }
+        task.setState(ScheduledTask.ScheduledTaskState.SWITCHING);
+        // If the task is one time shot, remove it from the map, otherwise
+        // schedule the next execution before it starts, repeating tasks
+        // get a reset-timestamp each time they are started.
+        if (task.period == 0L) {
+            removeTask(task);
+        } else {
+            schedule(task, task.period);
         }
+        startTask(task);
     }
 
     /**
@@ -174,13 +273,17 @@ protected void processTask(ScheduledTask task) {
      * @param task The task to start
      */
     protected void startTask(final ScheduledTask task) {
+        final TaskStatistics statistics = this.statistics.computeIfAbsent(task.getOwner(), plugin -> new TaskStatistics());
         executeTaskRunnable(task, () -> {
             task.setState(ScheduledTask.ScheduledTaskState.RUNNING);
+            final long start = System.nanoTime();
             try {
                 task.getConsumer().accept(task);
             } catch (Throwable t) {
                 Lantern.getLogger().error("The Scheduler tried to run the task {} owned by {}, but an error occurred.",
                         task.getName(), task.getOwner(), t);
+            } finally {
+                statistics.record(System.nanoTime() - start);
             }
         });
     }
@@ -26,6 +26,7 @@
 package org.lanternpowered.server.scheduler;
 
 import org.lanternpowered.server.event.CauseStack;
+import org.lanternpowered.server.timings.LanternTiming;
 
 final class SyncScheduler extends SchedulerBase {
 
@@ -45,23 +46,19 @@ void tick() {
     }
 
     @Override
-    protected long getTimestamp(ScheduledTask task) {
+    protected boolean isTickBased(ScheduledTask task) {
+        // The timestamp is based on the initial offset while
+        // waiting, and on the period once the task is active
         if (task.getState() == ScheduledTask.ScheduledTaskState.WAITING) {
-            // The timestamp is based on the initial offset
-            if (task.delayIsTicks) {
-                return this.counter;
-            } else {
-                return super.getTimestamp(task);
-            }
-        } else if (task.getState().isActive) {
-            // The timestamp is based on the period
-            if (task.intervalIsTicks) {
-                return this.counter;
-            } else {
-                return super.getTimestamp(task);
-            }
+            return task.delayIsTicks;
+        } else {
+            return task.intervalIsTicks;
         }
-        return 0L;
+    }
+
+    @Override
+    protected long getTicks() {
+        return this.counter;
     }
 
     @Override
@@ -69,7 +66,10 @@ protected void executeTaskRunnable(ScheduledTask task, Runnable runnable) {
         final CauseStack causeStack = CauseStack.current();
         causeStack.pushCause(task.getOwner());
         causeStack.pushCause(task);
+        final LanternTiming timing = task.getTiming();
+        timing.startTiming();
         runnable.run();
+        timing.stopTiming();
         causeStack.popCauses(2);
     }
 }
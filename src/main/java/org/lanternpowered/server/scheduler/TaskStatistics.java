@@ -23,74 +23,51 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-package org.lanternpowered.server.game.registry.factory;
+package org.lanternpowered.server.scheduler;
 
-import co.aikar.timings.Timing;
-import co.aikar.timings.TimingsFactory;
-import org.spongepowered.api.command.CommandSource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
-import javax.annotation.Nullable;
-
-public class DummyLanternTimingsFactory implements TimingsFactory {
-
-    private static final Timing DUMMY_TIMING = new DummyLanternTiming();
-
-    public void init() {
-        // Ignore
-    }
-
-    @Override
-    public Timing of(Object plugin, String name, @Nullable Timing groupHandler) {
-        return DUMMY_TIMING;
-    }
-
-    @Override
-    public boolean isTimingsEnabled() {
-        return false;
-    }
-
-    @Override
-    public void setTimingsEnabled(boolean enabled) {
-        // Ignore
-    }
-
-    @Override
-    public boolean isVerboseTimingsEnabled() {
-        return false;
-    }
+/**
+ * The execution counters of all the tasks of a plugin within a scheduler.
+ */
+public final class TaskStatistics {
 
-    @Override
-    public void setVerboseTimingsEnabled(boolean enabled) {
-        // Ignore
-    }
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder executionTime = new LongAdder();
 
-    @Override
-    public int getHistoryInterval() {
-        return 0;
+    TaskStatistics() {
     }
 
-    @Override
-    public void setHistoryInterval(int interval) {
-        // Ignore
+    void record(long nanos) {
+        this.executions.increment();
+        this.executionTime.add(nanos);
     }
 
-    @Override
-    public int getHistoryLength() {
-        return 0;
+    /**
+     * Gets the amount of times that tasks were executed.
+     *
+     * @return The execution count
+     */
+    public long getExecutionCount() {
+        return this.executions.sum();
     }
 
-    @Override
-    public void setHistoryLength(int length) {
-        // Ignore
+    /**
+     * Gets the total time that was spent executing tasks.
+     *
+     * @param unit The time unit
+     * @return The execution time
+     */
+    public long getExecutionTime(TimeUnit unit) {
+        return unit.convert(this.executionTime.sum(), TimeUnit.NANOSECONDS);
     }
 
-    @Override
+    /**
+     * Resets the counters.
+     */
     public void reset() {
-        // Ignore
-    }
-
-    @Override
-    public void generateReport(@Nullable CommandSource source) {
-        // Ignore
+        this.executions.reset();
+        this.executionTime.reset();
     }
 }
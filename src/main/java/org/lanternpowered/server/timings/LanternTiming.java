@@ -0,0 +1,281 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.timings;
+
+import co.aikar.timings.Timing;
+import com.google.common.base.MoreObjects;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link Timing} that can be used concurrently by multiple threads, the start
+ * times are tracked by a {@link TimingStack} per thread. The {@link LanternTiming}s
+ * that are started while this one is running are tracked as its children.
+ */
+public final class LanternTiming implements Timing {
+
+    /**
+     * The amount of buckets in the latency histogram, each bucket
+     * covers twice the range (in microseconds) of the previous one.
+     */
+    static final int HISTOGRAM_BUCKETS = 24;
+
+    private final LanternTimingsFactory factory;
+    private final String pluginId;
+    private final String name;
+    private final boolean verbose;
+    @Nullable private final LanternTiming group;
+
+    // The timings that were started while this timing was running
+    private final Set<LanternTiming> children = ConcurrentHashMap.newKeySet();
+    private final Collection<LanternTiming> unmodifiableChildren = Collections.unmodifiableCollection(this.children);
+
+    // The time and count that are accumulated during the current tick
+    private final LongAdder tickTime = new LongAdder();
+    private final LongAdder tickCount = new LongAdder();
+
+    // The durations of the individual calls
+    private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+    // The following fields are only modified by the thread
+    // that ticks the timings factory
+
+    private long totalTime;
+    private long totalCount;
+    private long maxTickTime;
+
+    // A ring buffer with the time per history interval
+    private long[] history = new long[0];
+    private int historyIndex;
+    private int historySize;
+    private long intervalTime;
+    private int intervalTicks;
+
+    LanternTiming(LanternTimingsFactory factory, String pluginId, String name, @Nullable LanternTiming group, boolean verbose) {
+        this.factory = factory;
+        this.pluginId = pluginId;
+        this.name = name;
+        this.group = group;
+        this.verbose = verbose;
+    }
+
+    /**
+     * Gets the id of the plugin that owns this timing.
+     *
+     * @return The plugin id
+     */
+    public String getPluginId() {
+        return this.pluginId;
+    }
+
+    /**
+     * Gets the name of this timing.
+     *
+     * @return The name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the group handler of this timing, if present.
+     *
+     * @return The group handler
+     */
+    @Nullable
+    public LanternTiming getGroup() {
+        return this.group;
+    }
+
+    /**
+     * Gets the timings that were started while this timing was running.
+     *
+     * @return The children
+     */
+    public Collection<LanternTiming> getChildren() {
+        return this.unmodifiableChildren;
+    }
+
+    private boolean isEnabled() {
+        return this.factory.enabled && (!this.verbose || this.factory.verbose);
+    }
+
+    @Override
+    public Timing startTiming() {
+        if (isEnabled()) {
+            this.factory.getStack().push(this, this.factory.generation);
+        }
+        return this;
+    }
+
+    @Override
+    public void stopTiming() {
+        if (isEnabled()) {
+            this.factory.getStack().pop(this, this.factory.generation);
+        }
+    }
+
+    /**
+     * Starts timing, the timings are tracked per thread so
+     * they can safely be used from any thread.
+     */
+    @Override
+    public void startTimingIfSync() {
+        startTiming();
+    }
+
+    @Override
+    public void stopTimingIfSync() {
+        stopTiming();
+    }
+
+    @Override
+    public void abort() {
+        if (isEnabled()) {
+            this.factory.getStack().abort(this, this.factory.generation);
+        }
+    }
+
+    @Override
+    public void close() {
+        stopTiming();
+    }
+
+    void record(long duration, @Nullable LanternTiming parent) {
+        this.tickTime.add(duration);
+        this.tickCount.increment();
+        this.histogram.incrementAndGet(getHistogramBucket(duration));
+        if (parent != null && parent != this && !parent.children.contains(this)) {
+            parent.children.add(this);
+        }
+    }
+
+    static int getHistogramBucket(long duration) {
+        final long micros = duration / 1000L;
+        return Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * Moves the time that was accumulated during the
+     * last tick into the history.
+     *
+     * @param historyInterval The amount of ticks per history entry
+     * @param historyCapacity The amount of history entries
+     */
+    void tick(int historyInterval, int historyCapacity) {
+        final long time = this.tickTime.sumThenReset();
+        final long count = this.tickCount.sumThenReset();
+        if (time == 0 && count == 0 && this.historySize == 0) {
+            // Don't allocate any history for timings that were never used
+            return;
+        }
+        this.totalTime += time;
+        this.totalCount += count;
+        if (time > this.maxTickTime) {
+            this.maxTickTime = time;
+        }
+        if (this.history.length != historyCapacity) {
+            this.history = new long[historyCapacity];
+            this.historyIndex = 0;
+            this.historySize = 0;
+        }
+        this.intervalTime += time;
+        if (++this.intervalTicks >= historyInterval) {
+            this.history[this.historyIndex] = this.intervalTime;
+            this.historyIndex = (this.historyIndex + 1) % this.history.length;
+            if (this.historySize < this.history.length) {
+                this.historySize++;
+            }
+            this.intervalTime = 0;
+            this.intervalTicks = 0;
+        }
+    }
+
+    void reset() {
+        this.tickTime.reset();
+        this.tickCount.reset();
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            this.histogram.set(i, 0);
+        }
+        this.children.clear();
+        this.totalTime = 0;
+        this.totalCount = 0;
+        this.maxTickTime = 0;
+        this.historyIndex = 0;
+        this.historySize = 0;
+        this.intervalTime = 0;
+        this.intervalTicks = 0;
+    }
+
+    long getTotalTime() {
+        return this.totalTime;
+    }
+
+    long getTotalCount() {
+        return this.totalCount;
+    }
+
+    long getMaxTickTime() {
+        return this.maxTickTime;
+    }
+
+    /**
+     * Gets the history entries, ordered from the oldest to the newest.
+     *
+     * @return The history
+     */
+    long[] getHistory() {
+        final long[] history = new long[this.historySize];
+        final int start = this.historySize < this.history.length ? 0 : this.historyIndex;
+        for (int i = 0; i < this.historySize; i++) {
+            history[i] = this.history[(start + i) % this.history.length];
+        }
+        return history;
+    }
+
+    long[] getHistogram() {
+        final long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            histogram[i] = this.histogram.get(i);
+        }
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("plugin", this.pluginId)
+                .add("name", this.name)
+                .toString();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.timings;
+
+import org.lanternpowered.server.block.tile.LanternTileEntityType;
+import org.lanternpowered.server.plugin.InternalPluginsInfo;
+import org.lanternpowered.server.scheduler.ScheduledTask;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import javax.annotation.Nullable;
+
+/**
+ * The {@link LanternTiming}s of the server tick phases.
+ */
+public final class LanternTimings {
+
+    public static final LanternTiming SERVER_TICK = of("Server Tick", null);
+    public static final LanternTiming NETWORK_SESSIONS = of("Network Sessions", SERVER_TICK);
+    public static final LanternTiming NETWORK_FLUSH = of("Network Flush", SERVER_TICK);
+    public static final LanternTiming SCHEDULER = of("Scheduler", SERVER_TICK);
+    public static final LanternTiming WORLDS = of("Worlds", SERVER_TICK);
+    public static final LanternTiming ADVANCEMENTS = of("Advancements", SERVER_TICK);
+
+    public static final LanternTiming EVENT_LISTENERS = of("Event Listeners", null);
+    public static final LanternTiming SCHEDULER_TASKS = of("Scheduler Tasks", null);
+    public static final LanternTiming TILE_ENTITIES = of("Tile Entities", null);
+
+    /**
+     * Creates a {@link LanternTiming} for the given event listener.
+     *
+     * @param plugin The plugin that owns the listener
+     * @param eventClass The event class
+     * @param handle The handle of the listener
+     * @return The timing
+     */
+    public static LanternTiming ofListener(PluginContainer plugin, Class<?> eventClass, Object handle) {
+        return LanternTimingsFactory.INSTANCE.of(plugin.getId(),
+                "Event: " + handle.getClass().getName() + " (" + eventClass.getSimpleName() + ")", EVENT_LISTENERS, false);
+    }
+
+    /**
+     * Gets the {@link LanternTiming} for the given synchronous task, all
+     * the tasks that are created at the same location share their timing.
+     *
+     * @param task The task
+     * @return The timing
+     */
+    public static LanternTiming ofTask(ScheduledTask task) {
+        return LanternTimingsFactory.INSTANCE.of(task.getOwner().getId(),
+                "Task: " + task.getConsumer().getClass().getName(), SCHEDULER_TASKS, false);
+    }
+
+    /**
+     * Creates a verbose {@link LanternTiming} for the pulses
+     * of the given {@link LanternTileEntityType}.
+     *
+     * @param tileEntityType The tile entity type
+     * @return The timing
+     */
+    public static LanternTiming ofTileEntity(LanternTileEntityType tileEntityType) {
+        return LanternTimingsFactory.INSTANCE.of(tileEntityType.getPluginId(),
+                "Tile Entity: " + tileEntityType.getId(), TILE_ENTITIES, true);
+    }
+
+    static LanternTiming of(String name, @Nullable LanternTiming group) {
+        return LanternTimingsFactory.INSTANCE.of(InternalPluginsInfo.Implementation.IDENTIFIER, name, group, false);
+    }
+
+    private LanternTimings() {
+    }
+}
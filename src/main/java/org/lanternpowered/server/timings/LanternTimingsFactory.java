@@ -0,0 +1,338 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.timings;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.lanternpowered.server.text.translation.TranslationHelper.t;
+import static org.lanternpowered.server.util.Conditions.checkPlugin;
+
+import co.aikar.timings.Timing;
+import co.aikar.timings.TimingsFactory;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.lanternpowered.server.config.GlobalConfig;
+import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.network.buffer.objects.Types;
+import org.lanternpowered.server.scheduler.TaskStatistics;
+import org.lanternpowered.server.util.concurrent.FastThreadLocals;
+import org.spongepowered.api.command.CommandSource;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+public final class LanternTimingsFactory implements TimingsFactory {
+
+    public static final LanternTimingsFactory INSTANCE = new LanternTimingsFactory();
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    // The amount of timings that will be shown in the report summary
+    private static final int SUMMARY_ENTRIES = 10;
+
+    private final FastThreadLocal<TimingStack> stack = FastThreadLocals.withInitial(TimingStack::new);
+
+    // All the timings, mapped by the plugin id and the name
+    private final Map<String, LanternTiming> timings = new ConcurrentHashMap<>();
+
+    volatile boolean enabled;
+    volatile boolean verbose;
+
+    // The generation is increased every time that the timings get enabled or
+    // reset, this invalidates all the timings that are still on the stacks
+    volatile int generation;
+
+    private int historyInterval = 1;
+    private int historyLength = 1200;
+
+    // The amount of ticks since the last reset
+    private long ticks;
+    private long resetTime = System.currentTimeMillis();
+
+    private LanternTimingsFactory() {
+    }
+
+    /**
+     * Initializes the timings with the settings of the {@link GlobalConfig}.
+     *
+     * @param config The global config
+     */
+    public void init(GlobalConfig config) {
+        setHistoryInterval(Math.max(1, config.getTimingsHistoryInterval()));
+        setHistoryLength(Math.max(1, config.getTimingsHistoryLength()));
+        setVerboseTimingsEnabled(config.isVerboseTimingsEnabled());
+        setTimingsEnabled(config.isTimingsEnabled());
+    }
+
+    TimingStack getStack() {
+        return this.stack.get();
+    }
+
+    @Override
+    public LanternTiming of(Object plugin, String name, @Nullable Timing groupHandler) {
+        return of(checkPlugin(plugin, "plugin").getId(), name, groupHandler, false);
+    }
+
+    /**
+     * Gets or creates a {@link LanternTiming} for the given plugin id and name.
+     *
+     * @param pluginId The plugin id
+     * @param name The name
+     * @param groupHandler The group handler, if present
+     * @param verbose Whether the timing should only be enabled in the verbose mode
+     * @return The timing
+     */
+    public LanternTiming of(String pluginId, String name, @Nullable Timing groupHandler, boolean verbose) {
+        checkNotNull(pluginId, "pluginId");
+        checkNotNull(name, "name");
+        checkArgument(groupHandler == null || groupHandler instanceof LanternTiming, "Unsupported group handler: %s", groupHandler);
+        return this.timings.computeIfAbsent(pluginId + ':' + name,
+                key -> new LanternTiming(this, pluginId, name, (LanternTiming) groupHandler, verbose));
+    }
+
+    @Override
+    public boolean isTimingsEnabled() {
+        return this.enabled;
+    }
+
+    @Override
+    public void setTimingsEnabled(boolean enabled) {
+        if (this.enabled == enabled) {
+            return;
+        }
+        if (enabled) {
+            reset();
+        }
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isVerboseTimingsEnabled() {
+        return this.verbose;
+    }
+
+    @Override
+    public void setVerboseTimingsEnabled(boolean enabled) {
+        this.generation++;
+        this.verbose = enabled;
+    }
+
+    @Override
+    public int getHistoryInterval() {
+        return this.historyInterval;
+    }
+
+    @Override
+    public void setHistoryInterval(int interval) {
+        checkArgument(interval > 0, "The history interval must be greater than zero");
+        this.historyInterval = interval;
+    }
+
+    @Override
+    public int getHistoryLength() {
+        return this.historyLength;
+    }
+
+    @Override
+    public void setHistoryLength(int length) {
+        checkArgument(length > 0, "The history length must be greater than zero");
+        this.historyLength = length;
+    }
+
+    @Override
+    public void reset() {
+        this.generation++;
+        this.timings.values().forEach(LanternTiming::reset);
+        this.ticks = 0;
+        this.resetTime = System.currentTimeMillis();
+        Types.TEXT_JSON_CACHE.resetStatistics();
+        Lantern.getScheduler().resetTaskStatistics();
+    }
+
+    /**
+     * Moves all the times that were accumulated during the last
+     * tick into the history, should be called once at the end
+     * of every server tick.
+     */
+    public void tick() {
+        if (!this.enabled) {
+            return;
+        }
+        this.ticks++;
+        final int interval = this.historyInterval;
+        final int capacity = Math.max(1, this.historyLength / interval);
+        for (LanternTiming timing : this.timings.values()) {
+            timing.tick(interval, capacity);
+        }
+    }
+
+    @Override
+    public void generateReport(@Nullable CommandSource source) {
+        if (!this.enabled) {
+            if (source != null) {
+                source.sendMessage(t("commands.timings.not_enabled"));
+            }
+            return;
+        }
+        final List<LanternTiming> timings = new ArrayList<>(this.timings.values());
+        timings.removeIf(timing -> timing.getTotalCount() == 0);
+        timings.sort(Comparator.comparingLong(LanternTiming::getTotalTime).reversed());
+
+        final long ticks = Math.max(1, this.ticks);
+        if (source != null) {
+            source.sendMessage(t("timings.report.header", this.ticks));
+            for (int i = 0; i < Math.min(SUMMARY_ENTRIES, timings.size()); i++) {
+                final LanternTiming timing = timings.get(i);
+                source.sendMessage(t("timings.report.entry", timing.getName(), timing.getPluginId(),
+                        formatMillis(timing.getTotalTime() / ticks), formatMillis(timing.getMaxTickTime())));
+            }
+        }
+
+        // Create the report on the current thread, the
+        // timings will be modified by the next tick
+        final JsonObject report = createReport(timings);
+        final String fileName = "timings-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json";
+        final Path file = Lantern.getGame().getGameDirectory().resolve("timings").resolve(fileName);
+        Lantern.getScheduler().submitAsyncTask(() -> {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                GSON.toJson(report, writer);
+            }
+            return file;
+        }).whenComplete((path, error) -> {
+            if (error != null) {
+                Lantern.getLogger().error("Failed to write the timings report to {}", file, error);
+                if (source != null) {
+                    source.sendMessage(t("timings.report.failed"));
+                }
+            } else if (source != null) {
+                source.sendMessage(t("timings.report.written", path.toString()));
+            }
+        });
+    }
+
+    private JsonObject createReport(List<LanternTiming> timings) {
+        final JsonObject report = new JsonObject();
+        report.addProperty("start-time", this.resetTime);
+        report.addProperty("end-time", System.currentTimeMillis());
+        report.addProperty("ticks", this.ticks);
+        report.addProperty("history-interval", this.historyInterval);
+        report.addProperty("history-length", this.historyLength);
+        report.addProperty("verbose", this.verbose);
+
+        final JsonArray entries = new JsonArray();
+        for (LanternTiming timing : timings) {
+            final JsonObject entry = new JsonObject();
+            entry.addProperty("plugin", timing.getPluginId());
+            entry.addProperty("name", timing.getName());
+            final LanternTiming group = timing.getGroup();
+            if (group != null) {
+                entry.addProperty("group", group.getName());
+            }
+            entry.addProperty("count", timing.getTotalCount());
+            entry.addProperty("total-time", timing.getTotalTime());
+            entry.addProperty("max-tick-time", timing.getMaxTickTime());
+            final JsonArray children = new JsonArray();
+            timing.getChildren().forEach(child -> children.add(child.getPluginId() + ':' + child.getName()));
+            entry.add("children", children);
+            final JsonArray history = new JsonArray();
+            for (long value : timing.getHistory()) {
+                history.add(value);
+            }
+            entry.add("history", history);
+            final JsonArray histogram = new JsonArray();
+            for (long value : timing.getHistogram()) {
+                histogram.add(value);
+            }
+            entry.add("histogram", histogram);
+            entries.add(entry);
+        }
+        report.add("timings", entries);
+
+        // The total time per plugin, nested timings of the same
+        // plugin are excluded to avoid counting them twice
+        final Set<LanternTiming> nested = new HashSet<>();
+        for (LanternTiming timing : timings) {
+            timing.getChildren().stream()
+                    .filter(child -> child.getPluginId().equals(timing.getPluginId()))
+                    .forEach(nested::add);
+        }
+        final Map<String, Long> pluginTimes = new TreeMap<>();
+        for (LanternTiming timing : timings) {
+            if (!nested.contains(timing)) {
+                pluginTimes.merge(timing.getPluginId(), timing.getTotalTime(), Long::sum);
+            }
+        }
+        final JsonObject plugins = new JsonObject();
+        pluginTimes.forEach(plugins::addProperty);
+        report.add("plugins", plugins);
+
+        final JsonObject caches = new JsonObject();
+        caches.add("text-json", Types.TEXT_JSON_CACHE.getStatistics());
+        report.add("caches", caches);
+
+        // The execution time of the scheduled tasks per plugin, this includes the asynchronous tasks
+        final JsonObject scheduler = new JsonObject();
+        scheduler.add("sync", createTaskReport(Lantern.getScheduler().getTaskStatistics(false)));
+        scheduler.add("async", createTaskReport(Lantern.getScheduler().getTaskStatistics(true)));
+        report.add("scheduler", scheduler);
+        return report;
+    }
+
+    private static JsonObject createTaskReport(Map<PluginContainer, TaskStatistics> statistics) {
+        final JsonObject report = new JsonObject();
+        statistics.forEach((plugin, entry) -> {
+            final JsonObject json = new JsonObject();
+            json.addProperty("count", entry.getExecutionCount());
+            json.addProperty("total-time", entry.getExecutionTime(TimeUnit.NANOSECONDS));
+            report.add(plugin.getId(), json);
+        });
+        return report;
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.3f", nanos / 1000000.0);
+    }
+}
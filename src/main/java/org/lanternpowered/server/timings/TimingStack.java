@@ -0,0 +1,114 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.timings;
+
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * The stack of {@link LanternTiming}s that are currently
+ * being timed on a specific thread.
+ */
+final class TimingStack {
+
+    private LanternTiming[] timings = new LanternTiming[16];
+    private long[] starts = new long[16];
+    private int size;
+
+    // The generation of the timings factory, the stack
+    // will be cleared once the generation changes
+    private int generation;
+
+    void push(LanternTiming timing, int generation) {
+        if (this.generation != generation) {
+            clear();
+            this.generation = generation;
+        }
+        if (this.size == this.timings.length) {
+            this.timings = Arrays.copyOf(this.timings, this.size * 2);
+            this.starts = Arrays.copyOf(this.starts, this.size * 2);
+        }
+        this.timings[this.size] = timing;
+        this.starts[this.size++] = System.nanoTime();
+    }
+
+    /**
+     * Pops the given {@link LanternTiming} from the stack and records the
+     * elapsed time. All the timings that were started after the given one
+     * and weren't stopped will be discarded.
+     *
+     * @param timing The timing
+     * @param generation The current generation
+     */
+    void pop(LanternTiming timing, int generation) {
+        final long now = System.nanoTime();
+        final int index = indexOf(timing, generation);
+        if (index == -1) {
+            return;
+        }
+        final long duration = now - this.starts[index];
+        @Nullable final LanternTiming parent = index == 0 ? null : this.timings[index - 1];
+        truncate(index);
+        timing.record(duration, parent);
+    }
+
+    /**
+     * Removes the given {@link LanternTiming} from the stack
+     * without recording the elapsed time.
+     *
+     * @param timing The timing
+     * @param generation The current generation
+     */
+    void abort(LanternTiming timing, int generation) {
+        final int index = indexOf(timing, generation);
+        if (index != -1) {
+            truncate(index);
+        }
+    }
+
+    private int indexOf(LanternTiming timing, int generation) {
+        if (this.generation != generation) {
+            clear();
+            return -1;
+        }
+        for (int i = this.size - 1; i >= 0; i--) {
+            if (this.timings[i] == timing) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void truncate(int size) {
+        Arrays.fill(this.timings, size, this.size, null);
+        this.size = size;
+    }
+
+    private void clear() {
+        truncate(0);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.timings;
+
+import org.lanternpowered.server.world.LanternWorld;
+
+/**
+ * The {@link LanternTiming}s of the tick phases of a specific {@link LanternWorld}.
+ */
+public final class WorldTimings {
+
+    public final LanternTiming tick;
+    public final LanternTiming chunks;
+    public final LanternTiming weather;
+    public final LanternTiming scheduledBlockUpdates;
+    public final LanternTiming entities;
+    public final LanternTiming tileEntities;
+    public final LanternTiming regions;
+    public final LanternTiming observedChunks;
+    public final LanternTiming trackers;
+
+    public WorldTimings(LanternWorld world) {
+        final String prefix = "World: " + world.getName() + " - ";
+        this.tick = LanternTimings.of(prefix + "Tick", null);
+        this.chunks = LanternTimings.of(prefix + "Chunks", this.tick);
+        this.weather = LanternTimings.of(prefix + "Time and Weather", this.tick);
+        this.scheduledBlockUpdates = LanternTimings.of(prefix + "Scheduled Block Updates", this.tick);
+        this.entities = LanternTimings.of(prefix + "Entities", this.tick);
+        this.tileEntities = LanternTimings.of(prefix + "Tile Entities", this.tick);
+        this.regions = LanternTimings.of(prefix + "Regions", this.tick);
+        this.observedChunks = LanternTimings.of(prefix + "Observed Chunks", this.tick);
+        this.trackers = LanternTimings.of(prefix + "Entity Trackers", this.tick);
+    }
+}
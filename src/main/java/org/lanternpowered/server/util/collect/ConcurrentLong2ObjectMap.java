@@ -0,0 +1,397 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util.collect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongFunction;
+import java.util.function.ObjLongConsumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * A concurrent open addressing hash map with primitive {@code long} keys. Reads
+ * are lock-free and don't allocate, modifications are synchronized on the map.
+ * <p>
+ * Every slot holds an immutable node with the key and the value, so a reader
+ * can never observe a key that doesn't belong to the value. Removed nodes are
+ * replaced by a tombstone, which are cleaned up the next time the table is
+ * rehashed. Iteration is weakly consistent, like in a
+ * {@link java.util.concurrent.ConcurrentHashMap}.
+ *
+ * @param <V> The value type
+ */
+public final class ConcurrentLong2ObjectMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final Node<?> TOMBSTONE = new Node<>(0, null);
+
+    private static final class Node<V> {
+
+        final long key;
+        final V value;
+
+        Node(long key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Node<V>> table;
+    private volatile int size;
+    // The amount of slots that are occupied by nodes or tombstones
+    private int occupied;
+
+    @Nullable private Collection<V> values;
+
+    public ConcurrentLong2ObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ConcurrentLong2ObjectMap(int expectedSize) {
+        checkArgument(expectedSize >= 0, "The expected size cannot be negative");
+        this.table = new AtomicReferenceArray<>(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(int size) {
+        // Keep the load factor at most 0.5
+        final int capacity = Math.max(16, size * 2);
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private static int hash(long key) {
+        final long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Gets the value that is mapped to the key.
+     *
+     * @param key The key
+     * @return The value, or null if not present
+     */
+    @Nullable
+    public V get(long key) {
+        final AtomicReferenceArray<Node<V>> table = this.table;
+        final int mask = table.length() - 1;
+        int index = hash(key) & mask;
+        Node<V> node;
+        while ((node = table.get(index)) != null) {
+            if (node.key == key && node != TOMBSTONE) {
+                return node.value;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Gets whether a value is mapped to the key.
+     *
+     * @param key The key
+     * @return Whether the key is present
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Maps the value to the key.
+     *
+     * @param key The key
+     * @param value The value
+     * @return The previous value, or null if not present
+     */
+    @Nullable
+    public synchronized V put(long key, V value) {
+        checkNotNull(value, "value");
+        return put0(key, value, false);
+    }
+
+    /**
+     * Maps the value to the key, if the key isn't present yet.
+     *
+     * @param key The key
+     * @param value The value
+     * @return The current value, or null if the value was put
+     */
+    @Nullable
+    public synchronized V putIfAbsent(long key, V value) {
+        checkNotNull(value, "value");
+        return put0(key, value, true);
+    }
+
+    /**
+     * Gets the value that is mapped to the key, if not present the value will be
+     * computed and put. The function is called while the map is locked, so it
+     * shouldn't modify this map.
+     *
+     * @param key The key
+     * @param function The function to compute the value
+     * @return The current or computed value
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> function) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        synchronized (this) {
+            value = get(key);
+            if (value == null) {
+                value = checkNotNull(function.apply(key), "value");
+                put0(key, value, true);
+            }
+            return value;
+        }
+    }
+
+    @Nullable
+    private V put0(long key, V value, boolean onlyIfAbsent) {
+        AtomicReferenceArray<Node<V>> table = this.table;
+        int mask = table.length() - 1;
+        int index = hash(key) & mask;
+        int free = -1;
+        Node<V> node;
+        while ((node = table.get(index)) != null) {
+            if (node == TOMBSTONE) {
+                if (free == -1) {
+                    free = index;
+                }
+            } else if (node.key == key) {
+                if (!onlyIfAbsent) {
+                    table.set(index, new Node<>(key, value));
+                }
+                return node.value;
+            }
+            index = (index + 1) & mask;
+        }
+        if (free == -1) {
+            if ((this.occupied + 1) * 2 > table.length()) {
+                table = rehash(tableSizeFor(this.size + 1));
+                mask = table.length() - 1;
+                index = hash(key) & mask;
+                while (table.get(index) != null) {
+                    index = (index + 1) & mask;
+                }
+            }
+            free = index;
+            this.occupied++;
+        }
+        table.set(free, new Node<>(key, value));
+        this.size++;
+        return null;
+    }
+
+    /**
+     * Copies all the nodes into a new table, without the tombstones.
+     *
+     * @param capacity The capacity of the new table
+     * @return The new table
+     */
+    private AtomicReferenceArray<Node<V>> rehash(int capacity) {
+        final AtomicReferenceArray<Node<V>> oldTable = this.table;
+        final AtomicReferenceArray<Node<V>> table = new AtomicReferenceArray<>(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldTable.length(); i++) {
+            final Node<V> node = oldTable.get(i);
+            if (node != null && node != TOMBSTONE) {
+                int index = hash(node.key) & mask;
+                while (table.get(index) != null) {
+                    index = (index + 1) & mask;
+                }
+                table.set(index, node);
+            }
+        }
+        this.occupied = this.size;
+        this.table = table;
+        return table;
+    }
+
+    /**
+     * Removes the value that is mapped to the key.
+     *
+     * @param key The key
+     * @return The removed value, or null if not present
+     */
+    @Nullable
+    public synchronized V remove(long key) {
+        return remove0(key, null);
+    }
+
+    /**
+     * Removes the key only if it's mapped to the given value.
+     *
+     * @param key The key
+     * @param value The value
+     * @return Whether the value was removed
+     */
+    public synchronized boolean remove(long key, Object value) {
+        checkNotNull(value, "value");
+        return remove0(key, value) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private V remove0(long key, @Nullable Object expected) {
+        final AtomicReferenceArray<Node<V>> table = this.table;
+        final int mask = table.length() - 1;
+        int index = hash(key) & mask;
+        Node<V> node;
+        while ((node = table.get(index)) != null) {
+            if (node.key == key && node != TOMBSTONE) {
+                if (expected != null && !Objects.equals(expected, node.value)) {
+                    return null;
+                }
+                table.set(index, (Node<V>) TOMBSTONE);
+                this.size--;
+                return node.value;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public synchronized void clear() {
+        this.table = new AtomicReferenceArray<>(tableSizeFor(0));
+        this.occupied = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Passes every key and the value that is mapped to it to the consumer.
+     *
+     * @param consumer The consumer
+     */
+    public void forEach(ObjLongConsumer<? super V> consumer) {
+        checkNotNull(consumer, "consumer");
+        final AtomicReferenceArray<Node<V>> table = this.table;
+        for (int i = 0; i < table.length(); i++) {
+            final Node<V> node = table.get(i);
+            if (node != null && node != TOMBSTONE) {
+                consumer.accept(node.value, node.key);
+            }
+        }
+    }
+
+    /**
+     * Gets a view of the values in this map. Removing values
+     * through the iterator will remove them from this map.
+     *
+     * @return The values
+     */
+    public Collection<V> values() {
+        Collection<V> values = this.values;
+        if (values == null) {
+            this.values = values = new Values();
+        }
+        return values;
+    }
+
+    private final class Values extends AbstractCollection<V> {
+
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentLong2ObjectMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            ConcurrentLong2ObjectMap.this.clear();
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+
+        private final AtomicReferenceArray<Node<V>> table = ConcurrentLong2ObjectMap.this.table;
+        private int index = -1;
+        @Nullable private Node<V> next;
+        @Nullable private Node<V> last;
+
+        private ValueIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (++this.index < this.table.length()) {
+                final Node<V> node = this.table.get(this.index);
+                if (node != null && node != TOMBSTONE) {
+                    this.next = node;
+                    return;
+                }
+            }
+            this.next = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public V next() {
+            final Node<V> node = this.next;
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            this.last = node;
+            advance();
+            return node.value;
+        }
+
+        @Override
+        public void remove() {
+            final Node<V> node = this.last;
+            if (node == null) {
+                throw new IllegalStateException();
+            }
+            ConcurrentLong2ObjectMap.this.remove(node.key, node.value);
+            this.last = null;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util.collect;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * A hierarchical timing wheel, entries can be added and removed in constant
+ * time and advancing the wheel only visits the slots that contain entries.
+ * <p>
+ * Every level of the wheel has 64 slots, level {@code n} spans the time of
+ * {@code 64^n} units per slot. An entry is put on the lowest level on which
+ * its deadline can be represented relative to the current time, and moved
+ * down to the lower levels when the time of its slot is reached. There is no
+ * loss of precision, entries expire at exactly their deadline. The time is
+ * an arbitrary {@code long}, like {@link System#nanoTime()} or a tick counter,
+ * it only has to be non decreasing.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @param <E> The element type
+ */
+public final class TimingWheel<E> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    /**
+     * Represents a element that is scheduled within a {@link TimingWheel}.
+     *
+     * @param <E> The element type
+     */
+    public static final class Entry<E> {
+
+        private final E element;
+        private long deadline;
+
+        // The wheel this entry is scheduled in
+        @Nullable private TimingWheel<E> wheel;
+        @Nullable private Bucket<E> bucket;
+        @Nullable private Entry<E> previous;
+        @Nullable private Entry<E> next;
+
+        private Entry(E element) {
+            this.element = element;
+        }
+
+        /**
+         * Gets the element of this entry.
+         *
+         * @return The element
+         */
+        public E getElement() {
+            return this.element;
+        }
+
+        /**
+         * Gets the deadline of this entry.
+         *
+         * @return The deadline
+         */
+        public long getDeadline() {
+            return this.deadline;
+        }
+
+        /**
+         * Gets whether this entry is scheduled within a wheel.
+         *
+         * @return Is scheduled
+         */
+        public boolean isScheduled() {
+            return this.wheel != null;
+        }
+    }
+
+    private static final class Bucket<E> {
+
+        // The level of this bucket, or LEVELS for the expired bucket
+        private final int level;
+        private final int slot;
+
+        @Nullable private Entry<E> head;
+        @Nullable private Entry<E> tail;
+
+        private Bucket(int level, int slot) {
+            this.level = level;
+            this.slot = slot;
+        }
+    }
+
+    // The buckets of every level, lazily initialized
+    @SuppressWarnings("unchecked")
+    private final Bucket<E>[][] buckets = new Bucket[LEVELS][];
+    // A bit mask of the slots that contain entries, per level
+    private final long[] occupied = new long[LEVELS];
+    // The entries whose deadline is already reached
+    private final Bucket<E> expired = new Bucket<>(LEVELS, 0);
+
+    private long time;
+    private int size;
+
+    /**
+     * Constructs a new {@link TimingWheel} with the given start time.
+     *
+     * @param time The start time
+     */
+    public TimingWheel(long time) {
+        this.time = time;
+    }
+
+    /**
+     * Gets the current time of this wheel.
+     *
+     * @return The time
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * Gets the amount of entries within this wheel.
+     *
+     * @return The size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets whether this wheel is empty.
+     *
+     * @return Is empty
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Adds a new entry for the given element to this wheel.
+     *
+     * @param element The element
+     * @param deadline The time at which the entry expires
+     * @return The entry
+     */
+    public Entry<E> add(E element, long deadline) {
+        final Entry<E> entry = new Entry<>(checkNotNull(element, "element"));
+        entry.deadline = deadline;
+        insert(entry);
+        this.size++;
+        return entry;
+    }
+
+    /**
+     * Reschedules the entry at the given deadline, the
+     * entry will be added if it was previously removed.
+     *
+     * @param entry The entry
+     * @param deadline The time at which the entry expires
+     */
+    public void reschedule(Entry<E> entry, long deadline) {
+        checkNotNull(entry, "entry");
+        checkArgument(entry.wheel == null || entry.wheel == this, "The entry is scheduled in a different wheel");
+        if (entry.wheel != null) {
+            unlink(entry);
+        } else {
+            this.size++;
+        }
+        entry.deadline = deadline;
+        insert(entry);
+    }
+
+    /**
+     * Removes the entry from this wheel, nothing happens if
+     * the entry isn't scheduled within this wheel.
+     *
+     * @param entry The entry
+     * @return Whether the entry was removed
+     */
+    public boolean remove(Entry<E> entry) {
+        checkNotNull(entry, "entry");
+        if (entry.wheel != this) {
+            return false;
+        }
+        unlink(entry);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Gets the next time at which {@link #advance(long, Consumer)} may expire
+     * entries. This can be earlier than the earliest deadline, in which case
+     * the wheel only rearranges its entries. {@link Long#MAX_VALUE} is
+     * returned if the wheel is empty.
+     *
+     * @return The next time
+     */
+    public long getNextTime() {
+        if (this.expired.head != null) {
+            return this.time;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (this.occupied[level] != 0L) {
+                return getSlotTime(level, Long.numberOfTrailingZeros(this.occupied[level]));
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Advances this wheel to the given time, all the entries whose deadline is
+     * reached are removed and passed to the consumer in order of their
+     * deadline. The consumer is allowed to add and remove entries.
+     *
+     * @param time The time
+     * @param consumer The consumer for the expired elements
+     */
+    public void advance(long time, Consumer<? super E> consumer) {
+        checkArgument(time >= this.time, "The time cannot decrease");
+        checkNotNull(consumer, "consumer");
+        while (true) {
+            Entry<E> entry;
+            while ((entry = this.expired.head) != null) {
+                unlink(entry);
+                this.size--;
+                consumer.accept(entry.element);
+            }
+            int level = 0;
+            while (level < LEVELS && this.occupied[level] == 0L) {
+                level++;
+            }
+            if (level == LEVELS) {
+                break;
+            }
+            final int slot = Long.numberOfTrailingZeros(this.occupied[level]);
+            final long slotTime = getSlotTime(level, slot);
+            if (slotTime > time) {
+                break;
+            }
+            this.time = slotTime;
+            // Move all the entries of the slot down to the lower levels
+            final Bucket<E> bucket = this.buckets[level][slot];
+            entry = bucket.head;
+            bucket.head = bucket.tail = null;
+            this.occupied[level] &= ~(1L << slot);
+            while (entry != null) {
+                final Entry<E> next = entry.next;
+                entry.wheel = null;
+                entry.bucket = null;
+                entry.previous = entry.next = null;
+                insert(entry);
+                entry = next;
+            }
+        }
+        this.time = time;
+    }
+
+    private long getSlotTime(int level, int slot) {
+        final int shift = level * SLOT_BITS;
+        final long upperMask = level == LEVELS - 1 ? 0L : -1L << (shift + SLOT_BITS);
+        return unsigned((unsigned(this.time) & upperMask) | ((long) slot << shift));
+    }
+
+    private void insert(Entry<E> entry) {
+        final long deadline = entry.deadline;
+        final Bucket<E> bucket;
+        if (deadline <= this.time) {
+            bucket = this.expired;
+        } else {
+            // The highest bit that differs determines the level,
+            // the slot at that level is always after the current one
+            final int level = (63 - Long.numberOfLeadingZeros(deadline ^ this.time)) / SLOT_BITS;
+            final int slot = (int) (unsigned(deadline) >>> (level * SLOT_BITS)) & SLOT_MASK;
+            Bucket<E>[] buckets = this.buckets[level];
+            if (buckets == null) {
+                //noinspection unchecked
+                this.buckets[level] = buckets = new Bucket[SLOTS];
+            }
+            Bucket<E> bucket0 = buckets[slot];
+            if (bucket0 == null) {
+                buckets[slot] = bucket0 = new Bucket<>(level, slot);
+            }
+            this.occupied[level] |= 1L << slot;
+            bucket = bucket0;
+        }
+        entry.wheel = this;
+        entry.bucket = bucket;
+        entry.previous = bucket.tail;
+        if (bucket.tail == null) {
+            bucket.head = entry;
+        } else {
+            bucket.tail.next = entry;
+        }
+        bucket.tail = entry;
+    }
+
+    private void unlink(Entry<E> entry) {
+        final Bucket<E> bucket = entry.bucket;
+        //noinspection ConstantConditions
+        if (entry.previous == null) {
+            bucket.head = entry.next;
+        } else {
+            entry.previous.next = entry.next;
+        }
+        if (entry.next == null) {
+            bucket.tail = entry.previous;
+        } else {
+            entry.next.previous = entry.previous;
+        }
+        if (bucket.head == null && bucket.level != LEVELS) {
+            this.occupied[bucket.level] &= ~(1L << bucket.slot);
+        }
+        entry.wheel = null;
+        entry.bucket = null;
+        entry.previous = entry.next = null;
+    }
+
+    /**
+     * Converts between the signed time and a value whose unsigned order
+     * matches the signed order, so that the slots of the top level are
+     * in order for negative times.
+     */
+    private static long unsigned(long value) {
+        return value ^ Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util.collect.array;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+/**
+ * A array of values that are stored as indexes into a local palette, the indexes
+ * are bit packed into a {@link VariableValueArray} and the amount of bits per value
+ * grows with the size of the palette. Once the palette doesn't fit anymore in the
+ * maximum amount of local bits, the values will be stored directly using the
+ * global amount of bits per value.
+ * <p>
+ * The layout of the palette and backing array matches the chunk section
+ * format of the protocol, so they can be written without any conversion.
+ */
+public final class PalettedValueArray {
+
+    /**
+     * The minimum amount of bits per value, the client
+     * will also not use a smaller amount of bits.
+     */
+    public static final int MIN_BITS_PER_VALUE = 4;
+
+    /**
+     * The maximum amount of bits per value while a local palette is being used.
+     */
+    public static final int MAX_LOCAL_BITS_PER_VALUE = 8;
+
+    private final int capacity;
+    private final int globalBitsPerValue;
+
+    /**
+     * The amount of times every value is present in this array.
+     */
+    private final Int2IntOpenHashMap valueCounts;
+
+    /**
+     * The bit packed values together with the palette they index into. Both are
+     * replaced at once when the amount of bits per value changes, so that readers
+     * which don't hold a lock always see a palette that matches the values.
+     */
+    private static final class Storage {
+
+        private final VariableValueArray values;
+
+        /**
+         * The local palette, maps the local id to the value. Will be
+         * {@code null} if the global palette is being used. The length
+         * of the palette always covers all the values of the array.
+         */
+        @Nullable private final int[] palette;
+
+        private Storage(VariableValueArray values, @Nullable int[] palette) {
+            this.values = values;
+            this.palette = palette;
+        }
+    }
+
+    // Only assigned in a single write, all the fields of the storage are final
+    private Storage storage;
+
+    /**
+     * The reverse lookup of the local palette.
+     */
+    @Nullable private Int2IntOpenHashMap paletteLookup;
+
+    /**
+     * The local ids that are no longer used.
+     */
+    @Nullable private IntArrayList freePaletteIds;
+
+    private int paletteSize;
+
+    /**
+     * Creates a new {@link PalettedValueArray} of the given capacity,
+     * with all the elements initially zero.
+     *
+     * @param capacity The capacity
+     * @param globalBitsPerValue The amount of bits per value of the global palette
+     */
+    public PalettedValueArray(int capacity, int globalBitsPerValue) {
+        checkArgument(capacity > 0, "capacity (%s) must be greater then 0", capacity);
+        checkArgument(globalBitsPerValue > MAX_LOCAL_BITS_PER_VALUE && globalBitsPerValue <= 32,
+                "globalBitsPerValue (%s) must be greater then %s and not greater then 32",
+                globalBitsPerValue, MAX_LOCAL_BITS_PER_VALUE);
+        this.globalBitsPerValue = globalBitsPerValue;
+        this.capacity = capacity;
+        this.storage = new Storage(new VariableValueArray(MIN_BITS_PER_VALUE, capacity), new int[1 << MIN_BITS_PER_VALUE]);
+        this.paletteLookup = new Int2IntOpenHashMap();
+        this.paletteLookup.defaultReturnValue(-1);
+        this.paletteLookup.put(0, 0);
+        this.freePaletteIds = new IntArrayList();
+        this.paletteSize = 1;
+        this.valueCounts = new Int2IntOpenHashMap();
+        this.valueCounts.put(0, capacity);
+    }
+
+    /**
+     * Creates a new {@link PalettedValueArray} of the given capacity,
+     * with all the elements copied from the initial content array.
+     *
+     * @param initialContent The initial content
+     * @param globalBitsPerValue The amount of bits per value of the global palette
+     */
+    public PalettedValueArray(short[] initialContent, int globalBitsPerValue) {
+        this(initialContent.length, globalBitsPerValue);
+        for (int i = 0; i < initialContent.length; i++) {
+            final int value = initialContent[i] & 0xffff;
+            if (value != 0) {
+                set(i, value);
+            }
+        }
+    }
+
+    private PalettedValueArray(PalettedValueArray other) {
+        this.capacity = other.capacity;
+        this.globalBitsPerValue = other.globalBitsPerValue;
+        this.valueCounts = new Int2IntOpenHashMap(other.valueCounts);
+        final Storage storage = other.storage;
+        this.storage = new Storage(storage.values.copy(), storage.palette == null ? null : storage.palette.clone());
+        this.paletteSize = other.paletteSize;
+        if (storage.palette != null) {
+            //noinspection ConstantConditions
+            this.paletteLookup = new Int2IntOpenHashMap(other.paletteLookup);
+            this.paletteLookup.defaultReturnValue(-1);
+            //noinspection ConstantConditions
+            this.freePaletteIds = new IntArrayList(other.freePaletteIds);
+        }
+    }
+
+    /**
+     * Creates a copy of this {@link PalettedValueArray}.
+     *
+     * @return The copy
+     */
+    public PalettedValueArray copy() {
+        return new PalettedValueArray(this);
+    }
+
+    /**
+     * Gets the capacity of this array.
+     *
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Gets the amount of bits that are currently used per value.
+     *
+     * @return The bits per value
+     */
+    public int getBitsPerValue() {
+        return this.storage.values.getBitsPerValue();
+    }
+
+    /**
+     * Gets the bit packed values, these are indexes into the local
+     * palette or the values itself if the global palette is used.
+     *
+     * @return The bit packed values
+     */
+    public VariableValueArray getValues() {
+        return this.storage.values;
+    }
+
+    /**
+     * Gets a copy of the local palette, or {@code null}
+     * if the global palette is being used.
+     *
+     * @return The local palette
+     */
+    @Nullable
+    public int[] getPalette() {
+        final int[] palette = this.storage.palette;
+        return palette == null ? null : Arrays.copyOf(palette, this.paletteSize);
+    }
+
+    /**
+     * Gets the amount of times that the value is present in this array.
+     *
+     * @param value The value
+     * @return The count
+     */
+    public int getCount(int value) {
+        return this.valueCounts.get(value);
+    }
+
+    /**
+     * Gets the amount of different values that are present in this array.
+     *
+     * @return The amount of different values
+     */
+    public int getDistinctCount() {
+        return this.valueCounts.size();
+    }
+
+    /**
+     * Gets the value at the given index.
+     *
+     * @param index The index
+     * @return The value
+     */
+    public int get(int index) {
+        // Read the storage only once, it may be replaced concurrently
+        final Storage storage = this.storage;
+        final int value = storage.values.get(index);
+        return storage.palette == null ? value : storage.palette[value];
+    }
+
+    /**
+     * Sets the value at the given index.
+     *
+     * @param index The index
+     * @param value The value
+     * @return The previous value
+     */
+    public int set(int index, int value) {
+        final int oldValue = get(index);
+        if (oldValue == value) {
+            return oldValue;
+        }
+        final int count = this.valueCounts.addTo(oldValue, -1) - 1;
+        if (count <= 0) {
+            this.valueCounts.remove(oldValue);
+        }
+        this.valueCounts.addTo(value, 1);
+        if (this.storage.palette == null) {
+            this.storage.values.set(index, value);
+            return oldValue;
+        }
+        //noinspection ConstantConditions
+        if (count <= 0) {
+            // The local id is no longer in use, so it can be reused
+            this.freePaletteIds.add(this.paletteLookup.remove(oldValue));
+        }
+        int localId = this.paletteLookup.get(value);
+        if (localId == -1) {
+            localId = addToPalette(value);
+            // The palette is too big, switched to the global palette
+            if (localId == -1) {
+                this.storage.values.set(index, value);
+                return oldValue;
+            }
+        }
+        this.storage.values.set(index, localId);
+        return oldValue;
+    }
+
+    private int addToPalette(int value) {
+        //noinspection ConstantConditions
+        if (!this.freePaletteIds.isEmpty()) {
+            final int localId = this.freePaletteIds.popInt();
+            //noinspection ConstantConditions
+            this.storage.palette[localId] = value;
+            this.paletteLookup.put(value, localId);
+            return localId;
+        }
+        final int localId = this.paletteSize;
+        //noinspection ConstantConditions
+        if (localId >= this.storage.palette.length) {
+            final int bitsPerValue = this.storage.values.getBitsPerValue() + 1;
+            if (bitsPerValue > MAX_LOCAL_BITS_PER_VALUE) {
+                switchToGlobalPalette();
+                return -1;
+            }
+            resize(bitsPerValue);
+        }
+        //noinspection ConstantConditions
+        this.storage.palette[localId] = value;
+        //noinspection ConstantConditions
+        this.paletteLookup.put(value, localId);
+        this.paletteSize++;
+        return localId;
+    }
+
+    private void resize(int bitsPerValue) {
+        final Storage storage = this.storage;
+        final VariableValueArray values = new VariableValueArray(bitsPerValue, this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            values.set(i, storage.values.get(i));
+        }
+        //noinspection ConstantConditions
+        this.storage = new Storage(values, Arrays.copyOf(storage.palette, 1 << bitsPerValue));
+    }
+
+    private void switchToGlobalPalette() {
+        final Storage storage = this.storage;
+        final int[] palette = storage.palette;
+        final VariableValueArray values = new VariableValueArray(this.globalBitsPerValue, this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            //noinspection ConstantConditions
+            values.set(i, palette[storage.values.get(i)]);
+        }
+        this.storage = new Storage(values, null);
+        this.paletteLookup = null;
+        this.freePaletteIds = null;
+        this.paletteSize = 0;
+    }
+}
@@ -29,7 +29,9 @@
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -84,4 +86,39 @@ public static <T> List<T> createOrderedLoad(DirectedGraph<T> graph) {
         }
         return orderedList;
     }
+
+    /**
+     * Orders the nodes of the graph in layers, every node is placed in the
+     * layer after the deepest node that it depends on. The nodes within a
+     * layer don't depend on each other, only on nodes of previous layers.
+     * Flattening the layers results in a valid ordered load.
+     *
+     * @param graph The graph, will be emptied
+     * @param <T> The data type of the nodes
+     * @return The layers
+     */
+    public static <T> List<List<T>> createLayeredLoad(DirectedGraph<T> graph) {
+        // Collect the dependencies before the graph is consumed by the ordering
+        final Map<T, List<T>> dependencies = new HashMap<>();
+        for (DirectedGraph.DataNode<T> node : graph.getNodes()) {
+            final List<T> nodeDependencies = new ArrayList<>();
+            node.getAdjacent().forEach(dependency -> nodeDependencies.add(dependency.getData()));
+            dependencies.put(node.getData(), nodeDependencies);
+        }
+        final Map<T, Integer> layerIndexes = new HashMap<>();
+        final List<List<T>> layers = new ArrayList<>();
+        // The dependencies always precede the node in the ordered load
+        for (T data : createOrderedLoad(graph)) {
+            int layerIndex = 0;
+            for (T dependency : dependencies.get(data)) {
+                layerIndex = Math.max(layerIndex, layerIndexes.get(dependency) + 1);
+            }
+            layerIndexes.put(data, layerIndex);
+            if (layerIndex == layers.size()) {
+                layers.add(new ArrayList<>());
+            }
+            layers.get(layerIndex).add(data);
+        }
+        return layers;
+    }
 }
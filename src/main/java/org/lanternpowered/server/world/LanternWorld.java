@@ -27,6 +27,7 @@
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static org.lanternpowered.server.world.chunk.LanternChunk.fixEntityYSection;
 import static org.lanternpowered.server.world.chunk.LanternChunkLayout.SPACE_MAX;
 import static org.lanternpowered.server.world.chunk.LanternChunkLayout.SPACE_MIN;
@@ -44,6 +45,8 @@
 import org.lanternpowered.server.behavior.ContextKeys;
 import org.lanternpowered.server.behavior.pipeline.BehaviorPipeline;
 import org.lanternpowered.server.block.LanternBlockType;
+import org.lanternpowered.server.block.LanternScheduledBlockUpdate;
+import org.lanternpowered.server.block.ScheduledBlockUpdateWheel;
 import org.lanternpowered.server.block.action.BlockAction;
 import org.lanternpowered.server.block.behavior.types.BreakBlockBehavior;
 import org.lanternpowered.server.block.behavior.types.InteractWithBlockBehavior;
@@ -68,11 +71,13 @@
 import org.lanternpowered.server.network.vanilla.message.type.play.MessagePlayOutRecord;
 import org.lanternpowered.server.text.chat.LanternChatType;
 import org.lanternpowered.server.text.title.LanternTitles;
+import org.lanternpowered.server.timings.WorldTimings;
 import org.lanternpowered.server.util.VecHelper;
 import org.lanternpowered.server.world.chunk.ChunkLoadingTicket;
 import org.lanternpowered.server.world.chunk.LanternChunk;
 import org.lanternpowered.server.world.chunk.LanternChunkManager;
 import org.lanternpowered.server.world.chunk.LanternChunkTicketManager;
+import org.lanternpowered.server.world.chunk.LightEngine;
 import org.lanternpowered.server.world.dimension.LanternDimensionType;
 import org.lanternpowered.server.world.extent.AbstractExtent;
 import org.lanternpowered.server.world.extent.ExtentViewDownsize;
@@ -80,6 +85,7 @@
 import org.lanternpowered.server.world.extent.worker.LanternMutableBlockVolumeWorker;
 import org.lanternpowered.server.world.gen.IGeneratorType;
 import org.lanternpowered.server.world.pregen.LanternChunkPreGenerateTask;
+import org.lanternpowered.server.world.pregen.LanternWorldPreGenerator;
 import org.lanternpowered.server.world.rules.Rule;
 import org.lanternpowered.server.world.rules.RuleHolder;
 import org.lanternpowered.server.world.rules.RuleType;
@@ -207,6 +213,15 @@ public class LanternWorld implements AbstractExtent, org.lanternpowered.api.worl
     // The chunk manager of this world
     private final LanternChunkManager chunkManager;
 
+    // The light engine of this world
+    private final LightEngine lightEngine;
+
+    // The scheduled block updates of this world
+    private final ScheduledBlockUpdateWheel scheduledBlockUpdateWheel;
+
+    // The pre-generator that was last started in this world
+    @Nullable private volatile LanternWorldPreGenerator preGenerator;
+
     /**
      * The entities mapped by their unique id.
      */
@@ -255,6 +270,16 @@ public class LanternWorld implements AbstractExtent, org.lanternpowered.api.worl
      */
     private EntityProtocolManager entityProtocolManager = new EntityProtocolManager();
 
+    /**
+     * The region ticker, if the regions of this world are ticked in parallel.
+     */
+    @Nullable private final RegionTicker regionTicker;
+
+    /**
+     * The timings of the tick phases of this world.
+     */
+    private final WorldTimings timings;
+
     public LanternWorld(LanternGame game, WorldConfig worldConfig, Path directory,
             Scoreboard scoreboard, LanternWorldProperties properties) {
         this.logger = LoggerFactory.getLogger("world/" + properties.getWorldName());
@@ -282,10 +307,19 @@ public LanternWorld(LanternGame game, WorldConfig worldConfig, Path directory,
         this.portalAgent = properties.getPortalAgentType().newPortalAgent(this);
         // Create a new world generator
         final WorldGenerator worldGenerator = properties.getGeneratorType().createGenerator(this);
+        // Create the light engine, chunks need it to initialize their light
+        this.lightEngine = new LightEngine(this, dimensionType.hasSky());
+        this.scheduledBlockUpdateWheel = new ScheduledBlockUpdateWheel(this, worldConfig.getMaxScheduledBlockUpdates());
         // Finally, create the chunk manager
         this.chunkManager = new LanternChunkManager(Lantern.getMinecraftPlugin(), this.game, this, this.worldConfig, chunkLoadService,
                 chunkIOService, worldGenerator, directory);
         this.worldContext = new Context(Context.WORLD_KEY, getName());
+        this.timings = new WorldTimings(this);
+        if (worldConfig.isRegionTickingEnabled()) {
+            this.regionTicker = new RegionTicker(this, worldConfig.getRegionTickingSize(), worldConfig.getRegionTickingParallelism());
+        } else {
+            this.regionTicker = null;
+        }
         this.worldEventListener.add(this.observedChunkManager);
         getWorldBorder().updateCurrentTime();
     }
@@ -327,8 +361,19 @@ void shutdown() {
             this.spawnLoadingTicket.release();
             this.spawnLoadingTicket = null;
         }
+        // Stop pre-generating, the chunks must be written
+        // before the chunk manager is shut down
+        final LanternWorldPreGenerator preGenerator = this.preGenerator;
+        if (preGenerator != null) {
+            preGenerator.cancel();
+            preGenerator.awaitTermination();
+        }
         // Shut the chunk manager down
         this.chunkManager.shutdown();
+        if (this.regionTicker != null) {
+            this.regionTicker.shutdown();
+        }
+        this.lightEngine.shutdown();
     }
 
     /**
@@ -411,6 +456,51 @@ public LanternChunkManager getChunkManager() {
         return this.chunkManager;
     }
 
+    /**
+     * Gets the light engine of this world.
+     *
+     * @return The light engine
+     */
+    public LightEngine getLightEngine() {
+        return this.lightEngine;
+    }
+
+    /**
+     * Gets the pre-generator that is currently running in this world.
+     *
+     * @return The pre-generator
+     */
+    public Optional<LanternWorldPreGenerator> getPreGenerator() {
+        final LanternWorldPreGenerator preGenerator = this.preGenerator;
+        return preGenerator == null || preGenerator.isDone() ? Optional.empty() : Optional.of(preGenerator);
+    }
+
+    /**
+     * Starts pre-generating the square area around the given center chunk, without
+     * loading the chunks into this world. Only one pre-generator can run at a time.
+     *
+     * @param center The center chunk of the area
+     * @param radius The radius of the area, in chunks
+     * @param threads The amount of worker threads
+     * @return The pre-generator
+     */
+    public synchronized LanternWorldPreGenerator startPreGenerator(Vector2i center, int radius, int threads) {
+        checkState(!getPreGenerator().isPresent(), "A pre-generator is already running in this world.");
+        final LanternWorldPreGenerator preGenerator = new LanternWorldPreGenerator(this, center, radius, threads);
+        preGenerator.start();
+        this.preGenerator = preGenerator;
+        return preGenerator;
+    }
+
+    /**
+     * Gets the wheel that processes the scheduled block updates of this world.
+     *
+     * @return The scheduled block update wheel
+     */
+    public ScheduledBlockUpdateWheel getScheduledBlockUpdateWheel() {
+        return this.scheduledBlockUpdateWheel;
+    }
+
     @Override
     public Location<World> getLocation(Vector3i position) {
         return getLocation(position.getX(), position.getY(), position.getZ());
@@ -432,14 +522,24 @@ public Collection<ScheduledBlockUpdate> getScheduledUpdates(int x, int y, int z)
 
     @Override
     public ScheduledBlockUpdate addScheduledUpdate(int x, int y, int z, int priority, int ticks) {
-        // TODO Auto-generated method stub
-        return null;
+        final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(x >> 4, z >> 4);
+        if (chunk != null) {
+            return chunk.addScheduledUpdate(x, y, z, priority, ticks);
+        }
+        // Don't load chunks synchronously for block updates, the
+        // update is dropped and returned as an already cancelled one
+        final LanternScheduledBlockUpdate update = this.scheduledBlockUpdateWheel.createSuspended(
+                new Location<>(this, new Vector3i(x, y, z)), priority, ticks);
+        this.scheduledBlockUpdateWheel.cancel(update);
+        return update;
     }
 
     @Override
     public void removeScheduledUpdate(int x, int y, int z, ScheduledBlockUpdate update) {
-        // TODO Auto-generated method stub
-        
+        final LanternChunk chunk = this.chunkManager.getChunk(x >> 4, z >> 4);
+        if (chunk != null) {
+            chunk.removeScheduledUpdate(x, y, z, update);
+        }
     }
 
     @Override
@@ -532,7 +632,8 @@ public Set<AABB> getIntersectingBlockCollisionBoxes(AABB box, @Nullable Predicat
                     }
                 }
                 if (filter != null) {
-                    chunk.addIntersectingEntitiesBoxes(boxes, maxChunkSection, minChunkSection, box, filter);
+                    chunk.forEachIntersectingEntityBox(fixEntityYSection(maxChunkSection),
+                            fixEntityYSection(minChunkSection), box, filter, boxes::add);
                 }
             }
         }
@@ -544,21 +645,38 @@ public Set<Entity> getIntersectingEntities(AABB box, Predicate<Entity> filter) {
         checkNotNull(box, "box");
         checkNotNull(filter, "filter");
         final ImmutableSet.Builder<Entity> entities = ImmutableSet.builder();
-        final int maxX = ((int) Math.ceil(box.getMax().getX() + 2.0)) >> 4;
-        final int minX = ((int) Math.floor(box.getMin().getX() - 2.0)) >> 4;
-        final int maxYSection = fixEntityYSection(((int) Math.round(box.getMax().getY() + 2.0)) >> 4);
-        final int minYSection = fixEntityYSection(((int) Math.round(box.getMin().getY() - 2.0)) >> 4);
-        final int maxZ = ((int) Math.ceil(box.getMax().getZ() + 2.0)) >> 4;
-        final int minZ = ((int) Math.floor(box.getMin().getZ() - 2.0)) >> 4;
+        forEachIntersectingEntity(box, filter, entities::add);
+        return entities.build();
+    }
+
+    /**
+     * Passes all the {@link LanternEntity}s that intersect with the box and match
+     * the filter to the consumer. Unlike {@link #getIntersectingEntities(AABB, Predicate)}
+     * this doesn't have to build a {@link Set}.
+     *
+     * @param box The box
+     * @param filter The filter
+     * @param consumer The consumer
+     */
+    public void forEachIntersectingEntity(AABB box, Predicate<? super LanternEntity> filter, Consumer<? super LanternEntity> consumer) {
+        checkNotNull(box, "box");
+        checkNotNull(filter, "filter");
+        checkNotNull(consumer, "consumer");
+        final double margin = LanternChunk.getEntityQueryMargin();
+        final int maxX = ((int) Math.ceil(box.getMax().getX() + margin)) >> 4;
+        final int minX = ((int) Math.floor(box.getMin().getX() - margin)) >> 4;
+        final int maxYSection = fixEntityYSection(((int) Math.round(box.getMax().getY() + margin)) >> 4);
+        final int minYSection = fixEntityYSection(((int) Math.round(box.getMin().getY() - margin)) >> 4);
+        final int maxZ = ((int) Math.ceil(box.getMax().getZ() + margin)) >> 4;
+        final int minZ = ((int) Math.floor(box.getMin().getZ() - margin)) >> 4;
         for (int x = minX; x <= maxX; x++) {
             for (int z = minZ; z <= maxZ; z++) {
                 final LanternChunk chunk = getChunkManager().getChunkIfLoaded(x, z);
                 if (chunk != null) {
-                    chunk.addIntersectingEntities(entities, maxYSection, minYSection, box, filter);
+                    chunk.forEachIntersectingEntity(maxYSection, minYSection, box, filter, consumer);
                 }
             }
         }
-        return entities.build();
     }
 
     @Override
@@ -1226,7 +1344,25 @@ private LanternEntity addEntity(LanternEntity entity) {
     private void pulseEntities() {
         // Pulse the entities
         for (LanternEntity entity : new ArrayList<>(this.entitiesByUniqueId.values())) {
-            if (entity.isRemoved()) {
+            final Runnable task = pulseEntity(entity);
+            if (task != null) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Pulses the {@link LanternEntity}. The changes that affect the chunks, like
+     * moving to a different chunk, are returned as a task so that they can be
+     * deferred while ticking regions in parallel.
+     *
+     * @param entity The entity
+     * @return The task that updates the chunks, if needed
+     */
+    @Nullable
+    Runnable pulseEntity(LanternEntity entity) {
+        if (entity.isRemoved()) {
+            return () -> {
                 final Vector3i lastChunk = entity.getLastChunkSectionCoords();
                 if (lastChunk != null && entity.getRemoveState() == LanternEntity.RemoveState.DESTROYED) {
                     final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(lastChunk.getX(), lastChunk.getZ());
@@ -1236,23 +1372,32 @@ private void pulseEntities() {
                 }
                 this.entityProtocolManager.remove(entity);
                 this.entitiesByUniqueId.remove(entity.getUniqueId());
-            } else {
-                final Vector3i lastChunkSection = entity.getLastChunkSectionCoords();
-                entity.pulse();
-                final Vector3i pos = entity.getPosition().toInt();
-                final Vector3i newChunk = new Vector3i(pos.getX() >> 4, fixEntityYSection(pos.getY() >> 4), pos.getZ() >> 4);
-                if (lastChunkSection == null || !lastChunkSection.equals(newChunk)) {
-                    LanternChunk chunk;
-                    if (lastChunkSection != null && (chunk = this.chunkManager.getChunkIfLoaded(
-                            lastChunkSection.getX(), lastChunkSection.getZ())) != null) {
-                        chunk.removeEntity(entity, lastChunkSection.getY());
-                    }
-                    chunk = this.chunkManager.getOrLoadChunk(newChunk.getX(), newChunk.getZ());
-                    chunk.addEntity(entity, newChunk.getY());
-                    entity.setLastChunkCoords(newChunk);
-                }
+            };
+        }
+        final Vector3i lastChunkSection = entity.getLastChunkSectionCoords();
+        entity.pulse();
+        final Vector3d position = entity.getPosition();
+        final Vector3i pos = position.toInt();
+        final Vector3i newChunk = new Vector3i(pos.getX() >> 4, fixEntityYSection(pos.getY() >> 4), pos.getZ() >> 4);
+        if (lastChunkSection != null && lastChunkSection.equals(newChunk)) {
+            // Always update the spatial index, the entity may also be moved outside
+            // of its pulse (player movement), this is cheap if the cell didn't change
+            final LanternChunk chunk = this.chunkManager.getChunkIfLoaded(newChunk.getX(), newChunk.getZ());
+            if (chunk != null) {
+                chunk.updateEntity(entity, newChunk.getY());
             }
+            return null;
         }
+        return () -> {
+            LanternChunk chunk;
+            if (lastChunkSection != null && (chunk = this.chunkManager.getChunkIfLoaded(
+                    lastChunkSection.getX(), lastChunkSection.getZ())) != null) {
+                chunk.removeEntity(entity, lastChunkSection.getY());
+            }
+            chunk = this.chunkManager.getOrLoadChunk(newChunk.getX(), newChunk.getZ());
+            chunk.addEntity(entity, newChunk.getY());
+            entity.setLastChunkCoords(newChunk);
+        };
     }
 
     @Override
@@ -1355,24 +1500,58 @@ public int getSeaLevel() {
     public void pulse() {
         final CauseStack causeStack = CauseStack.current();
         causeStack.pushCause(this);
+        this.timings.tick.startTiming();
 
+        this.timings.chunks.startTiming();
         this.chunkManager.pulse(causeStack);
+        this.timings.chunks.stopTiming();
+        this.timings.weather.startTiming();
         this.timeUniverse.pulse();
         if (this.weatherUniverse != null) {
             this.weatherUniverse.pulse(causeStack);
         }
-
-        // Pulse the entities
-        pulseEntities();
-
-        // Pulse the tile entities
-        getLoadedChunks().forEach(chunk -> ((LanternChunk) chunk).pulse());
+        this.timings.weather.stopTiming();
+        this.timings.scheduledBlockUpdates.startTiming();
+        this.scheduledBlockUpdateWheel.pulse();
+        this.timings.scheduledBlockUpdates.stopTiming();
+
+        if (this.regionTicker != null) {
+            // Pulse the entities and tile entities per region
+            this.timings.regions.startTiming();
+            this.regionTicker.pulse(new ArrayList<>(this.entitiesByUniqueId.values()), this.chunkManager.getLoadedChunks());
+            this.timings.regions.stopTiming();
+        } else {
+            // Pulse the entities
+            this.timings.entities.startTiming();
+            pulseEntities();
+            this.timings.entities.stopTiming();
+
+            // Pulse the tile entities
+            this.timings.tileEntities.startTiming();
+            getLoadedChunks().forEach(chunk -> ((LanternChunk) chunk).pulse());
+            this.timings.tileEntities.stopTiming();
+        }
 
         causeStack.popCause();
 
+        // Start updating the light of the blocks changed during this tick
+        this.lightEngine.pulse();
+
         // TODO: Maybe async?
+        this.timings.observedChunks.startTiming();
         this.observedChunkManager.pulse();
+        this.timings.observedChunks.stopTiming();
+        this.timings.trackers.startTiming();
         this.entityProtocolManager.updateTrackers(this.players);
+        this.timings.trackers.stopTiming();
+
+        // Flush the messages that were batched for the players in this world, the
+        // main thread doesn't wait for the world threads before flushing the sessions
+        for (LanternPlayer player : this.players) {
+            player.getConnection().flush();
+        }
+
+        this.timings.tick.stopTiming();
     }
 
     public void broadcast(Supplier<Message> message) {
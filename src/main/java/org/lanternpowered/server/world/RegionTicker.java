@@ -0,0 +1,219 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.flowpowered.math.vector.Vector3i;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.lanternpowered.server.entity.LanternEntity;
+import org.lanternpowered.server.event.CauseStack;
+import org.lanternpowered.server.event.LanternCauseStack;
+import org.lanternpowered.server.world.chunk.LanternChunk;
+import org.spongepowered.api.world.Chunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ticks the entities and tile entities of a {@link LanternWorld} in parallel. All
+ * the loaded chunks are partitioned into square regions, which are ticked in four
+ * phases so that two regions that are being ticked at the same time are never
+ * adjacent to each other. Interactions that cross region boundaries, like entities
+ * that move to a different chunk, are deferred until all the regions are ticked.
+ */
+final class RegionTicker {
+
+    /**
+     * The amount of phases every tick is split into.
+     */
+    private static final int PHASES = 4;
+
+    private final LanternWorld world;
+    private final int regionSize;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a new {@link RegionTicker}.
+     *
+     * @param world The world
+     * @param regionSize The size of a region, in chunks
+     * @param parallelism The amount of threads, or {@code 0} to use the available processors
+     */
+    RegionTicker(LanternWorld world, int regionSize, int parallelism) {
+        this.world = world;
+        this.regionSize = Math.max(1, regionSize);
+        this.pool = new ForkJoinPool(parallelism <= 0 ? Runtime.getRuntime().availableProcessors() : parallelism,
+                pool -> {
+                    final ForkJoinWorkerThread thread = new RegionWorkerThread(pool);
+                    thread.setName("world-" + world.getName() + "-region-" + thread.getPoolIndex());
+                    return thread;
+                }, null, false);
+    }
+
+    private static final class RegionWorkerThread extends ForkJoinWorkerThread {
+
+        private RegionWorkerThread(ForkJoinPool pool) {
+            super(pool);
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            // Initialize the region cause stack.
+            CauseStack.set(new LanternCauseStack());
+        }
+    }
+
+    private final class Region implements Callable<Void> {
+
+        private final List<LanternEntity> entities = new ArrayList<>();
+        private final List<LanternChunk> chunks = new ArrayList<>();
+        private final Queue<Runnable> deferredTasks;
+        private final int phase;
+
+        private Region(int regionX, int regionZ, Queue<Runnable> deferredTasks) {
+            this.phase = (regionX & 0x1) | ((regionZ & 0x1) << 1);
+            this.deferredTasks = deferredTasks;
+        }
+
+        @Override
+        public Void call() {
+            final CauseStack causeStack = CauseStack.current();
+            causeStack.pushCause(world);
+            try {
+                for (LanternEntity entity : this.entities) {
+                    try {
+                        final Runnable task = world.pulseEntity(entity);
+                        if (task != null) {
+                            this.deferredTasks.add(task);
+                        }
+                    } catch (Throwable t) {
+                        world.logger.error("Failed to pulse Entity {}", entity.getUniqueId(), t);
+                    }
+                }
+                // Pulse the tile entities
+                for (LanternChunk chunk : this.chunks) {
+                    try {
+                        chunk.pulse();
+                    } catch (Throwable t) {
+                        world.logger.error("Failed to pulse Chunk ({};{})", chunk.getX(), chunk.getZ(), t);
+                    }
+                }
+            } finally {
+                causeStack.popCause();
+            }
+            return null;
+        }
+    }
+
+    private static long key(int regionX, int regionZ) {
+        return ((long) regionX << 32) | (regionZ & 0xffffffffL);
+    }
+
+    private Region getRegion(Long2ObjectMap<Region> regions, int chunkX, int chunkZ, Queue<Runnable> deferredTasks) {
+        final int regionX = Math.floorDiv(chunkX, this.regionSize);
+        final int regionZ = Math.floorDiv(chunkZ, this.regionSize);
+        return regions.computeIfAbsent(key(regionX, regionZ), key -> new Region(regionX, regionZ, deferredTasks));
+    }
+
+    /**
+     * Pulses all the given entities and chunks.
+     *
+     * @param entities The entities
+     * @param chunks The loaded chunks
+     */
+    void pulse(Iterable<LanternEntity> entities, Iterable<Chunk> chunks) {
+        final Queue<Runnable> deferredTasks = new ConcurrentLinkedQueue<>();
+        final Long2ObjectMap<Region> regions = new Long2ObjectOpenHashMap<>();
+        for (Chunk chunk : chunks) {
+            final LanternChunk chunk0 = (LanternChunk) chunk;
+            getRegion(regions, chunk0.getX(), chunk0.getZ(), deferredTasks).chunks.add(chunk0);
+        }
+        for (LanternEntity entity : entities) {
+            final Vector3i lastChunkSection = entity.getLastChunkSectionCoords();
+            final int chunkX;
+            final int chunkZ;
+            if (lastChunkSection != null) {
+                chunkX = lastChunkSection.getX();
+                chunkZ = lastChunkSection.getZ();
+            } else {
+                final Vector3d pos = entity.getPosition();
+                chunkX = pos.getFloorX() >> 4;
+                chunkZ = pos.getFloorZ() >> 4;
+            }
+            getRegion(regions, chunkX, chunkZ, deferredTasks).entities.add(entity);
+        }
+
+        final List<List<Region>> phases = new ArrayList<>(PHASES);
+        for (int i = 0; i < PHASES; i++) {
+            phases.add(new ArrayList<>());
+        }
+        for (Region region : regions.values()) {
+            phases.get(region.phase).add(region);
+        }
+        for (List<Region> phase : phases) {
+            if (!phase.isEmpty()) {
+                // Regions within the same phase never touch each other
+                for (Future<Void> future : this.pool.invokeAll(phase)) {
+                    try {
+                        future.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException e) {
+                        this.world.logger.error("Failed to pulse a region of the world {}", this.world.getName(), e.getCause());
+                    }
+                }
+            }
+        }
+
+        // Merge the changes that affect multiple regions
+        Runnable task;
+        while ((task = deferredTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Shuts the region ticker down.
+     */
+    void shutdown() {
+        this.pool.shutdown();
+        try {
+            this.pool.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -76,4 +76,13 @@ public interface WorldEventListener {
      * @param blockAction The block action
      */
     void onBlockAction(int x, int y, int z, BlockType blockType, BlockAction blockAction);
+
+    /**
+     * Is called when the light of the specific chunk is modified. This
+     * may be called from a different thread than the world thread.
+     *
+     * @param chunk The chunk
+     * @param sectionBitMask The bit mask of the modified sections
+     */
+    void onLightChange(LanternChunk chunk, int sectionBitMask);
 }
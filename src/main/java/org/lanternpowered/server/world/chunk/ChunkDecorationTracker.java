@@ -0,0 +1,121 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import com.flowpowered.math.vector.Vector2i;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps track of the chunks that are being modified by running decorations, to
+ * make sure that decorations that modify the same chunk are never executed at the
+ * same time. This class isn't thread safe, the {@link ChunkGenerationPipeline}
+ * guards it with its own lock.
+ */
+final class ChunkDecorationTracker {
+
+    // The chunks that are modified by a running decoration
+    private final Set<Vector2i> decorating = new HashSet<>();
+
+    // The chunks whose decoration is waiting for an overlapping decoration to complete
+    private final Set<Vector2i> deferred = new LinkedHashSet<>();
+
+    /**
+     * Gets the chunks that are modified by the decoration of the chunk
+     * at the given coordinates, the first chunk is the decorated one.
+     *
+     * @param coords The coordinates of the decorated chunk
+     * @return The modified chunks
+     */
+    static Vector2i[] getDecorationArea(Vector2i coords) {
+        return new Vector2i[] { coords, coords.add(1, 0), coords.add(0, 1), coords.add(1, 1) };
+    }
+
+    /**
+     * Gets the chunks whose decoration modifies the chunk at the given
+     * coordinates, the first chunk is the chunk itself.
+     *
+     * @param coords The coordinates of the chunk
+     * @return The decorating chunks
+     */
+    static Vector2i[] getDecoratingChunks(Vector2i coords) {
+        return new Vector2i[] { coords, coords.sub(1, 0), coords.sub(0, 1), coords.sub(1, 1) };
+    }
+
+    /**
+     * Attempts to start the decoration of the chunk at the given coordinates. If
+     * the area overlaps with a running decoration, the decoration will be deferred
+     * until one of the running decorations finishes.
+     *
+     * @param coords The coordinates of the decorated chunk
+     * @return Whether the decoration can be started
+     */
+    boolean tryStart(Vector2i coords) {
+        final Vector2i[] area = getDecorationArea(coords);
+        for (Vector2i area0 : area) {
+            if (this.decorating.contains(area0)) {
+                this.deferred.add(coords);
+                return false;
+            }
+        }
+        for (Vector2i area0 : area) {
+            this.decorating.add(area0);
+        }
+        return true;
+    }
+
+    /**
+     * Finishes the decoration of the chunk at the given coordinates
+     * and returns all the decorations that were deferred, these
+     * should be attempted again.
+     *
+     * @param coords The coordinates of the decorated chunk
+     * @return The deferred decorations
+     */
+    List<Vector2i> finish(Vector2i coords) {
+        for (Vector2i area0 : getDecorationArea(coords)) {
+            this.decorating.remove(area0);
+        }
+        final List<Vector2i> deferred = new ArrayList<>(this.deferred);
+        this.deferred.clear();
+        return deferred;
+    }
+
+    /**
+     * Gets whether the chunk at the given coordinates is
+     * being modified by a running decoration.
+     *
+     * @param coords The coordinates of the chunk
+     * @return Whether the chunk is being decorated
+     */
+    boolean isDecorating(Vector2i coords) {
+        return this.decorating.contains(coords);
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import com.flowpowered.math.vector.Vector2i;
+import org.lanternpowered.server.event.CauseStack;
+import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.world.LanternWorld;
+
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Advances the {@link ChunkStatus} of the loaded chunks once their
+ * neighborhood reached the required stage.
+ * <p>
+ * The stages up to {@link ChunkStatus#GENERATION_POPULATORS} only depend on the
+ * chunk itself and are completed while the chunk is being loaded. A chunk can be
+ * decorated once the chunks in its positive directions reached that stage, the
+ * populators will modify all four of them. Decorations that would modify the same
+ * chunk are never executed at the same time, so the chunk workers don't need
+ * any additional locking. A chunk is lit and ready once all the chunks that
+ * decorate it are decorated.
+ */
+final class ChunkGenerationPipeline {
+
+    private final LanternWorld world;
+    private final LanternChunkManager chunkManager;
+
+    // The ticket that keeps the chunks loaded that are being decorated
+    private final ChunkLoadingTicket decorationTicket = new InternalLoadingTicket();
+
+    private final Object lock = new Object();
+
+    // The chunks that are being modified by running decorations
+    private final ChunkDecorationTracker decorations = new ChunkDecorationTracker();
+
+    ChunkGenerationPipeline(LanternWorld world, LanternChunkManager chunkManager) {
+        this.chunkManager = chunkManager;
+        this.world = world;
+    }
+
+    /**
+     * Is called when the chunk finished loading, or when it's
+     * reused after being unloaded.
+     *
+     * @param chunk The chunk
+     */
+    void onChunkLoaded(LanternChunk chunk) {
+        if (!chunk.status.isAtLeast(ChunkStatus.GENERATION_POPULATORS)) {
+            return;
+        }
+        final Vector2i coords = chunk.getCoords();
+        // This chunk may complete the neighborhood of one of the chunks
+        // that decorate it, or of itself, chunks that were already decorated
+        // (loaded from the disk) can also complete a neighborhood
+        for (Vector2i decorating : ChunkDecorationTracker.getDecoratingChunks(coords)) {
+            tryDecorate(decorating);
+        }
+        // The chunks that are modified by this one may be ready now
+        for (Vector2i area : ChunkDecorationTracker.getDecorationArea(coords)) {
+            tryLight(area);
+        }
+    }
+
+    @Nullable
+    private LanternChunk getChunkAtLeast(Vector2i coords, ChunkStatus status) {
+        final LanternChunk chunk = this.chunkManager.isChunkLoaded(coords);
+        return chunk != null && chunk.status.isAtLeast(status) ? chunk : null;
+    }
+
+    private void tryDecorate(Vector2i coords) {
+        final Vector2i[] area = ChunkDecorationTracker.getDecorationArea(coords);
+        final LanternChunk chunk;
+        synchronized (this.lock) {
+            chunk = this.chunkManager.isChunkLoaded(coords);
+            if (chunk == null || chunk.status != ChunkStatus.GENERATION_POPULATORS || chunk.populated) {
+                return;
+            }
+            for (int i = 1; i < area.length; i++) {
+                if (getChunkAtLeast(area[i], ChunkStatus.GENERATION_POPULATORS) == null) {
+                    return;
+                }
+            }
+            if (!this.decorations.tryStart(coords)) {
+                // Try again once the overlapping decoration is done
+                return;
+            }
+            for (Vector2i area0 : area) {
+                this.chunkManager.lockInternally(area0, this.decorationTicket);
+            }
+        }
+        this.chunkManager.queueTask(coords, () -> decorate(chunk, area));
+    }
+
+    private void decorate(LanternChunk chunk, Vector2i[] area) {
+        boolean success = false;
+        try {
+            // Make sure that all the chunks are still loaded
+            boolean loaded = true;
+            for (Vector2i area0 : area) {
+                if (this.chunkManager.isChunkLoaded(area0) == null) {
+                    loaded = false;
+                    break;
+                }
+            }
+            if (loaded) {
+                this.chunkManager.populateChunk(chunk, CauseStack.currentOrEmpty());
+                for (Vector2i area0 : area) {
+                    final LanternChunk chunk0 = this.chunkManager.isChunkLoaded(area0);
+                    if (chunk0 != null) {
+                        chunk0.decorated = true;
+                    }
+                }
+                chunk.status = ChunkStatus.DECORATION;
+                success = true;
+            }
+        } catch (Throwable t) {
+            Lantern.getLogger().error("Error while populating chunk ({};{})", chunk.getX(), chunk.getZ(), t);
+        }
+        final List<Vector2i> deferred;
+        synchronized (this.lock) {
+            for (Vector2i area0 : area) {
+                this.chunkManager.unlockInternally(area0, this.decorationTicket);
+            }
+            deferred = this.decorations.finish(chunk.getCoords());
+        }
+        deferred.forEach(this::tryDecorate);
+        if (success) {
+            for (Vector2i area0 : area) {
+                tryLight(area0);
+            }
+        }
+    }
+
+    private void tryLight(Vector2i coords) {
+        final LanternChunk chunk;
+        synchronized (this.lock) {
+            chunk = this.chunkManager.isChunkLoaded(coords);
+            if (chunk == null || chunk.status != ChunkStatus.DECORATION) {
+                return;
+            }
+            // All the chunks that modify this chunk must be decorated
+            final Vector2i[] decorating = ChunkDecorationTracker.getDecoratingChunks(coords);
+            for (int i = 1; i < decorating.length; i++) {
+                if (getChunkAtLeast(decorating[i], ChunkStatus.DECORATION) == null) {
+                    return;
+                }
+            }
+            chunk.status = ChunkStatus.LIGHT;
+        }
+        // Wait for the light updates caused by the decorations
+        this.world.getLightEngine().whenProcessed(() -> {
+            chunk.status = ChunkStatus.READY;
+            if (chunk.decorated) {
+                // Resend the chunk to the players that are already observing it
+                this.world.getEventListener().onPopulateChunk(chunk);
+            }
+        });
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+/**
+ * The generation stages of a {@link LanternChunk}, the status
+ * of a chunk is the last stage that was completed.
+ */
+public enum ChunkStatus {
+    /**
+     * Nothing is generated yet.
+     */
+    EMPTY,
+    /**
+     * The biomes are generated.
+     */
+    BIOMES,
+    /**
+     * The base terrain is generated.
+     */
+    BASE_TERRAIN,
+    /**
+     * The generation populators are applied, the chunk
+     * contains all the blocks of the generator itself.
+     */
+    GENERATION_POPULATORS,
+    /**
+     * The chunk is decorated by its populators, these also
+     * modify the neighbor chunks in the positive directions.
+     */
+    DECORATION,
+    /**
+     * All the chunks that decorate this chunk are decorated,
+     * waiting for the light to be updated.
+     */
+    LIGHT,
+    /**
+     * The chunk is fully generated.
+     */
+    READY;
+
+    /**
+     * Gets whether this status is the same or a later
+     * stage than the given status.
+     *
+     * @param status The status
+     * @return Is at least the status
+     */
+    public boolean isAtLeast(ChunkStatus status) {
+        return ordinal() >= status.ordinal();
+    }
+}
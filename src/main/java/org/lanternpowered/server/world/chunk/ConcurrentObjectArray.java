@@ -95,7 +95,15 @@ public void work(int index, Consumer<O> consumer, boolean write, boolean forceRe
             if (!forceReadLock) {
                 stamp = lock.tryOptimisticRead();
                 if (stamp != 0L) {
-                    consumer.accept(this.objects[index]);
+                    try {
+                        consumer.accept(this.objects[index]);
+                    } catch (RuntimeException e) {
+                        // The object may be observed in an inconsistent state
+                        // while it's being modified, retry with the read lock
+                        if (lock.validate(stamp)) {
+                            throw e;
+                        }
+                    }
                 }
                 if (lock.validate(stamp)) {
                     return;
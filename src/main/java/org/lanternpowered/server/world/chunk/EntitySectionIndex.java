@@ -0,0 +1,266 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import com.flowpowered.math.vector.Vector3d;
+import com.google.common.collect.Sets;
+import org.lanternpowered.server.entity.LanternEntity;
+import org.spongepowered.api.util.AABB;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A spatial index of all the {@link LanternEntity}s within a chunk section. The
+ * section is divided in cells of 4x4x4 blocks, every entity is stored in the cell
+ * that contains its position. Box queries only have to visit the cells that are
+ * within the margin of the box, instead of all the entities. The margin is the
+ * largest distance that the bounding box of an entity in the section extends
+ * from its position, with a minimum of {@link #MARGIN} blocks.
+ */
+final class EntitySectionIndex {
+
+    /**
+     * The minimum distance that is searched around
+     * the cells that intersect with a query box.
+     */
+    static final double MARGIN = 2.0;
+
+    // The largest margin of all the sections, this only grows and is used to
+    // determine which sections and chunks should be visited by a query
+    private static volatile double maxMargin = MARGIN;
+
+    /**
+     * Gets the distance that should be added around a query box to find all the
+     * sections that may contain intersecting {@link LanternEntity}s.
+     *
+     * @return The margin
+     */
+    static double getMaxMargin() {
+        return maxMargin;
+    }
+
+    private static final int CELL_SHIFT = 2;
+    private static final int CELLS_PER_AXIS = 16 >> CELL_SHIFT;
+
+    private final int baseX;
+    private final int baseY;
+    private final int baseZ;
+
+    // All the entities mapped to the cell they are stored in
+    private final Map<LanternEntity, Set<LanternEntity>> entities = new ConcurrentHashMap<>();
+    // The cells, these are created lazily
+    @SuppressWarnings("unchecked")
+    private final Set<LanternEntity>[] cells = new Set[CELLS_PER_AXIS * CELLS_PER_AXIS * CELLS_PER_AXIS];
+    // The largest distance that a bounding box extends from the entity position
+    private volatile double margin = MARGIN;
+
+    EntitySectionIndex(int baseX, int baseY, int baseZ) {
+        this.baseX = baseX;
+        this.baseY = baseY;
+        this.baseZ = baseZ;
+    }
+
+    /**
+     * Gets all the {@link LanternEntity}s in this section.
+     *
+     * @return The entities
+     */
+    Collection<LanternEntity> getEntities() {
+        return this.entities.keySet();
+    }
+
+    boolean isEmpty() {
+        return this.entities.isEmpty();
+    }
+
+    /**
+     * Adds the {@link LanternEntity} to this index.
+     *
+     * @param entity The entity
+     */
+    void add(LanternEntity entity) {
+        final Vector3d position = entity.getPosition();
+        updateMargin(entity, position);
+        final Set<LanternEntity> cell = getCell(position);
+        cell.add(entity);
+        final Set<LanternEntity> oldCell = this.entities.put(entity, cell);
+        if (oldCell != null && oldCell != cell) {
+            oldCell.remove(entity);
+        }
+    }
+
+    /**
+     * Removes the {@link LanternEntity} from this index.
+     *
+     * @param entity The entity
+     */
+    void remove(LanternEntity entity) {
+        final Set<LanternEntity> cell = this.entities.remove(entity);
+        if (cell != null) {
+            cell.remove(entity);
+        }
+        if (this.entities.isEmpty()) {
+            // Shrink the margin again, large entities that are added
+            // concurrently will grow it again within the next update
+            this.margin = MARGIN;
+        }
+    }
+
+    /**
+     * Moves the {@link LanternEntity} to the cell of its current
+     * position, if it's still stored in a different one. This is
+     * cheap if the entity didn't move to a different cell.
+     *
+     * @param entity The entity
+     */
+    void update(LanternEntity entity) {
+        final Set<LanternEntity> oldCell = this.entities.get(entity);
+        if (oldCell == null) {
+            return;
+        }
+        final Vector3d position = entity.getPosition();
+        updateMargin(entity, position);
+        final Set<LanternEntity> cell = getCell(position);
+        if (cell != oldCell && this.entities.replace(entity, oldCell, cell)) {
+            cell.add(entity);
+            oldCell.remove(entity);
+        }
+    }
+
+    /**
+     * Passes all the {@link LanternEntity}s that intersect with the given box and
+     * match the filter to the consumer. Entities without a bounding box match
+     * if their position is within the box.
+     *
+     * @param box The box
+     * @param filter The filter
+     * @param consumer The consumer
+     */
+    void forEachIntersecting(AABB box, Predicate<? super LanternEntity> filter, Consumer<? super LanternEntity> consumer) {
+        if (this.entities.isEmpty()) {
+            return;
+        }
+        final Vector3d min = box.getMin();
+        final Vector3d max = box.getMax();
+        final double margin = this.margin;
+        final int minX = toCell(min.getX() - margin, this.baseX);
+        final int minY = toCell(min.getY() - margin, this.baseY);
+        final int minZ = toCell(min.getZ() - margin, this.baseZ);
+        final int maxX = toCell(max.getX() + margin, this.baseX);
+        final int maxY = toCell(max.getY() + margin, this.baseY);
+        final int maxZ = toCell(max.getZ() + margin, this.baseZ);
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    final Set<LanternEntity> cell = this.cells[index(x, y, z)];
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (LanternEntity entity : cell) {
+                        final AABB aabb = entity.getBoundingBoxOrNull();
+                        if ((aabb != null ? aabb.intersects(box) : box.contains(entity.getPosition())) && filter.test(entity)) {
+                            consumer.accept(entity);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Grows the margin if the bounding box of the {@link LanternEntity}
+     * extends further from its position than the current margin.
+     *
+     * @param entity The entity
+     * @param position The position of the entity
+     */
+    private void updateMargin(LanternEntity entity, Vector3d position) {
+        final AABB aabb = entity.getBoundingBoxOrNull();
+        if (aabb == null) {
+            return;
+        }
+        final Vector3d min = aabb.getMin();
+        final Vector3d max = aabb.getMax();
+        final double extent = Math.max(
+                Math.max(Math.max(position.getX() - min.getX(), max.getX() - position.getX()),
+                        Math.max(position.getY() - min.getY(), max.getY() - position.getY())),
+                Math.max(position.getZ() - min.getZ(), max.getZ() - position.getZ()));
+        if (extent <= this.margin) {
+            return;
+        }
+        synchronized (this) {
+            if (extent > this.margin) {
+                this.margin = extent;
+            }
+        }
+        if (extent > maxMargin) {
+            synchronized (EntitySectionIndex.class) {
+                if (extent > maxMargin) {
+                    maxMargin = extent;
+                }
+            }
+        }
+    }
+
+    private Set<LanternEntity> getCell(Vector3d position) {
+        final int index = index(
+                toCell(position.getX(), this.baseX),
+                toCell(position.getY(), this.baseY),
+                toCell(position.getZ(), this.baseZ));
+        Set<LanternEntity> cell = this.cells[index];
+        if (cell == null) {
+            synchronized (this.cells) {
+                cell = this.cells[index];
+                if (cell == null) {
+                    this.cells[index] = cell = Sets.newConcurrentHashSet();
+                }
+            }
+        }
+        return cell;
+    }
+
+    /**
+     * Converts the world coordinate into a cell coordinate, coordinates
+     * outside the section are clamped to the cells at the edges.
+     *
+     * @param value The world coordinate
+     * @param base The world coordinate of the section origin
+     * @return The cell coordinate
+     */
+    private static int toCell(double value, int base) {
+        final int local = (int) Math.floor(value) - base;
+        return (local < 0 ? 0 : local > 15 ? 15 : local) >> CELL_SHIFT;
+    }
+
+    private static int index(int x, int y, int z) {
+        return (y * CELLS_PER_AXIS + z) * CELLS_PER_AXIS + x;
+    }
+}
@@ -37,23 +37,22 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
 import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectOpenHashMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortMap;
-import it.unimi.dsi.fastutil.shorts.Short2ShortOpenHashMap;
 import org.lanternpowered.server.block.provider.CachedSimpleObjectProvider;
 import org.lanternpowered.server.block.provider.ConstantObjectProvider;
 import org.lanternpowered.server.block.LanternBlockSnapshot;
 import org.lanternpowered.server.block.LanternBlockType;
 import org.lanternpowered.server.block.LanternScheduledBlockUpdate;
+import org.lanternpowered.server.block.ScheduledBlockUpdateWheel;
 import org.lanternpowered.server.block.provider.ObjectProvider;
 import org.lanternpowered.server.block.provider.SimpleObjectProvider;
 import org.lanternpowered.server.block.TileEntityProvider;
 import org.lanternpowered.server.block.action.BlockAction;
 import org.lanternpowered.server.block.tile.ITileEntityRefreshBehavior;
 import org.lanternpowered.server.block.tile.LanternTileEntity;
+import org.lanternpowered.server.block.tile.LanternTileEntityType;
 import org.lanternpowered.server.data.property.AbstractDirectionRelativePropertyHolder;
 import org.lanternpowered.server.data.property.AbstractPropertyHolder;
 import org.lanternpowered.server.entity.LanternEntity;
@@ -62,7 +61,9 @@
 import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
 import org.lanternpowered.server.game.registry.type.world.biome.BiomeRegistryModule;
+import org.lanternpowered.server.timings.LanternTiming;
 import org.lanternpowered.server.util.collect.array.NibbleArray;
+import org.lanternpowered.server.util.collect.array.PalettedValueArray;
 import org.lanternpowered.server.util.VecHelper;
 import org.lanternpowered.server.world.LanternWorld;
 import org.lanternpowered.server.world.TrackerIdAllocator;
@@ -92,6 +93,7 @@
 import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.EntitySnapshot;
 import org.spongepowered.api.entity.EntityType;
+import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.item.inventory.ItemStack;
 import org.spongepowered.api.profile.GameProfile;
 import org.spongepowered.api.util.AABB;
@@ -112,12 +114,10 @@
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.StampedLock;
@@ -133,6 +133,14 @@ public static long key(int cx, int cz) {
         return ((long) cx & 0x3ffffff) << 38 | ((long) cz & 0x3ffffff);
     }
 
+    public static int getKeyX(long key) {
+        return (int) (key >> 38);
+    }
+
+    public static int getKeyZ(long key) {
+        return (int) (key << 38 >> 38);
+    }
+
     // The size of a chunk section in the x, y and z directions
     public static final int CHUNK_SECTION_SIZE = 16;
     // The volume of a chunk and a chunk section (xz plane)
@@ -174,15 +182,15 @@ public int getCreatorId() {
     public static class ChunkSection {
 
         /**
-         * The block types array.
+         * The amount of bits that are used per block
+         * type when the global palette is used.
          */
-        final short[] types;
+        private static final int GLOBAL_PALETTE_BITS_PER_VALUE = 16;
 
         /**
-         * The amount of blocks per block type/state in
-         * this chunk section.
+         * The block types array.
          */
-        final Short2ShortMap typesCountMap = new Short2ShortOpenHashMap();
+        final PalettedValueArray types;
 
         /**
          * The light level arrays.
@@ -192,36 +200,17 @@ public static class ChunkSection {
 
         final Short2ObjectMap<LanternTileEntity> tileEntities;
 
-        /**
-         * The amount of non air blocks in this chunk section.
-         */
-        int nonAirCount;
-
         ChunkSection() {
-            this(null, null);
+            this(null);
         }
 
-        ChunkSection(short[] types) {
-            this(checkNotNull(types, "types"), null);
-        }
-
-        ChunkSection(short[] types, int nonAirCount) {
-            this(checkNotNull(types, "types"), (Integer) nonAirCount);
-        }
-
-        private ChunkSection(@Nullable short[] types, @Nullable Integer nonAirCount) {
+        ChunkSection(@Nullable short[] types) {
             if (types != null) {
                 checkArgument(types.length == CHUNK_SECTION_VOLUME, "Type array length mismatch: Got "
                         + types.length + ", but expected " + CHUNK_SECTION_VOLUME);
-                this.types = new short[CHUNK_SECTION_VOLUME];
-                System.arraycopy(types, 0, this.types, 0, CHUNK_SECTION_VOLUME);
-                if (nonAirCount == null) {
-                    this.recountTypes();
-                } else {
-                    this.nonAirCount = nonAirCount;
-                }
+                this.types = new PalettedValueArray(types, GLOBAL_PALETTE_BITS_PER_VALUE);
             } else {
-                this.types = new short[CHUNK_SECTION_VOLUME];
+                this.types = new PalettedValueArray(CHUNK_SECTION_VOLUME, GLOBAL_PALETTE_BITS_PER_VALUE);
             }
             this.tileEntities = new Short2ObjectOpenHashMap<>();
             this.lightFromBlock = new NibbleArray(CHUNK_SECTION_VOLUME);
@@ -239,10 +228,7 @@ public ChunkSection(short[] types, NibbleArray lightFromSky, NibbleArray lightFr
             this.lightFromBlock = lightFromBlock;
             this.lightFromSky = lightFromSky;
             this.tileEntities = tileEntities;
-            this.types = types;
-
-            // Count the non air blocks.
-            recountTypes();
+            this.types = new PalettedValueArray(types, GLOBAL_PALETTE_BITS_PER_VALUE);
         }
 
         /**
@@ -258,26 +244,16 @@ public static int index(int x, int y, int z) {
         }
 
         /**
-         * Recounts the amount of non air blocks.
+         * Gets the amount of non air blocks in this chunk section.
+         *
+         * @return The non air block count
          */
-        private void recountTypes() {
-            this.nonAirCount = 0;
-            this.typesCountMap.clear();
-            for (short type : this.types) {
-                if (type != 0) {
-                    this.nonAirCount++;
-                    this.typesCountMap.put(type, (short) (this.typesCountMap.get(type) + 1));
-                }
-            }
+        int getNonAirCount() {
+            return CHUNK_SECTION_VOLUME - this.types.getCount(0);
         }
 
         private ChunkSectionSnapshot asSnapshot(boolean skylight) {
-            final Short2ShortMap typeCounts = new Short2ShortOpenHashMap(this.typesCountMap);
-            final int count = this.types.length - this.nonAirCount;
-            if (count > 0) {
-                typeCounts.put((short) 0, (short) count);
-            }
-            return new ChunkSectionSnapshot(this.types.clone(), typeCounts, new Short2ObjectOpenHashMap<>(this.tileEntities),
+            return new ChunkSectionSnapshot(this.types.copy(), new Short2ObjectOpenHashMap<>(this.tileEntities),
                     this.lightFromBlock.getPackedArray(), skylight ? this.lightFromSky.getPackedArray() : null);
         }
     }
@@ -285,9 +261,7 @@ private ChunkSectionSnapshot asSnapshot(boolean skylight) {
     public static class ChunkSectionSnapshot {
 
         // The block types array.
-        public final short[] types;
-        // The types count map.
-        public final Short2ShortMap typesCountMap;
+        public final PalettedValueArray types;
         // The tile entities
         public final Short2ObjectMap<LanternTileEntity> tileEntities;
 
@@ -295,19 +269,18 @@ public static class ChunkSectionSnapshot {
         @Nullable public final byte[] lightFromSky;
         public final byte[] lightFromBlock;
 
-        private ChunkSectionSnapshot(short[] types, Short2ShortMap typesCountMap, Short2ObjectMap<LanternTileEntity> tileEntities,
+        private ChunkSectionSnapshot(PalettedValueArray types, Short2ObjectMap<LanternTileEntity> tileEntities,
                 byte[] lightFromBlock, @Nullable byte[] lightFromSky) {
             this.tileEntities = tileEntities;
             this.lightFromBlock = lightFromBlock;
-            this.typesCountMap = typesCountMap;
             this.lightFromSky = lightFromSky;
             this.types = types;
         }
     }
 
-    private final PriorityBlockingQueue<LanternScheduledBlockUpdate> scheduledBlockUpdateQueue =
-            new PriorityBlockingQueue<>();
-    private final AtomicInteger scheduledBlockUpdateCounter = new AtomicInteger();
+    // The scheduled block updates within this chunk, the
+    // updates are processed by the wheel of the world
+    private final Set<LanternScheduledBlockUpdate> scheduledBlockUpdates = ConcurrentHashMap.newKeySet();
 
     private final ConcurrentObjectArray<Short2ObjectMap<TrackerData>> trackerData;
 
@@ -375,26 +348,25 @@ private ChunkSectionSnapshot(short[] types, Short2ShortMap typesCountMap, Short2
     // Whether this is populated by the world generator
     volatile boolean populated;
 
-    // Whether this chunk is currently being populated
-    volatile boolean populating;
+    // The generation status of this chunk
+    volatile ChunkStatus status = ChunkStatus.EMPTY;
+
+    // Whether this chunk was modified by a decoration since it was loaded
+    volatile boolean decorated;
 
     // The state of the lock
     volatile LockState lockState = LockState.NONE;
 
     private boolean dirtyBlockActions;
 
+    // Whether this chunk was modified since the last time it was saved
+    private volatile boolean dirty;
+
     // Whether the light in this chunk is populated
     private boolean lightPopulated;
 
-    // The set which contains all the entities in this chunk
-    @SuppressWarnings("unchecked")
-    private final Set<LanternEntity>[] entities = new Set[CHUNK_SECTIONS];
-
-    {
-        for (int i = 0; i < this.entities.length; i++) {
-            this.entities[i] = Sets.newConcurrentHashSet();
-        }
-    }
+    // The spatial indexes which contain all the entities in this chunk, per section
+    private final EntitySectionIndex[] entities = new EntitySectionIndex[CHUNK_SECTIONS];
 
     /**
      * The states that the chunk lock can have.
@@ -437,6 +409,10 @@ public LanternChunk(LanternWorld world, int x, int z) {
         this.biomeMin = new Vector3i(this.min.getX(), 1, this.min.getZ());
         this.biomeMax = new Vector3i(this.max.getX(), 1, this.max.getZ());
 
+        for (int i = 0; i < this.entities.length; i++) {
+            this.entities[i] = new EntitySectionIndex(this.min.getX(), i << 4, this.min.getZ());
+        }
+
         //noinspection unchecked
         final Short2ObjectMap<TrackerData>[] trackerDataSections = new Short2ObjectMap[CHUNK_SECTIONS];
         for (int i = 0; i < trackerDataSections.length; i++) {
@@ -514,24 +490,39 @@ public void initializeLight() {
         if (this.lightPopulated) { // Fast fail
             return;
         }
-        for (int y = 0; y < CHUNK_SECTIONS; y++) {
-            ChunkSection section = this.chunkSections.getRawObjects()[y];
-            if (section != null) {
-                // Just fill the light array for now
-                this.chunkSections.getRawObjects()[y].lightFromSky.fill((byte) 15);
-            }
-        }
+        this.world.getLightEngine().initializeLight(this);
         this.lightPopulated = true;
     }
 
+    /**
+     * Gets the raw {@link ChunkSection}s of this chunk, missing
+     * sections are {@code null}. The sections are accessed
+     * without any locking.
+     *
+     * @return The chunk sections
+     */
+    ChunkSection[] getRawSections() {
+        return this.chunkSections.getRawObjects();
+    }
+
     public void setLightPopulated(boolean lightPopulated) {
         this.lightPopulated = lightPopulated;
+        this.dirty = true;
     }
 
     public boolean isLightPopulated() {
         return this.lightPopulated;
     }
 
+    /**
+     * Gets the generation {@link ChunkStatus} of this chunk.
+     *
+     * @return The chunk status
+     */
+    public ChunkStatus getStatus() {
+        return this.status;
+    }
+
     public ChunkSectionSnapshot[] getSectionSnapshots(boolean skylight) {
         return this.getSectionSnapshots(skylight, ALL_SECTIONS_BIT_MASK);
     }
@@ -615,7 +606,7 @@ public int getHighestYAt(int x, int z) {
                         // Loop down in the section until we may find a
                         // non empty block
                         while (--y >= 0) {
-                            if (section.types[(y << 8) | index] != 0) {
+                            if (section.types.get((y << 8) | index) != 0) {
                                 values0[0] = j << 4 | y;
                                 values1[0] = true;
                                 break;
@@ -689,7 +680,7 @@ private void automaticHeightMap() {
                         // Loop down in the section until we may find a
                         // non empty block
                         while (--y >= 0) {
-                            if (section.types[(y << 8) | index] != 0) {
+                            if (section.types.get((y << 8) | index) != 0) {
                                 finished[index] = true;
                                 heightMap[index] = (byte) y;
                                 if (++values0[0] >= CHUNK_AREA) {
@@ -723,6 +714,51 @@ private void automaticHeightMap() {
 
     public void setPopulated(boolean populated) {
         this.populated = populated;
+        this.dirty = true;
+    }
+
+    /**
+     * Marks this chunk as modified, the chunk will be
+     * written the next time that it is saved.
+     */
+    public void markDirty() {
+        this.dirty = true;
+    }
+
+    /**
+     * Gets whether this chunk needs to be saved. Entities, tile entities
+     * and scheduled block updates don't notify the chunk when they are
+     * modified, so chunks that contain them will always be saved.
+     *
+     * @return Whether the chunk needs to be saved
+     */
+    public boolean needsSaving() {
+        if (this.dirty || !this.scheduledBlockUpdates.isEmpty()) {
+            return true;
+        }
+        for (EntitySectionIndex entities : this.entities) {
+            for (LanternEntity entity : entities.getEntities()) {
+                if (!(entity instanceof Player)) {
+                    return true;
+                }
+            }
+        }
+        if (this.chunkSections != null) {
+            for (ChunkSection section : this.chunkSections.getRawObjects()) {
+                if (section != null && !section.tileEntities.isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clears the dirty state of this chunk, this should
+     * be called before a snapshot for saving is created.
+     */
+    void clearDirty() {
+        this.dirty = false;
     }
 
     /**
@@ -786,6 +822,7 @@ public void setBiomes(short[] biomes) {
         } finally {
             this.biomesLock.unlockWrite(stamp);
         }
+        this.dirty = true;
     }
 
     /**
@@ -833,6 +870,7 @@ public void setBiomeId(int x, int y, int z, short biome) {
         } finally {
             this.biomesLock.unlockWrite(stamp);
         }
+        this.dirty = true;
     }
 
     public short getType(Vector3i coordinates) {
@@ -854,7 +892,7 @@ public short getType(int x, int y, int z) {
         }
         return this.chunkSections.work(y >> 4, section -> {
             if (section != null) {
-                return section.types[ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)];
+                return (short) section.types.get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf));
             }
             return (short) 0;
         }, false);
@@ -896,34 +934,20 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
                 }
                 // Create a new section
                 section = new ChunkSection();
+                // Missing sections are fully lit by the sky
+                if (this.world.getDimension().hasSky()) {
+                    section.lightFromSky.fill((byte) 15);
+                }
             }
             final int index = ChunkSection.index(rx, y & 0xf, rz);
-            final short oldType = section.types[index];
+            final short oldType = (short) section.types.get(index);
             if (oldType == type1) {
                 return section;
             }
-            if (oldType != 0) {
-                short count = section.typesCountMap.get(oldType);
-                if (count > 0) {
-                    if (--count <= 0) {
-                        section.typesCountMap.remove(oldType);
-                    } else {
-                        section.typesCountMap.put(oldType, count);
-                    }
-                }
-            }
-            if (type1 != 0) {
-                section.typesCountMap.put(type1, (short) (section.typesCountMap.get(type1) + 1));
-                if (oldType == 0) {
-                    section.nonAirCount++;
-                }
-            } else {
-                section.nonAirCount--;
-            }
             final BlockState oldState = BlockRegistryModule.get().getStateByInternalIdAndData(oldType).get();
             changeData[0] = oldState;
             // The section is empty, destroy it
-            if (section.nonAirCount <= 0) {
+            if (type1 == 0 && section.getNonAirCount() <= 1) {
                 return null;
             }
             final LanternTileEntity tileEntity = section.tileEntities.get((short) index);
@@ -962,7 +986,7 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
             } else if (remove) {
                 section.tileEntities.remove((short) index);
             }
-            section.types[index] = type1;
+            section.types.set(index, type1 & 0xffff);
             return section;
         });
 
@@ -981,6 +1005,11 @@ public boolean setBlock(int x, int y, int z, BlockState block, BlockChangeFlag f
         }
 
         if (changeData[0] != null) {
+            this.dirty = true;
+            final short oldType = BlockRegistryModule.get().getStateInternalIdAndData(changeData[0]);
+            if (LightEngine.affectsLight(oldType, type1)) {
+                this.world.getLightEngine().queueUpdate(x, y, z);
+            }
             this.world.getEventListener().onBlockChange(x, y, z, changeData[0], block);
         }
 
@@ -1031,6 +1060,28 @@ public byte getSkyLight(int x, int y, int z) {
                 section.lightFromSky.get(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf)), false);
     }
 
+    /**
+     * Sets the sky or block light at the coordinates, the section
+     * will be locked while the light is being modified.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @param z the z coordinate
+     * @param level the light level
+     * @param sky whether the sky light should be set
+     * @return whether the light could be stored, missing sections can't store light
+     */
+    boolean setLight(int x, int y, int z, int level, boolean sky) {
+        return this.chunkSections.work(y >> 4, section -> {
+            if (section == null) {
+                return false;
+            }
+            final NibbleArray array = sky ? section.lightFromSky : section.lightFromBlock;
+            array.set(ChunkSection.index(x & 0xf, y & 0xf, z & 0xf), (byte) level);
+            return true;
+        }, true);
+    }
+
     @Override
     public Location<Chunk> getLocation(Vector3i position) {
         return getLocation(position.getX(), position.getY(), position.getZ());
@@ -1082,8 +1133,14 @@ public Set<EntityHit> getIntersectingEntities(Vector3d start, Vector3d direction
         return null;
     }
 
-    public PriorityBlockingQueue<LanternScheduledBlockUpdate> getScheduledBlockUpdateQueue() {
-        return this.scheduledBlockUpdateQueue;
+    /**
+     * Gets all the {@link LanternScheduledBlockUpdate}s that
+     * are pending or suspended within this chunk.
+     *
+     * @return The scheduled block updates
+     */
+    public Set<LanternScheduledBlockUpdate> getScheduledBlockUpdates() {
+        return this.scheduledBlockUpdates;
     }
 
     @Override
@@ -1093,7 +1150,7 @@ public Collection<ScheduledBlockUpdate> getScheduledUpdates(int x, int y, int z)
             return Collections.emptyList();
         }
         final Vector3i position = new Vector3i(x, y, z);
-        return this.scheduledBlockUpdateQueue.stream()
+        return this.scheduledBlockUpdates.stream()
                 .filter(update -> update.getLocation().getBlockPosition().equals(position))
                 .collect(ImmutableSet.toImmutableSet());
     }
@@ -1101,38 +1158,62 @@ public Collection<ScheduledBlockUpdate> getScheduledUpdates(int x, int y, int z)
     @Override
     public ScheduledBlockUpdate addScheduledUpdate(int x, int y, int z, int priority, int ticks) {
         checkVolumeBounds(x, y, z);
-        final int entryId = this.scheduledBlockUpdateCounter.getAndIncrement();
         final Location<World> location = new Location<>(this.world, new Vector3i(x, y, z));
-        final LanternScheduledBlockUpdate update = new LanternScheduledBlockUpdate(entryId, location, ticks, priority);
-        this.scheduledBlockUpdateQueue.add(update);
+        final ScheduledBlockUpdateWheel wheel = this.world.getScheduledBlockUpdateWheel();
+        final LanternScheduledBlockUpdate update;
+        if (this.loaded) {
+            update = wheel.schedule(location, priority, ticks);
+        } else {
+            // The update will be resumed once the chunk is loaded
+            update = wheel.createSuspended(location, priority, ticks);
+        }
+        this.scheduledBlockUpdates.add(update);
+        this.dirty = true;
         return update;
     }
 
     @Override
     public void removeScheduledUpdate(int x, int y, int z, ScheduledBlockUpdate update) {
         checkVolumeBounds(x, y, z);
-        this.scheduledBlockUpdateQueue.remove(update);
+        final LanternScheduledBlockUpdate update0 = (LanternScheduledBlockUpdate) update;
+        if (this.scheduledBlockUpdates.remove(update0)) {
+            this.world.getScheduledBlockUpdateWheel().cancel(update0);
+            this.dirty = true;
+        }
     }
 
-    public void pulse() {
-        // The update entry
-        LanternScheduledBlockUpdate update;
-        while ((update = this.scheduledBlockUpdateQueue.peek()) != null && update.getTicks() <= 0) {
-            // Remove the entry from the queue
-            this.scheduledBlockUpdateQueue.poll();
-            // TODO: Update
-        }
+    /**
+     * Suspends all the scheduled block updates of this chunk,
+     * this should be called when the chunk is unloaded.
+     */
+    void suspendScheduledUpdates() {
+        final ScheduledBlockUpdateWheel wheel = this.world.getScheduledBlockUpdateWheel();
+        this.scheduledBlockUpdates.forEach(wheel::suspend);
+    }
 
+    /**
+     * Resumes all the scheduled block updates of this chunk,
+     * this should be called when the chunk is loaded.
+     */
+    void resumeScheduledUpdates() {
+        final ScheduledBlockUpdateWheel wheel = this.world.getScheduledBlockUpdateWheel();
+        this.scheduledBlockUpdates.forEach(wheel::resume);
+    }
+
+    public void pulse() {
         final CauseStack causeStack = CauseStack.current();
         causeStack.pushCause(this); // Add the chunk that is being pulsed
         getTileEntities().forEach(tileEntity -> {
             causeStack.pushCause(tileEntity); // Add the tile entity to the cause
+            final LanternTiming timing = ((LanternTileEntityType) tileEntity.getType()).getPulseTiming();
+            timing.startTiming();
             try {
                 ((LanternTileEntity) tileEntity).pulse();
             } catch (Throwable t) {
                 final Vector3i pos = tileEntity.getLocation().getBlockPosition();
                 Lantern.getLogger().error("Failed to pulse TileEntity at ({};{};{})", pos.getX(), pos.getY(), pos.getZ(), t);
             } finally {
+                timing.stopTiming();
                 causeStack.popCause(); // Pop the tile entity
             }
         });
@@ -1202,6 +1283,7 @@ public void setCreator(int x, int y, int z, @Nullable UUID uuid) {
             }
             trackerData.creatorId = index;
         }, true);
+        this.dirty = true;
     }
 
     @Override
@@ -1225,6 +1307,7 @@ public void setNotifier(int x, int y, int z, @Nullable UUID uuid) {
             }
             trackerData.notifierId = index;
         }, true);
+        this.dirty = true;
     }
 
     @Override
@@ -1282,16 +1365,10 @@ public Set<AABB> getIntersectingCollisionBoxes(Entity owner, AABB box) {
         checkNotNull(owner, "owner");
         checkNotNull(box, "box");
         final ImmutableSet.Builder<AABB> collisionBoxes = ImmutableSet.builder();
-        final int maxYSection = fixEntityYSection(((int) Math.ceil(box.getMax().getY() + 2.0)) >> 4);
-        final int minYSection = fixEntityYSection(((int) Math.floor(box.getMin().getY() - 2.0)) >> 4);
-        for (int i = minYSection; i <= maxYSection; i++) {
-            for (LanternEntity entity : this.entities[i]) {
-                final Optional<AABB> aabb = entity.getBoundingBox();
-                if (aabb.isPresent() && aabb.get().intersects(box)) {
-                    collisionBoxes.add(aabb.get());
-                }
-            }
-        }
+        final double margin = getEntityQueryMargin();
+        final int maxYSection = fixEntityYSection(((int) Math.ceil(box.getMax().getY() + margin)) >> 4);
+        final int minYSection = fixEntityYSection(((int) Math.floor(box.getMin().getY() - margin)) >> 4);
+        forEachIntersectingEntityBox(maxYSection, minYSection, box, entity -> true, collisionBoxes::add);
         final Vector3i min = box.getMin().toInt();
         final Vector3i max = box.getMax().toInt();
         for (int x = min.getX(); x <= max.getX(); x++) {
@@ -1312,45 +1389,58 @@ public Set<Entity> getIntersectingEntities(AABB box, Predicate<Entity> filter) {
         checkNotNull(box, "box");
         checkNotNull(filter, "filter");
         final ImmutableSet.Builder<Entity> entities = ImmutableSet.builder();
-        final int maxYSection = fixEntityYSection(((int) Math.ceil(box.getMax().getY() + 2.0)) >> 4);
-        final int minYSection = fixEntityYSection(((int) Math.floor(box.getMin().getY() - 2.0)) >> 4);
-        addIntersectingEntities(entities, maxYSection, minYSection, box, filter);
+        final double margin = getEntityQueryMargin();
+        final int maxYSection = fixEntityYSection(((int) Math.ceil(box.getMax().getY() + margin)) >> 4);
+        final int minYSection = fixEntityYSection(((int) Math.floor(box.getMin().getY() - margin)) >> 4);
+        forEachIntersectingEntity(maxYSection, minYSection, box, filter, entities::add);
         return entities.build();
     }
 
+    /**
+     * Gets the distance that should be added around a query box to find all the
+     * sections and chunks that may contain intersecting {@link LanternEntity}s.
+     *
+     * @return The margin
+     */
+    public static double getEntityQueryMargin() {
+        return EntitySectionIndex.getMaxMargin();
+    }
+
     public static int fixEntityYSection(int section) {
         return section < 0 ? 0 : section >= CHUNK_SECTIONS ? CHUNK_SECTIONS - 1 : section;
     }
 
-    public void addIntersectingEntities(ImmutableSet.Builder<Entity> builder, int maxYSection, int minYSection, AABB box, Predicate<Entity> filter) {
+    /**
+     * Passes all the {@link LanternEntity}s within the given sections that
+     * intersect with the box and match the filter to the consumer.
+     *
+     * @param maxYSection The maximum section index
+     * @param minYSection The minimum section index
+     * @param box The box
+     * @param filter The filter
+     * @param consumer The consumer
+     */
+    public void forEachIntersectingEntity(int maxYSection, int minYSection, AABB box,
+            Predicate<? super LanternEntity> filter, Consumer<? super LanternEntity> consumer) {
         for (int i = minYSection; i <= maxYSection; i++) {
-            for (LanternEntity entity : this.entities[i]) {
-                final Optional<AABB> aabb = entity.getBoundingBox();
-                if (aabb.isPresent()) {
-                    if (aabb.get().intersects(box) && filter.test(entity)) {
-                        builder.add(entity);
-                    }
-                } else if (box.contains(entity.getPosition()) && filter.test(entity)) {
-                    builder.add(entity);
-                }
-            }
+            this.entities[i].forEachIntersecting(box, filter, consumer);
         }
     }
 
-    public void addIntersectingEntitiesBoxes(ImmutableSet.Builder<AABB> builder, int maxYSection, int minYSection,
-            AABB box, Predicate<Entity> filter) {
-        for (int i = minYSection; i <= maxYSection; i++) {
-            for (LanternEntity entity : this.entities[i]) {
-                final Optional<AABB> aabb = entity.getBoundingBox();
-                if (aabb.isPresent()) {
-                    if (aabb.get().intersects(box) && filter.test(entity)) {
-                        builder.add(aabb.get());
-                    }
-                } else if (box.contains(entity.getPosition()) && filter.test(entity)) {
-                    builder.add(aabb.get());
-                }
-            }
-        }
+    /**
+     * Passes the bounding boxes of all the {@link LanternEntity}s within the given
+     * sections that intersect with the box and match the filter to the consumer.
+     *
+     * @param maxYSection The maximum section index
+     * @param minYSection The minimum section index
+     * @param box The box
+     * @param filter The filter
+     * @param consumer The consumer
+     */
+    public void forEachIntersectingEntityBox(int maxYSection, int minYSection, AABB box,
+            Predicate<? super LanternEntity> filter, Consumer<? super AABB> consumer) {
+        forEachIntersectingEntity(maxYSection, minYSection, box, entity -> entity.getBoundingBoxOrNull() != null && filter.test(entity),
+                entity -> consumer.accept(entity.getBoundingBoxOrNull()));
     }
 
     @Override
@@ -1359,14 +1449,12 @@ public ArchetypeVolume createArchetypeVolume(Vector3i min, Vector3i max, Vector3
     }
 
     private void forEachEntity(Consumer<LanternEntity> consumer) {
-        for (Set<LanternEntity> entities : this.entities) {
-            final Iterator<LanternEntity> iterator = entities.iterator();
-            while (iterator.hasNext()) {
-                final LanternEntity entity = iterator.next();
+        for (EntitySectionIndex entities : this.entities) {
+            for (LanternEntity entity : entities.getEntities()) {
                 // Only remove the entities that are "destroyed",
                 // the other ones can be resurrected after chunk loading
                 if (entity.getRemoveState() == LanternEntity.RemoveState.DESTROYED) {
-                    iterator.remove();
+                    entities.remove(entity);
                 } else {
                     consumer.accept(entity);
                 }
@@ -1392,10 +1480,25 @@ void buryEntities() {
 
     public void addEntity(LanternEntity entity, int section) {
         this.entities[section].add(entity);
+        this.dirty = true;
     }
 
     public void removeEntity(LanternEntity entity, int section) {
         this.entities[section].remove(entity);
+        this.dirty = true;
+    }
+
+    /**
+     * Updates the position of the {@link LanternEntity} in the spatial
+     * index of the section, this should be called every tick for entities
+     * that stay within the same section, they can also be moved outside
+     * of their pulse (e.g. by player movement packets).
+     *
+     * @param entity The entity
+     * @param section The section index
+     */
+    public void updateEntity(LanternEntity entity, int section) {
+        this.entities[section].update(entity);
     }
 
     @Override
@@ -1869,6 +1972,7 @@ public long getInhabitedTime() {
 
     public void setInhabitedTime(long inhabitedTime) {
         this.inhabitedTime = inhabitedTime;
+        this.dirty = true;
     }
 
     @Override
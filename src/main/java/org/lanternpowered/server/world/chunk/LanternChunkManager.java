@@ -34,7 +34,9 @@
 import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
 import static org.lanternpowered.server.world.chunk.LanternChunkLayout.CHUNK_BIOME_VOLUME;
 
+import com.flowpowered.math.GenericMath;
 import com.flowpowered.math.vector.Vector2i;
+import com.flowpowered.math.vector.Vector3d;
 import com.flowpowered.math.vector.Vector3i;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
@@ -46,16 +48,21 @@
 import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import com.google.inject.name.Named;
+import io.netty.util.concurrent.FastThreadLocal;
 import org.lanternpowered.server.config.world.WorldConfig;
 import org.lanternpowered.server.data.io.ChunkIOService;
+import org.lanternpowered.server.entity.living.player.LanternPlayer;
 import org.lanternpowered.server.event.CauseStack;
+import org.lanternpowered.server.event.LanternEventManager;
 import org.lanternpowered.server.game.DirectoryKeys;
 import org.lanternpowered.server.game.Lantern;
 import org.lanternpowered.server.game.LanternGame;
 import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
 import org.lanternpowered.server.plugin.InternalPluginsInfo;
 import org.lanternpowered.server.util.ThreadHelper;
+import org.lanternpowered.server.util.collect.ConcurrentLong2ObjectMap;
 import org.lanternpowered.server.util.concurrent.FastSoftThreadLocal;
+import org.lanternpowered.server.util.concurrent.FastThreadLocals;
 import org.lanternpowered.server.util.gen.biome.ObjectArrayImmutableBiomeBuffer;
 import org.lanternpowered.server.util.gen.biome.ShortArrayMutableBiomeBuffer;
 import org.lanternpowered.server.util.gen.block.AbstractMutableBlockBuffer;
@@ -70,9 +77,12 @@
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockTypes;
 import org.spongepowered.api.entity.Entity;
-import org.spongepowered.api.event.EventManager;
 import org.spongepowered.api.event.SpongeEventFactory;
 import org.spongepowered.api.event.cause.Cause;
+import org.spongepowered.api.event.world.chunk.GenerateChunkEvent;
+import org.spongepowered.api.event.world.chunk.LoadChunkEvent;
+import org.spongepowered.api.event.world.chunk.PopulateChunkEvent;
+import org.spongepowered.api.event.world.chunk.UnloadChunkEvent;
 import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.world.Chunk;
 import org.spongepowered.api.world.ChunkTicketManager;
@@ -110,37 +120,56 @@
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
 public final class LanternChunkManager {
 
-    // The maximum amount of threads that can load chunks asynchronously
-    private static final int CHUNK_LOADING_MAX_POOL_SIZE = 10;
-
-    // The core amount of threads that can load chunks asynchronously
-    private static final int CHUNK_LOADING_CORE_POOL_SIZE = 4;
-
     // The delay to unload chunks that are not forced,
     // loaded through loadChunk methods
     private static final long UNLOAD_DELAY = TimeUnit.SECONDS.toMillis(1);
 
     // All the attached tickets mapped by the forced chunk coordinates
-    private final Map<Vector2i, Set<ChunkLoadingTicket>> ticketsByPos = new ConcurrentHashMap<>();
+    private final ConcurrentLong2ObjectMap<Set<ChunkLoadingTicket>> ticketsByPos = new ConcurrentLong2ObjectMap<>();
 
     // All the loading tickets that are still usable
     private final Set<LanternLoadingTicket> tickets = Sets.newConcurrentHashSet();
 
-    // All the chunks that are loaded into the server
-    private final Map<Vector2i, LanternChunk> loadedChunks = new ConcurrentHashMap<>();
+    // All the chunks that are loaded into the server, mapped by their key
+    private final ConcurrentLong2ObjectMap<LanternChunk> loadedChunks = new ConcurrentLong2ObjectMap<>(1024);
+
+    // The amount of chunks that are cached per thread
+    private static final int CHUNK_CACHE_SIZE = 4;
+
+    /**
+     * A small cache of the chunks that were last accessed by a thread, most
+     * accesses hit the same few chunks so this avoids hashing in most cases.
+     */
+    private static final class ChunkCache {
+
+        private final long[] keys = new long[CHUNK_CACHE_SIZE];
+        private final LanternChunk[] chunks = new LanternChunk[CHUNK_CACHE_SIZE];
+        // The index that will be replaced next
+        private int next;
+        // The chunk removal counter when the cache was last validated
+        private int removals;
+    }
+
+    private final FastThreadLocal<ChunkCache> chunkCache = FastThreadLocals.withInitial(ChunkCache::new);
+
+    // Is increased every time that chunks are removed from the
+    // loaded chunks, this invalidates all the thread local caches
+    private final AtomicInteger chunkRemovals = new AtomicInteger();
 
     // A cache that can be used to get chunks that weren't unloaded
     // so much after all, because of active references to the chunk
@@ -176,73 +205,99 @@ public int hashCode() {
 
     // All the futures that will cause chunk loading/unloading, they are stored
     // here to allow them to be cancelled
-    private final Map<Vector2i, LanternChunkQueueTask> chunkQueueTasks = new ConcurrentHashMap<>();
+    private final ConcurrentLong2ObjectMap<LanternChunkQueueTask> chunkQueueTasks = new ConcurrentLong2ObjectMap<>();
+
+    // The chunk load executor, queued tasks are ordered by the distance to the
+    // closest player, initialized in the constructor from the world config
+    private final ThreadPoolExecutor chunkTaskExecutor;
 
-    // The chunk load executor
-    private final ThreadPoolExecutor chunkTaskExecutor = new ThreadPoolExecutor(
-            CHUNK_LOADING_CORE_POOL_SIZE, CHUNK_LOADING_MAX_POOL_SIZE, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
-            ThreadHelper.newFastThreadLocalThreadFactory());
+    // The sequence counter which is used to keep the order of tasks
+    // with the same priority
+    private final AtomicLong chunkTaskCounter = new AtomicLong();
 
     // Some objects that can be used in {@link Chunk} population.
     private class PopulationData {
 
         private final Random random = new Random();
-        private final ChunkLoadingTicket lockTicket = new InternalLoadingTicket();
     }
 
-    private LanternChunkQueueTask queueTask(Vector2i coords, Runnable runnable) {
+    LanternChunkQueueTask queueTask(Vector2i coords, Runnable runnable) {
         final LanternChunkQueueTask task = new LanternChunkQueueTask(coords, runnable);
-        task.setFuture(this.chunkTaskExecutor.submit(task));
+        this.chunkTaskExecutor.execute(task);
         return task;
     }
 
-    private class LanternChunkQueueTask implements Callable<Void> {
+    /**
+     * Gets the priority of the chunk at the given coordinates, this is the
+     * squared distance in chunks to the closest player in the world. Lower
+     * values will be processed first.
+     *
+     * @param coords The chunk coordinates
+     * @return The priority
+     */
+    private long getChunkPriority(Vector2i coords) {
+        long priority = Long.MAX_VALUE;
+        for (LanternPlayer player : this.world.getRawPlayers()) {
+            final Vector3d position = player.getPosition();
+            final long dx = (GenericMath.floor(position.getX()) >> 4) - coords.getX();
+            final long dz = (GenericMath.floor(position.getZ()) >> 4) - coords.getY();
+            priority = Math.min(priority, dx * dx + dz * dz);
+        }
+        return priority;
+    }
+
+    /**
+     * Recalculates the priorities of all the chunk tasks that are still
+     * queued, this should be called when a player moved to a different chunk.
+     */
+    public void reprioritizeQueuedTasks() {
+        final BlockingQueue<Runnable> queue = this.chunkTaskExecutor.getQueue();
+        if (queue.isEmpty()) {
+            return;
+        }
+        final List<Runnable> tasks = new ArrayList<>(queue.size());
+        queue.drainTo(tasks);
+        for (Runnable runnable : tasks) {
+            final LanternChunkQueueTask task = (LanternChunkQueueTask) runnable;
+            if (!task.isCancelled()) {
+                task.priority = getChunkPriority(task.coords);
+                queue.offer(task);
+            }
+        }
+    }
+
+    private class LanternChunkQueueTask extends FutureTask<Void> implements Comparable<LanternChunkQueueTask> {
 
         private final Vector2i coords;
         // The runnable that should be executed
         private final Runnable runnable;
-        // The future attached to this callable
-        @Nullable private Future<Void> future;
+        // The sequence number, tasks with the same priority are executed in order
+        private final long sequence;
+        // The priority of the task, only modified while the task isn't queued
+        private volatile long priority;
 
         LanternChunkQueueTask(Vector2i coords, Runnable runnable) {
+            super(runnable, null);
             this.runnable = runnable;
             this.coords = coords;
+            this.sequence = chunkTaskCounter.getAndIncrement();
+            this.priority = getChunkPriority(coords);
         }
 
-        public void setFuture(Future<Void> future) {
-            this.future = future;
-            synchronized (this) {
-                notifyAll();
+        boolean cancel() {
+            if (!cancel(false)) {
+                return false;
             }
+            // Remove it directly from the queue, instead of
+            // waiting until it's polled by a worker
+            chunkTaskExecutor.remove(this);
+            return true;
         }
 
         @Override
-        public Void call() throws Exception {
-            // Wait for the future to be set, in case it's getting directly executed
-            synchronized (this) {
-                while (this.future == null) {
-                    try {
-                        wait();
-                    } catch (InterruptedException ignored) {
-                    }
-                }
-            }
-            this.runnable.run();
-            return null;
-        }
-
-        boolean cancel() {
-            // We have to wait for the future to be set before we
-            // can cancel it, shouldn't be long
-            synchronized (this) {
-                while (this.future == null) {
-                    try {
-                        wait();
-                    } catch (InterruptedException ignored) {
-                    }
-                }
-            }
-            return this.future.cancel(false);
+        public int compareTo(LanternChunkQueueTask o) {
+            final int value = Long.compare(this.priority, o.priority);
+            return value != 0 ? value : Long.compare(this.sequence, o.sequence);
         }
 
         @Override
@@ -287,7 +342,7 @@ public void run() {
     }
 
     private void doChunkLoad(Vector2i coords) {
-        Set<ChunkLoadingTicket> tickets = this.ticketsByPos.get(coords);
+        Set<ChunkLoadingTicket> tickets = this.ticketsByPos.get(key(coords));
         if (tickets == null) {
             return;
         }
@@ -332,6 +387,9 @@ private class GenerationBuffers {
     // The world generator
     private volatile WorldGenerator worldGenerator;
 
+    // The pipeline that decorates and lights the generated chunks
+    private final ChunkGenerationPipeline generationPipeline;
+
     @Inject
     public LanternChunkManager(
             @Named(InternalPluginsInfo.Minecraft.IDENTIFIER) PluginContainer minecraftPluginContainer,
@@ -347,6 +405,10 @@ public LanternChunkManager(
         this.worldConfig = worldConfig;
         this.world = world;
         this.game = game;
+        final int workers = Math.max(1, worldConfig.getChunkLoadingWorkers());
+        this.chunkTaskExecutor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), ThreadHelper.newFastThreadLocalThreadFactory());
+        this.generationPipeline = new ChunkGenerationPipeline(world, this);
     }
 
     public LanternWorld getWorld() {
@@ -383,7 +445,7 @@ public WorldGenerator getWorldGenerator() {
      * @return has ticket
      */
     public boolean hasTicket(Vector2i coords) {
-        return this.ticketsByPos.containsKey(checkNotNull(coords, "coords"));
+        return this.ticketsByPos.containsKey(key(checkNotNull(coords, "coords")));
     }
 
     /**
@@ -395,7 +457,7 @@ public boolean hasTicket(Vector2i coords) {
      * @return has ticket
      */
     public boolean hasTicket(int x, int z) {
-        return this.ticketsByPos.containsKey(new Vector2i(x, z));
+        return this.ticketsByPos.containsKey(LanternChunk.key(x, z));
     }
 
     /**
@@ -406,13 +468,12 @@ public boolean hasTicket(int x, int z) {
     public ImmutableSetMultimap<Vector3i, LoadingTicket> getForced() {
         final ImmutableSetMultimap.Builder<Vector3i, LoadingTicket> builder =
                 ImmutableSetMultimap.builder();
-        for (Entry<Vector2i, Set<ChunkLoadingTicket>> en : this.ticketsByPos.entrySet()) {
-            final Vector2i pos0 = en.getKey();
-            final Vector3i pos = new Vector3i(pos0.getX(), 0, pos0.getY());
-            for (ChunkLoadingTicket ticket : en.getValue()) {
+        this.ticketsByPos.forEach((tickets, key) -> {
+            final Vector3i pos = new Vector3i(LanternChunk.getKeyX(key), 0, LanternChunk.getKeyZ(key));
+            for (ChunkLoadingTicket ticket : tickets) {
                 builder.put(pos, ticket);
             }
-        }
+        });
         return builder.build();
     }
 
@@ -589,21 +650,91 @@ public LanternChunk getChunk(Vector2i coords) {
 
     @Nullable
     public LanternChunk getChunkIfLoaded(Vector2i coords) {
-        final LanternChunk chunk = this.loadedChunks.get(checkNotNull(coords, "coords"));
+        checkNotNull(coords, "coords");
+        return getChunkIfLoaded(coords.getX(), coords.getY());
+    }
+
+    @Nullable
+    public LanternChunk getChunkIfLoaded(int x, int z) {
+        final LanternChunk chunk = getLoadedChunk(LanternChunk.key(x, z));
         if (chunk != null && !chunk.loaded) {
             return null;
         }
         return chunk;
     }
 
+    private static long key(Vector2i coords) {
+        return LanternChunk.key(coords.getX(), coords.getY());
+    }
+
+    /**
+     * Gets the chunk for the given key from the loaded chunks, the
+     * chunks are looked up through the cache of the current thread.
+     *
+     * @param key The chunk key
+     * @return The chunk, or null if not present
+     */
     @Nullable
-    public LanternChunk getChunkIfLoaded(int x, int z) {
-        return getChunkIfLoaded(new Vector2i(x, z));
+    private LanternChunk getLoadedChunk(long key) {
+        final ChunkCache cache = this.chunkCache.get();
+        final int removals = this.chunkRemovals.get();
+        if (cache.removals != removals) {
+            Arrays.fill(cache.chunks, null);
+            cache.removals = removals;
+        } else {
+            for (int i = 0; i < CHUNK_CACHE_SIZE; i++) {
+                final LanternChunk chunk = cache.chunks[i];
+                if (chunk != null && cache.keys[i] == key) {
+                    return chunk;
+                }
+            }
+        }
+        final LanternChunk chunk = this.loadedChunks.get(key);
+        if (chunk != null) {
+            final int index = cache.next;
+            cache.keys[index] = key;
+            cache.chunks[index] = chunk;
+            cache.next = (index + 1) % CHUNK_CACHE_SIZE;
+        }
+        return chunk;
+    }
+
+    /**
+     * Removes the chunk from the loaded chunks and
+     * invalidates the thread local caches.
+     *
+     * @param chunk The chunk
+     */
+    private void removeLoadedChunk(LanternChunk chunk) {
+        this.loadedChunks.remove(chunk.getKey(), chunk);
+        this.chunkRemovals.incrementAndGet();
+    }
+
+    /**
+     * Gets the chunk at the given coordinates if it's loaded and a loading ticket
+     * exists for it, these are the chunks that don't have to be queued for unloading
+     * when accessed.
+     *
+     * @param x The x coordinate
+     * @param z The z coordinate
+     * @return The chunk, or null if not present
+     */
+    @Nullable
+    private LanternChunk getForcedChunk(int x, int z) {
+        final long key = LanternChunk.key(x, z);
+        final LanternChunk chunk = getLoadedChunk(key);
+        return chunk != null && this.ticketsByPos.containsKey(key) ? chunk : null;
     }
 
     @Nullable
     private LanternChunk getChunk(Vector2i coords, boolean wait) {
-        final LanternChunk chunk = this.loadedChunks.get(checkNotNull(coords, "coords"));
+        checkNotNull(coords, "coords");
+        return getChunk(coords.getX(), coords.getY(), wait);
+    }
+
+    @Nullable
+    private LanternChunk getChunk(int x, int z, boolean wait) {
+        final LanternChunk chunk = getLoadedChunk(LanternChunk.key(x, z));
         if (wait && chunk != null && !chunk.loaded &&
                 chunk.lockState == LanternChunk.LockState.LOADING) {
             // Wait for the chunk to finish loading
@@ -621,7 +752,7 @@ private LanternChunk getChunk(Vector2i coords, boolean wait) {
      */
     @Nullable
     public LanternChunk getChunk(int x, int z) {
-        return getChunk(new Vector2i(x, z));
+        return getChunk(x, z, true);
     }
 
     /**
@@ -647,7 +778,8 @@ public LanternChunk getOrLoadChunk(int x, int z) {
      * @return the chunk
      */
     public LanternChunk getOrCreateChunk(int x, int z, boolean generate) {
-        return getOrCreateChunk(x, z, CauseStack.currentOrEmpty(), generate);
+        final LanternChunk chunk = getForcedChunk(x, z);
+        return chunk != null ? chunk : getOrCreateChunk(new Vector2i(x, z), CauseStack.currentOrEmpty(), generate);
     }
 
     /**
@@ -659,7 +791,8 @@ public LanternChunk getOrCreateChunk(int x, int z, boolean generate) {
      * @return the chunk
      */
     public LanternChunk getOrCreateChunk(int x, int z, CauseStack causeStack, boolean generate) {
-        return getOrCreateChunk(new Vector2i(x, z), causeStack, generate);
+        final LanternChunk chunk = getForcedChunk(x, z);
+        return chunk != null ? chunk : getOrCreateChunk(new Vector2i(x, z), causeStack, generate);
     }
 
     /**
@@ -686,10 +819,11 @@ public LanternChunk getOrCreateChunk(Vector2i coords, CauseStack cause, boolean
      */
     private LanternChunk getOrCreateChunk(Vector2i coords, CauseStack causeStack, boolean generate, boolean wait) {
         checkNotNull(causeStack, "causeStack");
-        LanternChunk chunk = this.loadedChunks.get(checkNotNull(coords, "coords"));
+        final long key = key(checkNotNull(coords, "coords"));
+        LanternChunk chunk = getLoadedChunk(key);
         // Chunk is already loaded
         if (chunk != null) {
-            if (!this.ticketsByPos.containsKey(coords)) {
+            if (!this.ticketsByPos.containsKey(key)) {
                 this.pendingForUnload.add(new UnloadingChunkEntry(coords));
             }
             return chunk;
@@ -698,23 +832,26 @@ private LanternChunk getOrCreateChunk(Vector2i coords, CauseStack causeStack, bo
         // not gc yet, allowing us to reuse them to avoid loading a new chunk
         chunk = this.reusableChunks.get(coords);
         if (chunk != null) {
-            this.loadedChunks.put(coords, chunk);
+            this.loadedChunks.put(key, chunk);
             this.reusableChunks.remove(coords);
-            if (!this.ticketsByPos.containsKey(coords)) {
+            if (!this.ticketsByPos.containsKey(key)) {
                 this.pendingForUnload.add(new UnloadingChunkEntry(coords));
             }
-            this.game.getEventManager().post(SpongeEventFactory.createLoadChunkEvent(causeStack.getCurrentCause(), chunk));
+            postLoadChunkEvent(causeStack, chunk);
             this.world.getEventListener().onLoadChunk(chunk);
+            chunk.resumeScheduledUpdates();
             // Resurrect all the entities in the chunk
             chunk.resurrectEntities();
             this.world.addEntities(chunk.getEntities());
+            this.world.getLightEngine().queueBorders(chunk);
+            this.generationPipeline.onChunkLoaded(chunk);
             return chunk;
         }
         boolean[] newChunk = new boolean[1];
         // Finally, create a new chunk if needed
-        chunk = this.loadedChunks.computeIfAbsent(coords, coords0 -> {
+        chunk = this.loadedChunks.computeIfAbsent(key, key0 -> {
             newChunk[0] = true;
-            return new LanternChunk(this.world, coords0.getX(), coords0.getY());
+            return new LanternChunk(this.world, coords.getX(), coords.getY());
         });
         // This method call was too late
         if (!newChunk[0]) {
@@ -736,35 +873,17 @@ private LanternChunk getOrCreateChunk(Vector2i coords, CauseStack causeStack, bo
         // Try to load the chunk
         load(chunk, causeStack, generate);
         this.world.addEntities(chunk.getEntities());
-        if (!this.ticketsByPos.containsKey(coords)) {
+        if (!this.ticketsByPos.containsKey(key)) {
             this.pendingForUnload.add(new UnloadingChunkEntry(coords));
         }
         return chunk;
     }
 
-    private static final int UP = 0;
-    private static final int DOWN = 1;
-    private static final int RIGHT = 2;
-    private static final int RIGHT_UP = 3;
-    private static final int RIGHT_DOWN = 4;
-    private static final int LEFT = 5;
-    private static final int LEFT_UP = 6;
-    private static final int LEFT_DOWN = 7;
-
-    private static Vector2i[] getSides(Vector2i center) {
-        final Vector2i[] sides = new Vector2i[8];
-        sides[UP] = center.add(0, 1);
-        sides[DOWN] = center.add(0, -1);
-        sides[RIGHT] = center.add(1, 0);
-        sides[RIGHT_UP] = center.add(1, 1);
-        sides[RIGHT_DOWN] = center.add(1, -1);
-        sides[LEFT] = center.add(-1, 0);
-        sides[LEFT_UP] = center.add(-1, 1);
-        sides[LEFT_DOWN] = center.add(-1, -1);
-        return sides;
-    }
-
     /**
+     * Decorates the chunk with all the populators of the world generator, this
+     * will modify the chunk and the chunks in the positive directions, all these
+     * chunks must be loaded.
+     * <p>
      * This is taken from the {@link Populator} class to give a bit more info
      * about what we are trying here to achieve.
      *
@@ -780,65 +899,11 @@ private static Vector2i[] getSides(Vector2i center) {
      * | . . . . .|          |
      * +----------+----------+
      *
-     * @param chunk the chunk
+     * @param chunk The chunk
+     * @param causeStack The cause stack
      */
-    private void tryPopulateSurroundingChunks(LanternChunk chunk, Cause cause) {
-        final Vector2i pos = chunk.chunkPos;
-        final Vector2i[] sides = getSides(pos);
-        final PopulationData populationData = this.populationData.get();
-        final Random random = populationData.random;
-        // TODO: Populating must be done in the sync thread???
-        for (Vector2i side : sides) {
-            lockInternally(side, populationData.lockTicket);
-        }
-        LanternChunk up = isChunkLoaded(sides[UP]);
-        LanternChunk right = isChunkLoaded(sides[RIGHT]);
-        LanternChunk rightUp = isChunkLoaded(sides[RIGHT_UP]);
-        if (up != null && right != null && rightUp != null) {
-            if (!chunk.populating && !chunk.populated) {
-                populateChunk(chunk, cause, random);
-            }
-        }
-        LanternChunk left = isChunkLoaded(sides[LEFT]);
-        LanternChunk leftDown = isChunkLoaded(sides[LEFT_DOWN]);
-        LanternChunk down = isChunkLoaded(sides[DOWN]);
-        if (leftDown != null && left != null && down != null) {
-            if (!leftDown.populating && !leftDown.populated) {
-                populateChunk(leftDown, cause, random);
-            }
-        }
-        if (up == null) { // Maybe it is loaded by now?
-            up = isChunkLoaded(sides[UP]);
-        }
-        if (left == null) { // Maybe it is loaded by now?
-            left = isChunkLoaded(sides[LEFT]);
-        }
-        LanternChunk leftUp = isChunkLoaded(sides[LEFT_UP]);
-        if (left != null && leftUp != null && up != null) {
-            if (!left.populating && !left.populated) {
-                populateChunk(left, cause, random);
-            }
-        }
-        if (right == null) { // Maybe it is loaded by now?
-            right = isChunkLoaded(sides[RIGHT]);
-        }
-        if (down == null) { // Maybe it is loaded by now?
-            down = isChunkLoaded(sides[DOWN]);
-        }
-        LanternChunk rightDown = isChunkLoaded(sides[RIGHT_DOWN]);
-        if (down != null && rightDown != null && right != null) {
-            if (!down.populating && !down.populated) {
-                populateChunk(down, cause, random);
-            }
-        }
-        for (Vector2i side : sides) {
-            unlockInternally(side, populationData.lockTicket);
-        }
-    }
-
-    private void populateChunk(LanternChunk chunk, Cause cause, Random random) {
-        chunk.populating = true;
-
+    void populateChunk(LanternChunk chunk, CauseStack causeStack) {
+        final Random random = this.populationData.get().random;
         // Populate
         int chunkX = chunk.getX() * 16;
         int chunkZ = chunk.getZ() * 16;
@@ -872,7 +937,7 @@ private void populateChunk(LanternChunk chunk, Cause cause, Random random) {
         final List<Populator> populators = new LinkedList<>(biomeGenSettings.getPopulators());
         populators.addAll(this.worldGenerator.getPopulators());
 
-        final EventManager eventManager = Sponge.getEventManager();
+        final LanternEventManager eventManager = this.game.getEventManager();
 
         final Vector3i min = new Vector3i(chunkX + 8, 0, chunkZ + 8);
         final Extent volume = new SoftBufferExtentViewDownsize(chunk.getWorld(), min, min.add(15, 0, 15), min.sub(8, 0, 8), min.add(23, 0, 23));
@@ -880,26 +945,32 @@ private void populateChunk(LanternChunk chunk, Cause cause, Random random) {
         // Call the pre populate event, this allows
         // modifications to the populators list
         // Called before a chunk begins populating. (javadoc)
-        eventManager.post(SpongeEventFactory.createPopulateChunkEventPre(cause, populators, chunk));
+        if (eventManager.hasListeners(PopulateChunkEvent.Pre.class)) {
+            eventManager.post(SpongeEventFactory.createPopulateChunkEventPre(causeStack.getCurrentCause(), populators, chunk));
+        }
 
         // First populate the chunk with the biome populators
+        final boolean populateEvents = eventManager.hasListeners(PopulateChunkEvent.Populate.class);
         for (Populator populator : populators) {
             // Called when a populator is about to run against a chunk. (javadoc)
-            eventManager.post(SpongeEventFactory.createPopulateChunkEventPopulate(cause, populator, chunk));
+            if (populateEvents) {
+                eventManager.post(SpongeEventFactory.createPopulateChunkEventPopulate(causeStack.getCurrentCause(), populator, chunk));
+            }
             populator.populate(this.world, volume, random);
         }
 
         // Called when a chunk finishes populating. (javadoc)
-        eventManager.post(SpongeEventFactory.createPopulateChunkEventPost(cause, ImmutableList.copyOf(populators), chunk));
-        this.world.getEventListener().onPopulateChunk(chunk);
-
+        if (eventManager.hasListeners(PopulateChunkEvent.Post.class)) {
+            eventManager.post(SpongeEventFactory.createPopulateChunkEventPost(
+                    causeStack.getCurrentCause(), ImmutableList.copyOf(populators), chunk));
+        }
         // We are done
         chunk.populated = true;
-        chunk.populating = false;
+        chunk.markDirty();
     }
 
     @Nullable
-    private LanternChunk isChunkLoaded(Vector2i pos) {
+    LanternChunk isChunkLoaded(Vector2i pos) {
         final LanternChunk chunk = getChunk(pos, false);
         return chunk != null && chunk.loaded ? chunk : null;
     }
@@ -944,9 +1015,11 @@ private boolean load0(LanternChunk chunk, CauseStack causeStack, boolean generat
             }
         }
         boolean success = true;
+        // Whether the chunk should be passed to the generation pipeline
+        boolean loaded = false;
         try {
             chunk.lockState = LanternChunk.LockState.LOADING;
-            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(chunk.getCoords());
+            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(chunk.getKey());
             // Try to cancel the task, the task will probably be ignored
             // because we are already locked
             if (task != null) {
@@ -955,8 +1028,13 @@ private boolean load0(LanternChunk chunk, CauseStack causeStack, boolean generat
             try {
                 // Try to load the chunk
                 if (this.chunkIOService.read(chunk)) {
-                    this.game.getEventManager().post(SpongeEventFactory.createLoadChunkEvent(causeStack.getCurrentCause(), chunk));
+                    // The chunk matches the saved data
+                    chunk.clearDirty();
+                    chunk.status = chunk.populated ? ChunkStatus.DECORATION : ChunkStatus.GENERATION_POPULATORS;
+                    loaded = true;
+                    postLoadChunkEvent(causeStack, chunk);
                     this.world.getEventListener().onLoadChunk(chunk);
+                    chunk.resumeScheduledUpdates();
                     return true;
                 }
             } catch (Exception e) {
@@ -971,18 +1049,19 @@ private boolean load0(LanternChunk chunk, CauseStack causeStack, boolean generat
                 chunk.initializeEmpty();
                 return success = false;
             }
-            Cause cause0 = causeStack.getCurrentCause();
             // Generate chunk
             try {
-                generate(chunk, cause0);
+                generate(chunk, causeStack);
+                chunk.markDirty();
             } catch (Throwable e) {
                 this.game.getLogger().error("Error while generating chunk ({};{})", chunk.getX(), chunk.getZ(), e);
                 return success = false;
             }
-            // Try to populate the chunk
-            tryPopulateSurroundingChunks(chunk, cause0);
-            this.game.getEventManager().post(SpongeEventFactory.createLoadChunkEvent(cause0, chunk));
+            // The chunk will be decorated by the generation pipeline
+            loaded = true;
+            postLoadChunkEvent(causeStack, chunk);
             this.world.getEventListener().onLoadChunk(chunk);
+            chunk.resumeScheduledUpdates();
             return true;
         } finally {
             chunk.lockState = LanternChunk.LockState.NONE;
@@ -990,6 +1069,11 @@ private boolean load0(LanternChunk chunk, CauseStack causeStack, boolean generat
             chunk.loadingSuccess = success;
             chunk.lockCondition.signalAll();
             chunk.lock.unlock();
+            if (loaded) {
+                // Spread the light between the chunk and its neighbors
+                this.world.getLightEngine().queueBorders(chunk);
+                this.generationPipeline.onChunkLoaded(chunk);
+            }
         }
     }
 
@@ -997,11 +1081,13 @@ private boolean load0(LanternChunk chunk, CauseStack causeStack, boolean generat
      * Attempts to generate the chunk.
      * 
      * @param chunk The chunk
-     * @param cause The cause
+     * @param causeStack The cause stack
      */
-    private void generate(LanternChunk chunk, Cause cause) {
-        final EventManager eventManager = Sponge.getEventManager();
-        eventManager.post(SpongeEventFactory.createGenerateChunkEventPre(cause, chunk));
+    private void generate(LanternChunk chunk, CauseStack causeStack) {
+        final LanternEventManager eventManager = this.game.getEventManager();
+        if (eventManager.hasListeners(GenerateChunkEvent.Pre.class)) {
+            eventManager.post(SpongeEventFactory.createGenerateChunkEventPre(causeStack.getCurrentCause(), chunk));
+        }
 
         final GenerationBuffers buffers = this.genBuffers.get();
         //noinspection ConstantConditions
@@ -1015,6 +1101,7 @@ private void generate(LanternChunk chunk, Cause cause) {
         // Initialize the biomes into the chunk
         final ImmutableBiomeVolume immutableBiomeVolume = biomeBuffer.getImmutableBiomeCopy();
         chunk.initializeBiomes(biomeBuffer.detach().clone());
+        chunk.status = ChunkStatus.BIOMES;
 
         final ChunkBlockBuffer blockBuffer = buffers.chunkBlockBuffer;
         blockBuffer.reuse(new Vector3i(chunk.getX() << 4, 0, chunk.getZ() << 4));
@@ -1022,6 +1109,7 @@ private void generate(LanternChunk chunk, Cause cause) {
         // Apply the main world generator
         final GenerationPopulator baseGenerator = this.worldGenerator.getBaseGenerationPopulator();
         baseGenerator.populate(this.world, blockBuffer, immutableBiomeVolume);
+        chunk.status = ChunkStatus.BASE_TERRAIN;
 
         // Get all the used biome types
         final Set<BiomeType> biomeTypes = ImmutableSet.copyOf(biomeBuffer.biomeTypes);
@@ -1042,7 +1130,7 @@ private void generate(LanternChunk chunk, Cause cause) {
         for (int sy = 0; sy < CHUNK_SECTIONS; sy++) {
             final int nonAirCount = blockBuffer.nonAirCount[sy];
             if (nonAirCount > 0) {
-                sections[sy] = new ChunkSection(blockBuffer.types[sy], nonAirCount);
+                sections[sy] = new ChunkSection(blockBuffer.types[sy]);
             }
         }
 
@@ -1050,8 +1138,51 @@ private void generate(LanternChunk chunk, Cause cause) {
         chunk.initializeSections(sections);
         chunk.initializeHeightMap(null);
         chunk.initializeLight();
+        chunk.status = ChunkStatus.GENERATION_POPULATORS;
 
-        eventManager.post(SpongeEventFactory.createGenerateChunkEventPost(cause, chunk));
+        if (eventManager.hasListeners(GenerateChunkEvent.Post.class)) {
+            eventManager.post(SpongeEventFactory.createGenerateChunkEventPost(causeStack.getCurrentCause(), chunk));
+        }
+    }
+
+    /**
+     * Generates the chunk at the given coordinates without loading it into
+     * the world and writes it directly to the chunk storage. Chunks that are
+     * loaded or already stored will be skipped. The chunk won't be decorated,
+     * this will be done by the generation pipeline once the chunk is loaded.
+     * <p>
+     * This method may be called from any thread, the generation buffers
+     * are local to the calling thread.
+     *
+     * @param x The x coordinate of the chunk
+     * @param z The z coordinate of the chunk
+     * @param causeStack The cause stack
+     * @return The future that completes once the generated chunk is written,
+     *         or {@code null} if the chunk was skipped
+     * @throws IOException If an i/o error occurs
+     */
+    @Nullable
+    public CompletableFuture<Void> preGenerate(int x, int z, CauseStack causeStack) throws IOException {
+        checkNotNull(causeStack, "causeStack");
+        final long key = LanternChunk.key(x, z);
+        if (this.loadedChunks.containsKey(key) || this.chunkIOService.exists(x, z)) {
+            return null;
+        }
+        final LanternChunk chunk = new LanternChunk(this.world, x, z);
+        generate(chunk, causeStack);
+        // The world may have loaded the chunk in the meantime, the
+        // loaded chunk will be saved by the world instead
+        if (this.loadedChunks.containsKey(key)) {
+            return null;
+        }
+        return this.chunkIOService.writeAsync(chunk);
+    }
+
+    private void postLoadChunkEvent(CauseStack causeStack, LanternChunk chunk) {
+        final LanternEventManager eventManager = this.game.getEventManager();
+        if (eventManager.hasListeners(LoadChunkEvent.class)) {
+            eventManager.post(SpongeEventFactory.createLoadChunkEvent(causeStack.getCurrentCause(), chunk));
+        }
     }
 
     private static final Vector3i CHUNK_SIZE = new Vector3i(
@@ -1179,10 +1310,14 @@ public ImmutableBlockVolume getImmutableBlockCopy() {
      */
     public boolean save(LanternChunk chunk) {
         checkNotNull(chunk, "chunk");
+        return save(chunk, false);
+    }
+
+    private boolean save(LanternChunk chunk, boolean async) {
         chunk.lock.lock();
         try {
             chunk.lockState = LanternChunk.LockState.SAVING;
-            return save0(chunk);
+            return async ? saveAsync0(chunk) : save0(chunk);
         } finally {
             chunk.lockState = LanternChunk.LockState.NONE;
             chunk.lockCondition.signalAll();
@@ -1191,6 +1326,7 @@ public boolean save(LanternChunk chunk) {
     }
 
     private boolean save0(LanternChunk chunk) {
+        chunk.clearDirty();
         try {
             this.chunkIOService.write(chunk);
             return true;
@@ -1200,6 +1336,35 @@ private boolean save0(LanternChunk chunk) {
         return false;
     }
 
+    /**
+     * Queues the chunk to be saved asynchronously if it was
+     * modified since the last time that it was saved. Only
+     * the snapshot of the chunk is created on this thread.
+     *
+     * @param chunk The chunk
+     * @return Whether it was successful
+     */
+    private boolean saveAsync0(LanternChunk chunk) {
+        if (!chunk.needsSaving()) {
+            return true;
+        }
+        chunk.clearDirty();
+        try {
+            this.chunkIOService.writeAsync(chunk).whenComplete((v, t) -> {
+                // The error is already logged by the io service, retry
+                // the chunk the next time that it's saved or unloaded
+                if (t != null) {
+                    chunk.markDirty();
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            chunk.markDirty();
+            this.game.getLogger().error("Error while saving " + chunk, e);
+        }
+        return false;
+    }
+
     /**
      * Attempts to unload the chunk at the specified coordinates.
      * 
@@ -1248,7 +1413,7 @@ public boolean unload(LanternChunk chunk, CauseStack causeStack) {
     private boolean unload0(LanternChunk chunk, CauseStack causeStack, boolean wait) {
         final Vector2i coords = chunk.getCoords();
         // Forced chunks cannot be unloaded
-        if (this.ticketsByPos.containsKey(coords)) {
+        if (this.ticketsByPos.containsKey(chunk.getKey())) {
             chunk.unloadingSuccess = false;
             return false;
         }
@@ -1273,21 +1438,25 @@ private boolean unload0(LanternChunk chunk, CauseStack causeStack, boolean wait)
             if (!chunk.loaded) {
                 return true;
             }
-            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(coords);
+            final LanternChunkQueueTask task = this.chunkQueueTasks.remove(key(coords));
             // Try to cancel all the current tasks
             if (task != null) {
                 task.cancel();
             }
             // Post the chunk unload event
-            this.game.getEventManager().post(SpongeEventFactory.createUnloadChunkEvent(causeStack.getCurrentCause(), chunk));
+            if (this.game.getEventManager().hasListeners(UnloadChunkEvent.class)) {
+                this.game.getEventManager().post(SpongeEventFactory.createUnloadChunkEvent(causeStack.getCurrentCause(), chunk));
+            }
             this.world.getEventListener().onUnloadChunk(chunk);
             // Remove from the loaded chunks
-            this.loadedChunks.remove(coords);
+            removeLoadedChunk(chunk);
             // Move the chunk to the graveyard
             this.reusableChunks.put(coords, chunk);
             // Bury the entities
             chunk.buryEntities();
-            save0(chunk);
+            saveAsync0(chunk);
+            // Stop the scheduled block updates, after they are saved
+            chunk.suspendScheduledUpdates();
             return true;
         } finally {
             chunk.lockState = LanternChunk.LockState.NONE;
@@ -1305,20 +1474,20 @@ private boolean unload0(LanternChunk chunk, CauseStack causeStack, boolean wait)
      * @param coords the coordinates
      * @return whether it was previously empty
      */
-    private boolean lockInternally(Vector2i coords, ChunkLoadingTicket ticket) {
+    boolean lockInternally(Vector2i coords, ChunkLoadingTicket ticket) {
         final boolean[] empty = new boolean[1];
-        this.ticketsByPos.computeIfAbsent(coords, coords0 -> {
+        this.ticketsByPos.computeIfAbsent(key(coords), key -> {
             empty[0] = true;
             return Sets.newConcurrentHashSet();
         }).add(ticket);
         return empty[0];
     }
 
-    private boolean unlockInternally(Vector2i coords, ChunkLoadingTicket ticket) {
-        final Set<ChunkLoadingTicket> set = this.ticketsByPos.get(coords);
+    boolean unlockInternally(Vector2i coords, ChunkLoadingTicket ticket) {
+        final Set<ChunkLoadingTicket> set = this.ticketsByPos.get(key(coords));
         if (set != null && set.remove(ticket)) {
             if (set.isEmpty()) {
-                this.ticketsByPos.remove(coords);
+                this.ticketsByPos.remove(key(coords));
             }
             return true;
         }
@@ -1360,10 +1529,10 @@ void force(LanternLoadingTicket ticket, Vector2i coords, boolean callEvents) {
             queueLoad = true;
         }
         if (queueLoad) {
-            LanternChunkQueueTask task = this.chunkQueueTasks.get(coords);
+            LanternChunkQueueTask task = this.chunkQueueTasks.get(key(coords));
             if (task == null || !(task.runnable instanceof LanternChunkLoadTask)) {
-                this.chunkQueueTasks.computeIfAbsent(coords, coords1 ->
-                        queueTask(coords1, new LanternChunkLoadTask(coords1)));
+                this.chunkQueueTasks.computeIfAbsent(key(coords), key ->
+                        queueTask(coords, new LanternChunkLoadTask(coords)));
             }
         }
         if  (callEvents) {
@@ -1389,10 +1558,18 @@ private void postForcedChunkEvent(CauseStack causeStack, LanternLoadingTicket ti
      */
     void unforce(LanternLoadingTicket ticket, Vector2i coords, @Nullable CauseStack causeStack) {
         if (unlockInternally(coords, ticket)) {
+            // Cancel the queued chunk loading if there are no tickets left,
+            // there is no point in loading it anymore
+            if (!this.ticketsByPos.containsKey(key(coords))) {
+                final LanternChunkQueueTask task = this.chunkQueueTasks.get(key(coords));
+                if (task != null && task.runnable instanceof LanternChunkLoadTask && task.cancel()) {
+                    this.chunkQueueTasks.remove(key(coords), task);
+                }
+            }
             final LanternChunk chunk = getChunk(coords, false);
             // Try to cancel any queued chunk loadings
             if (chunk != null && chunk.lock.isLocked() && chunk.lockState == LanternChunk.LockState.LOADING) {
-                final LanternChunkQueueTask task = this.chunkQueueTasks.get(coords);
+                final LanternChunkQueueTask task = this.chunkQueueTasks.get(key(coords));
                 if (task != null && task.runnable instanceof LanternChunkLoadTask) {
                     task.cancel();
                 }
@@ -1429,9 +1606,10 @@ public void save() {
         } catch (IOException e) {
             this.game.getLogger().warn("An error occurred while saving the chunk loading tickets", e);
         }
-        for (Entry<Vector2i, LanternChunk> entry : this.loadedChunks.entrySet()) {
-            // Save the chunk
-            save(entry.getValue());
+        for (LanternChunk chunk : this.loadedChunks.values()) {
+            // Queue the chunk to be saved, only the
+            // snapshot is created on this thread
+            save(chunk, true);
         }
     }
 
@@ -1447,15 +1625,17 @@ public void shutdown() {
         }
         final CauseStack causeStack = CauseStack.current();
         final Cause cause = causeStack.getCurrentCause();
-        for (Entry<Vector2i, LanternChunk> entry : this.loadedChunks.entrySet()) {
-            final LanternChunk chunk = entry.getValue();
+        for (LanternChunk chunk : this.loadedChunks.values()) {
             // Post the chunk unload event
             this.game.getEventManager().post(SpongeEventFactory.createUnloadChunkEvent(cause, chunk));
             // Save the chunk
-            save(chunk);
+            if (chunk.needsSaving()) {
+                save(chunk);
+            }
         }
         // Cleanup
         this.loadedChunks.clear();
+        this.chunkRemovals.incrementAndGet();
         this.reusableChunks.clear();
         this.chunkTaskExecutor.shutdown();
         try {
@@ -1473,7 +1653,7 @@ public void pulse(CauseStack causeStack) {
         while ((entry = this.pendingForUnload.peek()) != null &&
                 (System.currentTimeMillis() - entry.time) > UNLOAD_DELAY) {
             this.pendingForUnload.poll();
-            if (!this.ticketsByPos.containsKey(entry.coords)) {
+            if (!this.ticketsByPos.containsKey(key(entry.coords))) {
                 // TODO: Create unload tasks
                 unload(entry.coords, causeStack);
             }
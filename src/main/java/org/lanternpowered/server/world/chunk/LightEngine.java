@@ -0,0 +1,504 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_HEIGHT;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTIONS;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_SIZE;
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_SECTION_VOLUME;
+import static org.lanternpowered.server.world.chunk.LightPropagator.DIRECTIONS;
+import static org.lanternpowered.server.world.chunk.LightPropagator.DOWN;
+import static org.lanternpowered.server.world.chunk.LightPropagator.MAX_LIGHT;
+import static org.lanternpowered.server.world.chunk.LightPropagator.pack;
+import static org.lanternpowered.server.world.chunk.LightPropagator.unpackX;
+import static org.lanternpowered.server.world.chunk.LightPropagator.unpackY;
+import static org.lanternpowered.server.world.chunk.LightPropagator.unpackZ;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.game.registry.type.block.BlockRegistryModule;
+import org.lanternpowered.server.util.ThreadHelper;
+import org.lanternpowered.server.util.collect.array.NibbleArray;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.chunk.LanternChunk.ChunkSection;
+import org.spongepowered.api.block.BlockState;
+import org.spongepowered.api.data.property.block.LightEmissionProperty;
+import org.spongepowered.api.data.property.block.MatterProperty;
+import org.spongepowered.api.data.property.block.SolidCubeProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+
+/**
+ * The light engine of a {@link LanternWorld}. Block changes are queued and
+ * processed in batches on a separate thread, the light is propagated by a
+ * {@link LightPropagator} through the section locks of the chunks.
+ * <p>
+ * The light of empty (missing) sections cannot be stored, these sections
+ * are always fully lit by the sky and don't contain any block light.
+ */
+public final class LightEngine {
+
+    // The light opacity (upper 4 bits) and emission (lower 4 bits) per
+    // internal block state id, -1 if the values aren't computed yet
+    private static final short[] LIGHT_DATA = new short[1 << 16];
+
+    static {
+        Arrays.fill(LIGHT_DATA, (short) -1);
+    }
+
+    private static int getLightData(int type) {
+        int data = LIGHT_DATA[type & 0xffff];
+        if (data == -1) {
+            final BlockState blockState = BlockRegistryModule.get().getStateByInternalIdAndData(type & 0xffff).orElse(null);
+            int opacity = 0;
+            int emission = 0;
+            if (blockState != null) {
+                if (blockState.getProperty(SolidCubeProperty.class).map(SolidCubeProperty::getValue).orElse(false)) {
+                    opacity = MAX_LIGHT;
+                } else if (blockState.getProperty(MatterProperty.class).map(MatterProperty::getValue).orElse(null) ==
+                        MatterProperty.Matter.LIQUID) {
+                    opacity = 3;
+                }
+                emission = blockState.getProperty(LightEmissionProperty.class).map(LightEmissionProperty::getValue).orElse(0);
+            }
+            data = (Math.min(MAX_LIGHT, opacity) << 4) | Math.min(MAX_LIGHT, emission);
+            LIGHT_DATA[type & 0xffff] = (short) data;
+        }
+        return data;
+    }
+
+    /**
+     * Gets the light opacity of the given internal block state id.
+     *
+     * @param type The internal block state id
+     * @return The light opacity
+     */
+    static int getOpacity(int type) {
+        return (type & 0xffff) == 0 ? 0 : getLightData(type) >> 4;
+    }
+
+    /**
+     * Gets the light emission of the given internal block state id.
+     *
+     * @param type The internal block state id
+     * @return The light emission
+     */
+    static int getEmission(int type) {
+        return (type & 0xffff) == 0 ? 0 : getLightData(type) & 0xf;
+    }
+
+    /**
+     * Gets whether changing the block type from the old to the
+     * new type requires a light update.
+     *
+     * @param oldType The old internal block state id
+     * @param newType The new internal block state id
+     * @return Whether the light should be updated
+     */
+    static boolean affectsLight(int oldType, int newType) {
+        return getOpacity(oldType) != getOpacity(newType) || getEmission(oldType) != getEmission(newType);
+    }
+
+    private final LanternWorld world;
+    private final boolean hasSky;
+
+    // The positions of the block changes that are waiting for the next batch
+    private final Object pendingLock = new Object();
+    private LongArrayList pending = new LongArrayList();
+    // The columns at chunk borders whose light should spread into the neighbor chunk
+    private LongArrayList pendingBorders = new LongArrayList();
+    private List<Runnable> pendingCallbacks = new ArrayList<>();
+
+    // Whether a batch is currently being processed
+    private final AtomicBoolean processing = new AtomicBoolean();
+
+    private final ExecutorService executor;
+
+    // The following fields are only accessed by the light thread
+
+    private final LightPropagator propagator = new LightPropagator(new WorldVolume());
+
+    // The sections that were modified per chunk during the current batch
+    private final Long2IntMap changedSections = new Long2IntOpenHashMap();
+
+    // The last chunk that was accessed, chunks are looked up a lot
+    @Nullable private LanternChunk lastChunk;
+
+    public LightEngine(LanternWorld world, boolean hasSky) {
+        this.world = world;
+        this.hasSky = hasSky;
+        this.executor = Executors.newSingleThreadExecutor(
+                ThreadHelper.newFastThreadLocalThreadFactory(() -> "light-" + world.getName()));
+    }
+
+    /**
+     * Queues a light update for the block at the given position.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     */
+    public void queueUpdate(int x, int y, int z) {
+        final long position = pack(x, y, z, 0);
+        synchronized (this.pendingLock) {
+            this.pending.add(position);
+        }
+    }
+
+    /**
+     * Queues the light at the borders between the given chunk and its loaded
+     * neighbors to be spread in both directions, the light of a chunk is
+     * initialized without its neighbors. Should be called once the chunk
+     * is loaded.
+     *
+     * @param chunk The chunk
+     */
+    void queueBorders(LanternChunk chunk) {
+        final int chunkX = chunk.getX();
+        final int chunkZ = chunk.getZ();
+        final int minX = chunkX << 4;
+        final int minZ = chunkZ << 4;
+        final int maxX = minX + CHUNK_SECTION_SIZE - 1;
+        final int maxZ = minZ + CHUNK_SECTION_SIZE - 1;
+        final LanternChunkManager chunkManager = this.world.getChunkManager();
+        final boolean west = chunkManager.getChunkIfLoaded(chunkX - 1, chunkZ) != null;
+        final boolean east = chunkManager.getChunkIfLoaded(chunkX + 1, chunkZ) != null;
+        final boolean north = chunkManager.getChunkIfLoaded(chunkX, chunkZ - 1) != null;
+        final boolean south = chunkManager.getChunkIfLoaded(chunkX, chunkZ + 1) != null;
+        if (!west && !east && !north && !south) {
+            return;
+        }
+        synchronized (this.pendingLock) {
+            final LongArrayList borders = this.pendingBorders;
+            for (int i = 0; i < CHUNK_SECTION_SIZE; i++) {
+                if (west) {
+                    borders.add(pack(minX, 0, minZ + i, 0));
+                    borders.add(pack(minX - 1, 0, minZ + i, 0));
+                }
+                if (east) {
+                    borders.add(pack(maxX, 0, minZ + i, 0));
+                    borders.add(pack(maxX + 1, 0, minZ + i, 0));
+                }
+                if (north) {
+                    borders.add(pack(minX + i, 0, minZ, 0));
+                    borders.add(pack(minX + i, 0, minZ - 1, 0));
+                }
+                if (south) {
+                    borders.add(pack(minX + i, 0, maxZ, 0));
+                    borders.add(pack(minX + i, 0, maxZ + 1, 0));
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the callback on the light thread once all the light
+     * updates that are currently queued are processed.
+     *
+     * @param callback The callback
+     */
+    public void whenProcessed(Runnable callback) {
+        synchronized (this.pendingLock) {
+            this.pendingCallbacks.add(callback);
+        }
+    }
+
+    /**
+     * Starts processing the light updates that were queued since the
+     * last batch, unless the previous batch is still being processed.
+     * Will be called once every world tick.
+     */
+    public void pulse() {
+        if (this.processing.get()) {
+            return;
+        }
+        final LongArrayList batch;
+        final LongArrayList borders;
+        final List<Runnable> callbacks;
+        synchronized (this.pendingLock) {
+            if (this.pending.isEmpty() && this.pendingBorders.isEmpty() && this.pendingCallbacks.isEmpty()) {
+                return;
+            }
+            batch = this.pending;
+            borders = this.pendingBorders;
+            callbacks = this.pendingCallbacks;
+            this.pending = new LongArrayList();
+            this.pendingBorders = new LongArrayList();
+            this.pendingCallbacks = new ArrayList<>();
+        }
+        this.processing.set(true);
+        this.executor.execute(() -> {
+            try {
+                processBatch(batch, borders);
+            } catch (Throwable t) {
+                Lantern.getLogger().error("An error occurred while updating the light in the world {}", this.world.getName(), t);
+            } finally {
+                this.lastChunk = null;
+                this.processing.set(false);
+            }
+            for (Runnable callback : callbacks) {
+                try {
+                    callback.run();
+                } catch (Throwable t) {
+                    Lantern.getLogger().error("An error occurred while completing a light update in the world {}", this.world.getName(), t);
+                }
+            }
+        });
+    }
+
+    /**
+     * Shuts the light engine down, the batch that is currently
+     * being processed will be completed.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+        try {
+            if (!this.executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                Lantern.getLogger().warn("The light engine of the world {} didn't terminate in time", this.world.getName());
+                this.executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void processBatch(LongArrayList batch, LongArrayList borders) {
+        if (this.hasSky) {
+            update(batch, borders, true);
+        }
+        update(batch, borders, false);
+        // Notify the world about the modified sections
+        for (Long2IntMap.Entry entry : this.changedSections.long2IntEntrySet()) {
+            final long key = entry.getLongKey();
+            final LanternChunk chunk = getChunk((int) (key >> 32), (int) key);
+            if (chunk != null) {
+                chunk.markDirty();
+                this.world.getEventListener().onLightChange(chunk, entry.getIntValue());
+            }
+        }
+        this.changedSections.clear();
+    }
+
+    /**
+     * Initializes the light of the given chunk, the light will not
+     * spread into the neighbor chunks, see {@link #queueBorders(LanternChunk)}.
+     * This may be called from any thread, as long as the chunk isn't loaded yet.
+     *
+     * @param chunk The chunk
+     */
+    void initializeLight(LanternChunk chunk) {
+        final ChunkSection[] sections = chunk.getRawSections();
+        final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        if (this.hasSky) {
+            // Light all the columns from the top down to the first opaque block
+            for (int x = 0; x < CHUNK_SECTION_SIZE; x++) {
+                for (int z = 0; z < CHUNK_SECTION_SIZE; z++) {
+                    int level = MAX_LIGHT;
+                    for (int y = CHUNK_HEIGHT - 1; y >= 0; y--) {
+                        final ChunkSection section = sections[y >> 4];
+                        if (section == null) {
+                            y &= ~0xf;
+                            continue;
+                        }
+                        final int index = ChunkSection.index(x, y & 0xf, z);
+                        if (level > 0) {
+                            level = Math.max(0, level - getOpacity(section.types.get(index)));
+                        }
+                        section.lightFromSky.set(index, (byte) level);
+                    }
+                }
+            }
+            // Spread the light sideways into the darker areas
+            for (int i = 0; i < CHUNK_SECTIONS; i++) {
+                final ChunkSection section = sections[i];
+                if (section == null) {
+                    continue;
+                }
+                for (int index = 0; index < CHUNK_SECTION_VOLUME; index++) {
+                    final int level = section.lightFromSky.get(index);
+                    if (level <= 1) {
+                        continue;
+                    }
+                    final int x = index & 0xf;
+                    final int z = (index >> 4) & 0xf;
+                    if ((x > 0 && section.lightFromSky.get(index - 1) < level - 1) ||
+                            (x < 15 && section.lightFromSky.get(index + 1) < level - 1) ||
+                            (z > 0 && section.lightFromSky.get(index - 16) < level - 1) ||
+                            (z < 15 && section.lightFromSky.get(index + 16) < level - 1)) {
+                        queue.enqueue(pack(index & 0xf, (i << 4) | (index >> 8), (index >> 4) & 0xf, 0));
+                    }
+                }
+            }
+            propagateInChunk(sections, queue, true);
+        }
+        // Light all the light sources
+        for (int i = 0; i < CHUNK_SECTIONS; i++) {
+            final ChunkSection section = sections[i];
+            if (section == null) {
+                continue;
+            }
+            for (int index = 0; index < CHUNK_SECTION_VOLUME; index++) {
+                final int emission = getEmission(section.types.get(index));
+                if (emission > 0) {
+                    section.lightFromBlock.set(index, (byte) emission);
+                    queue.enqueue(pack(index & 0xf, (i << 4) | (index >> 8), (index >> 4) & 0xf, 0));
+                }
+            }
+        }
+        propagateInChunk(sections, queue, false);
+    }
+
+    /**
+     * Propagates the light within the given sections, the positions in the
+     * queue are relative to the chunk. Light that would leave the chunk is ignored.
+     */
+    private static void propagateInChunk(ChunkSection[] sections, LongArrayFIFOQueue queue, boolean sky) {
+        while (!queue.isEmpty()) {
+            final long value = queue.dequeueLong();
+            final int x = unpackX(value);
+            final int y = unpackY(value);
+            final int z = unpackZ(value);
+            final ChunkSection section = sections[y >> 4];
+            final NibbleArray array = sky ? section.lightFromSky : section.lightFromBlock;
+            final int level = array.get(ChunkSection.index(x, y & 0xf, z));
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                final int[] direction = DIRECTIONS[d];
+                final int nx = x + direction[0];
+                final int ny = y + direction[1];
+                final int nz = z + direction[2];
+                if (ny < 0 || ny >= CHUNK_HEIGHT || (nx & ~0xf) != 0 || (nz & ~0xf) != 0) {
+                    continue;
+                }
+                final ChunkSection neighbor = sections[ny >> 4];
+                if (neighbor == null) {
+                    continue;
+                }
+                final int index = ChunkSection.index(nx, ny & 0xf, nz);
+                final int opacity = getOpacity(neighbor.types.get(index));
+                final int neighborLevel;
+                if (sky && d == DOWN && level == MAX_LIGHT && opacity == 0) {
+                    neighborLevel = MAX_LIGHT;
+                } else {
+                    neighborLevel = level - Math.max(1, opacity);
+                }
+                final NibbleArray neighborArray = sky ? neighbor.lightFromSky : neighbor.lightFromBlock;
+                if (neighborLevel > neighborArray.get(index)) {
+                    neighborArray.set(index, (byte) neighborLevel);
+                    if (neighborLevel > 1) {
+                        queue.enqueue(pack(nx, ny, nz, 0));
+                    }
+                }
+            }
+        }
+    }
+
+    private void update(LongArrayList batch, LongArrayList borders, boolean sky) {
+        final LightPropagator propagator = this.propagator;
+        for (int i = 0; i < batch.size(); i++) {
+            final long position = batch.getLong(i);
+            propagator.queueChange(unpackX(position), unpackY(position), unpackZ(position), sky);
+        }
+        for (int i = 0; i < borders.size(); i++) {
+            final long position = borders.getLong(i);
+            final int x = unpackX(position);
+            final int z = unpackZ(position);
+            for (int y = 0; y < CHUNK_HEIGHT; y++) {
+                propagator.queueSpread(x, y, z, sky);
+            }
+        }
+        propagator.process(sky);
+    }
+
+    @Nullable
+    private LanternChunk getChunk(int chunkX, int chunkZ) {
+        LanternChunk chunk = this.lastChunk;
+        if (chunk != null && chunk.getX() == chunkX && chunk.getZ() == chunkZ && chunk.isLoaded()) {
+            return chunk;
+        }
+        chunk = this.world.getChunkManager().getChunkIfLoaded(chunkX, chunkZ);
+        if (chunk != null) {
+            this.lastChunk = chunk;
+        }
+        return chunk;
+    }
+
+    /**
+     * The light of the loaded chunks of the world, all the blocks and light
+     * values are accessed through the section locks of the chunks.
+     */
+    private final class WorldVolume implements LightPropagator.Volume {
+
+        @Override
+        public boolean isAvailable(int x, int z) {
+            return getChunk(x >> 4, z >> 4) != null;
+        }
+
+        @Override
+        public int getOpacity(int x, int y, int z) {
+            final LanternChunk chunk = getChunk(x >> 4, z >> 4);
+            return chunk == null ? 0 : LightEngine.getOpacity(chunk.getType(x, y, z));
+        }
+
+        @Override
+        public int getEmission(int x, int y, int z) {
+            final LanternChunk chunk = getChunk(x >> 4, z >> 4);
+            return chunk == null ? 0 : LightEngine.getEmission(chunk.getType(x, y, z));
+        }
+
+        @Override
+        public int getLight(int x, int y, int z, boolean sky) {
+            final LanternChunk chunk = getChunk(x >> 4, z >> 4);
+            if (chunk == null) {
+                return 0;
+            }
+            // Missing sections are fully lit by the sky
+            return sky ? chunk.getSkyLight(x, y, z) : chunk.getBlockLight(x, y, z);
+        }
+
+        @Override
+        public boolean setLight(int x, int y, int z, int level, boolean sky) {
+            final LanternChunk chunk = getChunk(x >> 4, z >> 4);
+            if (chunk == null || !chunk.setLight(x, y, z, level, sky)) {
+                return false;
+            }
+            final long key = ((long) chunk.getX() << 32) | (chunk.getZ() & 0xffffffffL);
+            final Long2IntMap changedSections = LightEngine.this.changedSections;
+            changedSections.put(key, changedSections.get(key) | (1 << (y >> 4)));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.lanternpowered.server.world.chunk.LanternChunk.CHUNK_HEIGHT;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+
+/**
+ * Removes and propagates light with breadth-first searches over a
+ * {@link Volume}. The coordinates are world coordinates, light doesn't
+ * spread into chunk columns that aren't available.
+ * <p>
+ * This class isn't thread safe, every {@link LightEngine} uses its
+ * own propagator on the light thread.
+ */
+final class LightPropagator {
+
+    static final int MAX_LIGHT = 15;
+
+    // The offsets of all the directions in which light can travel,
+    // down is the first direction, sky light doesn't decrease in it
+    static final int[][] DIRECTIONS = {
+            { 0, -1, 0 }, { 0, 1, 0 }, { -1, 0, 0 }, { 1, 0, 0 }, { 0, 0, -1 }, { 0, 0, 1 }
+    };
+    static final int DOWN = 0;
+
+    static long pack(int x, int y, int z, int level) {
+        return ((long) (x & 0x3ffffff) << 38) | ((long) (z & 0x3ffffff) << 12) | ((y & 0xff) << 4) | (level & 0xf);
+    }
+
+    static int unpackX(long value) {
+        return (int) (value >> 38);
+    }
+
+    static int unpackZ(long value) {
+        return (int) ((value << 26) >> 38);
+    }
+
+    static int unpackY(long value) {
+        return (int) (value >>> 4) & 0xff;
+    }
+
+    static int unpackLevel(long value) {
+        return (int) value & 0xf;
+    }
+
+    /**
+     * The blocks and light values the propagator operates on.
+     */
+    interface Volume {
+
+        /**
+         * Gets whether the chunk column that contains the
+         * given block coordinates is available.
+         *
+         * @param x The x coordinate
+         * @param z The z coordinate
+         * @return Whether the column is available
+         */
+        boolean isAvailable(int x, int z);
+
+        /**
+         * Gets the light opacity of the block at the given coordinates.
+         *
+         * @param x The x coordinate
+         * @param y The y coordinate
+         * @param z The z coordinate
+         * @return The opacity
+         */
+        int getOpacity(int x, int y, int z);
+
+        /**
+         * Gets the light emission of the block at the given coordinates.
+         *
+         * @param x The x coordinate
+         * @param y The y coordinate
+         * @param z The z coordinate
+         * @return The emission
+         */
+        int getEmission(int x, int y, int z);
+
+        /**
+         * Gets the sky or block light at the given coordinates.
+         *
+         * @param x The x coordinate
+         * @param y The y coordinate
+         * @param z The z coordinate
+         * @param sky Whether the sky light should be returned
+         * @return The light level
+         */
+        int getLight(int x, int y, int z, boolean sky);
+
+        /**
+         * Sets the sky or block light at the given coordinates.
+         *
+         * @param x The x coordinate
+         * @param y The y coordinate
+         * @param z The z coordinate
+         * @param level The light level
+         * @param sky Whether the sky light should be set
+         * @return Whether the light could be stored
+         */
+        boolean setLight(int x, int y, int z, int level, boolean sky);
+    }
+
+    private final Volume volume;
+
+    private final LongArrayFIFOQueue removalQueue = new LongArrayFIFOQueue();
+    private final LongArrayFIFOQueue propagationQueue = new LongArrayFIFOQueue();
+
+    LightPropagator(Volume volume) {
+        this.volume = volume;
+    }
+
+    /**
+     * Queues the block at the given coordinates of which the opacity
+     * or emission changed. Its old light will be removed and the new
+     * light will be propagated once the queues are processed.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param sky Whether the sky light should be updated
+     */
+    void queueChange(int x, int y, int z, boolean sky) {
+        final Volume volume = this.volume;
+        if (!volume.isAvailable(x, z)) {
+            return;
+        }
+        // Remove the old light of the changed block
+        final int oldLevel = volume.getLight(x, y, z, sky);
+        if (oldLevel > 0 && volume.setLight(x, y, z, 0, sky)) {
+            this.removalQueue.enqueue(pack(x, y, z, oldLevel));
+        }
+        // Add the new light source
+        final int source = sky ? (y == CHUNK_HEIGHT - 1 && volume.getOpacity(x, y, z) == 0 ? MAX_LIGHT : 0) :
+                volume.getEmission(x, y, z);
+        if (source > 0 && volume.setLight(x, y, z, source, sky)) {
+            this.propagationQueue.enqueue(pack(x, y, z, source));
+        }
+        // The neighbors may be able to light up the changed block
+        for (int[] direction : DIRECTIONS) {
+            final int nx = x + direction[0];
+            final int ny = y + direction[1];
+            final int nz = z + direction[2];
+            if (ny >= 0 && ny < CHUNK_HEIGHT) {
+                queueSpread(nx, ny, nz, sky);
+            }
+        }
+    }
+
+    /**
+     * Queues the block at the given coordinates to spread its current
+     * light to its neighbors once the queues are processed.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @param sky Whether the sky light should be spread
+     */
+    void queueSpread(int x, int y, int z, boolean sky) {
+        if (this.volume.isAvailable(x, z)) {
+            final int level = this.volume.getLight(x, y, z, sky);
+            if (level > 0) {
+                this.propagationQueue.enqueue(pack(x, y, z, level));
+            }
+        }
+    }
+
+    /**
+     * Processes all the queued changes, first all the removed
+     * light is cleared and then all the light is propagated.
+     *
+     * @param sky Whether the sky light is being updated
+     */
+    void process(boolean sky) {
+        remove(sky);
+        propagate(sky);
+    }
+
+    private void remove(boolean sky) {
+        final Volume volume = this.volume;
+        final LongArrayFIFOQueue removalQueue = this.removalQueue;
+        while (!removalQueue.isEmpty()) {
+            final long value = removalQueue.dequeueLong();
+            final int x = unpackX(value);
+            final int y = unpackY(value);
+            final int z = unpackZ(value);
+            final int level = unpackLevel(value);
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                final int[] direction = DIRECTIONS[d];
+                final int nx = x + direction[0];
+                final int ny = y + direction[1];
+                final int nz = z + direction[2];
+                if (ny < 0 || ny >= CHUNK_HEIGHT || !volume.isAvailable(nx, nz)) {
+                    continue;
+                }
+                final int neighborLevel = volume.getLight(nx, ny, nz, sky);
+                if (neighborLevel == 0) {
+                    continue;
+                }
+                if (neighborLevel < level || (sky && d == DOWN && level == MAX_LIGHT && neighborLevel == MAX_LIGHT)) {
+                    // The neighbor was lit by the removed light
+                    if (volume.setLight(nx, ny, nz, 0, sky)) {
+                        removalQueue.enqueue(pack(nx, ny, nz, neighborLevel));
+                        if (!sky) {
+                            final int emission = volume.getEmission(nx, ny, nz);
+                            if (emission > 0 && volume.setLight(nx, ny, nz, emission, false)) {
+                                this.propagationQueue.enqueue(pack(nx, ny, nz, emission));
+                            }
+                        }
+                    }
+                } else {
+                    // The neighbor is lit by a different source, spread it again
+                    this.propagationQueue.enqueue(pack(nx, ny, nz, neighborLevel));
+                }
+            }
+        }
+    }
+
+    private void propagate(boolean sky) {
+        final Volume volume = this.volume;
+        final LongArrayFIFOQueue propagationQueue = this.propagationQueue;
+        while (!propagationQueue.isEmpty()) {
+            final long value = propagationQueue.dequeueLong();
+            final int x = unpackX(value);
+            final int y = unpackY(value);
+            final int z = unpackZ(value);
+            if (!volume.isAvailable(x, z)) {
+                continue;
+            }
+            // The light may have been changed since it was queued
+            final int level = volume.getLight(x, y, z, sky);
+            if (level <= 1) {
+                continue;
+            }
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                final int[] direction = DIRECTIONS[d];
+                final int nx = x + direction[0];
+                final int ny = y + direction[1];
+                final int nz = z + direction[2];
+                if (ny < 0 || ny >= CHUNK_HEIGHT || !volume.isAvailable(nx, nz)) {
+                    continue;
+                }
+                final int opacity = volume.getOpacity(nx, ny, nz);
+                final int neighborLevel;
+                if (sky && d == DOWN && level == MAX_LIGHT && opacity == 0) {
+                    neighborLevel = MAX_LIGHT;
+                } else {
+                    neighborLevel = level - Math.max(1, opacity);
+                }
+                if (neighborLevel > volume.getLight(nx, ny, nz, sky) &&
+                        volume.setLight(nx, ny, nz, neighborLevel, sky)) {
+                    propagationQueue.enqueue(pack(nx, ny, nz, neighborLevel));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,426 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.pregen;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.flowpowered.math.vector.Vector2i;
+import org.lanternpowered.server.data.persistence.nbt.NbtStreamUtils;
+import org.lanternpowered.server.event.CauseStack;
+import org.lanternpowered.server.game.Lantern;
+import org.lanternpowered.server.util.ThreadHelper;
+import org.lanternpowered.server.world.LanternWorld;
+import org.lanternpowered.server.world.chunk.LanternChunkManager;
+import org.slf4j.Logger;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.DataView;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+/**
+ * Pre-generates a square area of chunks around a center chunk on multiple
+ * threads. The chunks aren't loaded into the world, they are generated on
+ * the worker threads and written straight to the region files. Decorating
+ * the chunks is left to the generation pipeline of the world, this happens
+ * once the chunks are loaded.
+ * <p>
+ * The progress is checkpointed to the world directory, a pre-generator
+ * that is started with the same center and radius will continue where
+ * the previous one stopped.
+ */
+public final class LanternWorldPreGenerator {
+
+    private static final String CHECKPOINT_FILE = "pregen.dat";
+
+    private static final DataQuery CENTER_X = DataQuery.of("CenterX");
+    private static final DataQuery CENTER_Z = DataQuery.of("CenterZ");
+    private static final DataQuery RADIUS = DataQuery.of("Radius");
+    private static final DataQuery INDEX = DataQuery.of("Index");
+
+    // The interval between the progress reports and checkpoints, in milliseconds
+    private static final long REPORT_INTERVAL = 10000L;
+
+    private final Logger logger = Lantern.getLogger();
+    private final LanternWorld world;
+    private final Path checkpointFile;
+    private final Vector2i center;
+    private final int radius;
+    private final int threads;
+    private final long chunkCount;
+
+    // The spiral indexes that are claimed by the workers, but aren't completed
+    // yet, an index is completed once its chunk is written to the disk
+    private final TreeSet<Long> pendingIndexes = new TreeSet<>();
+    // The lowest spiral index whose chunk failed to be generated or written
+    private long failedIndex = Long.MAX_VALUE;
+    // The next spiral index that will be claimed by a worker
+    private long nextIndex;
+    // The spiral index the pre-generator started at
+    private long startIndex;
+
+    private final LongAdder generatedChunks = new LongAdder();
+    private final LongAdder skippedChunks = new LongAdder();
+
+    @Nullable private ExecutorService executor;
+    @Nullable private Thread monitorThread;
+
+    private volatile double chunksPerSecond;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+
+    /**
+     * Constructs a new {@link LanternWorldPreGenerator}.
+     *
+     * @param world The world to pre-generate
+     * @param center The center chunk of the area
+     * @param radius The radius of the area, in chunks
+     * @param threads The amount of worker threads
+     */
+    public LanternWorldPreGenerator(LanternWorld world, Vector2i center, int radius, int threads) {
+        checkNotNull(world, "world");
+        checkNotNull(center, "center");
+        checkArgument(radius >= 0, "The radius cannot be negative");
+        checkArgument(threads > 0, "There must be at least one worker thread");
+        this.checkpointFile = world.getDirectory().resolve(CHECKPOINT_FILE);
+        this.world = world;
+        this.center = center;
+        this.radius = radius;
+        this.threads = threads;
+        final long diameter = radius * 2L + 1L;
+        this.chunkCount = diameter * diameter;
+    }
+
+    /**
+     * Gets the center chunk of the area.
+     *
+     * @return The center chunk
+     */
+    public Vector2i getCenter() {
+        return this.center;
+    }
+
+    /**
+     * Gets the radius of the area, in chunks.
+     *
+     * @return The radius
+     */
+    public int getRadius() {
+        return this.radius;
+    }
+
+    /**
+     * Gets the total amount of chunks in the area.
+     *
+     * @return The chunk count
+     */
+    public long getChunkCount() {
+        return this.chunkCount;
+    }
+
+    /**
+     * Gets the amount of chunks within the area that were
+     * processed, including the ones of a previous run.
+     *
+     * @return The processed chunk count
+     */
+    public long getProcessedChunks() {
+        return this.startIndex + this.generatedChunks.sum() + this.skippedChunks.sum();
+    }
+
+    /**
+     * Gets the amount of chunks that were generated per second
+     * during the last report interval.
+     *
+     * @return The chunks per second
+     */
+    public double getChunksPerSecond() {
+        return this.chunksPerSecond;
+    }
+
+    /**
+     * Gets whether the pre-generator is finished or cancelled.
+     *
+     * @return Is done
+     */
+    public boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     * Starts the pre-generator.
+     */
+    public synchronized void start() {
+        checkState(this.executor == null, "The pre-generator is already started.");
+        this.startIndex = this.nextIndex = loadCheckpoint();
+        final String name = this.world.getName();
+        final ExecutorService executor = Executors.newFixedThreadPool(this.threads,
+                ThreadHelper.newFastThreadLocalThreadFactory(() -> "pregen-" + name));
+        for (int i = 0; i < this.threads; i++) {
+            executor.execute(this::work);
+        }
+        // No more tasks will be submitted, the workers will stop once
+        // all the chunks are claimed or the pre-generator is cancelled
+        executor.shutdown();
+        this.executor = executor;
+        this.monitorThread = ThreadHelper.newFastThreadLocalThread(() -> monitor(executor), "pregen-monitor-" + name);
+        this.monitorThread.start();
+        this.logger.info("Started pre-generating {} chunks around ({};{}) in world {} using {} threads",
+                this.chunkCount, this.center.getX(), this.center.getY(), name, this.threads);
+    }
+
+    /**
+     * Cancels the pre-generator, the chunks that are currently
+     * being generated will still be completed.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Waits for the pre-generator to finish, this includes
+     * writing the checkpoint.
+     */
+    public void awaitTermination() {
+        final Thread monitorThread;
+        synchronized (this) {
+            monitorThread = this.monitorThread;
+        }
+        if (monitorThread == null) {
+            return;
+        }
+        try {
+            monitorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void work() {
+        final LanternChunkManager chunkManager = this.world.getChunkManager();
+        final CauseStack causeStack = CauseStack.currentOrEmpty();
+        long index;
+        while (!this.cancelled && (index = claimIndex()) != -1) {
+            final Vector2i offset = getSpiralOffset(index);
+            final int x = this.center.getX() + offset.getX();
+            final int z = this.center.getY() + offset.getY();
+            final CompletableFuture<Void> future;
+            try {
+                future = chunkManager.preGenerate(x, z, causeStack);
+            } catch (Exception e) {
+                this.logger.error("Error while pre-generating chunk ({};{})", x, z, e);
+                completeIndex(index, false);
+                continue;
+            }
+            if (future == null) {
+                this.skippedChunks.increment();
+                completeIndex(index, true);
+            } else {
+                this.generatedChunks.increment();
+                // The checkpoint may only pass the chunk once it's stored,
+                // write errors are already logged by the chunk io service
+                final long index0 = index;
+                future.whenComplete((result, t) -> completeIndex(index0, t == null));
+            }
+        }
+    }
+
+    private synchronized long claimIndex() {
+        if (this.nextIndex >= this.chunkCount) {
+            return -1;
+        }
+        final long index = this.nextIndex++;
+        this.pendingIndexes.add(index);
+        return index;
+    }
+
+    private synchronized void completeIndex(long index, boolean success) {
+        this.pendingIndexes.remove(index);
+        if (!success) {
+            // Retry the chunk when the pre-generator is resumed
+            this.failedIndex = Math.min(this.failedIndex, index);
+        }
+        if (this.pendingIndexes.isEmpty()) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Waits for all the claimed indexes to be completed, this
+     * includes the pending writes of the generated chunks.
+     */
+    private synchronized void awaitPendingIndexes() {
+        while (!this.pendingIndexes.isEmpty()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the spiral index below which all the chunks are completed.
+     *
+     * @return The checkpoint index
+     */
+    private synchronized long getCheckpointIndex() {
+        return Math.min(this.failedIndex, this.pendingIndexes.isEmpty() ? this.nextIndex : this.pendingIndexes.first());
+    }
+
+    private void monitor(ExecutorService executor) {
+        long lastTime = System.nanoTime();
+        long lastGenerated = 0;
+        boolean terminated = false;
+        while (!terminated) {
+            try {
+                terminated = executor.awaitTermination(REPORT_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                cancel();
+            }
+            if (terminated) {
+                // The workers are done, wait for the chunks to be written
+                awaitPendingIndexes();
+            }
+            final long time = System.nanoTime();
+            final long generated = this.generatedChunks.sum();
+            this.chunksPerSecond = (generated - lastGenerated) / ((time - lastTime) / 1e9);
+            lastGenerated = generated;
+            lastTime = time;
+            final long checkpoint = getCheckpointIndex();
+            if (checkpoint >= this.chunkCount) {
+                break;
+            }
+            saveCheckpoint(checkpoint);
+            if (!terminated) {
+                this.logger.info("Pre-generating world {}: {}/{} chunks ({}%), {} chunks/s",
+                        this.world.getName(), getProcessedChunks(), this.chunkCount,
+                        String.format("%.1f", getProcessedChunks() * 100.0 / this.chunkCount),
+                        String.format("%.1f", this.chunksPerSecond));
+            }
+        }
+        if (getCheckpointIndex() >= this.chunkCount) {
+            deleteCheckpoint();
+            this.logger.info("Finished pre-generating world {}, {} chunks were generated and {} were skipped",
+                    this.world.getName(), this.generatedChunks.sum(), this.skippedChunks.sum());
+        } else if (this.cancelled) {
+            this.logger.info("Cancelled pre-generating world {}, {} chunks were generated",
+                    this.world.getName(), this.generatedChunks.sum());
+        } else {
+            this.logger.warn("Finished pre-generating world {}, but some chunks failed to be generated or saved, "
+                    + "they will be retried when the pre-generator is resumed", this.world.getName());
+        }
+        this.done = true;
+    }
+
+    private long loadCheckpoint() {
+        if (!Files.exists(this.checkpointFile)) {
+            return 0;
+        }
+        try {
+            final DataView dataView = NbtStreamUtils.read(Files.newInputStream(this.checkpointFile), true);
+            // Only continue if the same area is being pre-generated
+            if (dataView.getInt(CENTER_X).orElse(0) == this.center.getX() &&
+                    dataView.getInt(CENTER_Z).orElse(0) == this.center.getY() &&
+                    dataView.getInt(RADIUS).orElse(-1) == this.radius) {
+                return Math.min(dataView.getLong(INDEX).orElse(0L), this.chunkCount);
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to read the pre-generation checkpoint of world {}", this.world.getName(), e);
+        }
+        return 0;
+    }
+
+    private void saveCheckpoint(long index) {
+        final DataContainer dataContainer = DataContainer.createNew(DataView.SafetyMode.NO_DATA_CLONED)
+                .set(CENTER_X, this.center.getX())
+                .set(CENTER_Z, this.center.getY())
+                .set(RADIUS, this.radius)
+                .set(INDEX, index);
+        try {
+            NbtStreamUtils.write(dataContainer, Files.newOutputStream(this.checkpointFile), true);
+        } catch (IOException e) {
+            this.logger.warn("Failed to write the pre-generation checkpoint of world {}", this.world.getName(), e);
+        }
+    }
+
+    private void deleteCheckpoint() {
+        try {
+            Files.deleteIfExists(this.checkpointFile);
+        } catch (IOException e) {
+            this.logger.warn("Failed to delete the pre-generation checkpoint of world {}", this.world.getName(), e);
+        }
+    }
+
+    /**
+     * Gets the offset of the chunk at the given index of a square spiral
+     * around the center chunk. Each ring of the spiral is completed before
+     * the next one is started, so that the area grows evenly.
+     *
+     * @param index The spiral index
+     * @return The offset from the center chunk
+     */
+    static Vector2i getSpiralOffset(long index) {
+        if (index == 0) {
+            return Vector2i.ZERO;
+        }
+        // The ring that contains the index, ring r starts at (2r - 1)^2
+        int ring = (int) ((Math.sqrt(index) + 1.0) / 2.0);
+        long start = (2L * ring - 1) * (2L * ring - 1);
+        // Correct floating point errors for large indexes
+        if (start > index) {
+            ring--;
+        } else if ((2L * ring + 1) * (2L * ring + 1) <= index) {
+            ring++;
+        }
+        start = (2L * ring - 1) * (2L * ring - 1);
+        final int side = (int) ((index - start) / (2 * ring));
+        final int offset = (int) ((index - start) % (2 * ring));
+        switch (side) {
+            case 0:
+                return new Vector2i(ring, -ring + 1 + offset);
+            case 1:
+                return new Vector2i(ring - 1 - offset, ring);
+            case 2:
+                return new Vector2i(-ring, ring - 1 - offset);
+            default:
+                return new Vector2i(-ring + 1 + offset, -ring);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.block;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.flowpowered.math.vector.Vector3i;
+import org.junit.Test;
+import org.lanternpowered.server.world.LanternWorld;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ScheduledBlockUpdateWheelTest {
+
+    private final LanternWorld world = mock(LanternWorld.class);
+
+    private Location<World> location(int x) {
+        return new Location<>(this.world, new Vector3i(x, 64, 0));
+    }
+
+    @Test
+    public void testDelayAndPriority() {
+        final ScheduledBlockUpdateWheel wheel = new ScheduledBlockUpdateWheel(this.world, 100);
+        final LanternScheduledBlockUpdate a = wheel.schedule(location(0), 5, 2);
+        final LanternScheduledBlockUpdate b = wheel.schedule(location(1), 1, 2);
+        final LanternScheduledBlockUpdate c = wheel.schedule(location(2), 0, 3);
+        assertEquals(3, wheel.size());
+        assertTrue(wheel.poll().isEmpty());
+        // Updates of the same tick are ordered by their priority
+        assertEquals(Arrays.asList(b, a), wheel.poll());
+        assertEquals(Collections.singletonList(c), wheel.poll());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancel() {
+        final ScheduledBlockUpdateWheel wheel = new ScheduledBlockUpdateWheel(this.world, 100);
+        final LanternScheduledBlockUpdate update = wheel.schedule(location(0), 0, 1);
+        assertTrue(wheel.cancel(update));
+        assertFalse(wheel.cancel(update));
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.poll().isEmpty());
+        assertEquals(0, update.getTicks());
+    }
+
+    @Test
+    public void testLimitCarriesOver() {
+        final ScheduledBlockUpdateWheel wheel = new ScheduledBlockUpdateWheel(this.world, 2);
+        final LanternScheduledBlockUpdate a = wheel.schedule(location(0), 0, 1);
+        final LanternScheduledBlockUpdate b = wheel.schedule(location(1), 1, 1);
+        final LanternScheduledBlockUpdate c = wheel.schedule(location(2), 2, 1);
+        assertEquals(Arrays.asList(a, b), wheel.poll());
+        assertEquals(Collections.singletonList(c), wheel.poll());
+        assertTrue(wheel.poll().isEmpty());
+    }
+
+    @Test
+    public void testSuspendAndResume() {
+        final ScheduledBlockUpdateWheel wheel = new ScheduledBlockUpdateWheel(this.world, 100);
+        final LanternScheduledBlockUpdate update = wheel.schedule(location(0), 0, 10);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(wheel.poll().isEmpty());
+        }
+        assertEquals(6, update.getTicks());
+        wheel.suspend(update);
+        assertEquals(0, wheel.size());
+        // Suspended updates don't advance
+        for (int i = 0; i < 20; i++) {
+            assertTrue(wheel.poll().isEmpty());
+        }
+        assertEquals(6, update.getTicks());
+        wheel.resume(update);
+        assertEquals(1, wheel.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(wheel.poll().isEmpty());
+        }
+        assertEquals(Collections.singletonList(update), wheel.poll());
+    }
+
+    @Test
+    public void testReschedule() {
+        final ScheduledBlockUpdateWheel wheel = new ScheduledBlockUpdateWheel(this.world, 100);
+        final LanternScheduledBlockUpdate update = wheel.schedule(location(0), 0, 1000);
+        update.setTicks(2);
+        assertEquals(2, update.getTicks());
+        assertTrue(wheel.poll().isEmpty());
+        assertEquals(Collections.singletonList(update), wheel.poll());
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.inventory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+import org.lanternpowered.server.data.DataQueries;
+import org.lanternpowered.server.data.io.store.item.ItemStackStore;
+import org.lanternpowered.server.item.LanternItemType;
+import org.spongepowered.api.block.BlockType;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.key.Keys;
+
+import java.util.Collections;
+import java.util.Set;
+
+public class LanternItemStackTest {
+
+    private final LanternItemType itemType = mock(LanternItemType.class);
+    private final Set<BlockType> blockTypes = Sets.newHashSet(mock(BlockType.class));
+
+    @Before
+    public void setup() {
+        when(this.itemType.getId()).thenReturn("lantern:test");
+        when(this.itemType.getMaxStackQuantity()).thenReturn(64);
+        when(this.itemType.getKeysProvider()).thenReturn(c -> {});
+    }
+
+    @Test
+    public void testDefaultStacks() {
+        final LanternItemStack itemStackA = new LanternItemStack(this.itemType);
+        final LanternItemStack itemStackB = new LanternItemStack(this.itemType);
+        assertEquals(Collections.emptySet(), itemStackA.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+        assertTrue(itemStackA.offer(Keys.BREAKABLE_BLOCK_TYPES, this.blockTypes).isSuccessful());
+        assertEquals(this.blockTypes, itemStackA.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+        assertEquals(Collections.emptySet(), itemStackB.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+        // The default data of the item type may not be modified
+        assertEquals(Collections.emptySet(), new LanternItemStack(this.itemType).get(Keys.BREAKABLE_BLOCK_TYPES).get());
+    }
+
+    @Test
+    public void testCopyOffer() {
+        final LanternItemStack itemStack = new LanternItemStack(this.itemType);
+        final LanternItemStack copy = itemStack.copy();
+        assertTrue(copy.offer(Keys.BREAKABLE_BLOCK_TYPES, this.blockTypes).isSuccessful());
+        assertEquals(this.blockTypes, copy.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+        assertEquals(Collections.emptySet(), itemStack.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+
+        // Modifying the original may not affect the copy either
+        final LanternItemStack copy2 = copy.copy();
+        assertTrue(copy.offer(Keys.BREAKABLE_BLOCK_TYPES, Collections.emptySet()).isSuccessful());
+        assertEquals(this.blockTypes, copy2.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+    }
+
+    @Test
+    public void testCopyRemove() {
+        final LanternItemStack itemStack = new LanternItemStack(this.itemType);
+        itemStack.offer(Keys.BREAKABLE_BLOCK_TYPES, this.blockTypes);
+        final LanternItemStack copy = itemStack.copy();
+        copy.remove(Keys.BREAKABLE_BLOCK_TYPES);
+        assertEquals(this.blockTypes, itemStack.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+    }
+
+    @Test
+    public void testSnapshot() {
+        final LanternItemStack itemStack = new LanternItemStack(this.itemType);
+        final LanternItemStackSnapshot snapshot = (LanternItemStackSnapshot) itemStack.createSnapshot();
+        itemStack.offer(Keys.BREAKABLE_BLOCK_TYPES, this.blockTypes);
+        assertEquals(Collections.emptySet(), snapshot.itemStack.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+    }
+
+    @Test
+    public void testCopySetRawData() {
+        final LanternItemStack other = new LanternItemStack(this.itemType);
+        other.offer(Keys.BREAKABLE_BLOCK_TYPES, this.blockTypes);
+        final DataContainer dataContainer = other.toContainer();
+        dataContainer.set(DataQueries.QUANTITY, 5);
+
+        final LanternItemStack itemStack = new LanternItemStack(this.itemType);
+        final LanternItemStack copy = itemStack.copy();
+        copy.setRawData(dataContainer);
+        assertEquals(5, copy.getQuantity());
+        assertEquals(this.blockTypes, copy.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+        assertEquals(1, itemStack.getQuantity());
+        assertEquals(Collections.emptySet(), itemStack.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+    }
+
+    @Test
+    public void testCopyStoreDeserialize() {
+        final LanternItemStack other = new LanternItemStack(this.itemType, 3);
+        other.offer(Keys.BREAKABLE_BLOCK_TYPES, this.blockTypes);
+        final DataContainer dataContainer = DataContainer.createNew();
+        ItemStackStore.INSTANCE.serialize(other, dataContainer);
+
+        final LanternItemStack itemStack = new LanternItemStack(this.itemType);
+        final LanternItemStack copy = itemStack.copy();
+        ItemStackStore.INSTANCE.deserialize(copy, dataContainer);
+        assertEquals(3, copy.getQuantity());
+        assertEquals(1, itemStack.getQuantity());
+        assertEquals(Collections.emptySet(), itemStack.get(Keys.BREAKABLE_BLOCK_TYPES).get());
+        assertEquals(Collections.emptySet(), new LanternItemStack(this.itemType).get(Keys.BREAKABLE_BLOCK_TYPES).get());
+    }
+}
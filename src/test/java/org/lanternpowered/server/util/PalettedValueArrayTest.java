@@ -0,0 +1,122 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.lanternpowered.server.util.collect.array.PalettedValueArray;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PalettedValueArrayTest {
+
+    private static final int CAPACITY = 4096;
+    private static final int GLOBAL_BITS = 13;
+
+    @Test
+    public void testLocalPalette() {
+        final PalettedValueArray array = new PalettedValueArray(CAPACITY, GLOBAL_BITS);
+        assertEquals(PalettedValueArray.MIN_BITS_PER_VALUE, array.getBitsPerValue());
+        for (int i = 0; i < CAPACITY; i++) {
+            array.set(i, (i % 20) * 16);
+        }
+        // 20 different values require 5 bits
+        assertEquals(5, array.getBitsPerValue());
+        assertNotNull(array.getPalette());
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEquals((i % 20) * 16, array.get(i));
+        }
+        assertEquals(20, array.getDistinctCount());
+    }
+
+    @Test
+    public void testGlobalPalette() {
+        final PalettedValueArray array = new PalettedValueArray(CAPACITY, GLOBAL_BITS);
+        for (int i = 0; i < CAPACITY; i++) {
+            array.set(i, i % 300);
+        }
+        assertEquals(GLOBAL_BITS, array.getBitsPerValue());
+        assertNull(array.getPalette());
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEquals(i % 300, array.get(i));
+        }
+    }
+
+    @Test
+    public void testReuseFreedIds() {
+        final PalettedValueArray array = new PalettedValueArray(CAPACITY, GLOBAL_BITS);
+        for (int value = 1; value < 1000; value++) {
+            array.set(0, value);
+            assertEquals(value, array.get(0));
+        }
+        // Only two values were present at the same time
+        assertEquals(PalettedValueArray.MIN_BITS_PER_VALUE, array.getBitsPerValue());
+        assertEquals(CAPACITY - 1, array.getCount(0));
+        assertEquals(1, array.getCount(999));
+    }
+
+    @Test
+    public void testCopy() {
+        final PalettedValueArray array = new PalettedValueArray(CAPACITY, GLOBAL_BITS);
+        array.set(10, 5);
+        final PalettedValueArray copy = array.copy();
+        array.set(10, 6);
+        assertEquals(5, copy.get(10));
+        assertEquals(6, array.get(10));
+    }
+
+    @Test
+    public void testConcurrentReadsDuringResize() throws Exception {
+        final PalettedValueArray array = new PalettedValueArray(CAPACITY, GLOBAL_BITS);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final Thread reader = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    for (int i = 0; i < CAPACITY; i++) {
+                        // Values may be stale, but may never fail
+                        array.get(i);
+                    }
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        reader.start();
+        // Grow through all the local palette sizes into the global palette
+        for (int i = 0; i < CAPACITY; i++) {
+            array.set(i, i % 1000);
+        }
+        running.set(false);
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(GLOBAL_BITS, array.getBitsPerValue());
+    }
+}
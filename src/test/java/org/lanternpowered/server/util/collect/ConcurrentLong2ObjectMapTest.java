@@ -0,0 +1,116 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+public class ConcurrentLong2ObjectMapTest {
+
+    private static final int COUNT = 1000;
+
+    @Test
+    public void testPutGetRemove() {
+        final ConcurrentLong2ObjectMap<String> map = new ConcurrentLong2ObjectMap<>();
+        for (long i = -COUNT; i < COUNT; i++) {
+            assertNull(map.put(i, "V" + i));
+        }
+        assertEquals(COUNT * 2, map.size());
+        for (long i = -COUNT; i < COUNT; i++) {
+            assertEquals("V" + i, map.get(i));
+        }
+        assertEquals("V5", map.put(5, "W5"));
+        assertEquals("W5", map.get(5));
+        assertEquals(COUNT * 2, map.size());
+        for (long i = -COUNT; i < COUNT; i += 2) {
+            assertTrue(map.containsKey(i));
+            map.remove(i);
+            assertFalse(map.containsKey(i));
+        }
+        assertEquals(COUNT, map.size());
+        assertNull(map.get(0));
+        assertEquals("V1", map.get(1));
+    }
+
+    @Test
+    public void testReuseRemovedSlots() {
+        final ConcurrentLong2ObjectMap<Long> map = new ConcurrentLong2ObjectMap<>(4);
+        for (long i = 0; i < COUNT * 10; i++) {
+            map.put(i, i);
+            assertEquals((Long) i, map.remove(i));
+        }
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+
+    @Test
+    public void testConditionalOperations() {
+        final ConcurrentLong2ObjectMap<String> map = new ConcurrentLong2ObjectMap<>();
+        assertNull(map.putIfAbsent(Long.MIN_VALUE, "A"));
+        assertEquals("A", map.putIfAbsent(Long.MIN_VALUE, "B"));
+        assertEquals("A", map.computeIfAbsent(Long.MIN_VALUE, key -> "C"));
+        assertEquals("D", map.computeIfAbsent(Long.MAX_VALUE, key -> "D"));
+        assertFalse(map.remove(Long.MIN_VALUE, "B"));
+        assertTrue(map.remove(Long.MIN_VALUE, "A"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testIteration() {
+        final ConcurrentLong2ObjectMap<Long> map = new ConcurrentLong2ObjectMap<>();
+        for (long i = 0; i < COUNT; i++) {
+            map.put(i * 31, i);
+        }
+        final Set<Long> keys = new HashSet<>();
+        map.forEach((value, key) -> {
+            assertEquals(value * 31, key);
+            keys.add(key);
+        });
+        assertEquals(COUNT, keys.size());
+
+        final Iterator<Long> it = map.values().iterator();
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(COUNT / 2, map.size());
+        for (Long value : map.values()) {
+            assertSame(value, map.get(value * 31));
+        }
+        map.clear();
+        assertTrue(map.values().isEmpty());
+    }
+}
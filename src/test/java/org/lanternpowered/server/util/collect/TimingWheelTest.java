@@ -0,0 +1,104 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util.collect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testExpireInOrder() {
+        testExpireInOrder(0L);
+        testExpireInOrder(-1000000L);
+        testExpireInOrder(Long.MAX_VALUE / 2);
+    }
+
+    private static void testExpireInOrder(long start) {
+        final TimingWheel<Long> wheel = new TimingWheel<>(start);
+        final Random random = new Random(start);
+        for (int i = 0; i < 10000; i++) {
+            final long delay = random.nextInt(4) == 0 ? random.nextInt(100) : random.nextInt(Integer.MAX_VALUE);
+            wheel.add(start + delay, start + delay);
+        }
+        assertEquals(10000, wheel.size());
+        final List<Long> expired = new ArrayList<>();
+        long time = start;
+        while (!wheel.isEmpty()) {
+            time += random.nextInt(1 << 24);
+            final long now = time;
+            wheel.advance(now, deadline -> {
+                assertTrue(deadline <= now);
+                expired.add(deadline);
+            });
+        }
+        assertEquals(10000, expired.size());
+        for (int i = 1; i < expired.size(); i++) {
+            assertTrue(expired.get(i - 1) <= expired.get(i));
+        }
+    }
+
+    @Test
+    public void testExactDeadline() {
+        final TimingWheel<String> wheel = new TimingWheel<>(0L);
+        wheel.add("A", 4097L);
+        final List<String> expired = new ArrayList<>();
+        wheel.advance(4096L, expired::add);
+        assertTrue(expired.isEmpty());
+        assertEquals(4097L, wheel.getNextTime());
+        wheel.advance(4097L, expired::add);
+        assertEquals(1, expired.size());
+        assertEquals(Long.MAX_VALUE, wheel.getNextTime());
+    }
+
+    @Test
+    public void testRemoveAndReschedule() {
+        final TimingWheel<String> wheel = new TimingWheel<>(0L);
+        final TimingWheel.Entry<String> a = wheel.add("A", 10L);
+        final TimingWheel.Entry<String> b = wheel.add("B", 100000L);
+        assertTrue(wheel.remove(a));
+        assertFalse(wheel.remove(a));
+        assertFalse(a.isScheduled());
+        wheel.reschedule(b, 5L);
+        assertFalse(new TimingWheel<String>(0L).remove(b));
+        assertEquals(1, wheel.size());
+        final List<String> expired = new ArrayList<>();
+        wheel.advance(200000L, expired::add);
+        assertEquals(1, expired.size());
+        assertEquals("B", expired.get(0));
+        assertTrue(wheel.isEmpty());
+        wheel.reschedule(a, 200000L);
+        wheel.advance(200000L, expired::add);
+        assertEquals("A", expired.get(1));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.util.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TopologicalOrderTest {
+
+    @Test
+    public void testLayeredLoad() {
+        final DirectedGraph<String> graph = new DirectedGraph<>();
+        // An edge points from a node to its dependency
+        graph.addEdge("item", "block");
+        graph.addEdge("item", "armor");
+        graph.addEdge("block", "key");
+        graph.addEdge("block", "block_state");
+        graph.addEdge("particle", "item");
+        graph.add("sound");
+
+        final List<List<String>> layers = TopologicalOrder.createLayeredLoad(graph);
+        assertEquals(4, layers.size());
+        assertEquals(4, layers.get(0).size());
+        assertTrue(layers.get(0).containsAll(Arrays.asList("armor", "key", "block_state", "sound")));
+        assertEquals(Arrays.asList("block"), layers.get(1));
+        assertEquals(Arrays.asList("item"), layers.get(2));
+        assertEquals(Arrays.asList("particle"), layers.get(3));
+        assertEquals(0, graph.getNodeCount());
+    }
+
+    @Test
+    public void testLayerAfterDeepestDependency() {
+        final DirectedGraph<String> graph = new DirectedGraph<>();
+        graph.addEdge("c", "b");
+        graph.addEdge("b", "a");
+        graph.addEdge("d", "a");
+        graph.addEdge("e", "c");
+        graph.addEdge("e", "d");
+
+        final List<List<String>> layers = TopologicalOrder.createLayeredLoad(graph);
+        assertEquals(Arrays.asList("a"), layers.get(0));
+        assertTrue(layers.get(1).containsAll(Arrays.asList("b", "d")));
+        assertEquals(Arrays.asList("c"), layers.get(2));
+        assertEquals(Arrays.asList("e"), layers.get(3));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCyclicGraph() {
+        final DirectedGraph<String> graph = new DirectedGraph<>();
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "a");
+        TopologicalOrder.createLayeredLoad(graph);
+    }
+}
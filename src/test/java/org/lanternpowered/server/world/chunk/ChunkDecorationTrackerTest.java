@@ -0,0 +1,87 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.flowpowered.math.vector.Vector2i;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class ChunkDecorationTrackerTest {
+
+    @Test
+    public void testNeighborhoodIsSymmetric() {
+        final Vector2i coords = new Vector2i(3, -7);
+        // Every chunk that decorates this chunk must include it in its decoration area
+        for (Vector2i decorating : ChunkDecorationTracker.getDecoratingChunks(coords)) {
+            assertTrue(Arrays.asList(ChunkDecorationTracker.getDecorationArea(decorating)).contains(coords));
+        }
+        // And every chunk within the decoration area must be decorated by this chunk
+        for (Vector2i area : ChunkDecorationTracker.getDecorationArea(coords)) {
+            assertTrue(Arrays.asList(ChunkDecorationTracker.getDecoratingChunks(area)).contains(coords));
+        }
+        assertEquals(coords, ChunkDecorationTracker.getDecorationArea(coords)[0]);
+        assertEquals(coords, ChunkDecorationTracker.getDecoratingChunks(coords)[0]);
+    }
+
+    @Test
+    public void testOverlappingDecorationIsDeferred() {
+        final ChunkDecorationTracker tracker = new ChunkDecorationTracker();
+        final Vector2i first = new Vector2i(0, 0);
+        final Vector2i overlapping = new Vector2i(1, 1);
+        assertTrue(tracker.tryStart(first));
+        for (Vector2i area : ChunkDecorationTracker.getDecorationArea(first)) {
+            assertTrue(tracker.isDecorating(area));
+        }
+        // Shares chunk (1, 1) with the first decoration
+        assertFalse(tracker.tryStart(overlapping));
+        assertFalse(tracker.isDecorating(new Vector2i(2, 2)));
+        final List<Vector2i> deferred = tracker.finish(first);
+        assertEquals(Collections.singletonList(overlapping), deferred);
+        for (Vector2i area : ChunkDecorationTracker.getDecorationArea(first)) {
+            assertFalse(tracker.isDecorating(area));
+        }
+        assertTrue(tracker.tryStart(overlapping));
+        assertTrue(tracker.finish(overlapping).isEmpty());
+    }
+
+    @Test
+    public void testDisjointDecorationsRunConcurrently() {
+        final ChunkDecorationTracker tracker = new ChunkDecorationTracker();
+        assertTrue(tracker.tryStart(new Vector2i(0, 0)));
+        assertTrue(tracker.tryStart(new Vector2i(2, 0)));
+        assertTrue(tracker.tryStart(new Vector2i(0, 2)));
+        assertTrue(tracker.finish(new Vector2i(0, 0)).isEmpty());
+        assertTrue(tracker.finish(new Vector2i(2, 0)).isEmpty());
+        assertTrue(tracker.finish(new Vector2i(0, 2)).isEmpty());
+    }
+}
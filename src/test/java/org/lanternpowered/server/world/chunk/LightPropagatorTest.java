@@ -0,0 +1,239 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.chunk;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class LightPropagatorTest {
+
+    private static final int HEIGHT = LanternChunk.CHUNK_HEIGHT;
+
+    /**
+     * A volume that stores the opacity, emission and
+     * light of every block in chunk columns.
+     */
+    private static final class TestVolume implements LightPropagator.Volume {
+
+        private static final class Column {
+
+            final byte[] opacity = new byte[16 * HEIGHT * 16];
+            final byte[] emission = new byte[16 * HEIGHT * 16];
+            final byte[] skyLight = new byte[16 * HEIGHT * 16];
+            final byte[] blockLight = new byte[16 * HEIGHT * 16];
+            boolean available = true;
+        }
+
+        private final Map<Long, Column> columns = new HashMap<>();
+
+        Column addColumn(int chunkX, int chunkZ, boolean openSky) {
+            final Column column = new Column();
+            if (openSky) {
+                Arrays.fill(column.skyLight, (byte) LightPropagator.MAX_LIGHT);
+            }
+            this.columns.put(key(chunkX, chunkZ), column);
+            return column;
+        }
+
+        private static long key(int chunkX, int chunkZ) {
+            return ((long) chunkX << 32) | (chunkZ & 0xffffffffL);
+        }
+
+        private static int index(int x, int y, int z) {
+            return (y << 8) | ((z & 0xf) << 4) | (x & 0xf);
+        }
+
+        private Column getColumn(int x, int z) {
+            final Column column = this.columns.get(key(x >> 4, z >> 4));
+            return column != null && column.available ? column : null;
+        }
+
+        void setBlock(int x, int y, int z, int opacity, int emission) {
+            final Column column = getColumn(x, z);
+            column.opacity[index(x, y, z)] = (byte) opacity;
+            column.emission[index(x, y, z)] = (byte) emission;
+        }
+
+        @Override
+        public boolean isAvailable(int x, int z) {
+            return getColumn(x, z) != null;
+        }
+
+        @Override
+        public int getOpacity(int x, int y, int z) {
+            return getColumn(x, z).opacity[index(x, y, z)];
+        }
+
+        @Override
+        public int getEmission(int x, int y, int z) {
+            return getColumn(x, z).emission[index(x, y, z)];
+        }
+
+        @Override
+        public int getLight(int x, int y, int z, boolean sky) {
+            final Column column = getColumn(x, z);
+            return (sky ? column.skyLight : column.blockLight)[index(x, y, z)];
+        }
+
+        @Override
+        public boolean setLight(int x, int y, int z, int level, boolean sky) {
+            final Column column = getColumn(x, z);
+            (sky ? column.skyLight : column.blockLight)[index(x, y, z)] = (byte) level;
+            return true;
+        }
+    }
+
+    private static void change(TestVolume volume, LightPropagator propagator, int x, int y, int z,
+            int opacity, int emission, boolean sky) {
+        volume.setBlock(x, y, z, opacity, emission);
+        propagator.queueChange(x, y, z, sky);
+        propagator.process(sky);
+    }
+
+    @Test
+    public void testSkyLightWithinChunk() {
+        final TestVolume volume = new TestVolume();
+        volume.addColumn(0, 0, true);
+        final LightPropagator propagator = new LightPropagator(volume);
+
+        change(volume, propagator, 8, 100, 8, LightPropagator.MAX_LIGHT, 0, true);
+        assertEquals(0, volume.getLight(8, 100, 8, true));
+        // The shadow is lit from the sides
+        assertEquals(14, volume.getLight(8, 99, 8, true));
+        assertEquals(14, volume.getLight(8, 50, 8, true));
+        assertEquals(15, volume.getLight(7, 99, 8, true));
+
+        change(volume, propagator, 8, 100, 8, 0, 0, true);
+        assertEquals(15, volume.getLight(8, 100, 8, true));
+        assertEquals(15, volume.getLight(8, 99, 8, true));
+        assertEquals(15, volume.getLight(8, 50, 8, true));
+    }
+
+    @Test
+    public void testSkyLightAcrossBorder() {
+        final TestVolume volume = new TestVolume();
+        volume.addColumn(0, 0, true);
+        volume.addColumn(1, 0, true);
+        final LightPropagator propagator = new LightPropagator(volume);
+
+        // Cover the whole first chunk with a roof, it can only be lit through the second chunk
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                volume.setBlock(x, 200, z, LightPropagator.MAX_LIGHT, 0);
+                propagator.queueChange(x, 200, z, true);
+            }
+        }
+        propagator.process(true);
+        for (int x = 0; x < 16; x++) {
+            assertEquals(Math.max(0, x - 1), volume.getLight(x, 150, 8, true));
+        }
+        assertEquals(15, volume.getLight(16, 150, 8, true));
+
+        // Remove the roof again
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                volume.setBlock(x, 200, z, 0, 0);
+                propagator.queueChange(x, 200, z, true);
+            }
+        }
+        propagator.process(true);
+        for (int x = 0; x < 16; x++) {
+            assertEquals(15, volume.getLight(x, 150, 8, true));
+        }
+    }
+
+    @Test
+    public void testBlockLightWithinChunk() {
+        final TestVolume volume = new TestVolume();
+        volume.addColumn(0, 0, false);
+        final LightPropagator propagator = new LightPropagator(volume);
+
+        change(volume, propagator, 8, 64, 8, 0, 14, false);
+        assertEquals(14, volume.getLight(8, 64, 8, false));
+        assertEquals(13, volume.getLight(9, 64, 8, false));
+        assertEquals(11, volume.getLight(9, 65, 9, false));
+        // Opaque blocks block the light
+        change(volume, propagator, 10, 64, 8, LightPropagator.MAX_LIGHT, 0, false);
+        assertEquals(0, volume.getLight(10, 64, 8, false));
+        // The light has to go around the opaque block
+        assertEquals(9, volume.getLight(11, 64, 8, false));
+
+        change(volume, propagator, 8, 64, 8, 0, 0, false);
+        for (int x = 0; x < 16; x++) {
+            assertEquals(0, volume.getLight(x, 64, 8, false));
+        }
+        assertEquals(0, volume.getLight(8, 65, 8, false));
+    }
+
+    @Test
+    public void testBlockLightAcrossBorder() {
+        final TestVolume volume = new TestVolume();
+        volume.addColumn(0, 0, false);
+        volume.addColumn(1, 0, false);
+        final LightPropagator propagator = new LightPropagator(volume);
+
+        change(volume, propagator, 14, 64, 8, 0, 14, false);
+        assertEquals(13, volume.getLight(15, 64, 8, false));
+        assertEquals(12, volume.getLight(16, 64, 8, false));
+        assertEquals(8, volume.getLight(20, 64, 8, false));
+
+        change(volume, propagator, 14, 64, 8, 0, 0, false);
+        assertEquals(0, volume.getLight(15, 64, 8, false));
+        assertEquals(0, volume.getLight(16, 64, 8, false));
+        assertEquals(0, volume.getLight(20, 64, 8, false));
+    }
+
+    @Test
+    public void testSpreadIntoLoadedNeighbor() {
+        final TestVolume volume = new TestVolume();
+        volume.addColumn(0, 0, false);
+        final TestVolume.Column neighbor = volume.addColumn(1, 0, false);
+        neighbor.available = false;
+        final LightPropagator propagator = new LightPropagator(volume);
+
+        // The light is initialized while the neighbor isn't available
+        change(volume, propagator, 14, 64, 8, 0, 14, false);
+        assertEquals(13, volume.getLight(15, 64, 8, false));
+
+        // Spread the border once the neighbor is loaded
+        neighbor.available = true;
+        assertEquals(0, volume.getLight(16, 64, 8, false));
+        for (int z = 0; z < 16; z++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                propagator.queueSpread(15, y, z, false);
+                propagator.queueSpread(16, y, z, false);
+            }
+        }
+        propagator.process(false);
+        assertEquals(12, volume.getLight(16, 64, 8, false));
+        assertEquals(8, volume.getLight(20, 64, 8, false));
+    }
+}
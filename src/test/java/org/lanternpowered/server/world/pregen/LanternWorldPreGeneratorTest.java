@@ -0,0 +1,81 @@
+/*
+ * This file is part of LanternServer, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) LanternPowered <https://www.lanternpowered.org>
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the Software), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.lanternpowered.server.world.pregen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.flowpowered.math.vector.Vector2i;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class LanternWorldPreGeneratorTest {
+
+    @Test
+    public void testCenter() {
+        assertEquals(Vector2i.ZERO, LanternWorldPreGenerator.getSpiralOffset(0));
+    }
+
+    @Test
+    public void testRingsCoverArea() {
+        final int radius = 20;
+        final Set<Vector2i> offsets = new HashSet<>();
+        for (int ring = 0; ring <= radius; ring++) {
+            final long diameter = ring * 2L + 1L;
+            final long start = ring == 0 ? 0 : (diameter - 2) * (diameter - 2);
+            for (long index = start; index < diameter * diameter; index++) {
+                final Vector2i offset = LanternWorldPreGenerator.getSpiralOffset(index);
+                // Every index of the ring must be on the ring
+                assertEquals(ring, Math.max(Math.abs(offset.getX()), Math.abs(offset.getY())));
+                assertTrue("Duplicate offset " + offset, offsets.add(offset));
+            }
+        }
+        final long diameter = radius * 2L + 1L;
+        assertEquals(diameter * diameter, offsets.size());
+    }
+
+    @Test
+    public void testConsecutiveIndexesAreAdjacent() {
+        Vector2i last = LanternWorldPreGenerator.getSpiralOffset(0);
+        for (long index = 1; index < 10000; index++) {
+            final Vector2i offset = LanternWorldPreGenerator.getSpiralOffset(index);
+            assertEquals(1, Math.abs(offset.getX() - last.getX()) + Math.abs(offset.getY() - last.getY()));
+            last = offset;
+        }
+    }
+
+    @Test
+    public void testLargeIndexes() {
+        // Ring boundaries where floating point errors could pick the wrong ring
+        for (int ring = 1000000; ring < 1000100; ring++) {
+            final long start = (2L * ring - 1) * (2L * ring - 1);
+            assertEquals(new Vector2i(ring, -ring + 1), LanternWorldPreGenerator.getSpiralOffset(start));
+            assertEquals(new Vector2i(ring - 1, -ring + 1), LanternWorldPreGenerator.getSpiralOffset(start - 1));
+        }
+    }
+}